@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * A {@link Value} holding a {@code boolean}.
+ */
+final class BooleanValue extends PrimitiveValue {
+
+  private static final long serialVersionUID = -4914707185460838520L;
+
+  private final boolean value;
+
+  BooleanValue(@NotNull ValueType valueType, boolean value) {
+    super(valueType);
+    this.value = value;
+  }
+
+  @NotNull
+  @Override
+  Object getPayload() {
+    return value;
+  }
+
+  @Override
+  int getPayloadHashCode() {
+    return Boolean.hashCode(value);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if(obj instanceof BooleanValue) {
+      return value == ((BooleanValue) obj).value && getValueType().equals(((Value) obj).getValueType());
+    }
+    return super.equals(obj);
+  }
+
+  @Override
+  public int compareTo(Value o) {
+    return isComparable(o) ? Boolean.compare(value, ((BooleanValue) o).value) : super.compareTo(o);
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Immutable lookup structures over the categories of a variable: the categories by ordinal (their position in the
+ * variable), the ordinals by category name and by category value, and the ordinals of the missing categories.
+ * <p>
+ * A category name that is not a valid value of the variable's type is not indexed by value. When several category
+ * names have the same value (e.g. "1" and "01" for an integer variable), the first category wins.
+ */
+final class CategoryIndex {
+
+  private final Category[] categories;
+
+  private final Map<String, Integer> ordinalsByName;
+
+  private final Map<Value, Integer> ordinalsByValue;
+
+  private final BitSet missing;
+
+  CategoryIndex(Collection<Category> categories, @Nullable ValueType valueType) {
+    this.categories = categories.toArray(new Category[categories.size()]);
+    ordinalsByName = Maps.newHashMapWithExpectedSize(this.categories.length);
+    ordinalsByValue = Maps.newHashMapWithExpectedSize(this.categories.length);
+    missing = new BitSet(this.categories.length);
+    for(int ordinal = 0; ordinal < this.categories.length; ordinal++) {
+      Category category = this.categories[ordinal];
+      ordinalsByName.putIfAbsent(category.getName(), ordinal);
+      if(category.isMissing()) missing.set(ordinal);
+      if(valueType != null && category.getName() != null) {
+        Value value = valueOf(valueType, category.getName());
+        if(value != null) ordinalsByValue.putIfAbsent(value, ordinal);
+      }
+    }
+  }
+
+  @Nullable
+  Category getCategory(int ordinal) {
+    return ordinal < 0 ? null : categories[ordinal];
+  }
+
+  int getOrdinal(@Nullable String name) {
+    Integer ordinal = ordinalsByName.get(name);
+    return ordinal == null ? -1 : ordinal;
+  }
+
+  int getOrdinal(Value value) {
+    if(value.isNull() || value.isSequence()) return -1;
+    Integer ordinal = ordinalsByValue.get(value);
+    return ordinal == null ? -1 : ordinal;
+  }
+
+  boolean isMissing(int ordinal) {
+    return ordinal >= 0 && missing.get(ordinal);
+  }
+
+  boolean isAllMissing() {
+    return missing.cardinality() == categories.length;
+  }
+
+  @Nullable
+  private static Value valueOf(ValueType valueType, String name) {
+    try {
+      return valueType.valueOf(name);
+    } catch(RuntimeException e) {
+      return null;
+    }
+  }
+}
@@ -13,6 +13,8 @@ package org.obiba.magma;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
@@ -24,19 +26,24 @@ import org.obiba.magma.support.ValueTableReference;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 
+/**
+ * Registry of the datasources of the {@link MagmaEngine}. Datasources are held in an immutable map that is copied when
+ * a datasource is added or removed: lookups, which are much more frequent (every table or variable reference is
+ * resolved through the registry), are lock-free.
+ */
 public class DefaultDatasourceRegistry implements DatasourceRegistry, Disposable {
 
-  private final Map<String, Datasource> datasources = Maps.newHashMap();
+  private volatile ImmutableMap<String, Datasource> datasources = ImmutableMap.of();
 
-  private final Map<String, DatasourceFactory> transientDatasourceFactories = Maps.newHashMap();
+  private final Map<String, DatasourceFactory> transientDatasourceFactories = new ConcurrentHashMap<>();
 
-  private final Map<String, Datasource> transientDatasources = Maps.newHashMap();
+  private final Map<String, Datasource> transientDatasources = new ConcurrentHashMap<>();
 
-  private final Set<Decorator<Datasource>> decorators = Sets.newHashSet();
+  private final Set<Decorator<Datasource>> decorators = new CopyOnWriteArraySet<>();
 
   @Override
   public void dispose() {
@@ -70,23 +77,25 @@ public class DefaultDatasourceRegistry implements DatasourceRegistry, Disposable
 
   @Override
   public boolean hasDatasource(String name) {
-    return datasources.containsKey(name);
+    return name != null && datasources.containsKey(name);
   }
 
   @SuppressWarnings("ConstantConditions")
   @Override
-  public void addDecorator(@NotNull Decorator<Datasource> decorator) {
+  public synchronized void addDecorator(@NotNull Decorator<Datasource> decorator) {
     if(decorator == null) throw new MagmaRuntimeException("decorator cannot be null.");
     Initialisables.initialise(decorator);
     decorators.add(decorator);
 
+    Map<String, Datasource> decorated = Maps.newLinkedHashMap();
     for(Datasource datasource : datasources.values()) {
-      datasources.put(datasource.getName(), decorator.decorate(datasource));
+      decorated.put(datasource.getName(), decorator.decorate(datasource));
     }
+    datasources = ImmutableMap.copyOf(decorated);
   }
 
   @Override
-  public Datasource addDatasource(Datasource datasource) {
+  public synchronized Datasource addDatasource(Datasource datasource) {
     // Repeatedly added datasources are silently ignored. They cannot be added to the set more than once.
     if(!datasources.containsValue(datasource)) {
       Datasource existing = datasources.get(datasource.getName());
@@ -97,7 +106,8 @@ public class DefaultDatasourceRegistry implements DatasourceRegistry, Disposable
 
       Datasource decorated = decorateDatasource(datasource);
       Initialisables.initialise(decorated);
-      datasources.put(decorated.getName(), decorated);
+      datasources = ImmutableMap.<String, Datasource>builder().putAll(datasources).put(decorated.getName(), decorated)
+          .build();
       return decorated;
     }
     return datasource;
@@ -126,7 +136,11 @@ public class DefaultDatasourceRegistry implements DatasourceRegistry, Disposable
   @Override
   public void removeDatasource(Datasource datasource) {
     releaseDatasource(datasource);
-    datasources.remove(datasource.getName());
+    synchronized(this) {
+      Map<String, Datasource> remaining = Maps.newLinkedHashMap(datasources);
+      remaining.remove(datasource.getName());
+      datasources = ImmutableMap.copyOf(remaining);
+    }
     Disposables.silentlyDispose(datasource);
   }
 
@@ -137,7 +151,7 @@ public class DefaultDatasourceRegistry implements DatasourceRegistry, Disposable
    * @return a unique identifier that can be used to obtain the registered factory
    */
   @Override
-  public String addTransientDatasource(DatasourceFactory factory) {
+  public synchronized String addTransientDatasource(DatasourceFactory factory) {
     String uid = randomTransientDatasourceName();
     while(hasTransientDatasource(uid)) {
       uid = randomTransientDatasourceName();
@@ -156,7 +170,7 @@ public class DefaultDatasourceRegistry implements DatasourceRegistry, Disposable
    */
   @Override
   public boolean hasTransientDatasource(String uid) {
-    return transientDatasourceFactories.containsKey(uid);
+    return uid != null && transientDatasourceFactories.containsKey(uid);
   }
 
   /**
@@ -166,16 +180,15 @@ public class DefaultDatasourceRegistry implements DatasourceRegistry, Disposable
    */
   @Override
   public void removeTransientDatasource(@Nullable String uid) {
-    DatasourceFactory factory = transientDatasourceFactories.get(uid);
+    if(uid == null) return;
+    DatasourceFactory factory = transientDatasourceFactories.remove(uid);
     if(factory != null) {
       Disposables.silentlyDispose(factory);
-      transientDatasourceFactories.remove(uid);
     }
-    Datasource datasource = transientDatasources.get(uid);
+    Datasource datasource = transientDatasources.remove(uid);
     if(datasource != null) {
       releaseDatasource(datasource);
       Disposables.silentlyDispose(datasource);
-      transientDatasources.remove(uid);
     }
   }
 
@@ -187,7 +200,7 @@ public class DefaultDatasourceRegistry implements DatasourceRegistry, Disposable
    * @return datasource item
    */
   @Override
-  public Datasource getTransientDatasourceInstance(String uid) {
+  public synchronized Datasource getTransientDatasourceInstance(String uid) {
     Preconditions.checkArgument(!Strings.isNullOrEmpty(uid), "uid cannot be null or empty");
     DatasourceFactory factory = transientDatasourceFactories.get(uid);
     if(factory == null) {
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * A {@link Value} holding a {@code double}.
+ */
+final class DoubleValue extends PrimitiveValue {
+
+  private static final long serialVersionUID = -6195013290232407129L;
+
+  private final double value;
+
+  DoubleValue(@NotNull ValueType valueType, double value) {
+    super(valueType);
+    this.value = value;
+  }
+
+  @NotNull
+  @Override
+  Object getPayload() {
+    return value;
+  }
+
+  @Override
+  int getPayloadHashCode() {
+    return Double.hashCode(value);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if(obj instanceof DoubleValue) {
+      // same as Double.equals()
+      return Double.doubleToLongBits(value) == Double.doubleToLongBits(((DoubleValue) obj).value) &&
+          getValueType().equals(((Value) obj).getValueType());
+    }
+    return super.equals(obj);
+  }
+
+  @Override
+  public int compareTo(Value o) {
+    return isComparable(o) ? Double.compare(value, ((DoubleValue) o).value) : super.compareTo(o);
+  }
+}
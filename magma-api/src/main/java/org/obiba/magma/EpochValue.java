@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma;
+
+import java.util.Date;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * A {@link Value} holding a {@link Date} as milliseconds since the epoch. A new {@link Date} is returned on each
+ * {@link #getValue()}, so that the value cannot be modified.
+ */
+final class EpochValue extends PrimitiveValue {
+
+  private static final long serialVersionUID = 5106620468394424474L;
+
+  private final long time;
+
+  EpochValue(@NotNull ValueType valueType, long time) {
+    super(valueType);
+    this.time = time;
+  }
+
+  @NotNull
+  @Override
+  Object getPayload() {
+    return new Date(time);
+  }
+
+  @Override
+  int getPayloadHashCode() {
+    // same as Date.hashCode()
+    return Long.hashCode(time);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if(obj instanceof EpochValue) {
+      return time == ((EpochValue) obj).time && getValueType().equals(((Value) obj).getValueType());
+    }
+    return super.equals(obj);
+  }
+
+  @Override
+  public int compareTo(Value o) {
+    return isComparable(o) ? Long.compare(time, ((EpochValue) o).time) : super.compareTo(o);
+  }
+}
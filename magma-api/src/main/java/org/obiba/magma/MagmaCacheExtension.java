@@ -10,6 +10,7 @@
 
 package org.obiba.magma;
 
+import org.obiba.magma.support.SharedValueSetCache;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 
@@ -19,6 +20,8 @@ public class MagmaCacheExtension implements MagmaEngineExtension {
 
   private transient CacheManager cacheManager;
 
+  private transient SharedValueSetCache sharedValueSetCache;
+
   public MagmaCacheExtension() {
   }
 
@@ -63,4 +66,21 @@ public class MagmaCacheExtension implements MagmaEngineExtension {
   public void setCacheManager(CacheManager cacheManager) {
     this.cacheManager = cacheManager;
   }
+
+  /**
+   * Whether the value sets read by batch from the source tables are shared by their readers.
+   *
+   * @return
+   */
+  public boolean hasSharedValueSetCache() {
+    return sharedValueSetCache != null;
+  }
+
+  public SharedValueSetCache getSharedValueSetCache() {
+    return sharedValueSetCache;
+  }
+
+  public void setSharedValueSetCache(SharedValueSetCache sharedValueSetCache) {
+    this.sharedValueSetCache = sharedValueSetCache;
+  }
 }
@@ -20,6 +20,8 @@ import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
 
 import org.obiba.magma.concurrent.LockManager;
+import org.obiba.magma.metrics.MetricsRegistry;
+import org.obiba.magma.metrics.NoOpMetricsRegistry;
 import org.obiba.magma.support.Disposables;
 import org.obiba.magma.support.Initialisables;
 import org.obiba.magma.support.ValueTableReference;
@@ -53,6 +55,8 @@ public class MagmaEngine implements DatasourceRegistry {
 
   private final LockManager lockManager = new LockManager();
 
+  private volatile MetricsRegistry metricsRegistry = NoOpMetricsRegistry.get();
+
   public MagmaEngine() {
     if(instance != null) {
       throw new IllegalStateException(
@@ -83,6 +87,9 @@ public class MagmaEngine implements DatasourceRegistry {
     if(!hasExtension(extension.getClass())) {
       Initialisables.initialise(extension);
       extensions.add(extension);
+      if(extension instanceof MagmaMetricsExtension) {
+        metricsRegistry = ((MagmaMetricsExtension) extension).getRegistry();
+      }
     }
     return this;
   }
@@ -118,6 +125,14 @@ public class MagmaEngine implements DatasourceRegistry {
     }
   }
 
+  /**
+   * Returns the registry of the {@link MagmaMetricsExtension}, or a disabled one if this extension is not registered.
+   */
+  @NotNull
+  public MetricsRegistry getMetricsRegistry() {
+    return metricsRegistry;
+  }
+
   public DatasourceRegistry getDatasourceRegistry() {
     return datasourceRegistry;
   }
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma;
+
+import org.obiba.magma.metrics.InMemoryMetricsRegistry;
+import org.obiba.magma.metrics.MetricsRegistry;
+
+/**
+ * Enables the metrics of Magma hot paths (value set batches, vector reads, script and where clause evaluations, cache
+ * hits and misses, writer flushes). Metrics are kept in memory unless another {@link MetricsRegistry} is provided, for
+ * instance one that bridges to the monitoring library of the application.
+ */
+public class MagmaMetricsExtension implements MagmaEngineExtension {
+
+  private static final long serialVersionUID = -2718304471922358630L;
+
+  private transient MetricsRegistry registry;
+
+  public MagmaMetricsExtension() {
+  }
+
+  public MagmaMetricsExtension(MetricsRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public String getName() {
+    return "magma-metrics";
+  }
+
+  @Override
+  public void initialise() {
+    if(registry == null) registry = new InMemoryMetricsRegistry();
+  }
+
+  public MetricsRegistry getRegistry() {
+    return registry;
+  }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma;
+
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * A non null {@link Value} which payload is a primitive held by the value itself, without a {@link ValueLoader}: it
+ * costs one object instead of a value, a loader and a boxed payload. The payload is boxed on {@link #getValue()} only.
+ * <p>
+ * Equality, hash code and order are the same as for a {@link Value} with the boxed payload, and are computed on the
+ * primitives when both values are held the same way.
+ */
+abstract class PrimitiveValue extends Value {
+
+  private static final long serialVersionUID = -3431405066718395232L;
+
+  PrimitiveValue(@NotNull ValueType valueType) {
+    super(valueType);
+  }
+
+  /**
+   * Hash code of the boxed payload, computed without boxing it.
+   *
+   * @return
+   */
+  abstract int getPayloadHashCode();
+
+  @NotNull
+  @Override
+  public Object getValue() {
+    return getPayload();
+  }
+
+  @NotNull
+  @Override
+  public Value copy() {
+    // immutable
+    return this;
+  }
+
+  @Override
+  public boolean isNull() {
+    return false;
+  }
+
+  @Override
+  public boolean isStreamable() {
+    return false;
+  }
+
+  @NotNull
+  @Override
+  public InputStream getStream() {
+    throw new UnsupportedOperationException("Value cannot be streamed: " + getPayload().getClass().getName());
+  }
+
+  @NotNull
+  @Override
+  public ReadableByteChannel getChannel() {
+    throw new UnsupportedOperationException("Value cannot be streamed: " + getPayload().getClass().getName());
+  }
+
+  @Override
+  public long getLength() {
+    String str = toString();
+    return str == null ? 0 : str.length();
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode(getPayloadHashCode(), getValueType());
+  }
+
+  /**
+   * Whether the order of the payloads can be used, instead of the one of the value type.
+   *
+   * @param other
+   * @return
+   */
+  boolean isComparable(Value other) {
+    return other.getClass() == getClass() && other.getValueType() == getValueType();
+  }
+}
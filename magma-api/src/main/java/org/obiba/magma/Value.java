@@ -12,7 +12,9 @@ package org.obiba.magma;
 
 import com.google.common.collect.Lists;
 
+import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.channels.ReadableByteChannel;
 
 import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
@@ -26,7 +28,9 @@ public class Value implements Serializable, Comparable<Value> {
   @NotNull
   private final ValueType valueType;
 
-  @NotNull
+  /**
+   * Null for the values which payload is held by a subclass (see {@link PrimitiveValue}).
+   */
   private final ValueLoader valueLoader;
 
   private transient int hashCode;
@@ -42,6 +46,18 @@ public class Value implements Serializable, Comparable<Value> {
     this.valueLoader = valueLoader == null ? new StaticValueLoader(null) : valueLoader;
   }
 
+  /**
+   * For the subclasses that hold their payload themselves and override the accessors of the value loader.
+   *
+   * @param valueType
+   */
+  @SuppressWarnings("ConstantConditions")
+  Value(@NotNull ValueType valueType) {
+    if(valueType == null) throw new IllegalArgumentException("valueType cannot be null");
+    this.valueType = valueType;
+    valueLoader = null;
+  }
+
   @NotNull
   public Value copy() {
     return valueType.valueOf(valueLoader.getValue());
@@ -60,10 +76,55 @@ public class Value implements Serializable, Comparable<Value> {
     return valueLoader.getValue();
   }
 
+  /**
+   * The value, or a marker object when the value is null.
+   *
+   * @return
+   */
+  @NotNull
+  Object getPayload() {
+    return valueLoader.getValue();
+  }
+
   public boolean isNull() {
     return valueLoader.isNull();
   }
 
+  /**
+   * Returns true when the value can be read from its reference as a stream, without being loaded in memory.
+   *
+   * @return
+   */
+  public boolean isStreamable() {
+    return !isNull() && valueLoader.isStreamable();
+  }
+
+  /**
+   * Open a stream on a binary value, see {@link ValueLoader#getStream()}.
+   *
+   * @return
+   */
+  @NotNull
+  public InputStream getStream() {
+    if(isNull()) {
+      throw new NullPointerException("Value is null");
+    }
+    return valueLoader.getStream();
+  }
+
+  /**
+   * Open a channel on a binary value, see {@link ValueLoader#getChannel()}.
+   *
+   * @return
+   */
+  @NotNull
+  public ReadableByteChannel getChannel() {
+    if(isNull()) {
+      throw new NullPointerException("Value is null");
+    }
+    return valueLoader.getChannel();
+  }
+
   public long getLength() {
     if(isNull()) return 0;
     try {
@@ -109,17 +170,18 @@ public class Value implements Serializable, Comparable<Value> {
     if(this == obj) {
       return true;
     }
-    if(obj == null) {
-      return false;
-    }
-    if(getClass() != obj.getClass()) {
+    if(!(obj instanceof Value)) {
       return false;
     }
 
     Value other = (Value) obj;
+    // values and sequences are never equal, whatever the class that holds the payload
+    if(isSequence() != other.isSequence()) {
+      return false;
+    }
     // Shortcut
-    Object val = valueLoader.getValue();
-    Object otherVal = other.valueLoader.getValue();
+    Object val = getPayload();
+    Object otherVal = other.getPayload();
     //noinspection SimplifiableIfStatement
     if(val == otherVal) {
       return true;
@@ -130,15 +192,23 @@ public class Value implements Serializable, Comparable<Value> {
   @Override
   public int hashCode() {
     if(hashCode == 0) {
-      int prime = 31;
-      int result = 1;
-      result = prime * result + valueLoader.getValue().hashCode();
-      result = prime * result + valueType.hashCode();
-      hashCode = result;
+      hashCode = hashCode(getPayload().hashCode(), valueType);
     }
     return hashCode;
   }
 
+  /**
+   * The hash code of a value, given the hash code of its payload, so that all the representations of a value have the
+   * same hash code.
+   */
+  static int hashCode(int payloadHashCode, ValueType valueType) {
+    int prime = 31;
+    int result = 1;
+    result = prime * result + payloadHashCode;
+    result = prime * result + valueType.hashCode();
+    return result;
+  }
+
   @Override
   public int compareTo(Value o) {
     return valueType.compare(this, o);
@@ -9,7 +9,11 @@
  */
 package org.obiba.magma;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 
 import javax.validation.constraints.NotNull;
 
@@ -40,4 +44,40 @@ public interface ValueLoader extends Serializable {
    */
   long getLength();
 
+  /**
+   * Check if the value can be read from its reference as a stream, without being loaded in memory.
+   *
+   * @return
+   */
+  default boolean isStreamable() {
+    return false;
+  }
+
+  /**
+   * Open a stream on the value, which length is given by {@link #getLength()}. The caller is responsible for closing
+   * it. Default implementation wraps the loaded value when it is a byte array.
+   *
+   * @return
+   * @throws UnsupportedOperationException if the value is not a byte array
+   */
+  @NotNull
+  default InputStream getStream() {
+    Object value = getValue();
+    if(value instanceof byte[]) return new ByteArrayInputStream((byte[]) value);
+    throw new UnsupportedOperationException("Value cannot be streamed: " + value.getClass().getName());
+  }
+
+  /**
+   * Open a channel on the value, which length is given by {@link #getLength()}. The caller is responsible for closing
+   * it. Loaders backed by a file should return a {@link java.nio.channels.FileChannel} so that copies can be done
+   * without going through the heap.
+   *
+   * @return
+   * @throws UnsupportedOperationException if the value cannot be streamed
+   */
+  @NotNull
+  default ReadableByteChannel getChannel() {
+    return Channels.newChannel(getStream());
+  }
+
 }
@@ -10,8 +10,12 @@
 
 package org.obiba.magma;
 
+import org.obiba.magma.support.ValueSetSpliterator;
+
 import javax.validation.constraints.NotNull;
 import java.util.List;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Represent the dataset and gives access to the variables and the entities.
@@ -106,6 +110,16 @@ public interface ValueTable extends Timestamped {
    */
   Iterable<ValueSet> getValueSets(Iterable<VariableEntity> entities);
 
+  /**
+   * Stream the value sets by pages of entities, each page being read in one batch. The size of the stream is estimated
+   * from the entity count and the stream can be made parallel, in which case the pages are read concurrently.
+   *
+   * @return
+   */
+  default Stream<ValueSet> valueSetStream() {
+    return StreamSupport.stream(new ValueSetSpliterator(this), false);
+  }
+
   /**
    * Summary of value sets.
    *
@@ -193,6 +207,39 @@ public interface ValueTable extends Timestamped {
    */
   Value getValue(Variable variable, ValueSet valueSet);
 
+  /**
+   * Get the values of several variables for a list of entities: {@code values[i][j]} is the value of
+   * {@code variables.get(i)} for {@code entities.get(j)}. The values of a variable which value source does not support
+   * vectors are not read: {@code values[i]} is null.
+   * <p/>
+   * The default implementation reads the vector of each variable. Tables that can read several variables at once should
+   * override it.
+   *
+   * @param entities
+   * @param variables
+   * @return
+   */
+  default Value[][] getValues(List<VariableEntity> entities, List<Variable> variables) {
+    Value[][] values = new Value[variables.size()][];
+    for(int i = 0; i < values.length; i++) {
+      VariableValueSource source = getVariableValueSource(variables.get(i).getName());
+      if(!source.supportVectorSource()) continue;
+      Value[] column = new Value[entities.size()];
+      int row = 0;
+      for(Value value : source.asVectorSource().getValues(entities)) {
+        if(row == column.length) break;
+        column[row++] = value;
+      }
+      if(row != column.length) {
+        throw new MagmaRuntimeException(
+            "Vector of variable " + source.getVariable().getName() + " has " + row + " values, expected " +
+                column.length);
+      }
+      values[i] = column;
+    }
+    return values;
+  }
+
   /**
    * Get the wrapper object that gives access to values.
    *
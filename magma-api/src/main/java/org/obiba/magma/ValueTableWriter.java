@@ -10,6 +10,8 @@
 
 package org.obiba.magma;
 
+import java.util.List;
+
 import javax.validation.constraints.NotNull;
 
 public interface ValueTableWriter extends AutoCloseable {
@@ -19,6 +21,41 @@ public interface ValueTableWriter extends AutoCloseable {
   @NotNull
   ValueSetWriter writeValueSet(@NotNull VariableEntity entity);
 
+  /**
+   * Writes the values of a block of entities, given column-wise: {@code values[i][j]} is the value of
+   * {@code variables.get(i)} for {@code entities.get(j)}. A null element means that no value is to be written for this
+   * variable and entity.
+   * <p/>
+   * The default implementation writes each entity with {@link #writeValueSet(VariableEntity)}. Writers that can persist
+   * several value sets at once should override it.
+   */
+  default void writeValueSets(@NotNull List<VariableEntity> entities, @NotNull List<Variable> variables,
+      @NotNull Value[][] values) {
+    for(int j = 0; j < entities.size(); j++) {
+      try(ValueSetWriter valueSetWriter = writeValueSet(entities.get(j))) {
+        for(int i = 0; i < variables.size(); i++) {
+          Value value = values[i][j];
+          if(value != null) valueSetWriter.writeValue(variables.get(i), value);
+        }
+      }
+    }
+  }
+
+  /**
+   * Persists the value sets that this writer may have buffered, so that they would survive a failure of the process.
+   * The default implementation does nothing.
+   */
+  default void flush() {
+  }
+
+  /**
+   * Whether the value sets are persisted by {@link #flush()}, so that a copy to this writer can be resumed from the
+   * last flush. The default implementation returns false.
+   */
+  default boolean supportsCheckpoints() {
+    return false;
+  }
+
   @Override
   void close();
 
@@ -12,6 +12,7 @@ package org.obiba.magma;
 
 import java.io.Serializable;
 import java.util.Comparator;
+import java.util.Date;
 
 import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
@@ -74,8 +75,24 @@ public interface ValueType extends Serializable, Comparator<Value> {
       return forClass(value.getClass()).valueOf(value);
     }
 
+    /**
+     * Returns a new {@code Value} instance of the specified type. Long, double, boolean and date payloads are held as
+     * primitives.
+     *
+     * @param type
+     * @param value
+     * @return
+     */
     @NotNull
     public static Value newValue(@NotNull ValueType type, @Nullable Serializable value) {
+      if(value != null) {
+        Class<?> valueClass = value.getClass();
+        if(valueClass == Long.class) return new LongValue(type, (Long) value);
+        if(valueClass == Double.class) return new DoubleValue(type, (Double) value);
+        if(valueClass == Boolean.class) return new BooleanValue(type, (Boolean) value);
+        // not the subclasses of Date, that can hold more than milliseconds
+        if(valueClass == Date.class) return new EpochValue(type, ((Date) value).getTime());
+      }
       return new Value(type, value);
     }
 
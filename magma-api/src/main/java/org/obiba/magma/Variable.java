@@ -124,6 +124,34 @@ public interface Variable extends AttributeAware {
   @Nullable
   Category getCategory(String categoryName);
 
+  /**
+   * Get the category which name is equal to the value, once converted to this variable's {@code ValueType}.
+   *
+   * @param value
+   * @return null if the value is null, a sequence or is not one of the categories
+   */
+  @Nullable
+  default Category getCategory(Value value) {
+    int ordinal = getCategoryOrdinal(value);
+    return ordinal < 0 ? null : Iterables.get(getCategories(), ordinal);
+  }
+
+  /**
+   * Get the position of the category matching the value, in the order of {@link #getCategories()}.
+   *
+   * @param value
+   * @return -1 if the value is null, a sequence or is not one of the categories
+   */
+  default int getCategoryOrdinal(Value value) {
+    if (value.isNull() || value.isSequence()) return -1;
+    int ordinal = 0;
+    for (Category category : getCategories()) {
+      if (value.equals(getValueType().valueOf(category.getName()))) return ordinal;
+      ordinal++;
+    }
+    return -1;
+  }
+
   /**
    * Returns true when {@code value} is equal to a {@code Category} marked as {@code missing} or when
    * {@code Value#isNull} returns true
@@ -222,6 +250,7 @@ public interface Variable extends AttributeAware {
       for (Category category : override.getCategories()) {
         overrideCategories(variable.categories, category);
       }
+      variable.categoriesChanged();
       return this;
     }
 
@@ -273,6 +302,7 @@ public interface Variable extends AttributeAware {
     @SuppressWarnings("UnusedDeclaration")
     public Builder clearCategories() {
       variable.categories.clear();
+      variable.categoriesChanged();
       return this;
     }
 
@@ -302,6 +332,7 @@ public interface Variable extends AttributeAware {
     public Builder type(@NotNull ValueType type) {
       if (type == null) throw new IllegalArgumentException("type cannot be null");
       variable.valueType = type;
+      variable.categoriesChanged();
       return this;
     }
 
@@ -311,6 +342,7 @@ public interface Variable extends AttributeAware {
     }
 
     public Variable build() {
+      variable.indexCategories();
       return variable;
     }
 
@@ -370,16 +402,19 @@ public interface Variable extends AttributeAware {
         }
       }
       variable.categories.add(categoryBuilder.build());
+      variable.categoriesChanged();
       return this;
     }
 
     public Builder addCategory(String name, String code, boolean missing) {
       variable.categories.add(Category.Builder.newCategory(name).withCode(code).missing(missing).build());
+      variable.categoriesChanged();
       return this;
     }
 
     public Builder addCategory(Category category) {
       variable.categories.add(category);
+      variable.categoriesChanged();
       return this;
     }
 
@@ -394,6 +429,7 @@ public interface Variable extends AttributeAware {
       for (String name : names) {
         variable.categories.add(Category.Builder.newCategory(name).build());
       }
+      variable.categoriesChanged();
       return this;
     }
 
@@ -401,6 +437,7 @@ public interface Variable extends AttributeAware {
       for (Category category : categories) {
         variable.categories.add(category);
       }
+      variable.categoriesChanged();
       return this;
     }
 
@@ -13,17 +13,14 @@ package org.obiba.magma;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.LinkedHashSet;
-import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
 
-import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.ListMultimap;
-import com.google.common.collect.Maps;
 
 public class VariableBean extends AbstractAttributeAware implements Variable, Serializable {
 
@@ -54,7 +51,11 @@ public class VariableBean extends AbstractAttributeAware implements Variable, Se
 
   String occurrenceGroup;
 
-  transient Map<Value, Category> categoriesAsValue;
+  /**
+   * Built with the variable, rebuilt on first access when the categories were changed or after deserialization
+   */
+  @Nullable
+  transient volatile CategoryIndex categoryIndex;
 
   @Override
   public String getName() {
@@ -114,12 +115,20 @@ public class VariableBean extends AbstractAttributeAware implements Variable, Se
   @Nullable
   @Override
   public Category getCategory(String categoryName) {
-    for(Category category : categories) {
-      if(Objects.equal(category.getName(), categoryName)) {
-        return category;
-      }
-    }
-    return null;
+    CategoryIndex index = getCategoryIndex();
+    return index.getCategory(index.getOrdinal(categoryName));
+  }
+
+  @Nullable
+  @Override
+  public Category getCategory(Value value) {
+    CategoryIndex index = getCategoryIndex();
+    return index.getCategory(index.getOrdinal(value));
+  }
+
+  @Override
+  public int getCategoryOrdinal(Value value) {
+    return getCategoryIndex().getOrdinal(value);
   }
 
   @Override
@@ -155,29 +164,36 @@ public class VariableBean extends AbstractAttributeAware implements Variable, Se
     if(value.isNull() || !hasCategories()) {
       return value.isNull();
     }
-    Category c = categoryAsValue().get(value);
-    return c != null && c.isMissing();
+    CategoryIndex index = getCategoryIndex();
+    return index.isMissing(index.getOrdinal(value));
+  }
+
+  @Override
+  public boolean areAllCategoriesMissing() {
+    return getCategoryIndex().isAllMissing();
   }
 
-  private Map<Value, Category> categoryAsValue() {
-    if(categoriesAsValue == null) {
-      categoriesAsValue = Maps.uniqueIndex(categories, new Function<Category, Value>() {
+  /**
+   * Index the current categories.
+   */
+  void indexCategories() {
+    categoryIndex = new CategoryIndex(categories, valueType);
+  }
 
-        @Override
-        public Value apply(Category input) {
-          return getValueType().valueOf(input.getName());
-        }
-      });
-    }
-    return categoriesAsValue;
+  /**
+   * Drop the index, when the categories or the value type are changed.
+   */
+  void categoriesChanged() {
+    categoryIndex = null;
   }
 
-  @Override
-  public boolean areAllCategoriesMissing() {
-    for(Category category : getCategories()) {
-      if(!category.isMissing()) return false;
+  private CategoryIndex getCategoryIndex() {
+    CategoryIndex index = categoryIndex;
+    if(index == null) {
+      index = new CategoryIndex(categories, valueType);
+      categoryIndex = index;
     }
-    return true;
+    return index;
   }
 
   @Override
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.metrics;
+
+/**
+ * The distribution of measured values, such as batch sizes.
+ */
+public interface Histogram {
+
+  void update(long value);
+
+  long getCount();
+
+  long getSum();
+
+  long getMin();
+
+  long getMax();
+
+  double getMean();
+
+}
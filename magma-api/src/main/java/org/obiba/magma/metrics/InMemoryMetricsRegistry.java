@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.metrics;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Maps;
+
+/**
+ * Keeps the metrics in memory, so that they can be read with {@link #getSnapshot()} or dumped in a plain text format
+ * with {@link #dump()}, one {@code name value} line per measure:
+ * <pre>
+ * magma.js.eval.count 1200
+ * magma.js.eval.max_ms 35
+ * magma.js.eval.total_ms 4510
+ * </pre>
+ */
+public class InMemoryMetricsRegistry implements MetricsRegistry {
+
+  private final ConcurrentMap<String, InMemoryCounter> counters = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, InMemoryTimer> timers = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, InMemoryHistogram> histograms = new ConcurrentHashMap<>();
+
+  @Override
+  public boolean isEnabled() {
+    return true;
+  }
+
+  @Override
+  public Counter counter(String name) {
+    return counters.computeIfAbsent(name, n -> new InMemoryCounter());
+  }
+
+  @Override
+  public Timer timer(String name) {
+    return timers.computeIfAbsent(name, n -> new InMemoryTimer());
+  }
+
+  @Override
+  public Histogram histogram(String name) {
+    return histograms.computeIfAbsent(name, n -> new InMemoryHistogram());
+  }
+
+  public Map<String, Counter> getCounters() {
+    return ImmutableSortedMap.<String, Counter>copyOf(counters);
+  }
+
+  public Map<String, Timer> getTimers() {
+    return ImmutableSortedMap.<String, Timer>copyOf(timers);
+  }
+
+  public Map<String, Histogram> getHistograms() {
+    return ImmutableSortedMap.<String, Histogram>copyOf(histograms);
+  }
+
+  /**
+   * Returns the current value of every measure, by name. The suffixes of the keys depend on the kind of metric, so
+   * that metrics of different kinds with the same name do not collide: {@code .count} for counters, {@code .calls},
+   * {@code .total_ms} and {@code .max_ms} for timers, {@code .samples}, {@code .sum}, {@code .min} and {@code .max}
+   * for histograms.
+   */
+  public SortedMap<String, Number> getSnapshot() {
+    SortedMap<String, Number> snapshot = Maps.newTreeMap();
+    for(Map.Entry<String, InMemoryCounter> entry : counters.entrySet()) {
+      snapshot.put(entry.getKey() + ".count", entry.getValue().getCount());
+    }
+    for(Map.Entry<String, InMemoryTimer> entry : timers.entrySet()) {
+      Timer timer = entry.getValue();
+      snapshot.put(entry.getKey() + ".calls", timer.getCount());
+      snapshot.put(entry.getKey() + ".total_ms", timer.getTotalTime(TimeUnit.MILLISECONDS));
+      snapshot.put(entry.getKey() + ".max_ms", timer.getMaxTime(TimeUnit.MILLISECONDS));
+    }
+    for(Map.Entry<String, InMemoryHistogram> entry : histograms.entrySet()) {
+      Histogram histogram = entry.getValue();
+      snapshot.put(entry.getKey() + ".samples", histogram.getCount());
+      snapshot.put(entry.getKey() + ".sum", histogram.getSum());
+      snapshot.put(entry.getKey() + ".min", histogram.getMin());
+      snapshot.put(entry.getKey() + ".max", histogram.getMax());
+    }
+    return snapshot;
+  }
+
+  public String dump() {
+    StringBuilder builder = new StringBuilder();
+    for(Map.Entry<String, Number> entry : getSnapshot().entrySet()) {
+      builder.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Discards all the metrics.
+   */
+  public void clear() {
+    counters.clear();
+    timers.clear();
+    histograms.clear();
+  }
+
+  private static final class InMemoryCounter implements Counter {
+
+    private final LongAdder count = new LongAdder();
+
+    @Override
+    public void inc() {
+      count.increment();
+    }
+
+    @Override
+    public void inc(long n) {
+      count.add(n);
+    }
+
+    @Override
+    public long getCount() {
+      return count.sum();
+    }
+  }
+
+  private static final class InMemoryTimer implements Timer {
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder total = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    @Override
+    public void update(long duration, TimeUnit unit) {
+      long nanos = unit.toNanos(duration);
+      count.increment();
+      total.add(nanos);
+      max.accumulate(nanos);
+    }
+
+    @Override
+    public long getCount() {
+      return count.sum();
+    }
+
+    @Override
+    public long getTotalTime(TimeUnit unit) {
+      return unit.convert(total.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public long getMaxTime(TimeUnit unit) {
+      return unit.convert(max.get(), TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private static final class InMemoryHistogram implements Histogram {
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    @Override
+    public void update(long value) {
+      count.increment();
+      sum.add(value);
+      min.accumulate(value);
+      max.accumulate(value);
+    }
+
+    @Override
+    public long getCount() {
+      return count.sum();
+    }
+
+    @Override
+    public long getSum() {
+      return sum.sum();
+    }
+
+    @Override
+    public long getMin() {
+      return getCount() == 0 ? 0 : min.get();
+    }
+
+    @Override
+    public long getMax() {
+      return getCount() == 0 ? 0 : max.get();
+    }
+
+    @Override
+    public double getMean() {
+      long n = getCount();
+      return n == 0 ? 0 : (double) getSum() / n;
+    }
+  }
+
+}
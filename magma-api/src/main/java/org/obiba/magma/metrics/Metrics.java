@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.metrics;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.obiba.magma.MagmaEngine;
+
+/**
+ * Entry point of the instrumented code: gives access to the registry of the {@code MagmaMetricsExtension}, or to a
+ * disabled one when the extension is not registered. Measures are taken only when the registry is enabled:
+ * <pre>
+ * long start = Metrics.start();
+ * try {
+ *   ...
+ * } finally {
+ *   Metrics.stop(Metrics.JS_EVAL, start);
+ * }
+ * </pre>
+ */
+public final class Metrics {
+
+  /**
+   * Value set batch reads (timer) and sizes (histogram), qualified by datasource type.
+   */
+  public static final String VALUE_SETS_BATCH = "magma.valuesets.batch";
+
+  public static final String VALUE_SETS_BATCH_SIZE = "magma.valuesets.batch.size";
+
+  /**
+   * Time spent reading values from vector sources (timer), qualified by datasource type.
+   */
+  public static final String VECTOR_READ = "magma.vector.read";
+
+  public static final String JS_EVAL = "magma.js.eval";
+
+  public static final String WHERE_CLAUSE = "magma.view.where";
+
+  public static final String CACHE_HIT = "magma.cache.hit";
+
+  public static final String CACHE_MISS = "magma.cache.miss";
+
+  /**
+   * Permission evaluations by the decorated authorizer of a caching authorizer (timer).
+   */
+  public static final String PERMISSION_EVAL = "magma.security.permission.eval";
+
+  /**
+   * Value table writer flushes (timer), qualified by datasource type.
+   */
+  public static final String WRITER_FLUSH = "magma.writer.flush";
+
+  private static final long DISABLED = Long.MIN_VALUE;
+
+  private Metrics() {
+  }
+
+  public static MetricsRegistry registry() {
+    return MagmaEngine.isInstantiated() ? MagmaEngine.get().getMetricsRegistry() : NoOpMetricsRegistry.get();
+  }
+
+  public static boolean isEnabled() {
+    return registry().isEnabled();
+  }
+
+  /**
+   * Returns the start time of a measure, to be passed to {@link #stop(String, long)}.
+   */
+  public static long start() {
+    return isEnabled() ? System.nanoTime() : DISABLED;
+  }
+
+  /**
+   * Records the time elapsed since {@code start} in a timer, if the measure was started.
+   */
+  public static void stop(String name, long start) {
+    if(start != DISABLED) registry().timer(name).update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Records the time elapsed since {@code start} in the timer {@code name.qualifier}, if the measure was started.
+   */
+  public static void stop(String name, @Nullable String qualifier, long start) {
+    if(start != DISABLED) {
+      registry().timer(name + "." + qualifier).update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  public static void count(String name) {
+    MetricsRegistry registry = registry();
+    if(registry.isEnabled()) registry.counter(name).inc();
+  }
+
+  public static void count(String name, long n) {
+    MetricsRegistry registry = registry();
+    if(registry.isEnabled() && n > 0) registry.counter(name).inc(n);
+  }
+
+  public static void update(String name, @Nullable String qualifier, long value) {
+    MetricsRegistry registry = registry();
+    if(registry.isEnabled()) registry.histogram(name + "." + qualifier).update(value);
+  }
+
+  /**
+   * Decorates the values of a vector so that the time spent by its iterator reading them is recorded in the timer
+   * {@code name.qualifier}, once the values are all read. The values are returned as is when metrics are disabled.
+   */
+  public static <T> Iterable<T> timed(String name, @Nullable String qualifier, Iterable<T> values) {
+    if(!isEnabled()) return values;
+    return () -> new TimedIterator<>(registry().timer(name + "." + qualifier), values.iterator());
+  }
+
+  private static final class TimedIterator<T> implements Iterator<T> {
+
+    private final Timer timer;
+
+    private final Iterator<T> delegate;
+
+    private long elapsed;
+
+    private boolean recorded;
+
+    private TimedIterator(Timer timer, Iterator<T> delegate) {
+      this.timer = timer;
+      this.delegate = delegate;
+    }
+
+    @Override
+    public boolean hasNext() {
+      long start = System.nanoTime();
+      boolean hasNext = delegate.hasNext();
+      elapsed += System.nanoTime() - start;
+      if(!hasNext && !recorded) {
+        recorded = true;
+        timer.update(elapsed, TimeUnit.NANOSECONDS);
+      }
+      return hasNext;
+    }
+
+    @Override
+    public T next() {
+      long start = System.nanoTime();
+      try {
+        return delegate.next();
+      } finally {
+        elapsed += System.nanoTime() - start;
+      }
+    }
+  }
+
+}
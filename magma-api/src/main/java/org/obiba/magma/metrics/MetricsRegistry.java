@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.metrics;
+
+/**
+ * Provides the metrics of the hot paths of Magma, created on first use and identified by their name. Implementations
+ * must be thread safe.
+ *
+ * @see Metrics
+ */
+public interface MetricsRegistry {
+
+  /**
+   * Returns false when metrics are not recorded, in which case instrumented code should not even measure.
+   */
+  boolean isEnabled();
+
+  Counter counter(String name);
+
+  Timer timer(String name);
+
+  Histogram histogram(String name);
+
+}
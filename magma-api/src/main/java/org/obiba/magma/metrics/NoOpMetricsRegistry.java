@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The registry used when no {@code MagmaMetricsExtension} is registered: it is disabled and its metrics ignore updates.
+ */
+public final class NoOpMetricsRegistry implements MetricsRegistry {
+
+  private static final NoOpMetricsRegistry INSTANCE = new NoOpMetricsRegistry();
+
+  private static final NoOpMetric METRIC = new NoOpMetric();
+
+  private NoOpMetricsRegistry() {
+  }
+
+  public static NoOpMetricsRegistry get() {
+    return INSTANCE;
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return false;
+  }
+
+  @Override
+  public Counter counter(String name) {
+    return METRIC;
+  }
+
+  @Override
+  public Timer timer(String name) {
+    return METRIC;
+  }
+
+  @Override
+  public Histogram histogram(String name) {
+    return METRIC;
+  }
+
+  private static final class NoOpMetric implements Counter, Timer, Histogram {
+
+    @Override
+    public void inc() {
+    }
+
+    @Override
+    public void inc(long n) {
+    }
+
+    @Override
+    public void update(long duration, TimeUnit unit) {
+    }
+
+    @Override
+    public void update(long value) {
+    }
+
+    @Override
+    public long getCount() {
+      return 0;
+    }
+
+    @Override
+    public long getTotalTime(TimeUnit unit) {
+      return 0;
+    }
+
+    @Override
+    public long getMaxTime(TimeUnit unit) {
+      return 0;
+    }
+
+    @Override
+    public long getSum() {
+      return 0;
+    }
+
+    @Override
+    public long getMin() {
+      return 0;
+    }
+
+    @Override
+    public long getMax() {
+      return 0;
+    }
+
+    @Override
+    public double getMean() {
+      return 0;
+    }
+  }
+
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The number and durations of timed operations.
+ */
+public interface Timer {
+
+  void update(long duration, TimeUnit unit);
+
+  long getCount();
+
+  long getTotalTime(TimeUnit unit);
+
+  long getMaxTime(TimeUnit unit);
+
+}
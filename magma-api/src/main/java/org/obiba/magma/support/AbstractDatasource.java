@@ -12,12 +12,13 @@ package org.obiba.magma.support;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
 
 import org.obiba.magma.AbstractAttributeAware;
@@ -31,10 +32,10 @@ import org.obiba.magma.ValueTableWriter;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.ListMultimap;
-import com.google.common.collect.Sets;
 
 public abstract class AbstractDatasource extends AbstractAttributeAware implements Datasource {
 
@@ -42,10 +43,22 @@ public abstract class AbstractDatasource extends AbstractAttributeAware implemen
 
   private final String type;
 
-  private final List<ValueTable> valueTables = new ArrayList<>(100);
+  /**
+   * Tables indexed by name, so that resolving a table reference does not scan the tables of the datasource.
+   */
+  private final Map<String, ValueTable> valueTables = new ConcurrentHashMap<>(100);
+
+  /**
+   * Immutable snapshot of the tables returned by {@link #getValueTables()}, rebuilt lazily after tables are added or
+   * removed.
+   */
+  @Nullable
+  private volatile Set<ValueTable> valueTablesSnapshot;
 
   private final ListMultimap<String, Attribute> attributes = LinkedListMultimap.create();
 
+  private final TimestampsIndex timestampsIndex = new TimestampsIndex(this);
+
   protected AbstractDatasource(@NotNull String name, @NotNull String type) {
     Preconditions.checkNotNull(name, "name cannot be null");
     Preconditions.checkNotNull(type, "type cannot be null");
@@ -65,17 +78,21 @@ public abstract class AbstractDatasource extends AbstractAttributeAware implemen
 
   @Override
   public Set<ValueTable> getValueTables() {
-    return Collections.unmodifiableSet(Sets.newHashSet(valueTables));
+    Set<ValueTable> snapshot = valueTablesSnapshot;
+    if(snapshot == null) {
+      synchronized(valueTables) {
+        snapshot = valueTablesSnapshot;
+        if(snapshot == null) {
+          valueTablesSnapshot = snapshot = ImmutableSet.copyOf(valueTables.values());
+        }
+      }
+    }
+    return snapshot;
   }
 
   @Override
   public boolean hasValueTable(String tableName) {
-    for(ValueTable vt : getValueTables()) {
-      if(vt.getName().equals(tableName)) {
-        return true;
-      }
-    }
-    return false;
+    return tableName != null && valueTables.containsKey(tableName);
   }
 
   @Override
@@ -85,14 +102,9 @@ public abstract class AbstractDatasource extends AbstractAttributeAware implemen
 
   @Override
   public ValueTable getValueTable(String tableName) throws NoSuchValueTableException {
-    try {
-      return getValueTables().stream()
-              .filter(input -> tableName.equals(input.getName()))
-              .findFirst()
-              .get();
-    } catch(NoSuchElementException e) {
-      throw new NoSuchValueTableException(getName(), tableName);
-    }
+    ValueTable table = tableName == null ? null : valueTables.get(tableName);
+    if(table == null) throw new NoSuchValueTableException(getName(), tableName);
+    return table;
   }
 
   @Override
@@ -176,6 +188,16 @@ public abstract class AbstractDatasource extends AbstractAttributeAware implemen
     return new UnionTimestamps(getValueTables());
   }
 
+  /**
+   * Index of the tables timestamps, kept up to date as tables are added or removed. Datasources which notify the index of
+   * their tables updates can serve their timestamps from it.
+   *
+   * @return
+   */
+  public TimestampsIndex getTimestampsIndex() {
+    return timestampsIndex;
+  }
+
   @Override
   protected ListMultimap<String, Attribute> getInstanceAttributes() {
     return attributes;
@@ -186,8 +208,18 @@ public abstract class AbstractDatasource extends AbstractAttributeAware implemen
     return false;
   }
 
+  /**
+   * Registers a table under its name. A table already registered with the same name is replaced, unless it is equal to
+   * the given one.
+   */
   protected void addValueTable(ValueTable vt) {
-    if(!valueTables.contains(vt)) valueTables.add(vt);
+    synchronized(valueTables) {
+      ValueTable previous = valueTables.get(vt.getName());
+      if(vt.equals(previous)) return;
+      valueTables.put(vt.getName(), vt);
+      valueTablesSnapshot = null;
+    }
+    timestampsIndex.invalidate(vt.getName());
   }
 
   protected void removeValueTable(String tableName) {
@@ -200,13 +232,34 @@ public abstract class AbstractDatasource extends AbstractAttributeAware implemen
 
   protected void removeValueTable(ValueTable toRemove) {
     try {
-    valueTables.remove(toRemove);
-    Disposables.dispose(toRemove);
+      synchronized(valueTables) {
+        // the table may have been renamed since it was registered
+        if(!valueTables.remove(toRemove.getName(), toRemove)) valueTables.values().remove(toRemove);
+        valueTablesSnapshot = null;
+      }
+      timestampsIndex.invalidate(toRemove.getName());
+      Disposables.dispose(toRemove);
     } catch (NoSuchValueTableException e) {
       // ignore
     }
   }
 
+  /**
+   * Re-registers a table under its current name, after it was renamed in place.
+   *
+   * @param previousName the name under which the table was registered
+   */
+  protected void reindexValueTable(String previousName) {
+    synchronized(valueTables) {
+      ValueTable table = valueTables.remove(previousName);
+      if(table != null) {
+        valueTables.put(table.getName(), table);
+        valueTablesSnapshot = null;
+      }
+    }
+    timestampsIndex.invalidate(previousName);
+  }
+
   @SuppressWarnings("NoopMethodInAbstractClass")
   protected void onInitialise() {
 
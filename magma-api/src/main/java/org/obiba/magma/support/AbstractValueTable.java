@@ -15,6 +15,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import org.obiba.magma.*;
+import org.obiba.magma.metrics.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -126,6 +127,29 @@ public abstract class AbstractValueTable implements ValueTable, Initialisable {
     };
   }
 
+  /**
+   * Whether the value sets read by batch can be shared by all the readers of this table (see
+   * {@link SharedValueSetCache}): they must hold their values and not depend on the reading context (session,
+   * cursor...). Default is false.
+   *
+   * @return
+   */
+  protected boolean isValueSetCacheable() {
+    return false;
+  }
+
+  private ValueSetBatch getCachedValueSetsBatch(List<VariableEntity> entities) {
+    if (isValueSetCacheable() && MagmaEngine.get().hasExtension(MagmaCacheExtension.class)) {
+      MagmaCacheExtension cacheExtension = MagmaEngine.get().getExtension(MagmaCacheExtension.class);
+      if (cacheExtension.hasSharedValueSetCache()) {
+        List<ValueSet> valueSets = cacheExtension.getSharedValueSetCache()
+            .getValueSets(this, entities, this::getValueSetsBatch);
+        return () -> valueSets;
+      }
+    }
+    return getValueSetsBatch(entities);
+  }
+
   @Override
   public boolean hasVariable(String variableName) {
     return sources.containsKey(variableName);
@@ -338,7 +362,12 @@ public abstract class AbstractValueTable implements ValueTable, Initialisable {
     public ValueSet next() {
       synchronized (partitions) {
         if (currentBatch == null || !currentBatch.hasNext()) {
-          currentBatch = getValueSetsBatch(partitions.next()).getValueSets().iterator();
+          List<VariableEntity> partition = partitions.next();
+          String datasourceType = getDatasource() == null ? null : getDatasource().getType();
+          long start = Metrics.start();
+          currentBatch = getCachedValueSetsBatch(partition).getValueSets().iterator();
+          Metrics.stop(Metrics.VALUE_SETS_BATCH, datasourceType, start);
+          Metrics.update(Metrics.VALUE_SETS_BATCH_SIZE, datasourceType, partition.size());
         }
         return currentBatch.next();
       }
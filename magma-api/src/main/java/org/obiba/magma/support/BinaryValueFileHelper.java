@@ -10,9 +10,12 @@
 package org.obiba.magma.support;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -28,6 +31,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
 
 /**
@@ -48,25 +52,33 @@ public class BinaryValueFileHelper {
    * @param path
    * @return
    */
-  @SuppressWarnings("ResultOfMethodCallIgnored")
-  @edu.umd.cs.findbugs.annotations.SuppressWarnings("RV_RETURN_VALUE_IGNORED_BAD_PRACTICE")
   public static byte[] readValue(@Nullable File parent, String path) {
-    byte[] value = null;
     try {
-      File file = new File(path);
-      if(!file.isAbsolute() && parent != null) {
-        file = new File(parent, path);
-      }
+      File file = getFile(parent, path);
       log.debug("Loading binary from: {}", file.getAbsolutePath());
-      try(FileInputStream fin = new FileInputStream(file)) {
-        value = new byte[(int) file.length()];
-        fin.read(value);
-      }
+      byte[] value = Files.toByteArray(file);
       log.debug("Binary loaded from: {}", file.getAbsolutePath());
+      return value;
+    } catch(Exception e) {
+      throw new MagmaRuntimeException("File cannot be read: " + path, e);
+    }
+  }
+
+  /**
+   * Open a channel on a file, for reading a binary value without loading it in memory.
+   *
+   * @param parent
+   * @param path
+   * @return
+   */
+  public static FileChannel openValue(@Nullable File parent, String path) {
+    try {
+      File file = getFile(parent, path);
+      log.debug("Streaming binary from: {}", file.getAbsolutePath());
+      return FileChannel.open(file.toPath(), StandardOpenOption.READ);
     } catch(Exception e) {
       throw new MagmaRuntimeException("File cannot be read: " + path, e);
     }
-    return value;
   }
 
   /**
@@ -79,11 +91,7 @@ public class BinaryValueFileHelper {
   @SuppressWarnings("StaticMethodOnlyUsedInOneClass")
   public static long readValueSize(@Nullable File parent, String path) {
     try {
-      File file = new File(path);
-      if(!file.isAbsolute() && parent != null) {
-        file = new File(parent, path);
-      }
-      return file.length();
+      return getFile(parent, path).length();
     } catch(Exception e) {
       throw new MagmaRuntimeException("File cannot be read: " + path, e);
     }
@@ -170,7 +178,11 @@ public class BinaryValueFileHelper {
 
       tmpFile.createNewFile();
       try(FileOutputStream out = new FileOutputStream(tmpFile)) {
-        out.write((byte[]) value.getValue());
+        if(value.isStreamable()) {
+          transferValue(value, out.getChannel());
+        } else {
+          out.write((byte[]) value.getValue());
+        }
       }
 
       if(file.exists()) file.delete();
@@ -183,6 +195,29 @@ public class BinaryValueFileHelper {
     return TextType.get().valueOf(file.getName());
   }
 
+  /**
+   * Copy a streamable value to a file without loading it in memory: bytes are transferred by the file system when the
+   * value is itself read from a file, otherwise they go through a bounded buffer.
+   *
+   * @param value
+   * @param out
+   * @throws IOException
+   */
+  private static void transferValue(Value value, FileChannel out) throws IOException {
+    try(ReadableByteChannel in = value.getChannel()) {
+      if(in instanceof FileChannel) {
+        FileChannel fin = (FileChannel) in;
+        long size = fin.size();
+        long position = 0;
+        while(position < size) {
+          position += fin.transferTo(position, size - position, out);
+        }
+      } else {
+        ByteStreams.copy(in, out);
+      }
+    }
+  }
+
   /**
    * Returns the value sequence representing the file names that were written.
    *
@@ -275,4 +310,19 @@ public class BinaryValueFileHelper {
 
     return suffix;
   }
+
+  /**
+   * Resolve a relative path against the parent folder, if any.
+   *
+   * @param parent
+   * @param path
+   * @return
+   */
+  private static File getFile(@Nullable File parent, String path) {
+    File file = new File(path);
+    if(!file.isAbsolute() && parent != null) {
+      file = new File(parent, path);
+    }
+    return file;
+  }
 }
@@ -9,8 +9,12 @@
  */
 package org.obiba.magma.support;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 
 import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
@@ -77,4 +81,28 @@ public class BinaryValueFileLoader implements ValueLoader, Serializable {
     return isNull() ? 0 : BinaryValueFileHelper.readValueSize(parent, path);
   }
 
+  @Override
+  public boolean isStreamable() {
+    return true;
+  }
+
+  @NotNull
+  @Override
+  public InputStream getStream() {
+    return value == null ? Channels.newInputStream(getChannel()) : new ByteArrayInputStream(value);
+  }
+
+  /**
+   * Opens a {@link java.nio.channels.FileChannel} on the file, unless it was already loaded.
+   *
+   * @return
+   */
+  @NotNull
+  @Override
+  public ReadableByteChannel getChannel() {
+    return value == null
+        ? BinaryValueFileHelper.openValue(parent, path)
+        : Channels.newChannel(new ByteArrayInputStream(value));
+  }
+
 }
\ No newline at end of file
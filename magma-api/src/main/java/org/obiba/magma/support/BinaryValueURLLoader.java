@@ -9,8 +9,12 @@
  */
 package org.obiba.magma.support;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.URLConnection;
 
 import javax.validation.constraints.NotNull;
 
@@ -34,6 +38,8 @@ public class BinaryValueURLLoader implements ValueLoader {
 
   private byte[] value;
 
+  private transient long length = -1;
+
   public BinaryValueURLLoader(String url) {
     this.url = url;
   }
@@ -64,14 +70,57 @@ public class BinaryValueURLLoader implements ValueLoader {
   }
 
   /**
-   * Downloads the value to get its size.
+   * Get the size of the value from the content length reported by the url (a HEAD request for http urls), without
+   * downloading it. The value is downloaded only when the url does not report its content length.
    *
    * @return
    */
   @Override
   public long getLength() {
+    if(value != null) return value.length;
+    if(length < 0) length = getContentLength();
+    if(length >= 0) return length;
     getValue();
     return value == null ? 0 : value.length;
   }
 
+  @Override
+  public boolean isStreamable() {
+    return true;
+  }
+
+  @NotNull
+  @Override
+  public InputStream getStream() {
+    if(value != null) return new ByteArrayInputStream(value);
+    try {
+      log.debug("Streaming binary from: {}", url);
+      return new URL(url).openStream();
+    } catch(Exception e) {
+      throw new MagmaRuntimeException("URL cannot be read: " + url, e);
+    }
+  }
+
+  private long getContentLength() {
+    try {
+      URLConnection connection = new URL(url).openConnection();
+      if(connection instanceof HttpURLConnection) {
+        HttpURLConnection http = (HttpURLConnection) connection;
+        http.setRequestMethod("HEAD");
+        try {
+          return http.getResponseCode() == HttpURLConnection.HTTP_OK ? http.getContentLengthLong() : -1;
+        } finally {
+          http.disconnect();
+        }
+      }
+      // other protocols (file, jar...) open the resource to get its length
+      try(InputStream ignored = connection.getInputStream()) {
+        return connection.getContentLengthLong();
+      }
+    } catch(IOException e) {
+      log.debug("Content length of {} cannot be read", url, e);
+      return -1;
+    }
+  }
+
 }
\ No newline at end of file
@@ -11,6 +11,7 @@
 package org.obiba.magma.support;
 
 import org.obiba.magma.MagmaRuntimeException;
+import org.obiba.magma.metrics.Metrics;
 import org.springframework.cache.Cache;
 
 import com.google.common.base.Supplier;
@@ -21,8 +22,12 @@ public class CacheUtils {
     try {
       Cache.ValueWrapper cacheValue = cache.get(key);
 
-      if(cacheValue != null) return (T) cacheValue.get();
+      if(cacheValue != null) {
+        Metrics.count(Metrics.CACHE_HIT);
+        return (T) cacheValue.get();
+      }
 
+      Metrics.count(Metrics.CACHE_MISS);
       T res = supplier.get();
       cache.put(key, res);
       return res;
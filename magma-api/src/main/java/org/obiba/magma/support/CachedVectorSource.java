@@ -15,6 +15,7 @@ import com.google.common.base.Supplier;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import org.obiba.magma.*;
+import org.obiba.magma.metrics.Metrics;
 import org.springframework.cache.Cache;
 
 import javax.validation.constraints.NotNull;
@@ -65,8 +66,12 @@ public class CachedVectorSource implements VectorSource {
       res.add((Value) valueWrapper.get());
     }
 
-    if (!missing) return res;
+    if (!missing) {
+      Metrics.count(Metrics.CACHE_HIT);
+      return res;
+    }
 
+    Metrics.count(Metrics.CACHE_MISS);
     ArrayList<Value> values = Lists.newArrayList(getWrapped().getValues(entities));
     ArrayList<VariableEntity> variableEntities = Lists.newArrayList(entities);
 
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.validation.constraints.NotNull;
+
+import org.obiba.magma.MagmaRuntimeException;
+import org.obiba.magma.ValueTable;
+import org.obiba.magma.Variable;
+import org.obiba.magma.VariableEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Journal of the progress of table copies, persisted in a small properties file so that an interrupted copy can be
+ * resumed by another process.
+ * <p/>
+ * For each source and destination table, the journal records the offset of the entities that were fully written,
+ * along with a digest of the source dictionary and a digest of the entities copied so far. A copy is resumed only if
+ * both digests still match the source table, i.e. the variables and the order of the entities did not change; it is
+ * restarted from the first entity otherwise.
+ * <p/>
+ * Offsets are aligned on pages of {@link #PAGE_SIZE} entities, the entities digest being chained page by page.
+ */
+public class CopyJournal {
+
+  private static final Logger log = LoggerFactory.getLogger(CopyJournal.class);
+
+  public static final int PAGE_SIZE = 1000;
+
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  private static final String OFFSET = ".offset";
+
+  private static final String DICTIONARY = ".dictionary";
+
+  private static final String ENTITIES = ".entities";
+
+  @NotNull
+  private final File file;
+
+  private final Map<String, Checkpoint> checkpoints = Maps.newHashMap();
+
+  public CopyJournal(@NotNull File file) {
+    //noinspection ConstantConditions
+    if(file == null) throw new IllegalArgumentException("file cannot be null");
+    this.file = file;
+    load();
+  }
+
+  @NotNull
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * Returns the offset of the first entity to be copied: the one of the last checkpoint if the source table did not
+   * change since, 0 otherwise.
+   */
+  public synchronized int resume(@NotNull ValueTable source, @NotNull String destination) {
+    String key = getKey(source, destination);
+    Checkpoint checkpoint = checkpoints.get(key);
+    String dictionary = getDictionaryDigest(source);
+    if(checkpoint != null && checkpoint.offset > 0) {
+      if(!checkpoint.dictionary.equals(dictionary)) {
+        log.info("Dictionary of {} has changed, full copy to {}", source.getTableReference(), destination);
+      } else if(source.getVariableEntityCount() < checkpoint.offset ||
+          !checkpoint.entities.equals(getEntitiesDigest(source, 0, checkpoint.offset, ""))) {
+        log.info("Entities of {} have changed, full copy to {}", source.getTableReference(), destination);
+      } else {
+        log.info("Resuming copy of {} to {} from entity {}", source.getTableReference(), destination,
+            checkpoint.offset);
+        return checkpoint.offset;
+      }
+    }
+    checkpoints.put(key, new Checkpoint(0, dictionary, ""));
+    save();
+    return 0;
+  }
+
+  /**
+   * Records that the entities of the source table before the given offset were copied. The offset is rounded down to a
+   * multiple of {@link #PAGE_SIZE}.
+   */
+  public synchronized void checkpoint(@NotNull ValueTable source, @NotNull String destination, int offset) {
+    String key = getKey(source, destination);
+    Checkpoint checkpoint = checkpoints.get(key);
+    if(checkpoint == null) {
+      checkpoint = new Checkpoint(0, getDictionaryDigest(source), "");
+    }
+    int aligned = offset - offset % PAGE_SIZE;
+    if(aligned <= checkpoint.offset) return;
+    checkpoints.put(key, new Checkpoint(aligned, checkpoint.dictionary,
+        getEntitiesDigest(source, checkpoint.offset, aligned, checkpoint.entities)));
+    save();
+  }
+
+  /**
+   * Forgets the progress of a copy, once it is complete.
+   */
+  public synchronized void complete(@NotNull ValueTable source, @NotNull String destination) {
+    if(checkpoints.remove(getKey(source, destination)) != null) save();
+  }
+
+  /**
+   * Returns the offset of the last checkpoint of a copy, 0 if there is none.
+   */
+  public synchronized int getOffset(@NotNull ValueTable source, @NotNull String destination) {
+    Checkpoint checkpoint = checkpoints.get(getKey(source, destination));
+    return checkpoint == null ? 0 : checkpoint.offset;
+  }
+
+  private String getKey(ValueTable source, String destination) {
+    return source.getTableReference() + ">" + destination;
+  }
+
+  private String getDictionaryDigest(ValueTable source) {
+    List<Variable> variables = Lists.newArrayList(source.getVariables());
+    variables.sort(Comparator.comparingInt(Variable::getIndex).thenComparing(Variable::getName));
+    Hasher hasher = HASH_FUNCTION.newHasher();
+    for(Variable variable : variables) {
+      hasher.putString(variable.getName(), StandardCharsets.UTF_8).putByte((byte) 0) //
+          .putString(variable.getValueType().getName(), StandardCharsets.UTF_8).putByte((byte) 0) //
+          .putString(variable.getEntityType(), StandardCharsets.UTF_8).putByte((byte) 0) //
+          .putBoolean(variable.isRepeatable());
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Chains the digest of the pages of entities in {@code [from, to[} to the digest of the previous pages.
+   */
+  private String getEntitiesDigest(ValueTable source, int from, int to, String previous) {
+    String digest = previous;
+    for(int offset = from; offset < to; offset += PAGE_SIZE) {
+      Hasher hasher = HASH_FUNCTION.newHasher().putString(digest, StandardCharsets.UTF_8);
+      for(VariableEntity entity : source.getVariableEntities(offset, Math.min(PAGE_SIZE, to - offset))) {
+        hasher.putString(entity.getIdentifier(), StandardCharsets.UTF_8).putByte((byte) 0);
+      }
+      digest = hasher.hash().toString();
+    }
+    return digest;
+  }
+
+  private void load() {
+    if(!file.exists()) return;
+    Properties properties = new Properties();
+    try(InputStream in = Files.newInputStream(file.toPath())) {
+      properties.load(in);
+    } catch(IOException e) {
+      throw new MagmaRuntimeException("Unable to read copy journal " + file, e);
+    }
+    for(String name : properties.stringPropertyNames()) {
+      if(name.endsWith(OFFSET)) {
+        String key = name.substring(0, name.length() - OFFSET.length());
+        checkpoints.put(key, new Checkpoint(Integer.parseInt(properties.getProperty(name)),
+            properties.getProperty(key + DICTIONARY, ""), properties.getProperty(key + ENTITIES, "")));
+      }
+    }
+  }
+
+  /**
+   * Writes the journal in a temporary file that then replaces the previous one, so that it is never left half-written.
+   */
+  private void save() {
+    Properties properties = new Properties();
+    for(Map.Entry<String, Checkpoint> entry : checkpoints.entrySet()) {
+      properties.setProperty(entry.getKey() + OFFSET, Integer.toString(entry.getValue().offset));
+      properties.setProperty(entry.getKey() + DICTIONARY, entry.getValue().dictionary);
+      properties.setProperty(entry.getKey() + ENTITIES, entry.getValue().entities);
+    }
+    File tmp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+    try {
+      try(OutputStream out = Files.newOutputStream(tmp.toPath())) {
+        properties.store(out, "Magma copy journal");
+      }
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch(IOException e) {
+      throw new MagmaRuntimeException("Unable to write copy journal " + file, e);
+    }
+  }
+
+  private static final class Checkpoint {
+
+    private final int offset;
+
+    private final String dictionary;
+
+    private final String entities;
+
+    private Checkpoint(int offset, String dictionary, String entities) {
+      this.offset = offset;
+      this.dictionary = dictionary;
+      this.entities = entities;
+    }
+  }
+
+}
@@ -14,6 +14,11 @@ import java.io.IOException;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
 
@@ -21,6 +26,7 @@ import com.google.common.collect.Lists;
 import org.obiba.magma.Datasource;
 import org.obiba.magma.DatasourceCopierProgressListener;
 import org.obiba.magma.MagmaEngine;
+import org.obiba.magma.MagmaRuntimeException;
 import org.obiba.magma.Value;
 import org.obiba.magma.ValueSet;
 import org.obiba.magma.ValueTable;
@@ -41,6 +47,12 @@ public class DatasourceCopier {
 
   private static final Logger log = LoggerFactory.getLogger(DatasourceCopier.class);
 
+  private static final int PAGE_SIZE = CopyJournal.PAGE_SIZE;
+
+  public static final int DEFAULT_COLUMN_GROUP_SIZE = 50;
+
+  public static final int DEFAULT_CHECKPOINT_INTERVAL = 10 * CopyJournal.PAGE_SIZE;
+
   @SuppressWarnings("ParameterHidesMemberVariable")
   public static class Builder {
 
@@ -100,6 +112,52 @@ public class DatasourceCopier {
       return this;
     }
 
+    /**
+     * Copy values column-wise: for each page of entities, the values of each variable are read at once from its
+     * {@link org.obiba.magma.VectorSource} (when supported) and then transposed into value set writes.
+     */
+    public Builder withVectorizedValues() {
+      copier.vectorizedValues = true;
+      return this;
+    }
+
+    /**
+     * Copy values column-wise, the columns of each page of entities being read concurrently by groups of variables.
+     *
+     * @param executorService the executor of the column reads, not shut down by the copier
+     * @param columnGroupSize number of variables read by each task
+     */
+    public Builder withVectorizedValues(ExecutorService executorService, int columnGroupSize) {
+      if(executorService == null) throw new IllegalArgumentException("executorService cannot be null");
+      if(columnGroupSize < 1) throw new IllegalArgumentException("columnGroupSize must be positive");
+      copier.vectorizedValues = true;
+      copier.columnExecutor = executorService;
+      copier.columnGroupSize = columnGroupSize;
+      return this;
+    }
+
+    /**
+     * Record the progress of the value copies in a journal, so that an interrupted copy can be resumed from its last
+     * checkpoint. Checkpoints are only recorded for the destination writers that support them.
+     */
+    public Builder withCheckpoints(CopyJournal journal) {
+      return withCheckpoints(journal, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Record the progress of the value copies in a journal, so that an interrupted copy can be resumed from its last
+     * checkpoint.
+     *
+     * @param journal the journal of the copies
+     * @param interval minimum number of entities copied between two checkpoints
+     */
+    public Builder withCheckpoints(CopyJournal journal, int interval) {
+      if(journal == null) throw new IllegalArgumentException("journal cannot be null");
+      copier.journal = journal;
+      copier.checkpointInterval = Math.max(interval, CopyJournal.PAGE_SIZE);
+      return this;
+    }
+
     public Builder withVariableTransformer(VariableTransformer transformer) {
       copier.variableTransformer = transformer;
       return this;
@@ -110,6 +168,19 @@ public class DatasourceCopier {
       return this;
     }
 
+    /**
+     * Multiplex the copy, the destination tables being written concurrently when the strategy is static.
+     *
+     * @param strategy the multiplexing strategy
+     * @param executorService the executor of the writes to the destination tables, not shut down by the copier
+     */
+    public Builder withMultiplexingStrategy(MultiplexingStrategy strategy, ExecutorService executorService) {
+      if(executorService == null) throw new IllegalArgumentException("executorService cannot be null");
+      copier.multiplexer = strategy;
+      copier.multiplexExecutor = executorService;
+      return this;
+    }
+
     public DatasourceCopier build() {
       return new DatasourceCopier(copier);
     }
@@ -170,6 +241,21 @@ public class DatasourceCopier {
 
   private MultiplexingStrategy multiplexer = null;
 
+  @Nullable
+  private ExecutorService multiplexExecutor;
+
+  private boolean vectorizedValues = false;
+
+  @Nullable
+  private ExecutorService columnExecutor;
+
+  private int columnGroupSize = DEFAULT_COLUMN_GROUP_SIZE;
+
+  @Nullable
+  private CopyJournal journal;
+
+  private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+
   private DatasourceCopier() {
   }
 
@@ -180,6 +266,12 @@ public class DatasourceCopier {
     listeners = ImmutableList.copyOf(other.listeners);
     variableTransformer = other.variableTransformer;
     multiplexer = other.multiplexer;
+    multiplexExecutor = other.multiplexExecutor;
+    vectorizedValues = other.vectorizedValues;
+    columnExecutor = other.columnExecutor;
+    columnGroupSize = other.columnGroupSize;
+    journal = other.journal;
+    checkpointInterval = other.checkpointInterval;
   }
 
   public void copy(String sourceDatasource, String destinationDatasource) throws IOException {
@@ -223,7 +315,8 @@ public class DatasourceCopier {
         // case there is a table renaming that applies (?)
         destTableName = destination.getValueTable(destinationTableName).getName();
       }
-      copy(sourceTable, destTableName, tableWriter);
+      copyMetadata(sourceTable, destTableName, tableWriter);
+      copyValues(sourceTable, destTableName, destination.getName() + "." + destTableName, tableWriter);
     }
     if(log.isDebugEnabled()) {
       //noinspection ConstantConditions
@@ -231,36 +324,208 @@ public class DatasourceCopier {
     }
   }
 
-  private void copy(ValueTable sourceTable, String destinationTableName, ValueTableWriter tableWriter)
-      throws IOException {
-    copyMetadata(sourceTable, destinationTableName, tableWriter);
-    copyValues(sourceTable, destinationTableName, tableWriter);
-  }
-
-  private void copyValues(ValueTable sourceTable, String destinationTableName, ValueTableWriter tableWriter) {
+  /**
+   * Copies the values page by page. When a journal is configured and the destination writer supports checkpoints, the
+   * copy starts from the last checkpoint of this source and destination, and a checkpoint is recorded, once the
+   * destination writer is flushed, at every interval.
+   */
+  private void copyValues(ValueTable sourceTable, String destinationTableName, String destination,
+      ValueTableWriter tableWriter) {
     if(!copyValues) return;
     log.debug("Copy values from {} {}", sourceTable.getClass(), sourceTable.getName());
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    // variables order is computed once for all the value sets
+    Variable[] variables = getSortedVariables(sourceTable);
+    CopyJournal copyJournal = tableWriter.supportsCheckpoints() ? journal : null;
     int total = sourceTable.getValueSetCount();
-    int pageSize = 1000;
-    int from = 0;
+    int from = copyJournal == null ? 0 : copyJournal.resume(sourceTable, destination);
+    int checkpoint = from;
+    int start = from;
     while(from < total) {
-      Iterable<ValueSet> valueSets = sourceTable.getValueSets(sourceTable.getVariableEntities(from, pageSize));
-      for (ValueSet valueSet : valueSets) {
-        try (ValueSetWriter valueSetWriter = tableWriter.writeValueSet(valueSet.getVariableEntity())) {
-          copyValues(sourceTable, valueSet, destinationTableName, valueSetWriter);
+      List<VariableEntity> entities = sourceTable.getVariableEntities(from, PAGE_SIZE);
+      if(vectorizedValues) {
+        copyColumns(sourceTable, entities, variables, destinationTableName, tableWriter);
+      } else {
+        List<ValueSet> valueSets = ImmutableList.copyOf(sourceTable.getValueSets(entities));
+        Value[][] columns = new Value[variables.length][];
+        for(int i = 0; i < variables.length; i++) {
+          columns[i] = readColumn(sourceTable, valueSets, variables[i]);
+        }
+        copyValues(sourceTable, destinationTableName, valueSets, variables, columns, tableWriter);
+      }
+      from = from + PAGE_SIZE;
+      if(copyJournal != null && from < total && from - checkpoint >= checkpointInterval) {
+        tableWriter.flush();
+        copyJournal.checkpoint(sourceTable, destination, from);
+        checkpoint = from;
+      }
+    }
+    if(copyJournal != null) {
+      tableWriter.flush();
+      copyJournal.complete(sourceTable, destination);
+    }
+    logThroughput(sourceTable, destinationTableName, Math.max(0, total - start), variables.length, stopwatch.stop());
+  }
+
+  /**
+   * Reads the values of a page of entities column by column. Value sets are only fetched when some variable does not
+   * support vectors, or when listeners need them.
+   */
+  private void copyColumns(ValueTable sourceTable, List<VariableEntity> entities, Variable[] variables,
+      String destinationTableName, ValueTableWriter tableWriter) {
+    Value[][] columns = readColumns(sourceTable, entities, variables);
+    List<ValueSet> valueSets = null;
+    boolean allVectorized = true;
+    for(Value[] column : columns) {
+      if(column == null) {
+        allVectorized = false;
+        break;
+      }
+    }
+    if(!allVectorized || !listeners.isEmpty()) {
+      valueSets = ImmutableList.copyOf(sourceTable.getValueSets(entities));
+      for(int i = 0; i < columns.length; i++) {
+        if(columns[i] == null) columns[i] = readColumn(sourceTable, valueSets, variables[i]);
+      }
+    }
+    if(valueSets == null) {
+      valueSets = Lists.newArrayListWithCapacity(entities.size());
+      for(VariableEntity entity : entities) {
+        valueSets.add(new ValueSetBean(sourceTable, entity));
+      }
+    }
+    copyValues(sourceTable, destinationTableName, valueSets, variables, columns, tableWriter);
+  }
+
+  /**
+   * Reads the columns of the variables that support vectors, optionally concurrently by groups of variables, each group
+   * being read with one {@link ValueTable#getValues(List, List)} call. The columns of the other variables are left
+   * null.
+   */
+  private Value[][] readColumns(final ValueTable sourceTable, final List<VariableEntity> entities,
+      final Variable[] variables) {
+    if(columnExecutor == null || variables.length <= columnGroupSize) {
+      return sourceTable.getValues(entities, Arrays.asList(variables));
+    }
+    final Value[][] columns = new Value[variables.length][];
+    List<Future<?>> groups = Lists.newArrayList();
+    for(int start = 0; start < variables.length; start += columnGroupSize) {
+      final int groupStart = start;
+      final int groupEnd = Math.min(start + columnGroupSize, variables.length);
+      groups.add(columnExecutor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          Value[][] group = sourceTable.getValues(entities, Arrays.asList(variables).subList(groupStart, groupEnd));
+          System.arraycopy(group, 0, columns, groupStart, group.length);
+          return null;
         }
+      }));
+    }
+    for(Future<?> group : groups) {
+      waitFor(group);
+    }
+    return columns;
+  }
+
+  private Value[] readColumn(ValueTable sourceTable, List<ValueSet> valueSets, Variable variable) {
+    Value[] column = new Value[valueSets.size()];
+    for(int row = 0; row < column.length; row++) {
+      column[row] = sourceTable.getValue(variable, valueSets.get(row));
+    }
+    return column;
+  }
+
+  /**
+   * Copies the values of a block of value sets with a single {@link ValueTableWriter#writeValueSets(List, List,
+   * Value[][])} call, {@code columns[i][j]} being the value of {@code variables[i]} for {@code valueSets.get(j)}.
+   * Writes multiplexed by a strategy that depends on the entities go through the per value set API, so that the
+   * destination tables can be reported.
+   */
+  void copyValues(ValueTable source, String tableName, List<ValueSet> valueSets, Variable[] variables,
+      Value[][] columns, ValueTableWriter tableWriter) {
+    if(!copyValues || valueSets.isEmpty()) return;
+    if(tableWriter instanceof MultiplexingValueTableWriter &&
+        !((MultiplexingValueTableWriter) tableWriter).isStatic()) {
+      for(int j = 0; j < valueSets.size(); j++) {
+        ValueSet valueSet = valueSets.get(j);
+        Value[] values = new Value[variables.length];
+        for(int i = 0; i < variables.length; i++) {
+          values[i] = columns[i][j];
+        }
+        try(ValueSetWriter valueSetWriter = tableWriter.writeValueSet(valueSet.getVariableEntity())) {
+          copyValues(source, tableName, valueSet, variables, values, valueSetWriter);
+        }
+      }
+      return;
+    }
+
+    List<VariableEntity> entities = Lists.newArrayListWithCapacity(valueSets.size());
+    for(ValueSet valueSet : valueSets) {
+      notifyListeners(source, valueSet, false);
+      entities.add(valueSet.getVariableEntity());
+    }
+    List<Variable> destinationVariables = Lists.newArrayListWithCapacity(variables.length);
+    Value[][] values = new Value[variables.length][];
+    for(int i = 0; i < variables.length; i++) {
+      destinationVariables.add(variableTransformer.transform(variables[i]));
+      values[i] = copyNullValues ? columns[i] : withoutNullValues(columns[i]);
+    }
+    tableWriter.writeValueSets(entities, destinationVariables, values);
+    if(tableWriter instanceof MultiplexingValueTableWriter) {
+      MultiplexingValueTableWriter multiplexingWriter = (MultiplexingValueTableWriter) tableWriter;
+      for(int j = 0; j < valueSets.size(); j++) {
+        notifyListeners(source, valueSets.get(j), true, multiplexingWriter.getTables(destinationVariables, values, j));
+      }
+    } else {
+      for(ValueSet valueSet : valueSets) {
+        notifyListeners(source, valueSet, true, tableName);
+      }
+    }
+  }
+
+  private Value[] withoutNullValues(Value[] column) {
+    Value[] values = new Value[column.length];
+    for(int j = 0; j < column.length; j++) {
+      values[j] = column[j].isNull() ? null : column[j];
+    }
+    return values;
+  }
+
+  private void waitFor(Future<?> future) {
+    try {
+      future.get();
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MagmaRuntimeException(e);
+    } catch(ExecutionException e) {
+      Throwable cause = e.getCause();
+      if(cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
       }
-      from = from + pageSize;
+      throw new MagmaRuntimeException(cause);
     }
   }
 
+  @SuppressWarnings("MagicNumber")
+  private void logThroughput(ValueTable sourceTable, String destinationTableName, int valueSets, int variables,
+      Stopwatch stopwatch) {
+    long millis = Math.max(1, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+    log.info("Copied {} valueSets of {} variables from '{}' to '{}' in {} ({} valueSets/s, {} values/s).", valueSets,
+        variables, sourceTable.getName(), destinationTableName, stopwatch, valueSets * 1000L / millis,
+        (long) valueSets * variables * 1000L / millis);
+  }
+
+  private Variable[] getSortedVariables(ValueTable sourceTable) {
+    List<Variable> variables = Lists.newArrayList(sourceTable.getVariables());
+    variables.sort(Comparator.comparingInt(Variable::getIndex));
+    return variables.toArray(new Variable[variables.size()]);
+  }
+
   public void copyValues(ValueTable sourceTable, ValueSet valueSet, String destinationTableName,
       ValueSetWriter valueSetWriter) {
     if(!copyValues) return;
     notifyListeners(sourceTable, valueSet, false);
-    List<Variable> variables = Lists.newArrayList(sourceTable.getVariables());
-    variables.sort(Comparator.comparingInt(Variable::getIndex));
-    for(Variable variable : variables) {
+    for(Variable variable : getSortedVariables(sourceTable)) {
       Value value = sourceTable.getValue(variable, valueSet);
       if(!value.isNull() || copyNullValues) {
         valueSetWriter.writeValue(variableTransformer.transform(variable), value);
@@ -284,9 +549,7 @@ public class DatasourceCopier {
 
   public void copyMetadata(ValueTable sourceTable, VariableWriter variableWriter) {
     if(!copyMetadata) return;
-    List<Variable> variables = Lists.newArrayList(sourceTable.getVariables());
-    variables.sort(Comparator.comparingInt(Variable::getIndex));
-    for(Variable variable : variables) {
+    for(Variable variable : getSortedVariables(sourceTable)) {
       notifyListeners(variable, false);
       variableWriter.writeVariable(variableTransformer.transform(variable));
       notifyListeners(variable, true);
@@ -320,7 +583,7 @@ public class DatasourceCopier {
   ValueTableWriter innerValueTableWriter(ValueTable source, String destinationTableName, Datasource destination) {
     return multiplexer == null
         ? createValueTableWriter(source, destinationTableName, destination)
-        : new MultiplexingValueTableWriter(source, this, destination, multiplexer);
+        : new MultiplexingValueTableWriter(source, this, destination, multiplexer, multiplexExecutor);
   }
 
   private void notifyListeners(Variable variable, boolean copied) {
@@ -405,6 +668,14 @@ public class DatasourceCopier {
 
     String multiplexValueSet(VariableEntity entity, Variable variable);
 
+    /**
+     * Whether {@link #multiplexValueSet(VariableEntity, Variable)} gives the table of
+     * {@link #multiplexVariable(Variable)} whatever the entity, so that values can be routed by variable.
+     */
+    default boolean isStatic() {
+      return false;
+    }
+
   }
 
   private static class LoggingListener
@@ -464,6 +735,15 @@ public class DatasourceCopier {
 
   }
 
+  @Nullable
+  CopyJournal getJournal() {
+    return journal;
+  }
+
+  int getCheckpointInterval() {
+    return checkpointInterval;
+  }
+
   public boolean isCopyValues() {
     return copyValues;
   }
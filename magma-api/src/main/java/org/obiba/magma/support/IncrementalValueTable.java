@@ -9,7 +9,8 @@
  */
 package org.obiba.magma.support;
 
-import java.util.Map;
+import java.util.Iterator;
+import java.util.List;
 
 import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
@@ -24,15 +25,30 @@ import org.obiba.magma.VariableEntity;
 import org.obiba.magma.transform.BijectiveFunction;
 import org.obiba.magma.type.DateTimeType;
 import org.obiba.magma.views.AbstractTransformingValueTableWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.Maps;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 
 /**
- *
+ * Exposes the entities of a source table which value sets were updated after the ones of a destination table (or
+ * that the destination table does not have).
+ * <p/>
+ * The changed entities are computed once, by reading the timestamps of both tables in pages of entities (see
+ * {@link ValueTable#getValueSetTimestamps(List)}) and comparing them as they are read. Only the changed entities are
+ * retained.
  */
 public class IncrementalValueTable extends AbstractTransformingValueTableWrapper {
 
-//  private static final Logger log = LoggerFactory.getLogger(IncrementalValueTable.class);
+  private static final Logger log = LoggerFactory.getLogger(IncrementalValueTable.class);
+
+  /**
+   * Number of entities which timestamps are read at once from each table.
+   */
+  public static final int TIMESTAMPS_PAGE_SIZE = 1000;
 
   private final IncrementalFunction variableEntityMappingFunction;
 
@@ -67,6 +83,9 @@ public class IncrementalValueTable extends AbstractTransformingValueTableWrapper
   @NotNull
   private final ValueTable destinationTable;
 
+  @Nullable
+  private volatile ImmutableSet<VariableEntity> changedEntities;
+
   private IncrementalValueTable(@NotNull ValueTable sourceTable, @NotNull ValueTable destinationTable) {
     this.sourceTable = sourceTable;
     this.destinationTable = destinationTable;
@@ -79,6 +98,109 @@ public class IncrementalValueTable extends AbstractTransformingValueTableWrapper
     return variableEntityMappingFunction;
   }
 
+  @Override
+  public List<VariableEntity> getVariableEntities() {
+    return getChangedEntities().asList();
+  }
+
+  @Override
+  public List<VariableEntity> getVariableEntities(int offset, int limit) {
+    ImmutableList<VariableEntity> entities = getChangedEntities().asList();
+    if(offset >= entities.size()) return ImmutableList.of();
+    return entities.subList(offset, limit > 0 ? Math.min(entities.size(), offset + limit) : entities.size());
+  }
+
+  @Override
+  public int getVariableEntityCount() {
+    return getChangedEntities().size();
+  }
+
+  @Override
+  public int getValueSetCount() {
+    return getVariableEntityCount();
+  }
+
+  /**
+   * Returns the number of source entities to be copied to the destination table.
+   */
+  public int getChangedEntityCount() {
+    return getVariableEntityCount();
+  }
+
+  private ImmutableSet<VariableEntity> getChangedEntities() {
+    ImmutableSet<VariableEntity> entities = changedEntities;
+    if(entities == null) {
+      synchronized(this) {
+        if(changedEntities == null) {
+          changedEntities = diffEntities();
+        }
+        entities = changedEntities;
+      }
+    }
+    return entities;
+  }
+
+  /**
+   * Merges the timestamps of each page of source entities with the ones of the destination entities.
+   */
+  private ImmutableSet<VariableEntity> diffEntities() {
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    List<VariableEntity> entities = sourceTable.getVariableEntities();
+    ImmutableSet.Builder<VariableEntity> changed = ImmutableSet.builder();
+    int count = 0;
+    for(List<VariableEntity> page : Lists.partition(entities, TIMESTAMPS_PAGE_SIZE)) {
+      Iterator<Timestamps> sourceTimestamps = getValueSetTimestamps(sourceTable, page).iterator();
+      Iterator<Timestamps> destinationTimestamps = getValueSetTimestamps(destinationTable, page).iterator();
+      for(VariableEntity entity : page) {
+        if(isNewer(getLastUpdate(sourceTimestamps), getLastUpdate(destinationTimestamps))) {
+          changed.add(entity);
+          count++;
+        }
+      }
+    }
+    log.info("{} of {} entities of {} to be copied to {} ({})", count, entities.size(),
+        sourceTable.getTableReference(), destinationTable.getTableReference(), stopwatch);
+    return changed.build();
+  }
+
+  /**
+   * Reads the timestamps of a page of entities, one by one if some entities do not have a value set in the table.
+   */
+  private static Iterable<Timestamps> getValueSetTimestamps(ValueTable table, List<VariableEntity> page) {
+    try {
+      return ImmutableList.copyOf(table.getValueSetTimestamps(page));
+    } catch(NoSuchValueSetException e) {
+      List<Timestamps> timestamps = Lists.newArrayListWithCapacity(page.size());
+      for(VariableEntity entity : page) {
+        timestamps.add(getValueSetTimestamps(table, entity));
+      }
+      return timestamps;
+    }
+  }
+
+  @Nullable
+  private static Timestamps getValueSetTimestamps(ValueTable table, VariableEntity entity) {
+    try {
+      return table.getValueSetTimestamps(entity);
+    } catch(NoSuchValueSetException ignored) {
+      return null;
+    }
+  }
+
+  private static Value getLastUpdate(Iterator<Timestamps> timestamps) {
+    Timestamps next = timestamps.hasNext() ? timestamps.next() : null;
+    return getLastUpdate(next);
+  }
+
+  private static Value getLastUpdate(@Nullable Timestamps timestamps) {
+    return timestamps == null ? DateTimeType.get().nullValue() : timestamps.getLastUpdate();
+  }
+
+  private static boolean isNewer(Value sourceLastUpdate, Value destinationLastUpdate) {
+    return sourceLastUpdate.isNull() || destinationLastUpdate.isNull() ||
+        sourceLastUpdate.compareTo(destinationLastUpdate) > 0;
+  }
+
   /**
    * <pre>
    * apply: source entity <b>older</b> than destination
@@ -87,19 +209,9 @@ public class IncrementalValueTable extends AbstractTransformingValueTableWrapper
    */
   private class IncrementalFunction implements BijectiveFunction<VariableEntity, VariableEntity> {
 
-    private final Map<VariableEntity, VariableEntity> applyCache = Maps.newHashMap();
-
     @Override
     public VariableEntity apply(VariableEntity from) {
-      if(applyCache.containsKey(from)) {
-        //log.info("apply has cached: {}", from.getIdentifier());
-        return applyCache.get(from);
-      }
-      boolean newer = isSourceNewerThanDestination(from);
-      VariableEntity entity = newer ? from : null;
-      //log.info("View: {}, entity: {}, sourceIsNewer: {}, return {}", getName(), from, newer, entity);
-      applyCache.put(from, entity);
-      return entity;
+      return getChangedEntities().contains(from) ? from : null;
     }
 
     @Override
@@ -107,27 +219,6 @@ public class IncrementalValueTable extends AbstractTransformingValueTableWrapper
       return from;
     }
 
-    private boolean isSourceNewerThanDestination(VariableEntity from) {
-      Timestamps sourceTimestamps = null;
-      Value sourceLastUpdate = DateTimeType.get().nullValue();
-      Value destinationLastUpdate = DateTimeType.get().nullValue();
-      try {
-        sourceTimestamps = getWrappedValueTable().getValueSetTimestamps(from);
-        if(sourceTimestamps != null) sourceLastUpdate = sourceTimestamps.getLastUpdate();
-      } catch(NoSuchValueSetException ignored) {
-      }
-
-      Timestamps destinationTimestamps = null;
-      try {
-        destinationTimestamps = destinationTable.getValueSetTimestamps(from);
-        if(destinationTimestamps != null) destinationLastUpdate = destinationTimestamps.getLastUpdate();
-      } catch(NoSuchValueSetException ignored) {
-      }
-
-      //log.info("{} - sourceLastUpdate: {}, destinationLastUpdate: {}", from, sourceLastUpdate, destinationLastUpdate);
-      return sourceLastUpdate.isNull() || destinationLastUpdate.isNull() ||
-          sourceLastUpdate.compareTo(destinationLastUpdate) > 0;
-    }
   }
 
 }
@@ -10,12 +10,18 @@
 
 package org.obiba.magma.support;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
 
 import org.obiba.magma.Datasource;
+import org.obiba.magma.MagmaRuntimeException;
 import org.obiba.magma.Value;
 import org.obiba.magma.ValueTable;
 import org.obiba.magma.ValueTableWriter;
@@ -23,9 +29,15 @@ import org.obiba.magma.Variable;
 import org.obiba.magma.VariableEntity;
 import org.obiba.magma.support.DatasourceCopier.MultiplexingStrategy;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
+/**
+ * Writes the variables and values of a source table into the destination tables given by a {@link
+ * MultiplexingStrategy}. The destination table of a variable is computed once. When the strategy is static, blocks of
+ * value sets are split by destination table, and the destination tables can be written concurrently.
+ */
 public class MultiplexingValueTableWriter implements ValueTableWriter {
 
   private final ValueTable source;
@@ -36,14 +48,38 @@ public class MultiplexingValueTableWriter implements ValueTableWriter {
 
   private final MultiplexingStrategy strategy;
 
+  @Nullable
+  private final ExecutorService executorService;
+
   private final Map<String, ValueTableWriter> writers = Maps.newHashMap();
 
+  /**
+   * Destination table by variable name.
+   */
+  private final Map<String, String> routes = Maps.newConcurrentMap();
+
   public MultiplexingValueTableWriter(ValueTable source, DatasourceCopier copier, Datasource destination,
       MultiplexingStrategy strategy) {
+    this(source, copier, destination, strategy, null);
+  }
+
+  /**
+   * @param executorService the executor of the writes to the destination tables, not shut down by the writer
+   */
+  public MultiplexingValueTableWriter(ValueTable source, DatasourceCopier copier, Datasource destination,
+      MultiplexingStrategy strategy, @Nullable ExecutorService executorService) {
     this.source = source;
     this.copier = copier;
     this.destination = destination;
     this.strategy = strategy;
+    this.executorService = executorService;
+  }
+
+  /**
+   * Whether the destination table of a value only depends on its variable.
+   */
+  public boolean isStatic() {
+    return strategy.isStatic();
   }
 
   @NotNull
@@ -57,6 +93,91 @@ public class MultiplexingValueTableWriter implements ValueTableWriter {
     return new MultiplexedVariableWriter();
   }
 
+  /**
+   * With a static strategy, the block is split by destination table and each part is written with a single call to the
+   * destination table writer, concurrently if an executor was provided.
+   */
+  @Override
+  public void writeValueSets(@NotNull List<VariableEntity> entities, @NotNull List<Variable> variables,
+      @NotNull Value[][] values) {
+    if(!isStatic()) {
+      ValueTableWriter.super.writeValueSets(entities, variables, values);
+      return;
+    }
+    Map<String, List<Integer>> plan = Maps.newLinkedHashMap();
+    for(int i = 0; i < variables.size(); i++) {
+      String tableName = route(variables.get(i));
+      List<Integer> columns = plan.get(tableName);
+      if(columns == null) {
+        columns = Lists.newArrayList();
+        plan.put(tableName, columns);
+      }
+      columns.add(i);
+    }
+
+    List<Runnable> writes = Lists.newArrayListWithCapacity(plan.size());
+    for(Map.Entry<String, List<Integer>> entry : plan.entrySet()) {
+      // as with value set writers, only the entities that have a value in the table are written
+      List<Integer> rows = getRows(entities.size(), entry.getValue(), values);
+      if(rows.isEmpty()) continue;
+      final ValueTableWriter writer = lookupWriter(entry.getKey());
+      final List<Variable> tableVariables = Lists.newArrayListWithCapacity(entry.getValue().size());
+      final Value[][] tableValues = new Value[entry.getValue().size()][];
+      int column = 0;
+      for(int i : entry.getValue()) {
+        tableVariables.add(variables.get(i));
+        tableValues[column++] = rows.size() == entities.size() ? values[i] : select(values[i], rows);
+      }
+      final List<VariableEntity> tableEntities = rows.size() == entities.size()
+          ? entities
+          : Lists.newArrayList(Lists.transform(rows, entities::get));
+      writes.add(() -> writer.writeValueSets(tableEntities, tableVariables, tableValues));
+    }
+    execute(writes);
+  }
+
+  /**
+   * Get the rows of a block that have at least one value in the given columns.
+   */
+  private static List<Integer> getRows(int rowCount, List<Integer> columns, Value[][] values) {
+    List<Integer> rows = Lists.newArrayListWithCapacity(rowCount);
+    for(int j = 0; j < rowCount; j++) {
+      for(int i : columns) {
+        if(values[i][j] != null) {
+          rows.add(j);
+          break;
+        }
+      }
+    }
+    return rows;
+  }
+
+  private static Value[] select(Value[] column, List<Integer> rows) {
+    Value[] selected = new Value[rows.size()];
+    for(int j = 0; j < selected.length; j++) {
+      selected[j] = column[rows.get(j)];
+    }
+    return selected;
+  }
+
+  /**
+   * Get the destination tables of a value set, given as the {@code row} of a block of values.
+   */
+  public String[] getTables(List<Variable> variables, Value[][] values, int row) {
+    Set<String> tables = Sets.newLinkedHashSet();
+    for(int i = 0; i < variables.size(); i++) {
+      if(values[i][row] != null) tables.add(route(variables.get(i)));
+    }
+    return tables.toArray(new String[tables.size()]);
+  }
+
+  @Override
+  public void flush() {
+    for(ValueTableWriter writer : writers.values()) {
+      writer.flush();
+    }
+  }
+
   @Override
   public void close() {
     for(ValueTableWriter writer : writers.values()) {
@@ -64,11 +185,45 @@ public class MultiplexingValueTableWriter implements ValueTableWriter {
     }
   }
 
-  @SuppressWarnings({ "AssignmentToMethodParameter", "PMD.AvoidReassigningParameters" })
-  private ValueTableWriter lookupWriter(String tableName) {
+  private String route(Variable variable) {
+    String tableName = routes.get(variable.getName());
     if(tableName == null) {
-      tableName = source.getName();
+      tableName = getTableName(strategy.multiplexVariable(variable));
+      routes.put(variable.getName(), tableName);
+    }
+    return tableName;
+  }
+
+  private String getTableName(@Nullable String tableName) {
+    return tableName == null ? source.getName() : tableName;
+  }
+
+  private void execute(List<Runnable> writes) {
+    if(executorService == null || writes.size() == 1) {
+      for(Runnable write : writes) {
+        write.run();
+      }
+      return;
+    }
+    List<Future<?>> futures = Lists.newArrayListWithCapacity(writes.size());
+    for(Runnable write : writes) {
+      futures.add(executorService.submit(write));
     }
+    for(Future<?> future : futures) {
+      try {
+        future.get();
+      } catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new MagmaRuntimeException(e);
+      } catch(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+        throw new MagmaRuntimeException(cause);
+      }
+    }
+  }
+
+  private ValueTableWriter lookupWriter(String tableName) {
     ValueTableWriter writer = writers.get(tableName);
     if(writer == null) {
       copier.notifyListeners(source, tableName, false);
@@ -84,7 +239,7 @@ public class MultiplexingValueTableWriter implements ValueTableWriter {
 
     @Override
     public void writeVariable(@NotNull Variable variable) {
-      ValueTableWriter vtw = lookupWriter(strategy.multiplexVariable(variable));
+      ValueTableWriter vtw = lookupWriter(route(variable));
       VariableWriter writer = writers.get(vtw);
       if(writer == null) {
         writer = vtw.writeVariables();
@@ -126,7 +281,7 @@ public class MultiplexingValueTableWriter implements ValueTableWriter {
 
     @Override
     public void writeValue(@NotNull Variable variable, Value value) {
-      String tableName = strategy.multiplexValueSet(entity, variable);
+      String tableName = isStatic() ? route(variable) : getTableName(strategy.multiplexValueSet(entity, variable));
       tables.add(tableName);
       ValueTableWriter vtw = lookupWriter(tableName);
 
@@ -11,8 +11,10 @@
 package org.obiba.magma.support;
 
 import java.io.IOException;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
@@ -32,7 +34,6 @@ import org.obiba.magma.Value;
 import org.obiba.magma.ValueSet;
 import org.obiba.magma.ValueTable;
 import org.obiba.magma.ValueTableWriter;
-import org.obiba.magma.ValueTableWriter.ValueSetWriter;
 import org.obiba.magma.Variable;
 import org.obiba.magma.VariableEntity;
 import org.obiba.magma.VariableValueSource;
@@ -40,6 +41,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 public class MultithreadedDatasourceCopier {
 
@@ -152,6 +154,12 @@ public class MultithreadedDatasourceCopier {
 
   private final List<DatasourceCopierProgressListener> progressListeners = Lists.newArrayList();
 
+  // position in the source table of the next entities to be read
+  private int nextPosition;
+
+  @Nullable
+  private CheckpointTracker checkpointTracker;
+
   @edu.umd.cs.findbugs.annotations.SuppressWarnings(value = "NP_NONNULL_FIELD_NOT_INITIALIZED_IN_CONSTRUCTOR",
       justification = "Fields will be populated by Builder")
   private MultithreadedDatasourceCopier() {
@@ -159,42 +167,53 @@ public class MultithreadedDatasourceCopier {
   }
 
   public void copy() throws IOException {
+    prepareVariables();
+    copyVariables();
+
     ThreadPoolExecutor executor = (ThreadPoolExecutor) (threadFactory == null //
         ? Executors.newFixedThreadPool(concurrentReaders) //
         : Executors.newFixedThreadPool(concurrentReaders, threadFactory));
 
-    prepareVariables();
-
     // A queue containing all entity values available for writing to the destinationDatasource.
     BlockingQueue<VariableEntityValues> writeQueue = new LinkedBlockingDeque<>(bufferSize);
 
     DatasourceCopier datasourceCopier = copier.build();
-    if(datasourceCopier.isCopyValues()) {
-
-      // A queue containing all entities to read the values for.
-      // Once this is empty, and all readers are done, then reading is over.
-      BlockingQueue<VariableEntity> readQueue = new VariableEntityBlockingQueue(sourceTable);
-      entitiesToCopy = readQueue.size();
-      for(int i = 0; i < concurrentReaders; i++) {
-        readers.add(
-            executor.submit(new ConcurrentValueSetReader(readQueue, writeQueue, datasourceCopier.isCopyNullValues())));
+    String destination = destinationDatasource.getName() + "." + destinationName;
+    try(ValueTableWriter tableWriter = datasourceCopier
+        .innerValueTableWriter(sourceTable, destinationName, destinationDatasource)) {
+      // checkpoints are recorded only if the writer persists the value sets when flushed
+      CopyJournal journal = tableWriter.supportsCheckpoints() ? datasourceCopier.getJournal() : null;
+      if(datasourceCopier.isCopyValues()) {
+        nextPosition = journal == null ? 0 : journal.resume(sourceTable, destination);
+        if(journal != null) {
+          checkpointTracker = new CheckpointTracker(journal, destination, nextPosition,
+              datasourceCopier.getCheckpointInterval());
+        }
+
+        // A queue containing all entities to read the values for.
+        // Once this is empty, and all readers are done, then reading is over.
+        BlockingQueue<VariableEntity> readQueue = new VariableEntityBlockingQueue(sourceTable, nextPosition);
+        entitiesToCopy = readQueue.size();
+        for(int i = 0; i < concurrentReaders; i++) {
+          readers.add(executor.submit(
+              new ConcurrentValueSetReader(readQueue, writeQueue, datasourceCopier.isCopyNullValues())));
+        }
+      }
+      try {
+        // The writers could also be concurrent, but dues to transaction isolation issues, it is currently ran
+        // synchronously
+        new ConcurrentValueSetWriter(writeQueue, datasourceCopier, tableWriter).run();
+        checkReadersForException();
+        if(checkpointTracker != null) {
+          tableWriter.flush();
+          checkpointTracker.journal.complete(sourceTable, destination);
+        }
+      } finally {
+        log.debug("Finished multi-threaded copy. Submitted tasks {}, executed tasks {}", executor.getTaskCount(),
+            executor.getCompletedTaskCount());
+        executor.shutdownNow();
       }
     }
-    try {
-      write(writeQueue);
-      checkReadersForException();
-    } finally {
-      log.debug("Finished multi-threaded copy. Submitted tasks {}, executed tasks {}", executor.getTaskCount(),
-          executor.getCompletedTaskCount());
-      executor.shutdownNow();
-    }
-  }
-
-  private void write(BlockingQueue<VariableEntityValues> writeQueue) throws IOException {
-    copyVariables();
-    // The writers could also be concurrent, but dues to transaction isolation issues, it is currently ran
-    // synchronously
-    new ConcurrentValueSetWriter(writeQueue).run();
   }
 
   @SuppressWarnings("OverlyNestedMethod")
@@ -241,14 +260,62 @@ public class MultithreadedDatasourceCopier {
 
     private final ValueSet valueSet;
 
+    private final int position;
+
+    // null when the entity is not to be written
+    @Nullable
     private final Value[] values;
 
-    private VariableEntityValues(ValueSet valueSet, Value... values) {
+    private VariableEntityValues(ValueSet valueSet, int position, @Nullable Value[] values) {
       this.valueSet = valueSet;
+      this.position = position;
       this.values = values;
     }
   }
 
+  /**
+   * Tracks the positions of the entities written, in any order, and records in the journal the position before which
+   * all the entities were written.
+   */
+  private class CheckpointTracker {
+
+    private final CopyJournal journal;
+
+    private final String destination;
+
+    private final int start;
+
+    private final int interval;
+
+    private final BitSet written = new BitSet();
+
+    // number of entities written from the start position without gap
+    private int watermark;
+
+    private int checkpoint;
+
+    private CheckpointTracker(CopyJournal journal, String destination, int start, int interval) {
+      this.journal = journal;
+      this.destination = destination;
+      this.start = start;
+      this.interval = interval;
+      checkpoint = start;
+    }
+
+    private void written(List<VariableEntityValues> block, ValueTableWriter tableWriter) {
+      for(VariableEntityValues values : block) {
+        written.set(values.position - start);
+      }
+      watermark = written.nextClearBit(watermark);
+      int position = start + watermark;
+      if(position - checkpoint >= interval) {
+        tableWriter.flush();
+        journal.checkpoint(sourceTable, destination, position);
+        checkpoint = position;
+      }
+    }
+  }
+
   private class ConcurrentValueSetReader implements Runnable {
 
     private final BlockingQueue<VariableEntity> readQueue;
@@ -268,26 +335,39 @@ public class MultithreadedDatasourceCopier {
     public void run() {
       try {
         List<VariableEntity> entities = Lists.newArrayList();
-        VariableEntity entity;
-        while(entities.size() < sourceTable.getVariableEntityBatchSize() && (entity = readQueue.poll()) != null) {
-          entities.add(entity);
-          if (entities.size() == sourceTable.getVariableEntityBatchSize()) {
-            for (ValueSet valueSet : sourceTable.getValueSets(entities)) {
-              copyValueSet(valueSet);
-            }
-            entities.clear();
+        int position;
+        while((position = poll(entities)) >= 0) {
+          Map<VariableEntity, Integer> positions = Maps.newHashMapWithExpectedSize(entities.size());
+          for(int i = 0; i < entities.size(); i++) {
+            positions.put(entities.get(i), position + i);
           }
-        }
-        if (entities.size() > 0) {
-          for (ValueSet valueSet : sourceTable.getValueSets(entities)) {
-            copyValueSet(valueSet);
+          for(ValueSet valueSet : sourceTable.getValueSets(entities)) {
+            copyValueSet(valueSet, positions.get(valueSet.getVariableEntity()));
           }
         }
       } catch(InterruptedException ignored) {
       }
     }
 
-    private void copyValueSet(ValueSet valueSet) throws InterruptedException {
+    /**
+     * Polls a batch of entities to be read and returns the position of the first one in the source table, -1 when
+     * there is nothing left to read.
+     */
+    private int poll(List<VariableEntity> entities) {
+      entities.clear();
+      synchronized(readQueue) {
+        VariableEntity entity;
+        while(entities.size() < sourceTable.getVariableEntityBatchSize() && (entity = readQueue.poll()) != null) {
+          entities.add(entity);
+        }
+        if(entities.isEmpty()) return -1;
+        int position = nextPosition;
+        nextPosition += entities.size();
+        return position;
+      }
+    }
+
+    private void copyValueSet(ValueSet valueSet, int position) throws InterruptedException {
       boolean hasOnlyNullValues = true;
       Value[] values = new Value[sources.length];
 
@@ -299,9 +379,11 @@ public class MultithreadedDatasourceCopier {
 
       if(copyNullValues || !hasOnlyNullValues) {
         log.trace("Enqueued entity {}", valueSet.getVariableEntity().getIdentifier());
-        writeQueue.put(new VariableEntityValues(valueSet, values));
+        writeQueue.put(new VariableEntityValues(valueSet, position, values));
       } else {
         log.trace("Skip entity {} because of null values", valueSet.getVariableEntity().getIdentifier());
+        // the checkpoints still need to know that it was handled
+        if(checkpointTracker != null) writeQueue.put(new VariableEntityValues(valueSet, position, null));
       }
 
       if(readerListener != null) {
@@ -314,8 +396,15 @@ public class MultithreadedDatasourceCopier {
 
     private final BlockingQueue<VariableEntityValues> writeQueue;
 
-    private ConcurrentValueSetWriter(BlockingQueue<VariableEntityValues> writeQueue) {
+    private final DatasourceCopier datasourceCopier;
+
+    private final ValueTableWriter tableWriter;
+
+    private ConcurrentValueSetWriter(BlockingQueue<VariableEntityValues> writeQueue, DatasourceCopier datasourceCopier,
+        ValueTableWriter tableWriter) {
       this.writeQueue = writeQueue;
+      this.datasourceCopier = datasourceCopier;
+      this.tableWriter = tableWriter;
     }
 
     /**
@@ -351,28 +440,40 @@ public class MultithreadedDatasourceCopier {
       return true;
     }
 
-    @SuppressWarnings("ThrowFromFinallyBlock")
     @Override
     public void run() {
-      DatasourceCopier datasourceCopier = copier.build();
-      try(ValueTableWriter tableWriter = datasourceCopier
-          .innerValueTableWriter(sourceTable, destinationName, destinationDatasource)) {
-        VariableEntityValues values = null;
-        while((values = next()) != null) {
-          copyValue(datasourceCopier, tableWriter, values);
-        }
+      List<VariableEntityValues> block = Lists.newArrayList();
+      VariableEntityValues values = null;
+      while((values = next()) != null) {
+        // write what is already available in the queue at once
+        block.add(values);
+        writeQueue.drainTo(block, bufferSize - 1);
+        copyValues(datasourceCopier, tableWriter, block);
+        block.clear();
       }
     }
 
-    @SuppressWarnings("ThrowFromFinallyBlock")
-    private void copyValue(DatasourceCopier datasourceCopier, ValueTableWriter tableWriter,
-        VariableEntityValues values) {
-      try(ValueSetWriter writer = tableWriter.writeValueSet(values.valueSet.getVariableEntity())) {
-        // Copy the ValueSet to the destinationDatasource
+    private void copyValues(DatasourceCopier datasourceCopier, ValueTableWriter tableWriter,
+        List<VariableEntityValues> block) {
+      List<VariableEntityValues> toWrite = Lists.newArrayListWithCapacity(block.size());
+      for(VariableEntityValues values : block) {
+        if(values.values != null) toWrite.add(values);
+      }
+      List<ValueSet> valueSets = Lists.newArrayListWithCapacity(toWrite.size());
+      Value[][] columns = new Value[variables.length][toWrite.size()];
+      for(int j = 0; j < toWrite.size(); j++) {
+        VariableEntityValues values = toWrite.get(j);
         log.trace("Dequeued entity {}", values.valueSet.getVariableEntity().getIdentifier());
-        datasourceCopier.copyValues(sourceTable, destinationName, values.valueSet, variables, values.values, writer);
+        valueSets.add(values.valueSet);
+        for(int i = 0; i < variables.length; i++) {
+          //noinspection ConstantConditions
+          columns[i][j] = values.values[i];
+        }
       }
-      entitiesCopied++;
+      // Copy the ValueSets to the destinationDatasource
+      datasourceCopier.copyValues(sourceTable, destinationName, valueSets, variables, columns, tableWriter);
+      if(checkpointTracker != null) checkpointTracker.written(block, tableWriter);
+      entitiesCopied += toWrite.size();
       printProgress();
     }
 
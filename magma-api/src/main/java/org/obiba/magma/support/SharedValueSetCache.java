@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.support;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
+
+import org.obiba.magma.MagmaRuntimeException;
+import org.obiba.magma.Value;
+import org.obiba.magma.ValueSet;
+import org.obiba.magma.ValueSetBatch;
+import org.obiba.magma.ValueTable;
+import org.obiba.magma.VariableEntity;
+import org.obiba.magma.metrics.Metrics;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Cache of the value sets read by batch from the source tables, shared by all the views and joins that read the same
+ * table. A value set is cached by table reference, entity and last update of the table, so that the value sets of a
+ * table that was written are not read anymore (and are evicted eventually).
+ * <p>
+ * The cache is split in shards, each with its own lock and an equal part of the maximum weight. The weight of a value
+ * set is the number of variables of its table: the least recently used value sets of a shard are evicted when its
+ * weight is exceeded. Concurrent misses for the same entities are loaded once: the first reader loads them in one
+ * batch, the others wait for its result.
+ */
+public class SharedValueSetCache {
+
+  public static final long DEFAULT_MAX_WEIGHT = 10000000;
+
+  public static final int DEFAULT_SHARDS = 16;
+
+  private final Shard[] shards;
+
+  private final ConcurrentMap<Key, CompletableFuture<ValueSet>> loading = Maps.newConcurrentMap();
+
+  public SharedValueSetCache() {
+    this(DEFAULT_MAX_WEIGHT, DEFAULT_SHARDS);
+  }
+
+  /**
+   * @param maxWeight maximum number of values (value sets times variables) held by the cache
+   * @param shardCount
+   */
+  public SharedValueSetCache(long maxWeight, int shardCount) {
+    if(maxWeight <= 0) throw new IllegalArgumentException("maxWeight must be positive");
+    if(shardCount <= 0) throw new IllegalArgumentException("shardCount must be positive");
+    shards = new Shard[shardCount];
+    for(int i = 0; i < shardCount; i++) {
+      shards[i] = new Shard(Math.max(1, maxWeight / shardCount));
+    }
+  }
+
+  /**
+   * Get the value sets of the entities, in the order of the entities, loading the ones that are not cached nor being
+   * loaded with one call to the batch loader. Tables without last update date are not cached.
+   *
+   * @param table the source table
+   * @param entities
+   * @param loader the batch loader of the table
+   * @return
+   */
+  public List<ValueSet> getValueSets(@NotNull ValueTable table, @NotNull List<VariableEntity> entities,
+      @NotNull Function<List<VariableEntity>, ValueSetBatch> loader) {
+    Value lastUpdate = table.getTimestamps().getLastUpdate();
+    if(lastUpdate == null || lastUpdate.isNull()) return loader.apply(entities).getValueSets();
+
+    String reference = table.getTableReference();
+    int weight = Math.max(1, table.getVariableCount());
+    List<Key> keys = Lists.newArrayListWithCapacity(entities.size());
+    Map<Key, ValueSet> found = Maps.newHashMap();
+    Map<Key, CompletableFuture<ValueSet>> owned = Maps.newLinkedHashMap();
+    Map<Key, CompletableFuture<ValueSet>> awaited = Maps.newHashMap();
+    for(VariableEntity entity : entities) {
+      Key key = new Key(reference, entity, lastUpdate);
+      keys.add(key);
+      ValueSet valueSet = getShard(key).get(key);
+      if(valueSet != null) {
+        found.put(key, valueSet);
+        continue;
+      }
+      CompletableFuture<ValueSet> future = new CompletableFuture<>();
+      CompletableFuture<ValueSet> other = loading.putIfAbsent(key, future);
+      if(other == null) {
+        owned.put(key, future);
+      } else {
+        awaited.put(key, other);
+      }
+    }
+    Metrics.count(Metrics.CACHE_HIT, found.size());
+    Metrics.count(Metrics.CACHE_MISS, owned.size() + awaited.size());
+
+    if(!owned.isEmpty()) load(owned, weight, loader);
+    for(Map.Entry<Key, CompletableFuture<ValueSet>> entry : awaited.entrySet()) {
+      found.put(entry.getKey(), await(entry.getValue()));
+    }
+    for(Map.Entry<Key, CompletableFuture<ValueSet>> entry : owned.entrySet()) {
+      found.put(entry.getKey(), entry.getValue().join());
+    }
+
+    ImmutableList.Builder<ValueSet> valueSets = ImmutableList.builder();
+    for(Key key : keys) {
+      ValueSet valueSet = found.get(key);
+      if(valueSet != null) valueSets.add(valueSet);
+    }
+    return valueSets.build();
+  }
+
+  /**
+   * Remove all the value sets.
+   */
+  public void clear() {
+    for(Shard shard : shards) {
+      shard.clear();
+    }
+  }
+
+  /**
+   * The number of values held by the cache.
+   *
+   * @return
+   */
+  public long getWeight() {
+    long weight = 0;
+    for(Shard shard : shards) {
+      weight += shard.getWeight();
+    }
+    return weight;
+  }
+
+  private void load(Map<Key, CompletableFuture<ValueSet>> owned, int weight,
+      Function<List<VariableEntity>, ValueSetBatch> loader) {
+    try {
+      List<VariableEntity> entities = Lists.newArrayListWithCapacity(owned.size());
+      for(Key key : owned.keySet()) {
+        entities.add(key.entity);
+      }
+      Map<VariableEntity, ValueSet> loaded = Maps.newHashMap();
+      for(ValueSet valueSet : loader.apply(entities).getValueSets()) {
+        loaded.put(valueSet.getVariableEntity(), valueSet);
+      }
+      for(Map.Entry<Key, CompletableFuture<ValueSet>> entry : owned.entrySet()) {
+        ValueSet valueSet = loaded.get(entry.getKey().entity);
+        if(valueSet != null) getShard(entry.getKey()).put(entry.getKey(), valueSet, weight);
+        entry.getValue().complete(valueSet);
+      }
+    } catch(RuntimeException | Error e) {
+      for(CompletableFuture<ValueSet> future : owned.values()) {
+        future.completeExceptionally(e);
+      }
+      throw e;
+    } finally {
+      for(Map.Entry<Key, CompletableFuture<ValueSet>> entry : owned.entrySet()) {
+        loading.remove(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  @Nullable
+  private static ValueSet await(CompletableFuture<ValueSet> future) {
+    try {
+      return future.get();
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MagmaRuntimeException(e);
+    } catch(ExecutionException e) {
+      if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+      throw new MagmaRuntimeException(e.getCause());
+    }
+  }
+
+  private Shard getShard(Key key) {
+    return shards[(key.hashCode() & Integer.MAX_VALUE) % shards.length];
+  }
+
+  private static final class Key {
+
+    private final String reference;
+
+    private final VariableEntity entity;
+
+    private final Value lastUpdate;
+
+    private final int hashCode;
+
+    private Key(String reference, VariableEntity entity, Value lastUpdate) {
+      this.reference = reference;
+      this.entity = entity;
+      this.lastUpdate = lastUpdate;
+      hashCode = Objects.hash(reference, entity, lastUpdate);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if(this == obj) return true;
+      if(!(obj instanceof Key)) return false;
+      Key other = (Key) obj;
+      return hashCode == other.hashCode && reference.equals(other.reference) && entity.equals(other.entity) &&
+          lastUpdate.equals(other.lastUpdate);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /**
+   * Least recently used value sets, up to a maximum weight.
+   */
+  private static final class Shard {
+
+    private final long maxWeight;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long weight;
+
+    private Shard(long maxWeight) {
+      this.maxWeight = maxWeight;
+    }
+
+    @Nullable
+    private synchronized ValueSet get(Key key) {
+      Entry entry = entries.get(key);
+      return entry == null ? null : entry.valueSet;
+    }
+
+    private synchronized void put(Key key, ValueSet valueSet, int valueSetWeight) {
+      if(valueSetWeight > maxWeight) return;
+      Entry previous = entries.put(key, new Entry(valueSet, valueSetWeight));
+      if(previous != null) weight -= previous.weight;
+      weight += valueSetWeight;
+      Iterator<Entry> eldest = entries.values().iterator();
+      while(weight > maxWeight && eldest.hasNext()) {
+        weight -= eldest.next().weight;
+        eldest.remove();
+      }
+    }
+
+    private synchronized void clear() {
+      entries.clear();
+      weight = 0;
+    }
+
+    private synchronized long getWeight() {
+      return weight;
+    }
+  }
+
+  private static final class Entry {
+
+    private final ValueSet valueSet;
+
+    private final int weight;
+
+    private Entry(ValueSet valueSet, int weight) {
+      this.valueSet = valueSet;
+      this.weight = weight;
+    }
+  }
+}
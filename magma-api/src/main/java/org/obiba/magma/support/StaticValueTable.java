@@ -96,20 +96,37 @@ public class StaticValueTable extends AbstractValueTable {
       @NotNull
       @Override
       public Value getValue(ValueSet valueSet) {
-        Object value = table.get(valueSet.getVariableEntity().getIdentifier()).get(variable.getName());
+        return getValue(valueSet.getVariableEntity());
+      }
+
+      private Value getValue(VariableEntity entity) {
+        Object value = table.get(entity.getIdentifier()).get(variable.getName());
         return value instanceof Value ? (Value) value : getValueType().valueOf(value);
       }
 
       @Override
       public boolean supportVectorSource() {
-        return false;
+        return true;
       }
 
       @NotNull
       @Override
-      @SuppressWarnings("unchecked")
       public VectorSource asVectorSource() {
-        throw new VectorSourceNotSupportedException((Class<? extends ValueSource>) getClass());
+        return new VectorSource() {
+          @Override
+          public ValueType getValueType() {
+            return variable.getValueType();
+          }
+
+          @Override
+          public Iterable<Value> getValues(List<VariableEntity> entities) {
+            List<Value> values = Lists.newArrayListWithCapacity(entities.size());
+            for (VariableEntity entity : entities) {
+              values.add(getValue(entity));
+            }
+            return values;
+          }
+        };
       }
 
       @NotNull
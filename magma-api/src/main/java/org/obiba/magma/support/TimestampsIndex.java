@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.support;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
+
+import org.obiba.magma.Datasource;
+import org.obiba.magma.Timestamps;
+import org.obiba.magma.TimestampsBean;
+import org.obiba.magma.Value;
+import org.obiba.magma.ValueTable;
+import org.obiba.magma.ValueTableUpdateListener;
+import org.obiba.magma.Variable;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Maintains the timestamps of the tables of a datasource, so that the datasource timestamps are not computed from
+ * each table at every request. The timestamps of a table are read once, then kept up to date by the datasource which
+ * pushes the table updates with {@link #touch(String, Value)} or drops them with {@link #invalidate(String)}. The
+ * union of the tables timestamps is memoised until a table is touched, invalidated, added or removed.
+ */
+public class TimestampsIndex implements Timestamps, ValueTableUpdateListener {
+
+  private final Datasource datasource;
+
+  private final Map<String, Timestamps> tableTimestamps = new ConcurrentHashMap<>();
+
+  @Nullable
+  private volatile Timestamps union;
+
+  /**
+   * Incremented on each change, so that a union computed concurrently to a change is not memoised.
+   */
+  private long version;
+
+  public TimestampsIndex(@NotNull Datasource datasource) {
+    this.datasource = datasource;
+  }
+
+  @NotNull
+  @Override
+  public Value getCreated() {
+    return getUnion().getCreated();
+  }
+
+  @NotNull
+  @Override
+  public Value getLastUpdate() {
+    return getUnion().getLastUpdate();
+  }
+
+  /**
+   * Get the timestamps of a table, read from the table on first access.
+   *
+   * @param table
+   * @return
+   */
+  @NotNull
+  public Timestamps get(@NotNull ValueTable table) {
+    Timestamps timestamps = tableTimestamps.get(table.getName());
+    if(timestamps == null) {
+      long stamp;
+      synchronized(this) {
+        stamp = version;
+      }
+      timestamps = snapshot(table.getTimestamps());
+      synchronized(this) {
+        if(stamp == version) tableTimestamps.putIfAbsent(table.getName(), timestamps);
+      }
+    }
+    return timestamps;
+  }
+
+  /**
+   * Notify that a table was updated at the given date. The table creation date is left unchanged.
+   *
+   * @param tableName
+   * @param lastUpdate
+   */
+  public synchronized void touch(@NotNull String tableName, @NotNull Value lastUpdate) {
+    version++;
+    Timestamps timestamps = tableTimestamps.get(tableName);
+    if(timestamps == null) {
+      // created date is unknown: read it with the rest of the timestamps at next request
+      union = null;
+      return;
+    }
+    tableTimestamps
+        .put(tableName, new TimestampsBean(timestamps.getCreated(), latest(timestamps.getLastUpdate(), lastUpdate)));
+    Timestamps current = union;
+    if(current != null) {
+      union = new TimestampsBean(current.getCreated(), latest(current.getLastUpdate(), lastUpdate));
+    }
+  }
+
+  /**
+   * Forget the timestamps of a table, to be read again from the table at next request.
+   *
+   * @param tableName
+   */
+  public synchronized void invalidate(@NotNull String tableName) {
+    version++;
+    tableTimestamps.remove(tableName);
+    union = null;
+  }
+
+  /**
+   * Forget the timestamps of all the tables.
+   */
+  public synchronized void invalidateAll() {
+    version++;
+    tableTimestamps.clear();
+    union = null;
+  }
+
+  @Override
+  public void onRename(@NotNull ValueTable vt, String newName) {
+    invalidate(vt.getName());
+    invalidate(newName);
+  }
+
+  @Override
+  public void onRename(@NotNull ValueTable vt, Variable v, String newName) {
+    invalidate(vt.getName());
+  }
+
+  @Override
+  public void onDelete(@NotNull ValueTable vt) {
+    invalidate(vt.getName());
+  }
+
+  @Override
+  public void onDelete(@NotNull ValueTable vt, Variable v) {
+    invalidate(vt.getName());
+  }
+
+  private Timestamps getUnion() {
+    Timestamps current = union;
+    if(current != null) return current;
+
+    long stamp;
+    synchronized(this) {
+      stamp = version;
+    }
+    List<Timestamps> timestamps = Lists.newArrayList();
+    for(ValueTable table : datasource.getValueTables()) {
+      timestamps.add(get(table));
+    }
+    current = snapshot(new UnionTimestamps(timestamps));
+    synchronized(this) {
+      if(stamp == version) union = current;
+    }
+    return current;
+  }
+
+  private static Timestamps snapshot(Timestamps timestamps) {
+    return new TimestampsBean(timestamps.getCreated(), timestamps.getLastUpdate());
+  }
+
+  private static Value latest(Value value, Value other) {
+    if(value == null || value.isNull()) return other;
+    if(other == null || other.isNull()) return value;
+    return value.compareTo(other) < 0 ? other : value;
+  }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.support;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import javax.validation.constraints.NotNull;
+
+import org.obiba.magma.ValueSet;
+import org.obiba.magma.ValueTable;
+import org.obiba.magma.VariableEntity;
+
+/**
+ * Spliterator over the value sets of a table, by pages of entities of the table's batch size: each page is read with
+ * {@link ValueTable#getVariableEntities(int, int)} and its value sets are fetched in one batch. A split takes half of
+ * the pages that were not read yet, so that parallel streams read distinct pages concurrently.
+ * <p>
+ * The size is estimated from the entity count of the table when the scan starts. It is not exact, as the table may have
+ * less entities than counted or return less value sets than requested. The table must support concurrent reads for a
+ * parallel scan.
+ */
+public class ValueSetSpliterator implements Spliterator<ValueSet> {
+
+  private final ValueTable table;
+
+  private final int pageSize;
+
+  /**
+   * Offset of the next page to read
+   */
+  private int offset;
+
+  /**
+   * End of the entity range (exclusive)
+   */
+  private int end;
+
+  private Iterator<ValueSet> page;
+
+  /**
+   * Value sets of the current page that were not consumed yet
+   */
+  private int pending;
+
+  public ValueSetSpliterator(@NotNull ValueTable table) {
+    this(table, 0, table.getVariableEntityCount());
+  }
+
+  private ValueSetSpliterator(ValueTable table, int offset, int end) {
+    this.table = table;
+    this.offset = offset;
+    this.end = end;
+    pageSize = Math.max(1, table.getVariableEntityBatchSize());
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super ValueSet> action) {
+    while(page == null || !page.hasNext()) {
+      if(offset >= end) return false;
+      List<VariableEntity> entities = table.getVariableEntities(offset, Math.min(pageSize, end - offset));
+      if(entities.isEmpty()) {
+        // the table has less entities than counted
+        offset = end;
+        return false;
+      }
+      offset += entities.size();
+      page = table.getValueSets(entities).iterator();
+      pending = entities.size();
+    }
+    pending = Math.max(0, pending - 1);
+    action.accept(page.next());
+    return true;
+  }
+
+  @Override
+  public Spliterator<ValueSet> trySplit() {
+    int pages = (end - offset + pageSize - 1) / pageSize;
+    if(pages < 2) return null;
+    int middle = offset + pages / 2 * pageSize;
+    // the prefix takes the page being read, to keep the encounter order
+    ValueSetSpliterator prefix = new ValueSetSpliterator(table, offset, middle);
+    prefix.page = page;
+    prefix.pending = pending;
+    offset = middle;
+    page = null;
+    pending = 0;
+    return prefix;
+  }
+
+  @Override
+  public long estimateSize() {
+    return end - offset + pending;
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED | NONNULL;
+  }
+
+}
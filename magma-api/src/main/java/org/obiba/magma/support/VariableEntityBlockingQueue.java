@@ -22,9 +22,17 @@ public class VariableEntityBlockingQueue extends ForwardingBlockingDeque<Variabl
   private final int maxCount;
 
   public VariableEntityBlockingQueue(ValueTable table) {
+    this(table, 0);
+  }
+
+  /**
+   * Queues the entities of the table from the given position.
+   */
+  public VariableEntityBlockingQueue(ValueTable table, int offset) {
     this.table = table;
     this.maxCount = table.getVariableEntityCount();
-    this.count = maxCount;
+    this.offset = Math.min(offset, maxCount);
+    this.count = maxCount - this.offset;
     this.deque = new LinkedBlockingDeque<>(this.limit);
   }
 
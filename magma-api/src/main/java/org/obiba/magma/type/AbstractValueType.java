@@ -182,6 +182,7 @@ public abstract class AbstractValueType implements ValueType {
 
   @Override
   public int hashCode() {
-    return Objects.hash(getName());
+    // same as Objects.hash(getName()), without the array allocation
+    return 31 + Objects.hashCode(getName());
   }
 }
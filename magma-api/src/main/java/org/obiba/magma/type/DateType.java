@@ -154,7 +154,7 @@ public class DateType extends AbstractValueType {
     if(type.equals(String.class)) {
       return valueOf((String) object);
     }
-    if(type.equals(Value.class)) {
+    if(object instanceof Value && !((Value) object).isSequence()) {
       Value value = (Value) object;
       return value.isNull() ? nullValue() : valueOf(value.getValue());
     }
@@ -26,9 +26,19 @@ public class IntegerType extends AbstractNumberType {
 
   private static final long serialVersionUID = 2345566305016760446L;
 
+  /**
+   * Range of the values that are shared, such as category codes
+   */
+  private static final int CACHE_LOW = -128;
+
+  private static final int CACHE_HIGH = 1023;
+
   @SuppressWarnings("StaticNonFinalField")
   private static WeakReference<IntegerType> instance;
 
+  @Nullable
+  private transient Value[] cache;
+
   private IntegerType() {
 
   }
@@ -65,7 +75,7 @@ public class IntegerType extends AbstractNumberType {
   @Override
   public Value valueOf(@Nullable String string) {
     try {
-      return Strings.isNullOrEmpty(string) ? nullValue() : Factory.newValue(this, isScientificNotation(string) ? parseDoubleAsLong(string) : parseLong(string));
+      return Strings.isNullOrEmpty(string) ? nullValue() : valueOf(isScientificNotation(string) ? parseDoubleAsLong(string) : parseLong(string));
     } catch(NumberFormatException e) {
       throw new MagmaRuntimeException("Not a integer value: " + string, e);
     }
@@ -79,7 +89,7 @@ public class IntegerType extends AbstractNumberType {
     }
     Class<?> type = object.getClass();
     if(Number.class.isAssignableFrom(type)) {
-      return Factory.newValue(this, ((Number) object).longValue());
+      return valueOf(((Number) object).longValue());
     }
     if(String.class.isAssignableFrom(type)) {
       return valueOf((String) object);
@@ -91,16 +101,34 @@ public class IntegerType extends AbstractNumberType {
         "Cannot construct " + getClass().getSimpleName() + " from type " + object.getClass() + ".");
   }
 
+  @NotNull
+  public Value valueOf(long value) {
+    if(value < CACHE_LOW || value > CACHE_HIGH) return Factory.newValue(this, value);
+    // created on first use, also after deserialization
+    Value[] values = cache;
+    if(values == null) {
+      values = new Value[CACHE_HIGH - CACHE_LOW + 1];
+      cache = values;
+    }
+    int slot = (int) value - CACHE_LOW;
+    Value cached = values[slot];
+    if(cached == null) {
+      cached = Factory.newValue(this, value);
+      values[slot] = cached;
+    }
+    return cached;
+  }
+
   private boolean isScientificNotation(String string) {
     return !Strings.isNullOrEmpty(string) && string.toUpperCase().contains("E");
   }
 
-  private Long parseDoubleAsLong(String string) {
+  private long parseDoubleAsLong(String string) {
     return Double.valueOf(normalize(string)).longValue();
   }
 
-  private Long parseLong(String string) {
-    return Long.valueOf(normalize(string));
+  private long parseLong(String string) {
+    return Long.parseLong(normalize(string));
   }
 
   private String normalize(String string) {
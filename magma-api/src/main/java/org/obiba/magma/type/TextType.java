@@ -29,10 +29,20 @@ public class TextType extends CSVAwareValueType {
 
   private static final String ESCAPED_QUOTE_STR = "" + QUOTE + QUOTE;
 
+  /**
+   * Longer texts are not likely to be repeated
+   */
+  private static final int MAX_CACHED_LENGTH = 32;
+
+  private static final int CACHE_SIZE = 4096;
+
   @SuppressWarnings("StaticNonFinalField")
   @Nullable
   private static WeakReference<TextType> instance;
 
+  @Nullable
+  private transient ValueCache<String> cache;
+
   protected TextType() {
   }
 
@@ -78,7 +88,7 @@ public class TextType extends CSVAwareValueType {
     if(string == null) {
       return nullValue();
     }
-    return Factory.newValue(this, string);
+    return string.length() > MAX_CACHED_LENGTH ? Factory.newValue(this, string) : getCache().get(string);
   }
 
   @NotNull
@@ -87,7 +97,15 @@ public class TextType extends CSVAwareValueType {
     if(object == null) {
       return nullValue();
     }
-    return Factory.newValue(this, object.toString());
+    return valueOf(object.toString());
+  }
+
+  private ValueCache<String> getCache() {
+    // created on first use, also after deserialization
+    if(cache == null) {
+      cache = new ValueCache<>(CACHE_SIZE, string -> Factory.newValue(this, string));
+    }
+    return cache;
   }
 
   /**
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.type;
+
+import java.util.function.Function;
+
+import javax.validation.constraints.NotNull;
+
+import org.obiba.magma.Value;
+
+/**
+ * Bounded cache of the values of a {@link org.obiba.magma.ValueType}, so that frequently repeated values (category
+ * codes, short texts) share the same instance. The cache is direct mapped: a value replaces the one in its slot, without
+ * locking nor eviction bookkeeping. As values are immutable, concurrent replacements are harmless.
+ *
+ * @param <T> the type of the payload of the values
+ */
+class ValueCache<T> {
+
+  private final Value[] slots;
+
+  private final Function<T, Value> factory;
+
+  /**
+   * @param size number of slots, rounded up to a power of two
+   * @param factory creates a value from its payload
+   */
+  ValueCache(int size, Function<T, Value> factory) {
+    slots = new Value[Integer.highestOneBit(Math.max(1, size - 1)) << 1];
+    this.factory = factory;
+  }
+
+  @NotNull
+  Value get(@NotNull T payload) {
+    int hash = payload.hashCode();
+    int slot = (hash ^ hash >>> 16) & slots.length - 1;
+    Value value = slots[slot];
+    if(value == null || !payload.equals(value.getValue())) {
+      value = factory.apply(payload);
+      slots[slot] = value;
+    }
+    return value;
+  }
+
+}
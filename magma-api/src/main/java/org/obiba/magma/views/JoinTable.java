@@ -16,6 +16,7 @@ package org.obiba.magma.views;
 import com.google.common.collect.*;
 import org.obiba.magma.*;
 import org.obiba.magma.lang.VariableEntityList;
+import org.obiba.magma.metrics.Metrics;
 import org.obiba.magma.support.UnionTimestamps;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -428,7 +429,11 @@ public class JoinTable implements ValueTable, Initialisable {
     public ValueSet next() {
       synchronized (partitions) {
         if (currentBatch == null || !currentBatch.hasNext()) {
-          currentBatch = getValueSetsBatch(partitions.next()).getValueSets().iterator();
+          List<VariableEntity> partition = partitions.next();
+          long start = Metrics.start();
+          currentBatch = getValueSetsBatch(partition).getValueSets().iterator();
+          Metrics.stop(Metrics.VALUE_SETS_BATCH, "join", start);
+          Metrics.update(Metrics.VALUE_SETS_BATCH_SIZE, "join", partition.size());
         }
         return currentBatch.next();
       }
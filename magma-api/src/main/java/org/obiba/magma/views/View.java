@@ -15,6 +15,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import org.obiba.magma.*;
 import org.obiba.magma.lang.VariableEntityList;
+import org.obiba.magma.metrics.Metrics;
 import org.obiba.magma.support.AbstractValueTableWrapper;
 import org.obiba.magma.support.AbstractVariableValueSourceWrapper;
 import org.obiba.magma.support.Disposables;
@@ -143,6 +144,18 @@ public class View extends AbstractValueTableWrapper implements Initialisable, Di
     return where;
   }
 
+  /**
+   * Evaluates the where clause on a value set of the wrapped table.
+   */
+  boolean isIncluded(ValueSet valueSet) {
+    long start = Metrics.start();
+    try {
+      return getWhereClause().where(valueSet, this);
+    } finally {
+      Metrics.stop(Metrics.WHERE_CLAUSE, start);
+    }
+  }
+
   @NotNull
   public ListClause getListClause() {
     return variables;
@@ -262,7 +275,7 @@ public class View extends AbstractValueTableWrapper implements Initialisable, Di
     if (unmapped == null) throw new NoSuchValueSetException(this, entity);
 
     ValueSet valueSet = super.getValueSet(unmapped);
-    if (!getWhereClause().where(valueSet, this)) throw new NoSuchValueSetException(this, entity);
+    if (!isIncluded(valueSet)) throw new NoSuchValueSetException(this, entity);
 
     return getValueSetMappingFunction().apply(valueSet);
   }
@@ -340,7 +353,7 @@ public class View extends AbstractValueTableWrapper implements Initialisable, Di
     if (isViewOfDerivedVariables()) {
       return getListClauseValue(variable, valueSet);
     }
-    if (!getWhereClause().where(valueSet, this)) {
+    if (!isIncluded(valueSet)) {
       throw new NoSuchValueSetException(this, valueSet.getVariableEntity());
     }
     // let the value get transformed
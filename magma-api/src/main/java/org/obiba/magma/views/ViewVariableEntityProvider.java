@@ -2,6 +2,7 @@ package org.obiba.magma.views;
 
 import org.obiba.magma.*;
 import org.obiba.magma.lang.VariableEntityList;
+import org.obiba.magma.metrics.Metrics;
 import org.obiba.magma.support.PagingVariableEntityProvider;
 import org.obiba.magma.support.VariableEntitiesCache;
 import org.obiba.magma.transform.BijectiveFunctions;
@@ -111,8 +112,12 @@ class ViewVariableEntityProvider implements PagingVariableEntityProvider {
         VariableEntitiesCache eCache;
         if (wrapper != null) {
           eCache = (VariableEntitiesCache) wrapper.get();
-          if (eCache.isUpToDate(viewLastUpdate)) return eCache;
+          if (eCache.isUpToDate(viewLastUpdate)) {
+            Metrics.count(Metrics.CACHE_HIT);
+            return eCache;
+          }
         }
+        Metrics.count(Metrics.CACHE_MISS);
         eCache = new VariableEntitiesCache(loadVariableEntities(), viewLastUpdate);
         cacheExtension.getVariableEntitiesCache().put(getTableCacheKey(), eCache);
         return eCache;
@@ -160,7 +165,7 @@ class ViewVariableEntityProvider implements PagingVariableEntityProvider {
             if (view.getWhereClause() instanceof AllClause)
               return true;
             ValueSet valueSet = view.getWrappedValueTable().getValueSet(entity);
-            return view.getWhereClause().where(valueSet, view);
+            return view.isIncluded(valueSet);
           })
           .map(e -> view.getVariableEntityMappingFunction().apply(e))
           .filter(Objects::nonNull) // can happen depending of mapping strategy
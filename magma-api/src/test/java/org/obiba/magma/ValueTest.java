@@ -9,7 +9,14 @@
  */
 package org.obiba.magma;
 
+import java.io.Serializable;
+import java.util.Date;
+
 import org.junit.Test;
+import org.obiba.magma.type.BooleanType;
+import org.obiba.magma.type.DateTimeType;
+import org.obiba.magma.type.DecimalType;
+import org.obiba.magma.type.IntegerType;
 import org.obiba.magma.type.TextType;
 
 import static org.fest.assertions.api.Assertions.assertThat;
@@ -25,6 +32,47 @@ public class ValueTest extends AbstractValueTest {
     assertThat(sequence.getSize()).isEqualTo(1);
   }
 
+  @Test
+  public void test_primitiveValues_sameAsLoadedValues() {
+    assertSameAsLoaded(IntegerType.get().valueOf(123456789L), 123456789L);
+    assertSameAsLoaded(DecimalType.get().valueOf(1.5), 1.5);
+    assertSameAsLoaded(BooleanType.get().trueValue(), true);
+    assertSameAsLoaded(DateTimeType.get().valueOf(new Date(1000)), new Date(1000));
+  }
+
+  @Test
+  public void test_primitiveValues_compare() {
+    assertThat(IntegerType.get().valueOf(2).compareTo(IntegerType.get().valueOf(10))).isLessThan(0);
+    assertThat(DecimalType.get().valueOf(2.5).compareTo(DecimalType.get().valueOf(-1))).isGreaterThan(0);
+    assertThat(IntegerType.get().valueOf(2).compareTo(IntegerType.get().nullValue())).isGreaterThan(0);
+    assertThat(DateTimeType.get().valueOf(new Date(1000)).compareTo(DateTimeType.get().valueOf(new Date(1000))))
+        .isEqualTo(0);
+  }
+
+  @Test
+  public void test_valueOf_sharesRepeatedValues() {
+    assertThat(IntegerType.get().valueOf("12")).isSameAs(IntegerType.get().valueOf(12));
+    assertThat(TextType.get().valueOf("CAT1")).isSameAs(TextType.get().valueOf(new StringBuilder("CAT1")));
+  }
+
+  @Test
+  public void test_valueOf_dateTimeNotModifiable() {
+    Date date = new Date(1000);
+    Value value = DateTimeType.get().valueOf(date);
+    date.setTime(2000);
+    ((Date) value.getValue()).setTime(3000);
+    assertThat(value.getValue()).isEqualTo(new Date(1000));
+  }
+
+  private static void assertSameAsLoaded(Value value, Serializable payload) {
+    Value loaded = value.getValueType().valueOf(new Value.StaticValueLoader(payload));
+    assertThat(value).isEqualTo(loaded);
+    assertThat(loaded).isEqualTo(value);
+    assertThat(value.hashCode()).isEqualTo(loaded.hashCode());
+    assertThat(value.compareTo(loaded)).isEqualTo(0);
+    assertThat(value.toString()).isEqualTo(loaded.toString());
+  }
+
   @Override
   protected Value testValue() {
     return TextType.get().valueOf(testObject());
@@ -48,6 +48,29 @@ public class VariableTest extends MagmaTest {
     Variable.Builder.newVariable("", IntegerType.get(), "entityType");
   }
 
+  @Test
+  public void test_getCategoryOrdinal() {
+    Variable v = Variable.Builder.newVariable("name", IntegerType.get(), "entityType").addCategory("1", null, false)
+        .addCategory("88", null, true).addCategory("NA", null, true).build();
+    assertThat(v.getCategoryOrdinal(IntegerType.get().valueOf(1))).isEqualTo(0);
+    assertThat(v.getCategoryOrdinal(IntegerType.get().valueOf(88))).isEqualTo(1);
+    assertThat(v.getCategoryOrdinal(IntegerType.get().valueOf(2))).isEqualTo(-1);
+    assertThat(v.getCategoryOrdinal(IntegerType.get().nullValue())).isEqualTo(-1);
+    assertThat(v.getCategory(IntegerType.get().valueOf(88)).getName()).isEqualTo("88");
+    assertThat(v.getCategory("NA").isMissing()).isTrue();
+    assertThat(v.isMissingValue(IntegerType.get().valueOf(88))).isTrue();
+  }
+
+  @Test
+  public void test_getCategory_afterBuilderChange() {
+    Variable.Builder builder = Variable.Builder.newVariable("name", TextType.get(), "entityType").addCategories("A");
+    Variable v = builder.build();
+    assertThat(v.getCategory("B")).isNull();
+    builder.addCategories("B");
+    assertThat(v.getCategory("B")).isNotNull();
+    assertThat(v.getCategoryOrdinal(TextType.get().valueOf("B"))).isEqualTo(1);
+  }
+
   @Test
   public void test_isMissingValue_TextType() {
     Variable v = Variable.Builder.newVariable("name", TextType.get(), "entityType").addCategory("YES", null, false)
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.obiba.magma.MagmaEngine;
+import org.obiba.magma.MagmaMetricsExtension;
+import org.obiba.magma.MagmaTest;
+import org.obiba.magma.ValueSet;
+import org.obiba.magma.ValueTable;
+import org.obiba.magma.Variable;
+import org.obiba.magma.support.CacheUtils;
+import org.obiba.magma.support.StaticDatasource;
+import org.obiba.magma.support.StaticValueTable;
+import org.obiba.magma.type.IntegerType;
+import org.obiba.magma.views.View;
+import org.obiba.magma.views.support.AllClause;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class MetricsTest extends MagmaTest {
+
+  private static final int ENTITIES = 250;
+
+  @Test
+  public void test_disabledByDefault() {
+    assertThat(Metrics.isEnabled()).isFalse();
+    assertThat(Metrics.registry()).isSameAs(NoOpMetricsRegistry.get());
+
+    List<String> values = ImmutableList.of("a", "b");
+    assertThat(Metrics.timed(Metrics.VECTOR_READ, "test", values)).isSameAs(values);
+  }
+
+  @Test
+  public void test_getValueSets_recordsBatches() {
+    InMemoryMetricsRegistry registry = enable();
+    Iterables.size(createTable().getValueSets());
+
+    String qualifier = ".static";
+    assertThat(registry.getTimers().get(Metrics.VALUE_SETS_BATCH + qualifier).getCount()).isGreaterThan(0);
+    Histogram sizes = registry.getHistograms().get(Metrics.VALUE_SETS_BATCH_SIZE + qualifier);
+    assertThat(sizes.getSum()).isEqualTo(ENTITIES);
+    assertThat(sizes.getCount()).isEqualTo(registry.getTimers().get(Metrics.VALUE_SETS_BATCH + qualifier).getCount());
+  }
+
+  @Test
+  public void test_viewWhereClause_isTimed() {
+    InMemoryMetricsRegistry registry = enable();
+    ValueTable table = createTable();
+    View view = View.Builder.newView("view", table).where(new AllClause()).build();
+    for(ValueSet valueSet : table.getValueSets()) {
+      view.getValueSet(valueSet.getVariableEntity());
+    }
+    assertThat(registry.getTimers().get(Metrics.WHERE_CLAUSE).getCount()).isEqualTo(ENTITIES);
+  }
+
+  @Test
+  public void test_cache_countsHitsAndMisses() {
+    InMemoryMetricsRegistry registry = enable();
+    ConcurrentMapCache cache = new ConcurrentMapCache("test");
+    CacheUtils.getCached(cache, "key", Suppliers.ofInstance("value"));
+    CacheUtils.getCached(cache, "key", Suppliers.ofInstance("other"));
+    CacheUtils.getCached(cache, "key", Suppliers.ofInstance("other"));
+
+    assertThat(registry.getCounters().get(Metrics.CACHE_MISS).getCount()).isEqualTo(1);
+    assertThat(registry.getCounters().get(Metrics.CACHE_HIT).getCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void test_timed_recordsOnceExhausted() {
+    InMemoryMetricsRegistry registry = enable();
+    Iterable<String> values = Metrics.timed(Metrics.VECTOR_READ, "test", ImmutableList.of("a", "b", "c"));
+
+    List<String> read = Lists.newArrayList(values);
+    assertThat(read).containsExactly("a", "b", "c");
+    Timer timer = registry.getTimers().get(Metrics.VECTOR_READ + ".test");
+    assertThat(timer.getCount()).isEqualTo(1);
+
+    // not exhausted: nothing recorded
+    values.iterator().next();
+    assertThat(timer.getCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void test_dump() {
+    InMemoryMetricsRegistry registry = enable();
+    Metrics.count(Metrics.CACHE_HIT);
+    Metrics.update(Metrics.VALUE_SETS_BATCH_SIZE, "test", 10);
+    Metrics.update(Metrics.VALUE_SETS_BATCH_SIZE, "test", 30);
+
+    assertThat(registry.dump()).isEqualTo("magma.cache.hit.count 1\n" + //
+        "magma.valuesets.batch.size.test.max 30\n" + //
+        "magma.valuesets.batch.size.test.min 10\n" + //
+        "magma.valuesets.batch.size.test.samples 2\n" + //
+        "magma.valuesets.batch.size.test.sum 40\n");
+
+    registry.clear();
+    assertThat(registry.dump()).isEmpty();
+  }
+
+  @Test
+  public void test_getSnapshot_sameNameDifferentKinds() {
+    InMemoryMetricsRegistry registry = enable();
+    Metrics.count("test");
+    Metrics.count("test");
+    Metrics.stop("test", Metrics.start());
+    registry.histogram("test").update(5);
+
+    Map<String, Number> snapshot = registry.getSnapshot();
+    assertThat(snapshot.get("test.count")).isEqualTo(2L);
+    assertThat(snapshot.get("test.calls")).isEqualTo(1L);
+    assertThat(snapshot.get("test.samples")).isEqualTo(1L);
+    assertThat(snapshot.get("test.sum")).isEqualTo(5L);
+  }
+
+  private InMemoryMetricsRegistry enable() {
+    InMemoryMetricsRegistry registry = new InMemoryMetricsRegistry();
+    MagmaEngine.get().extend(new MagmaMetricsExtension(registry));
+    assertThat(Metrics.isEnabled()).isTrue();
+    return registry;
+  }
+
+  private StaticValueTable createTable() {
+    List<String> identifiers = Lists.newArrayList();
+    for(int i = 0; i < ENTITIES; i++) {
+      identifiers.add(String.valueOf(i));
+    }
+    StaticValueTable table = new StaticValueTable(new StaticDatasource("ds"), "table", identifiers);
+    Variable variable = Variable.Builder.newVariable("VAR", IntegerType.get(), table.getEntityType()).build();
+    for(int i = 0; i < ENTITIES; i++) {
+      table.addValues(String.valueOf(i), variable, (long) i);
+    }
+    return table;
+  }
+
+}
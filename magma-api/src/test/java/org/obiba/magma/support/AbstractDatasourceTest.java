@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.support;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.obiba.magma.MagmaEngine;
+import org.obiba.magma.MagmaTest;
+import org.obiba.magma.NoSuchValueTableException;
+import org.obiba.magma.ValueTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class AbstractDatasourceTest extends MagmaTest {
+
+  private static final Logger log = LoggerFactory.getLogger(AbstractDatasourceTest.class);
+
+  private static final int TABLES = 500;
+
+  @Test
+  public void test_getValueTable_byName() {
+    TestDatasource datasource = new TestDatasource("ds", TABLES);
+    datasource.initialise();
+
+    assertThat(datasource.getValueTables()).hasSize(TABLES);
+    for(int i = 0; i < TABLES; i++) {
+      assertThat(datasource.hasValueTable("table" + i)).isTrue();
+      assertThat(datasource.getValueTable("table" + i).getName()).isEqualTo("table" + i);
+    }
+    assertThat(datasource.hasValueTable("table" + TABLES)).isFalse();
+    assertThat(datasource.hasValueTable(null)).isFalse();
+  }
+
+  @Test(expected = NoSuchValueTableException.class)
+  public void test_getValueTable_unknownTable() {
+    TestDatasource datasource = new TestDatasource("ds", TABLES);
+    datasource.initialise();
+    datasource.getValueTable("nope");
+  }
+
+  @Test
+  public void test_getValueTables_isSnapshot() {
+    TestDatasource datasource = new TestDatasource("ds", 2);
+    datasource.initialise();
+    Set<ValueTable> snapshot = datasource.getValueTables();
+
+    datasource.addValueTable(new StaticValueTable(datasource, "other", ImmutableSet.<String>of()));
+    datasource.removeValueTable("table0");
+
+    assertThat(snapshot).hasSize(2);
+    assertThat(datasource.getValueTables()).hasSize(2);
+    assertThat(datasource.hasValueTable("other")).isTrue();
+    assertThat(datasource.hasValueTable("table0")).isFalse();
+  }
+
+  @Test
+  public void test_addValueTable_ignoresEqualTable() {
+    TestDatasource datasource = new TestDatasource("ds", 1);
+    datasource.initialise();
+    ValueTable table = datasource.getValueTable("table0");
+    datasource.addValueTable(new StaticValueTable(datasource, "table0", ImmutableSet.<String>of()));
+
+    assertThat(datasource.getValueTables()).hasSize(1);
+    assertThat(datasource.getValueTable("table0")).isSameAs(table);
+  }
+
+  @Test
+  public void test_reindexValueTable_afterRename() {
+    TestDatasource datasource = new TestDatasource("ds", 2);
+    datasource.initialise();
+    StaticValueTable table = (StaticValueTable) datasource.getValueTable("table1");
+    table.setName("renamed");
+    datasource.reindexValueTable("table1");
+
+    assertThat(datasource.hasValueTable("table1")).isFalse();
+    assertThat(datasource.getValueTable("renamed")).isSameAs(table);
+
+    datasource.removeValueTable(table);
+    assertThat(datasource.getValueTables()).hasSize(1);
+  }
+
+  @Test
+  public void test_resolveTable_manyTables() {
+    MagmaEngine.get().addDatasource(new TestDatasource("ds", TABLES));
+
+    int resolutions = 100000;
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    for(int i = 0; i < resolutions; i++) {
+      String name = "table" + i % TABLES;
+      assertThat(MagmaEngineTableResolver.valueOf("ds." + name).resolveTable().getName()).isEqualTo(name);
+    }
+    log.info("{} table references resolved among {} tables in {} ({} ns/reference)", resolutions, TABLES, stopwatch,
+        stopwatch.elapsed(TimeUnit.NANOSECONDS) / resolutions);
+  }
+
+  @Test
+  public void test_getValueTables_concurrentUpdates() throws Exception {
+    final TestDatasource datasource = new TestDatasource("ds", TABLES);
+    datasource.initialise();
+    Thread writer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        for(int i = 0; i < TABLES; i++) {
+          datasource.addValueTable(new StaticValueTable(datasource, "new" + i, ImmutableSet.<String>of()));
+        }
+      }
+    });
+    writer.start();
+    Set<String> names = Sets.newHashSet();
+    while(writer.isAlive()) {
+      for(ValueTable table : datasource.getValueTables()) {
+        names.add(table.getName());
+      }
+    }
+    writer.join();
+    assertThat(datasource.getValueTables()).hasSize(2 * TABLES);
+    assertThat(names.size()).isGreaterThanOrEqualTo(TABLES);
+  }
+
+  private static class TestDatasource extends AbstractDatasource {
+
+    private final int tableCount;
+
+    private TestDatasource(String name, int tableCount) {
+      super(name, "test");
+      this.tableCount = tableCount;
+    }
+
+    @Override
+    protected Set<String> getValueTableNames() {
+      Set<String> names = Sets.newLinkedHashSet();
+      for(int i = 0; i < tableCount; i++) {
+        names.add("table" + i);
+      }
+      return names;
+    }
+
+    @Override
+    protected ValueTable initialiseValueTable(String tableName) {
+      return new StaticValueTable(this, tableName, ImmutableSet.<String>of());
+    }
+  }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.support;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.obiba.magma.MagmaTest;
+import org.obiba.magma.Value;
+import org.obiba.magma.Variable;
+import org.obiba.magma.VariableEntity;
+import org.obiba.magma.type.BinaryType;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class BinaryValueFileHelperTest extends MagmaTest {
+
+  // larger than the file system and stream buffers
+  private static final int SIZE = 1024 * 1024 + 17;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void test_readValue_wholeFile() throws Exception {
+    byte[] content = newContent();
+    File file = newFile("source.bin", content);
+
+    assertThat(BinaryValueFileHelper.readValue(file.getParentFile(), file.getName())).isEqualTo(content);
+  }
+
+  @Test
+  public void test_fileValue_isStreamed() throws Exception {
+    byte[] content = newContent();
+    File file = newFile("source.bin", content);
+    Value value = BinaryType.get().valueOf(new BinaryValueFileLoader(file.getParentFile(), file.getName()));
+
+    assertThat(value.isStreamable()).isTrue();
+    assertThat(value.getLength()).isEqualTo(SIZE);
+    try(ReadableByteChannel channel = value.getChannel()) {
+      assertThat(channel).isInstanceOf(FileChannel.class);
+    }
+    try(InputStream in = value.getStream()) {
+      assertThat(ByteStreams.toByteArray(in)).isEqualTo(content);
+    }
+  }
+
+  @Test
+  public void test_writeValue_fromFile() throws Exception {
+    byte[] content = newContent();
+    File file = newFile("source.bin", content);
+    Value value = BinaryType.get().valueOf(new BinaryValueFileLoader(file.getParentFile(), file.getName()));
+    File destination = temporaryFolder.newFolder("destination");
+
+    Value written = writeValue(destination, value);
+
+    assertThat(written.toString()).isEqualTo("VAR-1.bin");
+    assertThat(Files.toByteArray(new File(destination, "VAR-1.bin"))).isEqualTo(content);
+    assertThat(new File(destination, "VAR-1.bin.tmp").exists()).isFalse();
+  }
+
+  @Test
+  public void test_writeValue_fromBytes() throws Exception {
+    byte[] content = newContent();
+    Value value = BinaryType.get().valueOf(content);
+    File destination = temporaryFolder.newFolder("destination");
+
+    assertThat(value.isStreamable()).isFalse();
+    try(InputStream in = value.getStream()) {
+      assertThat(ByteStreams.toByteArray(in)).isEqualTo(content);
+    }
+    writeValue(destination, value);
+    assertThat(Files.toByteArray(new File(destination, "VAR-1.bin"))).isEqualTo(content);
+  }
+
+  private static Value writeValue(File destination, Value value) {
+    Variable variable = Variable.Builder.newVariable("VAR", BinaryType.get(), "Participant").build();
+    VariableEntity entity = new VariableEntityBean("Participant", "1");
+    return BinaryValueFileHelper.writeValue(destination, variable, entity, value);
+  }
+
+  private File newFile(String name, byte[] content) throws Exception {
+    File file = temporaryFolder.newFile(name);
+    Files.write(content, file);
+    return file;
+  }
+
+  private static byte[] newContent() {
+    byte[] content = new byte[SIZE];
+    new Random(1).nextBytes(content);
+    return content;
+  }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.support;
+
+import java.io.File;
+import java.io.InputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class BinaryValueURLLoaderTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void test_getLength_fromContentLength() throws Exception {
+    byte[] content = new byte[100000];
+    for(int i = 0; i < content.length; i++) {
+      content[i] = (byte) i;
+    }
+    File file = temporaryFolder.newFile("value.bin");
+    Files.write(content, file);
+    BinaryValueURLLoader loader = new BinaryValueURLLoader(file.toURI().toURL().toString());
+
+    assertThat(loader.getLength()).isEqualTo(content.length);
+    try(InputStream in = loader.getStream()) {
+      assertThat(ByteStreams.toByteArray(in)).isEqualTo(content);
+    }
+    assertThat((byte[]) loader.getValue()).isEqualTo(content);
+    assertThat(loader.getLength()).isEqualTo(content.length);
+  }
+
+}
@@ -0,0 +1,429 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.support;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.validation.constraints.NotNull;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.obiba.magma.MagmaTest;
+import org.obiba.magma.ValueSet;
+import org.obiba.magma.ValueTable;
+import org.obiba.magma.ValueTableWriter;
+import org.obiba.magma.Variable;
+import org.obiba.magma.VariableEntity;
+import org.obiba.magma.type.IntegerType;
+import org.obiba.magma.type.TextType;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class DatasourceCopierTest extends MagmaTest {
+
+  private static final int ENTITIES = 2500;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private StaticValueTable source;
+
+  private Variable age;
+
+  private Variable name;
+
+  @Before
+  @Override
+  public void before() {
+    super.before();
+    age = Variable.Builder.newVariable("AGE", IntegerType.get(), "Participant").index(2).build();
+    name = Variable.Builder.newVariable("NAME", TextType.get(), "Participant").index(1).build();
+    List<String> identifiers = Lists.newArrayList();
+    for(int i = 0; i < ENTITIES; i++) {
+      identifiers.add(String.valueOf(i));
+    }
+    source = new StaticValueTable(new StaticDatasource("source"), "table", identifiers);
+    // a variable without vector support
+    source.addVariables(TextType.get(), "CODE");
+    for(int i = 0; i < ENTITIES; i++) {
+      source.addValues(String.valueOf(i), age, i % 10 == 0 ? null : (long) i, name, "name" + i, "CODE", "c" + i % 7);
+    }
+  }
+
+  @Test
+  public void test_copy_default() throws Exception {
+    assertCopied(copy(DatasourceCopier.Builder.newCopier()));
+  }
+
+  @Test
+  public void test_copy_vectorized() throws Exception {
+    assertCopied(copy(DatasourceCopier.Builder.newCopier().withVectorizedValues()));
+  }
+
+  @Test
+  public void test_copy_vectorizedByColumnGroups() throws Exception {
+    ExecutorService executorService = Executors.newFixedThreadPool(2);
+    try {
+      assertCopied(copy(DatasourceCopier.Builder.newCopier().withVectorizedValues(executorService, 1)));
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void test_copy_vectorizedNotifiesListeners() throws Exception {
+    final List<String> copied = Lists.newArrayList();
+    copy(DatasourceCopier.Builder.newCopier().withVectorizedValues()
+        .withListener(new DatasourceCopier.DatasourceCopyValueSetEventListener() {
+          @Override
+          public void onValueSetCopy(ValueTable source, ValueSet valueSet) {
+          }
+
+          @Override
+          public void onValueSetCopied(ValueTable source, ValueSet valueSet, String... tables) {
+            copied.add(valueSet.getVariableEntity().getIdentifier());
+          }
+        }));
+    assertThat(copied).hasSize(ENTITIES);
+    assertThat(copied.get(ENTITIES - 1)).isEqualTo(String.valueOf(ENTITIES - 1));
+  }
+
+  @Test
+  public void test_copy_resumedFromCheckpoint() throws Exception {
+    CopyJournal journal = new CopyJournal(temporaryFolder.newFile("journal.properties"));
+    StaticDatasource destination = new CheckpointedDatasource("destination");
+    try {
+      DatasourceCopier.Builder.newCopier().withCheckpoints(journal, 1000).withListener(failingListener("2200")).build()
+          .copy(source, destination);
+      fail("copy should have failed");
+    } catch(IllegalStateException e) {
+      // expected
+    }
+    assertThat(journal.getOffset(source, "destination.table")).isEqualTo(2000);
+
+    // the journal is read back from its file
+    List<String> copied = Lists.newArrayList();
+    DatasourceCopier.Builder.newCopier().withCheckpoints(new CopyJournal(journal.getFile()))
+        .withListener(copiedListener(copied)).build().copy(source, destination);
+    assertThat(copied).hasSize(ENTITIES - 2000);
+    assertThat(copied.get(0)).isEqualTo("2000");
+    assertCopied(destination.getValueTable("table"));
+    assertThat(new CopyJournal(journal.getFile()).getOffset(source, "destination.table")).isEqualTo(0);
+  }
+
+  @Test
+  public void test_copy_fullCopyWhenDictionaryChanged() throws Exception {
+    CopyJournal journal = new CopyJournal(temporaryFolder.newFile("journal.properties"));
+    StaticDatasource destination = new CheckpointedDatasource("destination");
+    try {
+      DatasourceCopier.Builder.newCopier().withCheckpoints(journal, 1000).withListener(failingListener("1500")).build()
+          .copy(source, destination);
+      fail("copy should have failed");
+    } catch(IllegalStateException e) {
+      // expected
+    }
+    assertThat(journal.getOffset(source, "destination.table")).isEqualTo(1000);
+
+    source.addVariables(TextType.get(), "OTHER");
+    List<String> copied = Lists.newArrayList();
+    DatasourceCopier.Builder.newCopier().withCheckpoints(journal).withListener(copiedListener(copied)).build()
+        .copy(source, destination);
+    assertThat(copied).hasSize(ENTITIES);
+  }
+
+  @Test
+  public void test_multithreadedCopy_resumedFromCheckpoint() throws Exception {
+    CopyJournal journal = new CopyJournal(temporaryFolder.newFile("journal.properties"));
+    StaticDatasource destination = new CheckpointedDatasource("destination");
+    try {
+      MultithreadedDatasourceCopier.Builder.newCopier().withCopier(
+          DatasourceCopier.Builder.newCopier().withCheckpoints(journal, 1000).withListener(failingListener("2200")))
+          .from(source).to(destination).build().copy();
+      fail("copy should have failed");
+    } catch(IllegalStateException e) {
+      // expected
+    }
+    int offset = journal.getOffset(source, "destination.table");
+    assertThat(offset).isGreaterThanOrEqualTo(1000);
+
+    List<String> copied = Lists.newArrayList();
+    MultithreadedDatasourceCopier.Builder.newCopier()
+        .withCopier(DatasourceCopier.Builder.newCopier().withCheckpoints(journal).withListener(copiedListener(copied)))
+        .from(source).to(destination).build().copy();
+    assertThat(copied).hasSize(ENTITIES - offset);
+    assertCopied(destination.getValueTable("table"));
+    assertThat(journal.getOffset(source, "destination.table")).isEqualTo(0);
+  }
+
+  @Test
+  public void test_multithreadedCopy_checkpointedWithoutNullValues() throws Exception {
+    for(int i = 0; i < ENTITIES; i += 100) {
+      source.addValues(String.valueOf(i), age, null, name, null, "CODE", null);
+    }
+    CopyJournal journal = new CopyJournal(temporaryFolder.newFile("journal.properties"));
+    StaticDatasource destination = new CheckpointedDatasource("destination");
+    List<String> copied = Lists.newArrayList();
+    MultithreadedDatasourceCopier.Builder.newCopier().withCopier(
+        DatasourceCopier.Builder.newCopier().dontCopyNullValues().withCheckpoints(journal, 1000)
+            .withListener(copiedListener(copied))).from(source).to(destination).build().copy();
+
+    ValueTable copy = destination.getValueTable("table");
+    assertThat(copy.getVariableEntities()).hasSize(ENTITIES - ENTITIES / 100);
+    assertThat(copy.hasValueSet(new VariableEntityBean("Participant", "100"))).isFalse();
+    assertThat(copied).hasSize(ENTITIES - ENTITIES / 100);
+    assertThat(journal.getOffset(source, "destination.table")).isEqualTo(0);
+  }
+
+  @Test
+  public void test_copy_notCheckpointedWhenWriterDoesNotFlush() throws Exception {
+    CopyJournal journal = new CopyJournal(temporaryFolder.newFile("journal.properties"));
+    StaticDatasource destination = new StaticDatasource("destination");
+    try {
+      DatasourceCopier.Builder.newCopier().withCheckpoints(journal, 1000).withListener(failingListener("2200")).build()
+          .copy(source, destination);
+      fail("copy should have failed");
+    } catch(IllegalStateException e) {
+      // expected
+    }
+    assertThat(journal.getOffset(source, "destination.table")).isEqualTo(0);
+
+    List<String> copied = Lists.newArrayList();
+    DatasourceCopier.Builder.newCopier().withCheckpoints(journal).withListener(copiedListener(copied)).build()
+        .copy(source, destination);
+    assertThat(copied).hasSize(ENTITIES);
+  }
+
+  @Test
+  public void test_multithreadedCopy_notCheckpointedWhenWriterDoesNotFlush() throws Exception {
+    CopyJournal journal = new CopyJournal(temporaryFolder.newFile("journal.properties"));
+    StaticDatasource destination = new StaticDatasource("destination");
+    try {
+      MultithreadedDatasourceCopier.Builder.newCopier().withCopier(
+          DatasourceCopier.Builder.newCopier().withCheckpoints(journal, 1000).withListener(failingListener("2200")))
+          .from(source).to(destination).build().copy();
+      fail("copy should have failed");
+    } catch(IllegalStateException e) {
+      // expected
+    }
+    assertThat(journal.getOffset(source, "destination.table")).isEqualTo(0);
+
+    List<String> copied = Lists.newArrayList();
+    MultithreadedDatasourceCopier.Builder.newCopier()
+        .withCopier(DatasourceCopier.Builder.newCopier().withCheckpoints(journal).withListener(copiedListener(copied)))
+        .from(source).to(destination).build().copy();
+    assertThat(copied).hasSize(ENTITIES);
+  }
+
+  @Test
+  public void test_copy_multiplexedByVariable() throws Exception {
+    ExecutorService executorService = Executors.newFixedThreadPool(2);
+    try {
+      TypeMultiplexingStrategy strategy = new TypeMultiplexingStrategy();
+      final Set<String> tables = Sets.newConcurrentHashSet();
+      StaticDatasource destination = new StaticDatasource("destination");
+      DatasourceCopier.Builder.newCopier().withVectorizedValues()
+          .withMultiplexingStrategy(strategy, executorService)
+          .withListener(new DatasourceCopier.DatasourceCopyValueSetEventListener() {
+            @Override
+            public void onValueSetCopy(ValueTable source, ValueSet valueSet) {
+            }
+
+            @Override
+            public void onValueSetCopied(ValueTable source, ValueSet valueSet, String... destinationTables) {
+              tables.addAll(Arrays.asList(destinationTables));
+            }
+          }).build().copy(source, destination);
+
+      // the strategy is evaluated once per variable
+      assertThat(strategy.calls.get()).isEqualTo(3);
+      assertThat(tables).containsOnly("integer", "text");
+      assertMultiplexed(destination);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void test_copy_multiplexedByValueSet() throws Exception {
+    TypeMultiplexingStrategy strategy = new TypeMultiplexingStrategy(false);
+    StaticDatasource destination = new StaticDatasource("destination");
+    DatasourceCopier.Builder.newCopier().withMultiplexingStrategy(strategy).build().copy(source, destination);
+
+    assertThat(strategy.calls.get()).isGreaterThan(ENTITIES);
+    assertMultiplexed(destination);
+  }
+
+  @Test
+  public void test_copy_multiplexedWithoutNullValues() throws Exception {
+    ExecutorService executorService = Executors.newFixedThreadPool(2);
+    try {
+      StaticDatasource byVariable = new StaticDatasource("byVariable");
+      DatasourceCopier.Builder.newCopier().withVectorizedValues().dontCopyNullValues()
+          .withMultiplexingStrategy(new TypeMultiplexingStrategy(), executorService).build().copy(source, byVariable);
+      StaticDatasource byValueSet = new StaticDatasource("byValueSet");
+      DatasourceCopier.Builder.newCopier().dontCopyNullValues()
+          .withMultiplexingStrategy(new TypeMultiplexingStrategy(false)).build().copy(source, byValueSet);
+
+      for(StaticDatasource destination : new StaticDatasource[] { byVariable, byValueSet }) {
+        // no value set for the entities without age
+        ValueTable integers = destination.getValueTable("integer");
+        assertThat(integers.getVariableEntities()).hasSize(ENTITIES - ENTITIES / 10);
+        assertThat(integers.hasValueSet(new VariableEntityBean("Participant", "10"))).isFalse();
+        assertThat(destination.getValueTable("text").getVariableEntities()).hasSize(ENTITIES);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private void assertMultiplexed(StaticDatasource destination) {
+    ValueTable integers = destination.getValueTable("integer");
+    ValueTable texts = destination.getValueTable("text");
+    assertThat(integers.getVariables()).hasSize(1);
+    assertThat(texts.getVariables()).hasSize(2);
+    for(ValueSet valueSet : source.getValueSets()) {
+      VariableEntity entity = valueSet.getVariableEntity();
+      assertThat(integers.getValue(integers.getVariable("AGE"), integers.getValueSet(entity)))
+          .isEqualTo(source.getValue(age, valueSet));
+      for(String variable : new String[] { "NAME", "CODE" }) {
+        assertThat(texts.getValue(texts.getVariable(variable), texts.getValueSet(entity)))
+            .isEqualTo(source.getValue(source.getVariable(variable), valueSet));
+      }
+    }
+  }
+
+  private DatasourceCopier.DatasourceCopyValueSetEventListener failingListener(final String identifier) {
+    return new DatasourceCopier.DatasourceCopyValueSetEventListener() {
+      @Override
+      public void onValueSetCopy(ValueTable source, ValueSet valueSet) {
+        if(identifier.equals(valueSet.getVariableEntity().getIdentifier())) throw new IllegalStateException();
+      }
+
+      @Override
+      public void onValueSetCopied(ValueTable source, ValueSet valueSet, String... tables) {
+      }
+    };
+  }
+
+  private DatasourceCopier.DatasourceCopyValueSetEventListener copiedListener(final List<String> copied) {
+    return new DatasourceCopier.DatasourceCopyValueSetEventListener() {
+      @Override
+      public void onValueSetCopy(ValueTable source, ValueSet valueSet) {
+      }
+
+      @Override
+      public void onValueSetCopied(ValueTable source, ValueSet valueSet, String... tables) {
+        copied.add(valueSet.getVariableEntity().getIdentifier());
+      }
+    };
+  }
+
+  private ValueTable copy(DatasourceCopier.Builder builder) throws Exception {
+    StaticDatasource destination = new StaticDatasource("destination");
+    builder.build().copy(source, destination);
+    return destination.getValueTable("table");
+  }
+
+  /**
+   * A destination which writers persist the value sets when flushed.
+   */
+  private static class CheckpointedDatasource extends StaticDatasource {
+
+    private CheckpointedDatasource(String name) {
+      super(name);
+    }
+
+    @NotNull
+    @Override
+    public ValueTableWriter createWriter(@NotNull String tableName, @NotNull String entityType) {
+      ValueTableWriter writer = super.createWriter(tableName, entityType);
+      return new ValueTableWriter() {
+        @Override
+        public VariableWriter writeVariables() {
+          return writer.writeVariables();
+        }
+
+        @NotNull
+        @Override
+        public ValueSetWriter writeValueSet(@NotNull VariableEntity entity) {
+          return writer.writeValueSet(entity);
+        }
+
+        @Override
+        public boolean supportsCheckpoints() {
+          return true;
+        }
+
+        @Override
+        public void close() {
+          writer.close();
+        }
+      };
+    }
+  }
+
+  /**
+   * Routes the variables by value type, counting the evaluations.
+   */
+  private static class TypeMultiplexingStrategy implements DatasourceCopier.MultiplexingStrategy {
+
+    private final boolean isStatic;
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private TypeMultiplexingStrategy() {
+      this(true);
+    }
+
+    private TypeMultiplexingStrategy(boolean isStatic) {
+      this.isStatic = isStatic;
+    }
+
+    @Override
+    public String multiplexVariable(Variable variable) {
+      calls.incrementAndGet();
+      return variable.getValueType().getName();
+    }
+
+    @Override
+    public String multiplexValueSet(VariableEntity entity, Variable variable) {
+      return multiplexVariable(variable);
+    }
+
+    @Override
+    public boolean isStatic() {
+      return isStatic;
+    }
+  }
+
+  private void assertCopied(ValueTable copy) {
+    assertThat(copy.getVariableEntities()).isEqualTo(source.getVariableEntities());
+    for(ValueSet valueSet : source.getValueSets()) {
+      ValueSet copied = copy.getValueSet(valueSet.getVariableEntity());
+      for(String variable : new String[] { "AGE", "NAME", "CODE" }) {
+        assertThat(copy.getValue(copy.getVariable(variable), copied))
+            .isEqualTo(source.getValue(source.getVariable(variable), valueSet));
+      }
+    }
+  }
+
+}
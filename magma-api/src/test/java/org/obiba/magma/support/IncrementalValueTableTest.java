@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.support;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.obiba.magma.MagmaTest;
+import org.obiba.magma.NoSuchValueSetException;
+import org.obiba.magma.Timestamps;
+import org.obiba.magma.TimestampsBean;
+import org.obiba.magma.ValueTable;
+import org.obiba.magma.VariableEntity;
+import org.obiba.magma.type.DateTimeType;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class IncrementalValueTableTest extends MagmaTest {
+
+  private static final int ENTITIES = 2500;
+
+  @Test
+  public void test_getVariableEntities_changedOnly() {
+    TimestampedTable source = new TimestampedTable("source");
+    TimestampedTable destination = new TimestampedTable("destination");
+    List<String> expected = Lists.newArrayList();
+    for(int i = 0; i < ENTITIES; i++) {
+      String id = String.valueOf(i);
+      source.update(id, 1000L);
+      if(i % 10 == 0) {
+        // not copied yet
+        expected.add(id);
+      } else if(i % 10 == 1) {
+        // updated since last copy
+        destination.update(id, 500L);
+        expected.add(id);
+      } else {
+        destination.update(id, 1000L);
+      }
+    }
+
+    ValueTable incremental = IncrementalValueTable.Factory.create(source, destination);
+
+    assertThat(incremental.getVariableEntityCount()).isEqualTo(expected.size());
+    assertThat(((IncrementalValueTable) incremental).getChangedEntityCount()).isEqualTo(expected.size());
+    List<String> identifiers = Lists.newArrayList();
+    for(VariableEntity entity : incremental.getVariableEntities()) {
+      identifiers.add(entity.getIdentifier());
+    }
+    assertThat(identifiers).isEqualTo(expected);
+    assertThat(incremental.getVariableEntities(10, 5)).isEqualTo(incremental.getVariableEntities().subList(10, 15));
+    assertThat(incremental.getVariableEntities(expected.size(), 5)).isEmpty();
+  }
+
+  @Test
+  public void test_getVariableEntities_readsTimestampsByPage() {
+    TimestampedTable source = new TimestampedTable("source");
+    TimestampedTable destination = new TimestampedTable("destination");
+    for(int i = 0; i < ENTITIES; i++) {
+      source.update(String.valueOf(i), 1000L);
+      destination.update(String.valueOf(i), 1000L);
+    }
+
+    ValueTable incremental = IncrementalValueTable.Factory.create(source, destination);
+    assertThat(incremental.getVariableEntities()).isEmpty();
+    incremental.getVariableEntityCount();
+
+    int pages = (ENTITIES + IncrementalValueTable.TIMESTAMPS_PAGE_SIZE - 1) / IncrementalValueTable.TIMESTAMPS_PAGE_SIZE;
+    assertThat(source.batchCount).isEqualTo(pages);
+    assertThat(destination.batchCount).isEqualTo(pages);
+    assertThat(source.singleCount).isEqualTo(0);
+    assertThat(destination.singleCount).isEqualTo(0);
+  }
+
+  @Test
+  public void test_getVariableEntity_mappingFunction() {
+    TimestampedTable source = new TimestampedTable("source");
+    TimestampedTable destination = new TimestampedTable("destination");
+    source.update("1", 1000L);
+    source.update("2", 1000L);
+    destination.update("2", 2000L);
+
+    IncrementalValueTable incremental = (IncrementalValueTable) IncrementalValueTable.Factory
+        .create(source, destination);
+    assertThat(incremental.getVariableEntityMappingFunction().apply(new VariableEntityBean("Participant", "1")))
+        .isNotNull();
+    assertThat(incremental.getVariableEntityMappingFunction().apply(new VariableEntityBean("Participant", "2")))
+        .isNull();
+  }
+
+  /**
+   * A table which value sets have an update date, and which counts the timestamps reads.
+   */
+  private static class TimestampedTable extends StaticValueTable {
+
+    private final Map<String, Timestamps> timestamps = Maps.newLinkedHashMap();
+
+    private int batchCount;
+
+    private int singleCount;
+
+    private TimestampedTable(String name) {
+      super(new StaticDatasource("ds"), name, ImmutableList.<String>of());
+    }
+
+    private void update(String identifier, long time) {
+      addVariableEntity(new VariableEntityBean(getEntityType(), identifier));
+      timestamps.put(identifier,
+          new TimestampsBean(DateTimeType.get().valueOf(new Date(0)), DateTimeType.get().valueOf(new Date(time))));
+    }
+
+    @Override
+    public Timestamps getValueSetTimestamps(VariableEntity entity) throws NoSuchValueSetException {
+      singleCount++;
+      return getTimestamps(entity);
+    }
+
+    @Override
+    public Iterable<Timestamps> getValueSetTimestamps(List<VariableEntity> entities) {
+      batchCount++;
+      List<Timestamps> result = Lists.newArrayList();
+      for(VariableEntity entity : entities) {
+        result.add(getTimestamps(entity));
+      }
+      return result;
+    }
+
+    private Timestamps getTimestamps(VariableEntity entity) {
+      Timestamps entityTimestamps = timestamps.get(entity.getIdentifier());
+      if(entityTimestamps == null) throw new NoSuchValueSetException(this, entity);
+      return entityTimestamps;
+    }
+  }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.support;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.obiba.magma.MagmaCacheExtension;
+import org.obiba.magma.MagmaEngine;
+import org.obiba.magma.MagmaTest;
+import org.obiba.magma.Timestamps;
+import org.obiba.magma.TimestampsBean;
+import org.obiba.magma.ValueSet;
+import org.obiba.magma.ValueSetBatch;
+import org.obiba.magma.VariableEntity;
+import org.obiba.magma.type.DateTimeType;
+import org.obiba.magma.type.IntegerType;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class SharedValueSetCacheTest extends MagmaTest {
+
+  @Test
+  public void test_getValueSets_loadsMissesOnce() {
+    TestTable table = new TestTable(10);
+    SharedValueSetCache cache = new SharedValueSetCache();
+
+    List<ValueSet> valueSets = cache.getValueSets(table, entities(table, 0, 5), table::load);
+    assertThat(valueSets).hasSize(5);
+    assertThat(valueSets.get(0).getVariableEntity().getIdentifier()).isEqualTo("0");
+    assertThat(table.loads.get()).isEqualTo(1);
+    assertThat(table.loaded.get()).isEqualTo(5);
+
+    // only the entities that are not cached are loaded, in one batch
+    valueSets = cache.getValueSets(table, entities(table, 3, 8), table::load);
+    assertThat(valueSets).hasSize(5);
+    assertThat(valueSets.get(4).getVariableEntity().getIdentifier()).isEqualTo("7");
+    assertThat(table.loads.get()).isEqualTo(2);
+    assertThat(table.loaded.get()).isEqualTo(8);
+    assertThat(cache.getWeight()).isEqualTo(8 * 2);
+
+    cache.getValueSets(table, entities(table, 0, 8), table::load);
+    assertThat(table.loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void test_getValueSets_tableUpdated() {
+    TestTable table = new TestTable(10);
+    SharedValueSetCache cache = new SharedValueSetCache();
+    cache.getValueSets(table, entities(table, 0, 10), table::load);
+
+    table.lastUpdate = new Date(table.lastUpdate.getTime() + 1000);
+    cache.getValueSets(table, entities(table, 0, 10), table::load);
+    assertThat(table.loaded.get()).isEqualTo(20);
+  }
+
+  @Test
+  public void test_getValueSets_withoutLastUpdateNotCached() {
+    TestTable table = new TestTable(10);
+    table.lastUpdate = null;
+    SharedValueSetCache cache = new SharedValueSetCache();
+    cache.getValueSets(table, entities(table, 0, 10), table::load);
+    cache.getValueSets(table, entities(table, 0, 10), table::load);
+    assertThat(table.loaded.get()).isEqualTo(20);
+    assertThat(cache.getWeight()).isEqualTo(0);
+  }
+
+  @Test
+  public void test_getValueSets_evictsLeastRecentlyUsed() {
+    TestTable table = new TestTable(10);
+    // 2 variables per value set: room for 4 value sets
+    SharedValueSetCache cache = new SharedValueSetCache(8, 1);
+    cache.getValueSets(table, entities(table, 0, 4), table::load);
+    cache.getValueSets(table, entities(table, 0, 1), table::load);
+    cache.getValueSets(table, entities(table, 4, 5), table::load);
+    assertThat(cache.getWeight()).isEqualTo(8);
+    assertThat(table.loaded.get()).isEqualTo(5);
+
+    // entity 0 was used recently, entity 1 was evicted
+    cache.getValueSets(table, entities(table, 0, 1), table::load);
+    assertThat(table.loaded.get()).isEqualTo(5);
+    cache.getValueSets(table, entities(table, 1, 2), table::load);
+    assertThat(table.loaded.get()).isEqualTo(6);
+  }
+
+  @Test
+  public void test_getValueSets_concurrentMissesLoadedOnce() throws Exception {
+    TestTable table = new TestTable(100);
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    table.latches = new CountDownLatch[] { loading, release };
+    SharedValueSetCache cache = new SharedValueSetCache();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      Future<List<ValueSet>> first = executor.submit(() -> cache.getValueSets(table, entities(table, 0, 100), table::load));
+      assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue();
+      List<Future<List<ValueSet>>> others = Lists.newArrayList();
+      for(int i = 0; i < 3; i++) {
+        others.add(executor.submit(() -> cache.getValueSets(table, entities(table, 0, 100), table::load)));
+      }
+      release.countDown();
+      List<ValueSet> expected = first.get(10, TimeUnit.SECONDS);
+      for(Future<List<ValueSet>> other : others) {
+        assertThat(other.get(10, TimeUnit.SECONDS)).isEqualTo(expected);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(table.loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void test_getValueSets_sharedByTableReaders() {
+    MagmaEngine.get().extend(new MagmaCacheExtension());
+    MagmaEngine.get().getExtension(MagmaCacheExtension.class).setSharedValueSetCache(new SharedValueSetCache());
+    TestTable table = new TestTable(10);
+    table.cacheable = true;
+
+    assertThat(Iterables.size(table.getValueSets())).isEqualTo(10);
+    assertThat(Iterables.size(table.getValueSets())).isEqualTo(10);
+    assertThat(table.loads.get()).isEqualTo(1);
+
+    table.cacheable = false;
+    assertThat(Iterables.size(table.getValueSets())).isEqualTo(10);
+    assertThat(table.loads.get()).isEqualTo(2);
+  }
+
+  private static List<VariableEntity> entities(TestTable table, int from, int to) {
+    return ImmutableList.copyOf(table.getVariableEntities()).subList(from, to);
+  }
+
+  private static class TestTable extends StaticValueTable {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final AtomicInteger loaded = new AtomicInteger();
+
+    private Date lastUpdate = new Date(1000);
+
+    private boolean cacheable;
+
+    private CountDownLatch[] latches;
+
+    private TestTable(int size) {
+      super(new StaticDatasource("ds"), "table", entities(size));
+      addVariables(IntegerType.get(), "A", "B");
+      for(int i = 0; i < size; i++) {
+        addValues(Integer.toString(i), "A", i, "B", i * 2);
+      }
+    }
+
+    @Override
+    public Timestamps getTimestamps() {
+      return lastUpdate == null
+          ? NullTimestamps.get()
+          : new TimestampsBean(DateTimeType.get().valueOf(new Date(0)), DateTimeType.get().valueOf(lastUpdate));
+    }
+
+    @Override
+    protected boolean isValueSetCacheable() {
+      return cacheable;
+    }
+
+    @Override
+    protected ValueSetBatch getValueSetsBatch(List<VariableEntity> entities) {
+      return load(entities);
+    }
+
+    private ValueSetBatch load(List<VariableEntity> entities) {
+      loads.incrementAndGet();
+      loaded.addAndGet(entities.size());
+      if(latches != null) {
+        latches[0].countDown();
+        try {
+          latches[1].await(10, TimeUnit.SECONDS);
+        } catch(InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return super.getValueSetsBatch(entities);
+    }
+
+    private static List<String> entities(int size) {
+      List<String> entities = Lists.newArrayList();
+      for(int i = 0; i < size; i++) {
+        entities.add(Integer.toString(i));
+      }
+      return entities;
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.support;
+
+import java.util.Date;
+import java.util.Set;
+
+import javax.validation.constraints.NotNull;
+
+import org.junit.Test;
+import org.obiba.magma.MagmaTest;
+import org.obiba.magma.Timestamps;
+import org.obiba.magma.TimestampsBean;
+import org.obiba.magma.Value;
+import org.obiba.magma.ValueTable;
+import org.obiba.magma.type.DateTimeType;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class TimestampsIndexTest extends MagmaTest {
+
+  private static final int TABLES = 100;
+
+  @Test
+  public void test_getTimestamps_tablesReadOnce() {
+    TestDatasource datasource = new TestDatasource(TABLES);
+    datasource.initialise();
+    TimestampsIndex index = datasource.getTimestampsIndex();
+
+    assertThat(index.getCreated()).isEqualTo(date(0));
+    assertThat(index.getLastUpdate()).isEqualTo(date(1000 + TABLES - 1));
+    index.getCreated();
+    index.getLastUpdate();
+
+    assertThat(datasource.reads).isEqualTo(TABLES);
+  }
+
+  @Test
+  public void test_touch_pushesLastUpdate() {
+    TestDatasource datasource = new TestDatasource(TABLES);
+    datasource.initialise();
+    TimestampsIndex index = datasource.getTimestampsIndex();
+    index.getLastUpdate();
+
+    index.touch("table1", date(5000));
+    assertThat(index.getLastUpdate()).isEqualTo(date(5000));
+    assertThat(index.get(datasource.getValueTable("table1")).getLastUpdate()).isEqualTo(date(5000));
+    assertThat(index.get(datasource.getValueTable("table1")).getCreated()).isEqualTo(date(1));
+
+    // earlier update does not go back in time
+    index.touch("table2", date(2000));
+    assertThat(index.getLastUpdate()).isEqualTo(date(5000));
+    assertThat(datasource.reads).isEqualTo(TABLES);
+  }
+
+  @Test
+  public void test_invalidate_readsTableAgain() {
+    TestDatasource datasource = new TestDatasource(TABLES);
+    datasource.initialise();
+    TimestampsIndex index = datasource.getTimestampsIndex();
+    index.getLastUpdate();
+
+    index.onDelete(datasource.getValueTable("table1"));
+    index.getLastUpdate();
+    assertThat(datasource.reads).isEqualTo(TABLES + 1);
+  }
+
+  @Test
+  public void test_tablesChanged() {
+    TestDatasource datasource = new TestDatasource(2);
+    datasource.initialise();
+    TimestampsIndex index = datasource.getTimestampsIndex();
+    assertThat(index.getLastUpdate()).isEqualTo(date(1001));
+
+    datasource.addValueTable(datasource.initialiseValueTable("table5"));
+    assertThat(index.getLastUpdate()).isEqualTo(date(1005));
+
+    datasource.removeValueTable("table5");
+    assertThat(index.getLastUpdate()).isEqualTo(date(1001));
+  }
+
+  private static Value date(long time) {
+    return DateTimeType.get().valueOf(new Date(time));
+  }
+
+  private static class TestDatasource extends AbstractDatasource {
+
+    private final int tableCount;
+
+    private int reads;
+
+    private TestDatasource(int tableCount) {
+      super("ds", "test");
+      this.tableCount = tableCount;
+    }
+
+    @Override
+    protected Set<String> getValueTableNames() {
+      Set<String> names = Sets.newLinkedHashSet();
+      for(int i = 0; i < tableCount; i++) {
+        names.add("table" + i);
+      }
+      return names;
+    }
+
+    @Override
+    protected ValueTable initialiseValueTable(String tableName) {
+      final long time = Long.parseLong(tableName.substring("table".length()));
+      return new StaticValueTable(this, tableName, ImmutableSet.<String>of()) {
+        @NotNull
+        @Override
+        public Timestamps getTimestamps() {
+          reads++;
+          return new TimestampsBean(date(time), date(1000 + time));
+        }
+      };
+    }
+  }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.support;
+
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.obiba.magma.MagmaTest;
+import org.obiba.magma.ValueSet;
+import org.obiba.magma.ValueSetBatch;
+import org.obiba.magma.VariableEntity;
+import org.obiba.magma.type.IntegerType;
+
+import com.google.common.collect.Lists;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class ValueSetSpliteratorTest extends MagmaTest {
+
+  @Test
+  public void test_valueSetStream_inEntityOrder() {
+    TestTable table = new TestTable(250, 100);
+    List<String> identifiers = table.valueSetStream().map(vs -> vs.getVariableEntity().getIdentifier())
+        .collect(Collectors.toList());
+    assertThat(identifiers).hasSize(250);
+    assertThat(identifiers.get(0)).isEqualTo("0");
+    assertThat(identifiers.get(249)).isEqualTo("249");
+    // one batch per page
+    assertThat(table.batches.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void test_valueSetStream_parallel() {
+    TestTable table = new TestTable(1000, 30);
+    List<String> identifiers = table.valueSetStream().parallel().map(vs -> vs.getVariableEntity().getIdentifier())
+        .collect(Collectors.toList());
+    assertThat(identifiers).hasSize(1000);
+    for(int i = 0; i < 1000; i++) {
+      assertThat(identifiers.get(i)).isEqualTo(Integer.toString(i));
+    }
+    Set<String> distinct = table.valueSetStream().parallel().unordered()
+        .map(vs -> vs.getVariableEntity().getIdentifier()).collect(Collectors.toSet());
+    assertThat(distinct).hasSize(1000);
+  }
+
+  @Test
+  public void test_trySplit_sizedByPages() {
+    TestTable table = new TestTable(250, 100);
+    Spliterator<ValueSet> suffix = new ValueSetSpliterator(table);
+    assertThat(suffix.hasCharacteristics(Spliterator.ORDERED)).isTrue();
+    assertThat(suffix.hasCharacteristics(Spliterator.SIZED)).isFalse();
+    assertThat(suffix.estimateSize()).isEqualTo(250);
+
+    suffix.tryAdvance(vs -> assertThat(vs.getVariableEntity().getIdentifier()).isEqualTo("0"));
+    Spliterator<ValueSet> prefix = suffix.trySplit();
+    assertThat(prefix).isNotNull();
+    assertThat(prefix.estimateSize() + suffix.estimateSize()).isEqualTo(249);
+    assertThat(suffix.estimateSize()).isEqualTo(50);
+
+    // the prefix starts with the page being read
+    prefix.tryAdvance(vs -> assertThat(vs.getVariableEntity().getIdentifier()).isEqualTo("1"));
+    suffix.tryAdvance(vs -> assertThat(vs.getVariableEntity().getIdentifier()).isEqualTo("200"));
+    assertThat(suffix.trySplit()).isNull();
+  }
+
+  @Test
+  public void test_valueSetStream_emptyTable() {
+    TestTable table = new TestTable(0, 100);
+    assertThat(table.valueSetStream().parallel().count()).isEqualTo(0);
+    assertThat(table.batches.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void test_valueSetStream_lessValueSetsThanCounted() {
+    TestTable table = new TestTable(250, 100);
+    table.extraCount = 30;
+    table.skipped = "120";
+    assertThat(table.valueSetStream().toArray()).hasSize(249);
+    assertThat(table.valueSetStream().parallel().toArray()).hasSize(249);
+    List<String> identifiers = table.valueSetStream().parallel().map(vs -> vs.getVariableEntity().getIdentifier())
+        .collect(Collectors.toList());
+    assertThat(identifiers).hasSize(249);
+    assertThat(identifiers.get(119)).isEqualTo("119");
+    assertThat(identifiers.get(120)).isEqualTo("121");
+    assertThat(identifiers.get(248)).isEqualTo("249");
+  }
+
+  private static class TestTable extends StaticValueTable {
+
+    private final AtomicInteger batches = new AtomicInteger();
+
+    private int extraCount;
+
+    private String skipped;
+
+    private TestTable(int size, int batchSize) {
+      super(new StaticDatasource("ds"), "table", entities(size));
+      addVariables(IntegerType.get(), "A");
+      for(int i = 0; i < size; i++) {
+        addValues(Integer.toString(i), "A", i);
+      }
+      setVariableEntityBatchSize(batchSize);
+    }
+
+    @Override
+    public int getVariableEntityCount() {
+      return super.getVariableEntityCount() + extraCount;
+    }
+
+    @Override
+    public List<VariableEntity> getVariableEntities(int offset, int limit) {
+      // paged from the entities, whatever their count
+      List<VariableEntity> entities = getVariableEntities();
+      int from = Math.min(offset, entities.size());
+      return entities.subList(from, Math.min(from + limit, entities.size()));
+    }
+
+    @Override
+    protected ValueSetBatch getValueSetsBatch(List<VariableEntity> entities) {
+      batches.incrementAndGet();
+      List<ValueSet> valueSets = super.getValueSetsBatch(entities).getValueSets().stream()
+          .filter(vs -> !vs.getVariableEntity().getIdentifier().equals(skipped)).collect(Collectors.toList());
+      return () -> valueSets;
+    }
+
+    private static List<String> entities(int size) {
+      List<String> entities = Lists.newArrayList();
+      for(int i = 0; i < size; i++) {
+        entities.add(Integer.toString(i));
+      }
+      return entities;
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.obiba.magma.MagmaEngine;
+import org.obiba.magma.js.MagmaJsExtension;
+import org.obiba.magma.xstream.MagmaXStreamExtension;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Base class of the benchmarks: runs a {@link MagmaEngine} for the whole trial and holds the size of the tables, that
+ * can be changed on the command line ({@code -p entities=10000 -p variables=100}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class AbstractBenchmark {
+
+  @Param("1000")
+  public int entities;
+
+  @Param("20")
+  public int variables;
+
+  @Setup(Level.Trial)
+  public void startEngine() throws Exception {
+    new MagmaEngine().extend(new MagmaJsExtension()).extend(new MagmaXStreamExtension());
+    try {
+      setUp();
+    } catch(Exception e) {
+      MagmaEngine.get().shutdown();
+      throw e;
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void shutdownEngine() throws Exception {
+    try {
+      tearDown();
+    } finally {
+      MagmaEngine.get().shutdown();
+    }
+  }
+
+  /**
+   * Prepares the fixtures of the benchmark, once the engine is started.
+   */
+  protected void setUp() throws Exception {
+  }
+
+  /**
+   * Releases the fixtures of the benchmark, before the engine is shutdown.
+   */
+  protected void tearDown() throws Exception {
+  }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import javax.annotation.Nullable;
+
+import org.obiba.magma.Datasource;
+import org.obiba.magma.MagmaEngine;
+import org.obiba.magma.ValueTable;
+import org.obiba.magma.Variable;
+import org.obiba.magma.VariableEntity;
+import org.obiba.magma.support.Disposables;
+import org.obiba.magma.support.Initialisables;
+import org.obiba.magma.support.StaticValueTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Writes a table to a datasource, and reads the values of a table that was written to it. Each write goes to a new
+ * datasource, released after the invocation.
+ */
+public abstract class AbstractDatasourceBenchmark extends AbstractBenchmark {
+
+  private StaticValueTable source;
+
+  private Datasource datasource;
+
+  private ValueTable table;
+
+  private List<VariableEntity> entityList;
+
+  @Nullable
+  private Datasource written;
+
+  private int writeCount;
+
+  /**
+   * Creates a datasource, or opens it again when a datasource with the same name was created before.
+   */
+  protected abstract Datasource createDatasource(String name) throws Exception;
+
+  /**
+   * Releases the resources of a datasource that was written, once disposed.
+   */
+  protected void releaseDatasource(Datasource datasource) throws Exception {
+  }
+
+  /**
+   * Executes an operation on a datasource, within a transaction for transactional datasources.
+   */
+  protected <T> T execute(Callable<T> callable) throws Exception {
+    return callable.call();
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    source = Fixtures.newTable("static", entities, variables);
+    // write the table to be read, and open it again
+    copy(createDatasource("read"));
+    datasource = createDatasource("read");
+    table = execute(() -> MagmaEngine.get().addDatasource(datasource).getValueTable(Fixtures.TABLE));
+    entityList = execute(() -> ImmutableList.copyOf(table.getVariableEntities()));
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    execute(() -> {
+      MagmaEngine.get().removeDatasource(datasource);
+      return null;
+    });
+  }
+
+  @Benchmark
+  public void write() throws Exception {
+    written = createDatasource("write" + writeCount++);
+    copy(written);
+  }
+
+  @TearDown(Level.Invocation)
+  public void releaseWritten() throws Exception {
+    if(written != null) {
+      releaseDatasource(written);
+      written = null;
+    }
+  }
+
+  @Benchmark
+  public void readValueSets(Blackhole blackhole) throws Exception {
+    execute(() -> {
+      ValueTableBenchmark.readValueSets(table, blackhole);
+      return null;
+    });
+  }
+
+  private void copy(Datasource destination) throws Exception {
+    execute(() -> {
+      Initialisables.initialise(destination);
+      Fixtures.copy(source, destination);
+      Disposables.dispose(destination);
+      return null;
+    });
+  }
+
+  /**
+   * Reads the values variable by variable, for the datasources which value sources support vectors.
+   */
+  protected void readVectors(Blackhole blackhole) throws Exception {
+    execute(() -> {
+      for(Variable variable : table.getVariables()) {
+        for(Object value : table.getVariableValueSource(variable.getName()).asVectorSource().getValues(entityList)) {
+          blackhole.consume(value);
+        }
+      }
+      return null;
+    });
+  }
+
+}
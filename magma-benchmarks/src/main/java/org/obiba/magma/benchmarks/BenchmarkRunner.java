@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.benchmarks;
+
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Runs the benchmarks with the JMH command line options, writing the results in JSON to {@code magma-benchmarks.json}
+ * unless another result format or file is specified. For instance:
+ * <pre>
+ *   java -jar magma-benchmarks.jar ValueTableBenchmark -p entities=10000 -p variables=100
+ * </pre>
+ */
+public final class BenchmarkRunner {
+
+  public static final String DEFAULT_RESULT_FILE = "magma-benchmarks.json";
+
+  private BenchmarkRunner() {}
+
+  public static void main(String... args) throws Exception {
+    List<String> arguments = Lists.newArrayList(args);
+    if(!arguments.contains("-rf")) {
+      arguments.add("-rf");
+      arguments.add("json");
+    }
+    if(!arguments.contains("-rff")) {
+      arguments.add("-rff");
+      arguments.add(DEFAULT_RESULT_FILE);
+    }
+    Main.main(arguments.toArray(new String[arguments.size()]));
+  }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.obiba.magma.Datasource;
+import org.obiba.magma.datasource.csv.CsvDatasource;
+
+/**
+ * Writes and reads tables in CSV files of a temporary directory.
+ */
+public class CsvBenchmark extends AbstractDatasourceBenchmark {
+
+  private File directory;
+
+  @Override
+  protected void setUp() throws Exception {
+    directory = Files.createTempDirectory("magma-csv").toFile();
+    super.setUp();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    super.tearDown();
+    Fixtures.delete(directory);
+  }
+
+  @Override
+  protected Datasource createDatasource(String name) throws IOException {
+    File tableDirectory = new File(new File(directory, name), Fixtures.TABLE);
+    if(!tableDirectory.exists() && !tableDirectory.mkdirs()) {
+      throw new IOException("Unable to create directory " + tableDirectory);
+    }
+    File variablesFile = new File(tableDirectory, CsvDatasource.VARIABLES_FILE);
+    File dataFile = new File(tableDirectory, CsvDatasource.DATA_FILE);
+    variablesFile.createNewFile();
+    dataFile.createNewFile();
+    return new CsvDatasource(name).addValueTable(Fixtures.TABLE, variablesFile, dataFile, Fixtures.ENTITY_TYPE);
+  }
+
+  @Override
+  protected void releaseDatasource(Datasource datasource) throws IOException {
+    Fixtures.delete(new File(directory, datasource.getName()));
+  }
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.benchmarks;
+
+import java.io.IOException;
+
+import org.obiba.magma.datasource.nil.NullDatasource;
+import org.obiba.magma.support.DatasourceCopier;
+import org.obiba.magma.support.StaticValueTable;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Copies a table to a {@link NullDatasource}, so that only the reading of the values and the copier are measured.
+ */
+public class DatasourceCopierBenchmark extends AbstractBenchmark {
+
+  private StaticValueTable table;
+
+  private NullDatasource destination;
+
+  @Override
+  protected void setUp() {
+    table = Fixtures.newTable("static", entities, variables);
+    destination = new NullDatasource("null");
+  }
+
+  @Benchmark
+  public void copy() throws IOException {
+    DatasourceCopier.Builder.newCopier().build().copy(table, destination);
+  }
+
+  @Benchmark
+  public void copyVectorizedValues() throws IOException {
+    DatasourceCopier.Builder.newCopier().withVectorizedValues().build().copy(table, destination);
+  }
+
+}
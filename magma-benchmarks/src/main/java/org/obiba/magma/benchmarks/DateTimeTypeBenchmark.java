@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.benchmarks;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.obiba.magma.type.DateTimeType;
+import org.obiba.magma.type.DateType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Parses as many date times and dates as there are entities, in the formats that are supported.
+ */
+public class DateTimeTypeBenchmark extends AbstractBenchmark {
+
+  private static final String[] DATE_TIME_FORMATS = { "yyyy-MM-dd'T'HH:mm:ss.SSSZ", "yyyy-MM-dd'T'HH:mm:ssZ",
+      "yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd HH:mm", "yyyy-MM-dd" };
+
+  private static final String[] DATE_FORMATS = { "yyyy-MM-dd", "yyyy/MM/dd", "yyyy.MM.dd", "dd/MM/yyyy" };
+
+  private List<String> dateTimes;
+
+  private List<String> dates;
+
+  @Override
+  protected void setUp() {
+    Random random = new Random(entities);
+    dateTimes = Lists.newArrayListWithCapacity(entities);
+    dates = Lists.newArrayListWithCapacity(entities);
+    for(int i = 0; i < entities; i++) {
+      Date date = new Date(Math.abs(random.nextLong()) % 2000000000000L);
+      dateTimes.add(new SimpleDateFormat(DATE_TIME_FORMATS[i % DATE_TIME_FORMATS.length]).format(date));
+      dates.add(new SimpleDateFormat(DATE_FORMATS[i % DATE_FORMATS.length]).format(date));
+    }
+  }
+
+  @Benchmark
+  public void parseDateTimes(Blackhole blackhole) {
+    for(String dateTime : dateTimes) {
+      blackhole.consume(DateTimeType.get().valueOf(dateTime));
+    }
+  }
+
+  @Benchmark
+  public void parseDates(Blackhole blackhole) {
+    for(String date : dates) {
+      blackhole.consume(DateType.get().valueOf(date));
+    }
+  }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.obiba.magma.Datasource;
+import org.obiba.magma.MagmaRuntimeException;
+import org.obiba.magma.ValueTable;
+import org.obiba.magma.Variable;
+import org.obiba.magma.VariableEntity;
+import org.obiba.magma.datasource.generated.GeneratedValueTable;
+import org.obiba.magma.support.DatasourceCopier;
+import org.obiba.magma.support.StaticDatasource;
+import org.obiba.magma.support.StaticValueTable;
+import org.obiba.magma.support.VariableEntityBean;
+import org.obiba.magma.type.DateTimeType;
+import org.obiba.magma.type.DecimalType;
+import org.obiba.magma.type.IntegerType;
+import org.obiba.magma.type.TextType;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tables of generated values shared by the benchmarks.
+ */
+final class Fixtures {
+
+  static final String ENTITY_TYPE = "Participant";
+
+  static final String TABLE = "table";
+
+  /**
+   * Values are generated with a fixed seed, so that runs are comparable.
+   */
+  private static final long SEED = 20190101L;
+
+  private Fixtures() {}
+
+  /**
+   * Integer, decimal, categorical text and date time variables, in turn.
+   */
+  static List<Variable> newDictionary(String prefix, int variables) {
+    List<Variable> dictionary = Lists.newArrayListWithCapacity(variables);
+    for(int i = 0; i < variables; i++) {
+      String name = prefix + i;
+      switch(i % 4) {
+        case 0:
+          dictionary.add(Variable.Builder.newVariable(name, IntegerType.get(), ENTITY_TYPE).index(i).build());
+          break;
+        case 1:
+          dictionary.add(Variable.Builder.newVariable(name, DecimalType.get(), ENTITY_TYPE).index(i).build());
+          break;
+        case 2:
+          dictionary.add(Variable.Builder.newVariable(name, TextType.get(), ENTITY_TYPE).index(i)
+              .addCategories("A", "B", "C", "D").build());
+          break;
+        default:
+          dictionary.add(Variable.Builder.newVariable(name, DateTimeType.get(), ENTITY_TYPE).index(i).build());
+      }
+    }
+    return dictionary;
+  }
+
+  static List<VariableEntity> newEntities(int entities) {
+    List<VariableEntity> entityList = Lists.newArrayListWithCapacity(entities);
+    for(int i = 0; i < entities; i++) {
+      entityList.add(new VariableEntityBean(ENTITY_TYPE, String.format("%08d", i)));
+    }
+    return entityList;
+  }
+
+  static StaticValueTable newTable(String name, int entities, int variables) {
+    return newTable(name, "VAR", entities, variables);
+  }
+
+  /**
+   * A table of generated values, held in memory so that reading it does not include the generation.
+   */
+  static StaticValueTable newTable(String name, String prefix, int entities, int variables) {
+    StaticDatasource datasource = new StaticDatasource(name);
+    ValueTable generated = new GeneratedValueTable(new StaticDatasource("generated"),
+        newDictionary(prefix, variables), newEntities(entities), SEED);
+    copy(generated, datasource);
+    return (StaticValueTable) datasource.getValueTable(TABLE);
+  }
+
+  static void copy(ValueTable table, Datasource destination) {
+    try {
+      DatasourceCopier.Builder.newCopier().build().copy(table, TABLE, destination);
+    } catch(IOException e) {
+      throw new MagmaRuntimeException(e);
+    }
+  }
+
+  /**
+   * Deletes a file or a directory and its content.
+   */
+  static void delete(File file) throws IOException {
+    if(!file.exists()) return;
+    try(Stream<Path> paths = Files.walk(file.toPath())) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+        try {
+          Files.delete(path);
+        } catch(IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    }
+  }
+
+}
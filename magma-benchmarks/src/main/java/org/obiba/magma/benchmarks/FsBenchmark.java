@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.obiba.magma.Datasource;
+import org.obiba.magma.datasource.fs.FsDatasource;
+
+/**
+ * Writes and reads tables in zip files of a temporary directory.
+ */
+public class FsBenchmark extends AbstractDatasourceBenchmark {
+
+  private File directory;
+
+  @Override
+  protected void setUp() throws Exception {
+    directory = Files.createTempDirectory("magma-fs").toFile();
+    super.setUp();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    super.tearDown();
+    Fixtures.delete(directory);
+  }
+
+  @Override
+  protected Datasource createDatasource(String name) {
+    return new FsDatasource(name, new File(directory, name + ".zip"));
+  }
+
+  @Override
+  protected void releaseDatasource(Datasource datasource) throws IOException {
+    Fixtures.delete(new File(directory, datasource.getName() + ".zip"));
+  }
+
+}
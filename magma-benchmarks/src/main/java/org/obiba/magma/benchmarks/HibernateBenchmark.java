@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.benchmarks;
+
+import java.util.concurrent.Callable;
+
+import org.hibernate.dialect.HSQLDialect;
+import org.obiba.magma.Datasource;
+import org.obiba.magma.MagmaRuntimeException;
+import org.obiba.magma.datasource.hibernate.HibernateDatasource;
+import org.obiba.magma.datasource.hibernate.support.LocalSessionFactoryProvider;
+import org.obiba.magma.support.Initialisables;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.hibernate4.HibernateTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes and reads tables in an in-memory HSQLDB database, each datasource being dropped once written.
+ */
+public class HibernateBenchmark extends AbstractDatasourceBenchmark {
+
+  private LocalSessionFactoryProvider sessionFactoryProvider;
+
+  private TransactionTemplate transactionTemplate;
+
+  @Override
+  protected void setUp() throws Exception {
+    DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:magma-hibernate", "sa", "");
+    dataSource.setDriverClassName("org.hsqldb.jdbcDriver");
+    sessionFactoryProvider = new LocalSessionFactoryProvider(dataSource, HSQLDialect.class.getName());
+    sessionFactoryProvider.initialise();
+    transactionTemplate = new TransactionTemplate(
+        new HibernateTransactionManager(sessionFactoryProvider.getSessionFactory()));
+    super.setUp();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      super.tearDown();
+    } finally {
+      sessionFactoryProvider.getSessionFactory().close();
+    }
+  }
+
+  @Override
+  protected Datasource createDatasource(String name) {
+    return new HibernateDatasource(name, sessionFactoryProvider.getSessionFactory());
+  }
+
+  @Override
+  protected void releaseDatasource(Datasource datasource) throws Exception {
+    Datasource written = createDatasource(datasource.getName());
+    execute(() -> {
+      Initialisables.initialise(written);
+      written.drop();
+      return null;
+    });
+  }
+
+  @Override
+  protected <T> T execute(Callable<T> callable) {
+    return transactionTemplate.execute(status -> {
+      try {
+        return callable.call();
+      } catch(RuntimeException e) {
+        throw e;
+      } catch(Exception e) {
+        throw new MagmaRuntimeException(e);
+      }
+    });
+  }
+
+  @Benchmark
+  public void readVectors(Blackhole blackhole) throws Exception {
+    super.readVectors(blackhole);
+  }
+
+}
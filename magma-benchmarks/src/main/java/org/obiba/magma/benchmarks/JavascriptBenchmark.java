@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.benchmarks;
+
+import java.util.List;
+
+import org.obiba.magma.Value;
+import org.obiba.magma.ValueSet;
+import org.obiba.magma.Variable;
+import org.obiba.magma.VariableEntity;
+import org.obiba.magma.js.JavascriptVariableBuilder;
+import org.obiba.magma.js.JavascriptVariableValueSource;
+import org.obiba.magma.js.views.JavascriptClause;
+import org.obiba.magma.support.StaticValueTable;
+import org.obiba.magma.type.DecimalType;
+import org.obiba.magma.views.View;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Evaluates a derived variable script for each value set or as a vector, and filters a {@link View} with a script.
+ */
+public class JavascriptBenchmark extends AbstractBenchmark {
+
+  private StaticValueTable table;
+
+  private List<VariableEntity> entityList;
+
+  private JavascriptVariableValueSource source;
+
+  private View view;
+
+  @Override
+  protected void setUp() {
+    table = Fixtures.newTable("static", entities, Math.max(variables, 3));
+    entityList = ImmutableList.copyOf(table.getVariableEntities());
+
+    Variable derived = Variable.Builder.newVariable("DERIVED", DecimalType.get(), Fixtures.ENTITY_TYPE)
+        .extend(JavascriptVariableBuilder.class).setScript("$('VAR0').plus($('VAR1'))").build();
+    source = new JavascriptVariableValueSource(derived, table);
+    source.initialise();
+
+    JavascriptClause where = new JavascriptClause("$('VAR2').any('A','B')");
+    where.initialise();
+    view = View.Builder.newView("view", table).where(where).build();
+  }
+
+  @Benchmark
+  public void valueSets(Blackhole blackhole) {
+    for(ValueSet valueSet : table.getValueSets()) {
+      blackhole.consume(source.getValue(valueSet));
+    }
+  }
+
+  @Benchmark
+  public void vector(Blackhole blackhole) {
+    for(Value value : source.asVectorSource().getValues(entityList)) {
+      blackhole.consume(value);
+    }
+  }
+
+  @Benchmark
+  public void whereClause(Blackhole blackhole) {
+    for(ValueSet valueSet : view.getValueSets()) {
+      blackhole.consume(valueSet);
+    }
+  }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.benchmarks;
+
+import javax.sql.DataSource;
+
+import org.obiba.magma.Datasource;
+import org.obiba.magma.datasource.jdbc.JdbcDatasource;
+import org.obiba.magma.datasource.jdbc.JdbcDatasourceSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Writes and reads tables in in-memory HSQLDB databases, one database per datasource.
+ */
+public class JdbcBenchmark extends AbstractDatasourceBenchmark {
+
+  @Override
+  protected void tearDown() throws Exception {
+    super.tearDown();
+    shutdown("read");
+  }
+
+  @Override
+  protected Datasource createDatasource(String name) {
+    return new JdbcDatasource(name, getDataSource(name),
+        JdbcDatasourceSettings.newSettings(Fixtures.ENTITY_TYPE).useMetadataTables().build());
+  }
+
+  @Override
+  protected void releaseDatasource(Datasource datasource) {
+    shutdown(datasource.getName());
+  }
+
+  @Benchmark
+  public void readVectors(Blackhole blackhole) throws Exception {
+    super.readVectors(blackhole);
+  }
+
+  private void shutdown(String name) {
+    new JdbcTemplate(getDataSource(name)).execute("SHUTDOWN");
+  }
+
+  private static DataSource getDataSource(String name) {
+    DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:magma-" + name, "sa", "");
+    dataSource.setDriverClassName("org.hsqldb.jdbcDriver");
+    return dataSource;
+  }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.benchmarks;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.obiba.magma.Value;
+import org.obiba.magma.Variable;
+import org.obiba.magma.VariableEntity;
+import org.obiba.magma.support.StaticValueTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Creates, hashes and sorts the values of a {@link StaticValueTable}, variable by variable: integer, decimal,
+ * categorical text and date time values (see {@link Fixtures}). For a table of 10M cells and the allocated bytes per
+ * operation:
+ * <pre>
+ *   java -jar magma-benchmarks.jar ValueBenchmark -p entities=500000 -p variables=20 -prof gc
+ * </pre>
+ */
+public class ValueBenchmark extends AbstractBenchmark {
+
+  private StaticValueTable table;
+
+  private List<VariableEntity> entityList;
+
+  /**
+   * The payloads of the values, by variable
+   */
+  private List<List<Object>> payloads;
+
+  @Override
+  protected void setUp() {
+    table = Fixtures.newTable("static", entities, variables);
+    entityList = ImmutableList.copyOf(table.getVariableEntities());
+    payloads = Lists.newArrayListWithCapacity(variables);
+    for(Variable variable : table.getVariables()) {
+      List<Object> variablePayloads = Lists.newArrayListWithCapacity(entities);
+      for(Value value : getValues(variable)) {
+        variablePayloads.add(value.isNull() ? null : value.getValue());
+      }
+      payloads.add(variablePayloads);
+    }
+  }
+
+  @Benchmark
+  public void create(Blackhole blackhole) {
+    int i = 0;
+    for(Variable variable : table.getVariables()) {
+      for(Object payload : payloads.get(i++)) {
+        blackhole.consume(variable.getValueType().valueOf(payload));
+      }
+    }
+  }
+
+  @Benchmark
+  public void distinct(Blackhole blackhole) {
+    for(Variable variable : table.getVariables()) {
+      Set<Value> distinct = Sets.newHashSet(getValues(variable));
+      blackhole.consume(distinct.size());
+    }
+  }
+
+  @Benchmark
+  public void sort(Blackhole blackhole) {
+    for(Variable variable : table.getVariables()) {
+      List<Value> values = Lists.newArrayList(getValues(variable));
+      Collections.sort(values);
+      blackhole.consume(values.get(0));
+    }
+  }
+
+  @Benchmark
+  public void valueSets(Blackhole blackhole) {
+    ValueTableBenchmark.readValueSets(table, blackhole);
+  }
+
+  private Iterable<Value> getValues(Variable variable) {
+    return table.getVariableValueSource(variable.getName()).asVectorSource().getValues(entityList);
+  }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.benchmarks;
+
+import java.util.List;
+
+import org.obiba.magma.ValueSet;
+import org.obiba.magma.ValueTable;
+import org.obiba.magma.Variable;
+import org.obiba.magma.VariableEntity;
+import org.obiba.magma.VariableValueSource;
+import org.obiba.magma.support.StaticValueTable;
+import org.obiba.magma.views.JoinTable;
+import org.obiba.magma.views.View;
+import org.obiba.magma.views.support.AllClause;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * Reads all the values of a table, value set by value set ({@code AbstractValueTable.ValueSetIterator} or a parallel
+ * {@link ValueTable#valueSetStream()}) or variable by variable (vectors), directly, through a {@link View} or through a
+ * {@link JoinTable}.
+ */
+public class ValueTableBenchmark extends AbstractBenchmark {
+
+  private StaticValueTable table;
+
+  private View view;
+
+  private JoinTable joinTable;
+
+  private List<VariableEntity> entityList;
+
+  @Override
+  protected void setUp() {
+    table = Fixtures.newTable("static", entities, variables);
+    entityList = ImmutableList.copyOf(table.getVariableEntities());
+    view = View.Builder.newView("view", table).where(new AllClause()).build();
+    // as many values, split in two tables
+    StaticValueTable first = Fixtures.newTable("first", "FIRST", entities, variables / 2);
+    StaticValueTable second = Fixtures.newTable("second", "SECOND", entities, variables - variables / 2);
+    joinTable = new JoinTable(ImmutableList.<ValueTable>of(first, second));
+  }
+
+  @Benchmark
+  public void valueSets(Blackhole blackhole) {
+    readValueSets(table, blackhole);
+  }
+
+  @Benchmark
+  public void parallelValueSets(Blackhole blackhole) {
+    List<Variable> variableList = Lists.newArrayList(table.getVariables());
+    table.valueSetStream().parallel().forEach(valueSet -> {
+      for(Variable variable : variableList) {
+        blackhole.consume(table.getValue(variable, valueSet));
+      }
+    });
+  }
+
+  @Benchmark
+  public void vectors(Blackhole blackhole) {
+    for(Variable variable : table.getVariables()) {
+      VariableValueSource source = table.getVariableValueSource(variable.getName());
+      for(Object value : source.asVectorSource().getValues(entityList)) {
+        blackhole.consume(value);
+      }
+    }
+  }
+
+  @Benchmark
+  public void viewValueSets(Blackhole blackhole) {
+    readValueSets(view, blackhole);
+  }
+
+  @Benchmark
+  public void joinTableValueSets(Blackhole blackhole) {
+    readValueSets(joinTable, blackhole);
+  }
+
+  static void readValueSets(ValueTable valueTable, Blackhole blackhole) {
+    List<Variable> variableList = Lists.newArrayList(valueTable.getVariables());
+    for(ValueSet valueSet : valueTable.getValueSets()) {
+      for(Variable variable : variableList) {
+        blackhole.consume(valueTable.getValue(variable, valueSet));
+      }
+    }
+  }
+
+}
@@ -15,6 +15,7 @@ import java.util.List;
 import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
 
+import org.apache.commons.math3.random.RandomDataGenerator;
 import org.obiba.magma.AttributeAware;
 import org.obiba.magma.Category;
 import org.obiba.magma.Value;
@@ -44,18 +45,18 @@ abstract class AbstractMissingValueVariableValueGenerator extends GeneratedVaria
   }
 
   @Override
-  protected Value nextValue(Variable variable, GeneratedValueSet gvs) {
-    boolean isMissing = missingCategories.size() > 0 && gvs.valueGenerator.nextInt(100) <= percentMissing;
+  protected Value nextValue(Variable variable, GeneratedValueSet gvs, RandomDataGenerator random) {
+    boolean isMissing = missingCategories.size() > 0 && random.getRandomGenerator().nextInt(100) <= percentMissing;
 
     if(isMissing) {
       if(missingCategories.isEmpty()) return TextType.get().nullValue();
-      int c = gvs.valueGenerator.nextInt(missingCategories.size());
+      int c = random.getRandomGenerator().nextInt(missingCategories.size());
       return variable.getValueType().valueOf(missingCategories.get(c).getName());
     }
-    return nonMissingValue(variable, gvs);
+    return nonMissingValue(variable, gvs, random);
   }
 
-  protected abstract Value nonMissingValue(Variable variable, GeneratedValueSet gvs);
+  protected abstract Value nonMissingValue(Variable variable, GeneratedValueSet gvs, RandomDataGenerator random);
 
   @NotNull
   protected ValueSource makeSource(AttributeAware attributeAware, ValueType type, String... scriptAttributes) {
@@ -13,6 +13,7 @@ package org.obiba.magma.datasource.generated;
 import java.io.File;
 import java.io.IOException;
 
+import org.apache.commons.math3.random.RandomDataGenerator;
 import org.obiba.magma.Value;
 import org.obiba.magma.ValueType;
 import org.obiba.magma.Variable;
@@ -29,7 +30,7 @@ public class BinaryValueGenerator extends GeneratedVariableValueSource {
   }
 
   @Override
-  protected Value nextValue(Variable variable, GeneratedValueSet valueSet) {
+  protected Value nextValue(Variable variable, GeneratedValueSet valueSet, RandomDataGenerator random) {
     try {
       return ValueType.Factory.newValue(getBytes());
     } catch(IOException e) {
@@ -10,32 +10,51 @@
 
 package org.obiba.magma.datasource.generated;
 
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.math3.random.RandomDataGenerator;
 import org.obiba.magma.Category;
 import org.obiba.magma.Value;
 import org.obiba.magma.Variable;
-import org.obiba.magma.datasource.generated.support.ShuffleBag;
 
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Longs;
+
+/**
+ * Draws the non-missing categories according to their quantity: categories are laid out on a line, each one taking
+ * its quantity, and a random position on this line is chosen for each value.
+ */
 class CategoricalValueGenerator extends AbstractMissingValueVariableValueGenerator {
 
-  private final ShuffleBag<String> shuffleBag = new ShuffleBag<>();
+  private final String[] categories;
+
+  // Cumulated quantities of the categories
+  private final long[] bounds;
 
   private boolean hasNonMissing = false;
 
   CategoricalValueGenerator(Variable variable) {
     super(variable);
+    List<String> names = Lists.newArrayList();
+    List<Long> cumulated = Lists.newArrayList();
+    long total = 0;
     for(Category c : variable.getCategories()) {
       if(!c.isMissing()) {
         Integer quantity = getQuantity(c);
         if(quantity == null) {
-          shuffleBag.add(c.getName());
-        } else {
-          if(quantity >= 1) {
-            shuffleBag.add(c.getName(), quantity);
-          }
+          quantity = 1;
+        }
+        if(quantity >= 1) {
+          total += quantity;
+          names.add(c.getName());
+          cumulated.add(total);
         }
         hasNonMissing = true;
       }
     }
+    categories = names.toArray(new String[names.size()]);
+    bounds = Longs.toArray(cumulated);
   }
 
   private Integer getQuantity(Category category) {
@@ -53,9 +72,12 @@ class CategoricalValueGenerator extends AbstractMissingValueVariableValueGenerat
   }
 
   @Override
-  protected Value nonMissingValue(Variable variable, GeneratedValueSet gvs) {
-    if(!hasNonMissing) return variable.getValueType().nullValue();
-    return variable.getValueType().valueOf(shuffleBag.next());
+  protected Value nonMissingValue(Variable variable, GeneratedValueSet gvs, RandomDataGenerator random) {
+    if(!hasNonMissing || categories.length == 0) return variable.getValueType().nullValue();
+    long total = bounds[bounds.length - 1];
+    long position = total == 1 ? 0 : random.nextLong(0, total - 1);
+    int index = Arrays.binarySearch(bounds, position);
+    return variable.getValueType().valueOf(categories[index < 0 ? -index - 1 : index + 1]);
   }
 
 }
@@ -12,6 +12,7 @@ package org.obiba.magma.datasource.generated;
 
 import java.util.Date;
 
+import org.apache.commons.math3.random.RandomDataGenerator;
 import org.obiba.magma.MagmaDate;
 import org.obiba.magma.Value;
 import org.obiba.magma.ValueSource;
@@ -42,14 +43,14 @@ class DateValueGenerator extends AbstractMissingValueVariableValueGenerator {
   }
 
   @Override
-  protected Value nonMissingValue(Variable variable, GeneratedValueSet gvs) {
-    return getValue(gvs, minimum.getValue(gvs), maximum.getValue(gvs));
+  protected Value nonMissingValue(Variable variable, GeneratedValueSet gvs, RandomDataGenerator random) {
+    return getValue(random, minimum.getValue(gvs), maximum.getValue(gvs));
   }
 
-  protected Value getValue(GeneratedValueSet gvs, Value minimumValue, Value maximumValue) {
+  protected Value getValue(RandomDataGenerator random, Value minimumValue, Value maximumValue) {
     long min = getTime(minimumValue, DEFAULT_MIN_DATE);
     long max = getTime(maximumValue, DEFAULT_MAX_DATE);
-    return getValueType().valueOf(new Date(min == max ? min : gvs.dataGenerator.nextLong(min, max)));
+    return getValueType().valueOf(new Date(min == max ? min : random.nextLong(min, max)));
   }
 
   private ValueSource makeSource(Variable variable, String scriptAttribute) {
@@ -10,46 +10,36 @@
 
 package org.obiba.magma.datasource.generated;
 
-import java.util.concurrent.ConcurrentMap;
-
-import org.apache.commons.math3.random.JDKRandomGenerator;
 import org.apache.commons.math3.random.RandomDataGenerator;
-import org.apache.commons.math3.random.RandomGenerator;
-import org.obiba.magma.Value;
 import org.obiba.magma.ValueTable;
 import org.obiba.magma.VariableEntity;
+import org.obiba.magma.datasource.generated.support.SplitMixRandomGenerator;
 import org.obiba.magma.support.ValueSetBean;
 
-import com.google.common.collect.MapMaker;
-
 /**
- * Allows generating random data for this
+ * Allows generating random data for this entity. Values are not stored: the random stream of each variable is derived
+ * from the seed of the value set, so the same value is generated each time it is requested.
  */
 class GeneratedValueSet extends ValueSetBean {
 
-  final RandomGenerator valueGenerator;
-
-  final RandomDataGenerator dataGenerator;
-
-  final ConcurrentMap<String, Value> generatedValues = new MapMaker().makeMap();
+  private final long seed;
 
-  GeneratedValueSet(ValueTable table, VariableEntity entity) {
+  /**
+   * @param seed the seed of the entity, derived from the table's seed and the entity's position
+   */
+  GeneratedValueSet(ValueTable table, VariableEntity entity, long seed) {
     super(table, entity);
-    valueGenerator = new JDKRandomGenerator();
-    valueGenerator.setSeed(Long.parseLong(entity.getIdentifier()));
-    dataGenerator = new RandomDataGenerator(valueGenerator);
+    this.seed = seed;
   }
 
-  boolean hasValue(String name) {
-    return generatedValues.containsKey(name);
+  /**
+   * Get a new random stream for generating the value of a variable.
+   *
+   * @param variableKey
+   * @return
+   */
+  RandomDataGenerator newDataGenerator(long variableKey) {
+    return new RandomDataGenerator(new SplitMixRandomGenerator(SplitMixRandomGenerator.seed(seed, variableKey)));
   }
 
-  Value put(String name, Value value) {
-    generatedValues.put(name, value);
-    return value;
-  }
-
-  Value getExistingValue(String name) {
-    return generatedValues.get(name);
-  }
-}
\ No newline at end of file
+}
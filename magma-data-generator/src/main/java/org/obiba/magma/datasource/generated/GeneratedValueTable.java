@@ -10,14 +10,16 @@
 
 package org.obiba.magma.datasource.generated;
 
-import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.apache.commons.math3.random.JDKRandomGenerator;
 import org.apache.commons.math3.random.RandomGenerator;
 import org.obiba.magma.*;
+import org.obiba.magma.datasource.generated.support.SplitMixRandomGenerator;
 import org.obiba.magma.support.VariableEntityBean;
 import org.obiba.magma.type.DateTimeType;
 
@@ -26,6 +28,11 @@ import javax.validation.constraints.NotNull;
 import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * A table of random values, generated on demand according to the variables definition. Values are reproducible: the
+ * value of a variable for an entity only depends on the seed of the table, on the position of the entity and on the
+ * name of the variable. As nothing is stored, the table can be read concurrently and at any scale.
+ */
 public class GeneratedValueTable implements ValueTable {
 
   private final Datasource datasource;
@@ -34,9 +41,14 @@ public class GeneratedValueTable implements ValueTable {
 
   private final List<VariableEntity> entities;
 
-  private final RandomGenerator randomGenerator;
+  /**
+   * Position of each entity
+   */
+  private final Map<VariableEntity, Integer> entityIndex;
+
+  private final long seed;
 
-  private final Map<String, VariableValueSource> generators;
+  private final Map<String, GeneratedVariableValueSource> generators;
 
   @NotNull
   private final Value timestamp;
@@ -46,21 +58,30 @@ public class GeneratedValueTable implements ValueTable {
   }
 
   public GeneratedValueTable(@Nullable Datasource ds, Collection<Variable> dictionary, int entities, long seed) {
+    this(ds, dictionary, generateEntities(dictionary, entities, seed), seed);
+  }
+
+  /**
+   * Generate values for the given entities, whatever their identifiers.
+   */
+  public GeneratedValueTable(@Nullable Datasource ds, Collection<Variable> dictionary, List<VariableEntity> entities,
+      long seed) {
     datasource = ds;
     this.dictionary = ImmutableSet.copyOf(dictionary);
-    this.entities = Lists.newArrayList();
-    randomGenerator = new JDKRandomGenerator();
-    randomGenerator.setSeed(seed);
-    timestamp = DateTimeType.get().now();
-    while (this.entities.size() < entities) {
-      VariableEntity entity = generateEntity();
-      if (!this.entities.contains(entity)) this.entities.add(entity);
+    this.entities = ImmutableList.copyOf(entities);
+    this.seed = seed;
+    entityIndex = Maps.newHashMapWithExpectedSize(this.entities.size());
+    for (int i = 0; i < this.entities.size(); i++) {
+      entityIndex.put(this.entities.get(i), i);
     }
+    timestamp = DateTimeType.get().now();
 
     VariableValueGeneratorFactory factory = new DefaultVariableValueGeneratorFactory();
     generators = Maps.newHashMap();
     for (Variable v : this.dictionary) {
-      generators.put(v.getName(), factory.newGenerator(v));
+      GeneratedVariableValueSource generator = factory.newGenerator(v);
+      generator.setValueTable(this);
+      generators.put(v.getName(), generator);
     }
   }
 
@@ -108,12 +129,22 @@ public class GeneratedValueTable implements ValueTable {
 
   @Override
   public ValueSet getValueSet(VariableEntity entity) throws NoSuchValueSetException {
-    if (entities.contains(entity)) {
-      return new GeneratedValueSet(this, entity);
+    if (entityIndex.containsKey(entity)) {
+      return newValueSet(entity);
     }
     throw new NoSuchValueSetException(this, entity);
   }
 
+  /**
+   * Get the value set of an entity, the seed of which is derived from the entity's position. Entities that are not in
+   * this table are identified by a hash of their identifier.
+   */
+  GeneratedValueSet newValueSet(VariableEntity entity) {
+    Integer index = entityIndex.get(entity);
+    long entityKey = index == null ? Long.MIN_VALUE | entity.getIdentifier().hashCode() & 0xffffffffL : index;
+    return new GeneratedValueSet(this, entity, SplitMixRandomGenerator.seed(seed, entityKey));
+  }
+
   @Override
   public boolean canDropValueSets() {
     return false;
@@ -143,33 +174,26 @@ public class GeneratedValueTable implements ValueTable {
   public Iterable<ValueSet> getValueSets(Iterable<VariableEntity> entities) {
     List<ValueSet> valueSets = Lists.newArrayList();
     for (VariableEntity entity : entities) {
-      valueSets.add(new GeneratedValueSet(GeneratedValueTable.this, entity));
+      valueSets.add(newValueSet(entity));
     }
     return valueSets;
   }
 
   @Override
-  public Variable getVariable(final String name) throws NoSuchVariableException {
-    try {
-      return Iterables.find(getVariables(), new Predicate<Variable>() {
-        @Override
-        public boolean apply(Variable input) {
-          return input.getName().equals(name);
-        }
-      });
-    } catch (NoSuchElementException e) {
-      throw new NoSuchVariableException(getName(), name);
-    }
+  public Variable getVariable(String name) throws NoSuchVariableException {
+    VariableValueSource generator = generators.get(name);
+    if (generator == null) throw new NoSuchVariableException(getName(), name);
+    return generator.getVariable();
   }
 
   @Override
   public List<VariableEntity> getVariableEntities() {
-    return Collections.unmodifiableList(entities);
+    return entities;
   }
 
   @Override
   public int getVariableEntityCount() {
-    return Iterables.size(getVariableEntities());
+    return entities.size();
   }
 
   @Override
@@ -184,7 +208,7 @@ public class GeneratedValueTable implements ValueTable {
 
   @Override
   public boolean hasValueSet(VariableEntity entity) {
-    return entities.contains(entity);
+    return entityIndex.containsKey(entity);
   }
 
   @Override
@@ -197,16 +221,26 @@ public class GeneratedValueTable implements ValueTable {
     return getEntityType().equalsIgnoreCase(entityType);
   }
 
-  private VariableEntity generateEntity() {
-    return generateEntity(randomGenerator.nextInt(99999999), 8);
+  /**
+   * Generate distinct random identifiers of 8 digits.
+   */
+  private static List<VariableEntity> generateEntities(Collection<Variable> dictionary, int count, long seed) {
+    String entityType = dictionary.iterator().next().getEntityType();
+    RandomGenerator randomGenerator = new JDKRandomGenerator();
+    randomGenerator.setSeed(seed);
+    Set<VariableEntity> entities = Sets.newLinkedHashSetWithExpectedSize(count);
+    while (entities.size() < count) {
+      entities.add(generateEntity(entityType, randomGenerator.nextInt(99999999), 8));
+    }
+    return Lists.newArrayList(entities);
   }
 
-  private VariableEntity generateEntity(long seed, int length) {
+  private static VariableEntity generateEntity(String entityType, long seed, int length) {
     StringBuilder id = new StringBuilder(Long.toString(Math.abs(seed)));
     while (id.length() < length) {
       id.append(0).append(id);
     }
-    return new VariableEntityBean(getEntityType(), id.toString());
+    return new VariableEntityBean(entityType, id.toString());
   }
 
   @Override
@@ -226,7 +260,7 @@ public class GeneratedValueTable implements ValueTable {
 
   @Override
   public int getValueSetCount() {
-    return Iterables.size(getValueSets());
+    return entities.size();
   }
 
 }
@@ -14,12 +14,15 @@ import java.util.List;
 
 import javax.validation.constraints.NotNull;
 
+import org.apache.commons.math3.random.RandomDataGenerator;
 import org.obiba.magma.AbstractVariableValueSource;
 import org.obiba.magma.Value;
 import org.obiba.magma.ValueSet;
+import org.obiba.magma.ValueSetWrapper;
 import org.obiba.magma.ValueSource;
 import org.obiba.magma.ValueType;
 import org.obiba.magma.Variable;
+import org.obiba.magma.VariableEntity;
 import org.obiba.magma.VariableValueSource;
 import org.obiba.magma.VectorSource;
 import org.obiba.magma.VectorSourceNotSupportedException;
@@ -31,16 +34,25 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Lists;
 
-abstract class GeneratedVariableValueSource extends AbstractVariableValueSource implements VariableValueSource {
+abstract class GeneratedVariableValueSource extends AbstractVariableValueSource
+    implements VariableValueSource, VectorSource {
 
   private final static Logger log = LoggerFactory.getLogger(GeneratedVariableValueSource.class);
 
   private final Variable variable;
 
+  /**
+   * Identifies the random stream of this variable in each value set
+   */
+  private final long variableKey;
+
   private final ValueSource condition;
 
+  private GeneratedValueTable table;
+
   protected GeneratedVariableValueSource(Variable variable) {
     this.variable = variable;
+    variableKey = variable.getName().hashCode();
     if(variable.hasAttribute("condition")) {
       JavascriptValueSource src = new JavascriptValueSource(BooleanType.get(),
           variable.getAttributeStringValue("condition"));
@@ -63,36 +75,55 @@ abstract class GeneratedVariableValueSource extends AbstractVariableValueSource
     return variable;
   }
 
+  /**
+   * Set the table of the generated value sets, required for reading vectors.
+   */
+  void setValueTable(GeneratedValueTable table) {
+    this.table = table;
+  }
+
   @Override
   public boolean supportVectorSource() {
-    return false;
+    return table != null;
   }
 
   @NotNull
   @Override
   public VectorSource asVectorSource() {
-    throw new VectorSourceNotSupportedException(getClass());
+    if(table == null) throw new VectorSourceNotSupportedException(getClass());
+    return this;
+  }
+
+  /**
+   * Values are computed on demand from the seed of each entity, nothing is shared between entities.
+   */
+  @Override
+  public Iterable<Value> getValues(List<VariableEntity> entities) {
+    List<Value> values = Lists.newArrayListWithCapacity(entities.size());
+    for(VariableEntity entity : entities) {
+      values.add(getValue(table.newValueSet(entity)));
+    }
+    return values;
   }
 
   @NotNull
   @Override
   public Value getValue(ValueSet valueSet) {
     if(shouldGenerate(valueSet)) {
-      GeneratedValueSet gvs = (GeneratedValueSet) valueSet;
+      GeneratedValueSet gvs = (GeneratedValueSet) (valueSet instanceof ValueSetWrapper
+          ? ((ValueSetWrapper) valueSet).getWrapped()
+          : valueSet);
       try {
-        Value existingValue = gvs.getExistingValue(getVariable().getName());
-        if(existingValue != null) {
-          return existingValue;
-        }
+        RandomDataGenerator random = gvs.newDataGenerator(variableKey);
         if(variable.isRepeatable()) {
-          int sequenceLength = gvs.dataGenerator.nextInt(0, 10);
+          int sequenceLength = random.nextInt(0, 10);
           List<Value> values = Lists.newArrayListWithCapacity(sequenceLength);
           for(int i = 0; i < sequenceLength; i++) {
-            values.add(nextValue(getVariable(), gvs));
+            values.add(nextValue(getVariable(), gvs, random));
           }
-          return gvs.put(getVariable().getName(), ValueType.Factory.newSequence(variable.getValueType(), values));
+          return ValueType.Factory.newSequence(variable.getValueType(), values);
         }
-        return gvs.put(getVariable().getName(), nextValue(getVariable(), gvs));
+        return nextValue(getVariable(), gvs, random);
       } catch(RuntimeException e) {
         //noinspection StringConcatenationArgumentToLogCall
         log.warn("Error generating data for variable " + getVariable().getName(), e);
@@ -120,6 +151,14 @@ abstract class GeneratedVariableValueSource extends AbstractVariableValueSource
     return true;
   }
 
-  abstract protected Value nextValue(Variable variable, GeneratedValueSet gvs);
+  /**
+   * Generate a value of the variable.
+   *
+   * @param variable
+   * @param gvs the value set, for evaluating scripts
+   * @param random the random stream of this variable in this value set
+   * @return
+   */
+  abstract protected Value nextValue(Variable variable, GeneratedValueSet gvs, RandomDataGenerator random);
 
 }
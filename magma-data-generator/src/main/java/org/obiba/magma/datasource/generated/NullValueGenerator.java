@@ -10,6 +10,7 @@
 
 package org.obiba.magma.datasource.generated;
 
+import org.apache.commons.math3.random.RandomDataGenerator;
 import org.obiba.magma.Value;
 import org.obiba.magma.Variable;
 
@@ -20,7 +21,7 @@ class NullValueGenerator extends GeneratedVariableValueSource {
   }
 
   @Override
-  protected Value nextValue(Variable variable, GeneratedValueSet gvs) {
+  protected Value nextValue(Variable variable, GeneratedValueSet gvs, RandomDataGenerator random) {
     return getValueType().nullValue();
   }
 
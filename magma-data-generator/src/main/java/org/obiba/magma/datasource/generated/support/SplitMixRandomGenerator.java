@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.datasource.generated.support;
+
+import org.apache.commons.math3.random.BitsStreamGenerator;
+
+/**
+ * SplitMix64 random generator: its state is a single counter, so instances are cheap to create and a generator can be
+ * derived from any combination of keys (see {@link #seed(long...)}). Streams derived from distinct keys are
+ * statistically independent, which makes it possible to generate data on demand, in any order and from several
+ * threads, while remaining reproducible.
+ * <p/>
+ * Instances are not thread-safe, each thread should derive its own.
+ */
+public class SplitMixRandomGenerator extends BitsStreamGenerator {
+
+  private static final long serialVersionUID = -1693612437905587151L;
+
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  private long state;
+
+  public SplitMixRandomGenerator(long seed) {
+    state = seed;
+  }
+
+  /**
+   * Combines keys (e.g. a seed, an entity index and a variable index) into a seed.
+   */
+  public static long seed(long... keys) {
+    long seed = 0;
+    for(long key : keys) {
+      seed = mix(seed + GOLDEN_GAMMA + key);
+    }
+    return seed;
+  }
+
+  /**
+   * The SplitMix64 finalizer: a bijective function that scrambles the bits of its argument.
+   */
+  public static long mix(long z) {
+    z = (z ^ z >>> 30) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ z >>> 27) * 0x94d049bb133111ebL;
+    return z ^ z >>> 31;
+  }
+
+  @Override
+  public void setSeed(int seed) {
+    setSeed((long) seed);
+  }
+
+  @Override
+  public void setSeed(int[] seed) {
+    long s = 0;
+    for(int i : seed) {
+      s = s * 31 + i;
+    }
+    setSeed(s);
+  }
+
+  @Override
+  public void setSeed(long seed) {
+    state = seed;
+    clear();
+  }
+
+  @Override
+  public long nextLong() {
+    state += GOLDEN_GAMMA;
+    return mix(state);
+  }
+
+  @Override
+  protected int next(int bits) {
+    return (int) (nextLong() >>> 64 - bits);
+  }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.datasource.generated;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.obiba.magma.Category;
+import org.obiba.magma.Value;
+import org.obiba.magma.ValueSet;
+import org.obiba.magma.ValueTable;
+import org.obiba.magma.Variable;
+import org.obiba.magma.VariableEntity;
+import org.obiba.magma.support.VariableEntityBean;
+import org.obiba.magma.test.AbstractMagmaTest;
+import org.obiba.magma.type.IntegerType;
+import org.obiba.magma.type.TextType;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class GeneratedValueTableTest extends AbstractMagmaTest {
+
+  private Variable age;
+
+  private Variable sex;
+
+  private List<Variable> dictionary;
+
+  @Override
+  @Before
+  public void before() {
+    super.before();
+    age = Variable.Builder.newVariable("AGE", IntegerType.get(), "Participant").build();
+    sex = Variable.Builder.newVariable("SEX", TextType.get(), "Participant")
+        .addCategory(Category.Builder.newCategory("M").addAttribute("quantity", "2").build())
+        .addCategory(Category.Builder.newCategory("F").addAttribute("quantity", "1").build()).build();
+    dictionary = ImmutableList.of(age, sex);
+  }
+
+  @Test
+  public void test_values_are_reproducible() {
+    ValueTable table = new GeneratedValueTable(null, dictionary, 100, 1L);
+    ValueTable other = new GeneratedValueTable(null, dictionary, 100, 1L);
+
+    assertThat(other.getVariableEntities()).isEqualTo(table.getVariableEntities());
+    for(VariableEntity entity : table.getVariableEntities()) {
+      ValueSet valueSet = table.getValueSet(entity);
+      assertThat(table.getValue(sex, valueSet)).isEqualTo(other.getValue(sex, other.getValueSet(entity)));
+      // values are not memoised but computed again
+      assertThat(table.getValue(age, valueSet)).isEqualTo(table.getValue(age, table.getValueSet(entity)));
+    }
+  }
+
+  @Test
+  public void test_vector_values_match_value_sets() {
+    ValueTable table = new GeneratedValueTable(null, dictionary, 100, 2L);
+    List<VariableEntity> entities = table.getVariableEntities();
+
+    List<Value> values = Lists.newArrayList(
+        table.getVariableValueSource(sex.getName()).asVectorSource().getValues(entities));
+    assertThat(values).hasSize(entities.size());
+    for(int i = 0; i < entities.size(); i++) {
+      assertThat(values.get(i)).isEqualTo(table.getValue(sex, table.getValueSet(entities.get(i))));
+    }
+    assertThat(values).contains(TextType.get().valueOf("M"), TextType.get().valueOf("F"));
+  }
+
+  @Test
+  public void test_non_numeric_identifiers() {
+    List<VariableEntity> entities = ImmutableList.<VariableEntity>of(new VariableEntityBean("Participant", "A-1"),
+        new VariableEntityBean("Participant", "B-2"));
+    ValueTable table = new GeneratedValueTable(null, dictionary, entities, 3L);
+
+    assertThat(table.getVariableEntities()).isEqualTo(entities);
+    assertThat(table.hasValueSet(new VariableEntityBean("Participant", "A-1"))).isTrue();
+    assertThat(table.hasValueSet(new VariableEntityBean("Participant", "C-3"))).isFalse();
+    assertThat(table.getValue(sex, table.getValueSet(entities.get(1))).isNull()).isFalse();
+  }
+
+  @Test
+  public void test_concurrent_vector_reads() throws Exception {
+    final ValueTable table = new GeneratedValueTable(null, dictionary, 1000, 4L);
+    final List<VariableEntity> entities = table.getVariableEntities();
+    List<Value> expected = Lists.newArrayList(
+        table.getVariableValueSource(age.getName()).asVectorSource().getValues(entities));
+
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<List<Value>>> futures = Lists.newArrayList();
+      for(final List<VariableEntity> partition : Lists.partition(entities, 100)) {
+        futures.add(executorService.submit(new Callable<List<Value>>() {
+          @Override
+          public List<Value> call() throws Exception {
+            return Lists.newArrayList(
+                table.getVariableValueSource(age.getName()).asVectorSource().getValues(partition));
+          }
+        }));
+      }
+      List<Value> values = Lists.newArrayList();
+      for(Future<List<Value>> future : futures) {
+        values.addAll(future.get());
+      }
+      assertThat(values).isEqualTo(expected);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+}
@@ -25,6 +25,7 @@ import javax.validation.constraints.NotNull;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.Maps;
+import org.obiba.magma.NoSuchValueTableException;
 import org.obiba.magma.ValueTable;
 import org.obiba.magma.ValueTableWriter;
 import org.obiba.magma.ValueType;
@@ -113,6 +114,18 @@ public class CsvDatasource extends AbstractDatasource {
     return Collections.unmodifiableSet(new HashSet<ValueTable>(valueTables.values()));
   }
 
+  @Override
+  public boolean hasValueTable(String tableName) {
+    return valueTables.containsKey(tableName);
+  }
+
+  @Override
+  public ValueTable getValueTable(String tableName) throws NoSuchValueTableException {
+    ValueTable table = valueTables.get(tableName);
+    if(table == null) throw new NoSuchValueTableException(getName(), tableName);
+    return table;
+  }
+
   public CsvDatasource addValueTable(File tableDirectory) {
     addValueTable(tableDirectory, CsvValueTable.DEFAULT_ENTITY_TYPE);
     return this;
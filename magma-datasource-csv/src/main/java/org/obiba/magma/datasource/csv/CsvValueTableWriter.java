@@ -13,6 +13,7 @@ package org.obiba.magma.datasource.csv;
 import au.com.bytecode.opencsv.CSVWriter;
 import org.obiba.magma.*;
 import org.obiba.magma.datasource.csv.converter.VariableConverter;
+import org.obiba.magma.metrics.Metrics;
 import org.obiba.magma.support.DatasourceParsingException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,12 +45,69 @@ public class CsvValueTableWriter implements ValueTableWriter {
     return new CsvValueSetWriter(entity);
   }
 
+  /**
+   * Writes a block of value sets: the lines of all the entities are prepared then appended to the data file at once.
+   */
+  @Override
+  public void writeValueSets(@NotNull List<VariableEntity> entities, @NotNull List<Variable> variables,
+                             @NotNull Value[][] values) {
+    if (csvValueWriter == null) {
+      this.csvValueWriter = valueTable.getValueWriter();
+    }
+    List<String[]> lines = new ArrayList<>();
+    for (int j = 0; j < entities.size(); j++) {
+      CsvValueSetWriter valueSetWriter = new CsvValueSetWriter(entities.get(j));
+      for (int i = 0; i < variables.size(); i++) {
+        if (values[i][j] != null) valueSetWriter.writeValue(variables.get(i), values[i][j]);
+      }
+      try {
+        lines.addAll(valueSetWriter.prepareLines());
+      } catch (IOException e) {
+        throw new MagmaRuntimeException(e);
+      }
+    }
+    if (!lines.isEmpty()) {
+      checkValueWriter();
+      if (log.isTraceEnabled()) log.trace("write {} lines", lines.size());
+      csvValueWriter.writeAll(lines);
+    }
+    for (VariableEntity entity : entities) {
+      valueTable.getVariableEntityProvider().add(entity);
+    }
+  }
+
+  private void checkValueWriter() {
+    if (csvValueWriter == null) {
+      throw new DatasourceParsingException(
+          "Cannot create data writer. Table " + valueTable.getName() + " does not have data file.",
+          "CsvCannotCreateWriter", valueTable.getName());
+    }
+  }
+
   @Override
   public VariableWriter writeVariables() {
     this.csvVariableWriter = valueTable.getVariableWriter();
     return new CsvVariableWriter();
   }
 
+  @Override
+  public void flush() {
+    if (csvValueWriter != null) {
+      long start = Metrics.start();
+      try {
+        csvValueWriter.flush();
+      } catch (IOException e) {
+        throw new MagmaRuntimeException(e);
+      }
+      Metrics.stop(Metrics.WRITER_FLUSH, valueTable.getDatasource().getType(), start);
+    }
+  }
+
+  @Override
+  public boolean supportsCheckpoints() {
+    return true;
+  }
+
   @Override
   public void close() {
     if (csvValueWriter != null) {
@@ -145,20 +203,10 @@ public class CsvValueTableWriter implements ValueTableWriter {
     public void close() {
 
       try {
-        if (valueTable.isDataFileEmpty()) {
-          writeTableWithoutData();
-        } else {
-          writeTableWithData();
-        }
-
         // Writer Value set. Throw exception if doesn't match header
-        csvLine.getLines().forEach(line -> {
-          try {
-            writeValueToCsv(line);
-          } catch (IOException e) {
-            throw new RuntimeException(e);
-          }
-        });
+        for (String[] line : prepareLines()) {
+          writeValueToCsv(line);
+        }
         // Update entities index
         valueTable.getVariableEntityProvider().add(entity);
       } catch (IOException e) {
@@ -166,6 +214,18 @@ public class CsvValueTableWriter implements ValueTableWriter {
       }
     }
 
+    /**
+     * Writes the header if needed and returns the lines of the value set.
+     */
+    private List<String[]> prepareLines() throws IOException {
+      if (valueTable.isDataFileEmpty()) {
+        writeTableWithoutData();
+      } else {
+        writeTableWithData();
+      }
+      return csvLine.getLines();
+    }
+
     private void writeTableWithoutData() throws IOException {
       // Write Header
       if (valueTable.getDataHeaderMap().isEmpty()) {
@@ -205,11 +265,7 @@ public class CsvValueTableWriter implements ValueTableWriter {
     }
 
     private void writeValueToCsv(String... strings) throws IOException {
-      if (csvValueWriter == null) {
-        throw new DatasourceParsingException(
-            "Cannot create data writer. Table " + valueTable.getName() + " does not have data file.",
-            "CsvCannotCreateWriter", valueTable.getName());
-      }
+      checkValueWriter();
       log.trace("write '{}'", Arrays.toString(strings));
       csvValueWriter.writeNext(strings);
     }
@@ -84,6 +84,41 @@ public class CsvValueTableWriterTest extends AbstractMagmaTest {
     }
   }
 
+  @Test
+  public void test_writing_data_block() throws Exception {
+    File tempTestDirectory = new TempTableBuilder("TableDataOnly").addData().build();
+
+    CsvDatasource datasource = new CsvDatasource("csv-datasource").addValueTable("TableDataOnly", //
+        null, //
+        new File(tempTestDirectory.getCanonicalFile() + "/TableDataOnly", "data.csv"));
+    datasource.initialise();
+
+    List<VariableEntity> entities = Lists.newArrayList();
+    Value[][] values = new Value[1][3];
+    for(int i = 0; i < 3; i++) {
+      entities.add(new VariableEntityBean("Participant", String.valueOf(i + 1)));
+      values[0][i] = TextType.get().valueOf("cup " + (i + 1));
+    }
+    Variable testVariable = Variable.Builder.newVariable("test-variable", TextType.get(), "Participant").build();
+
+    try(ValueTableWriter tableWriter = datasource.createWriter("TableDataOnly", "Participant")) {
+      tableWriter.writeValueSets(entities, Lists.newArrayList(testVariable), values);
+    }
+
+    CsvDatasource readDatasource = new CsvDatasource("read-csv-datasource").addValueTable("TableDataOnly", //
+        null, //
+        new File(tempTestDirectory.getCanonicalFile() + "/TableDataOnly", "data.csv"));
+    readDatasource.initialise();
+
+    ValueTable table = readDatasource.getValueTable("TableDataOnly");
+    assertThat(table.getValueSetCount()).isEqualTo(3);
+    Variable variable = table.getVariable("test-variable");
+    for(ValueSet valueSet : table.getValueSets()) {
+      assertThat(table.getValue(variable, valueSet).toString())
+          .isEqualTo("cup " + valueSet.getVariableEntity().getIdentifier());
+    }
+  }
+
   @Ignore
   @Test
   public void test_write_variable_schema_line() throws Exception {
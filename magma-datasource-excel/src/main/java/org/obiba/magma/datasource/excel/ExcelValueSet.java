@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.datasource.excel;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.obiba.magma.Value;
+import org.obiba.magma.Variable;
+import org.obiba.magma.VariableEntity;
+import org.obiba.magma.datasource.excel.support.ExcelUtil;
+import org.obiba.magma.support.ValueSetBean;
+
+/**
+ * Values of an entity, read from its row of the value sheet.
+ */
+public class ExcelValueSet extends ValueSetBean {
+
+  private final int row;
+
+  public ExcelValueSet(ExcelValueTable table, VariableEntity entity, int row) {
+    super(table, entity);
+    this.row = row;
+  }
+
+  public Value getValue(Variable variable) {
+    ExcelValueTable table = (ExcelValueTable) getValueTable();
+    int column = table.findVariableColumn(variable);
+    Row entityRow = table.getEntityRow(row);
+    if(column == -1 || entityRow == null) return variable.getValueType().nullValue();
+    return ExcelUtil.getCellValue(entityRow.getCell(column), variable);
+  }
+
+}
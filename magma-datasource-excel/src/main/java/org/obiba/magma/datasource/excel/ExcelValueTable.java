@@ -11,6 +11,7 @@
 package org.obiba.magma.datasource.excel;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.apache.poi.ss.usermodel.Cell;
@@ -32,6 +33,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -41,9 +43,22 @@ public class ExcelValueTable extends AbstractValueTable implements Initialisable
   private Sheet valueTableSheet;
 
   /**
-   * Maps a variable's name to its Column index valueTableSheet
+   * Maps a variable's name to its Column index valueTableSheet. Immutable, replaced when the writer adds a column.
    */
-  private final Map<String, Integer> variableColumns = Maps.newHashMap();
+  private volatile ImmutableMap<String, Integer> variableColumns = ImmutableMap.of();
+
+  /**
+   * Maps an entity identifier to its row index in valueTableSheet, lazily built from the first column.
+   */
+  @Nullable
+  private volatile EntityRowIndex entityRowIndex;
+
+  /**
+   * Rows appended by the writer since the entity row index was built.
+   */
+  private final List<EntityRow> appendedEntityRows = Lists.newArrayList();
+
+  private volatile boolean entityRowsAppended;
 
   /**
    * Maps a variable's name to its list of categories (row indices)
@@ -79,7 +94,14 @@ public class ExcelValueTable extends AbstractValueTable implements Initialisable
 
   @Override
   public ValueSet getValueSet(VariableEntity entity) throws NoSuchValueSetException {
-    throw new UnsupportedOperationException("getValueSet not supported");
+    Integer row = getEntityRowIndex().getRow(entity.getIdentifier());
+    if (row == null) throw new NoSuchValueSetException(this, entity);
+    return new ExcelValueSet(this, entity, row);
+  }
+
+  @Override
+  public boolean hasValueSet(VariableEntity entity) {
+    return getEntityRowIndex().getRow(entity.getIdentifier()) != null;
   }
 
   @Override
@@ -91,24 +113,19 @@ public class ExcelValueTable extends AbstractValueTable implements Initialisable
     return converter;
   }
 
+  /**
+   * Make a variable written in this table readable.
+   */
+  void addVariable(Variable variable) {
+    addVariableValueSource(new ExcelVariableValueSource(this, variable));
+  }
+
   int findVariableColumn(Variable variable) {
-    // Lookup in column cache
     Integer columnIndex = variableColumns.get(variable.getName());
-    if (columnIndex != null) {
-      return columnIndex;
-    }
-    Row variableNameRow = getValueTableSheet().getRow(0);
-    for (int i = 0; i < variableNameRow.getPhysicalNumberOfCells(); i++) {
-      Cell cell = variableNameRow.getCell(i);
-      if (ExcelUtil.getCellValueAsString(cell).equals(variable.getName())) {
-        variableColumns.put(variable.getName(), i);
-        return i;
-      }
-    }
-    return -1;
+    return columnIndex == null ? -1 : columnIndex;
   }
 
-  int getVariableColumn(Variable variable) {
+  synchronized int getVariableColumn(Variable variable) {
     int column = findVariableColumn(variable);
     if (column == -1) {
       // Add it
@@ -118,11 +135,78 @@ public class ExcelValueTable extends AbstractValueTable implements Initialisable
       ExcelUtil.setCellValue(variableColumn, TextType.get(), variable.getName());
       variableColumn.setCellStyle(getDatasource().getHeaderCellStyle());
       column = variableColumn.getColumnIndex();
-      variableColumns.put(variable.getName(), column);
+      variableColumns = ImmutableMap.<String, Integer>builder().putAll(variableColumns).put(variable.getName(), column)
+          .build();
     }
     return column;
   }
 
+  /**
+   * Row of the value sheet at the given index, null if there is none.
+   */
+  @Nullable
+  Row getEntityRow(int row) {
+    return valueTableSheet == null ? null : valueTableSheet.getRow(row);
+  }
+
+  /**
+   * Row indices of the given entities, in the same order; -1 for entities that have no row.
+   */
+  int[] getEntityRows(List<VariableEntity> entities) {
+    EntityRowIndex index = getEntityRowIndex();
+    int[] rows = new int[entities.size()];
+    int i = 0;
+    for (VariableEntity entity : entities) {
+      Integer row = index.getRow(entity.getIdentifier());
+      rows[i++] = row == null ? -1 : row;
+    }
+    return rows;
+  }
+
+  /**
+   * Registers a row appended by the writer. The entity row index is updated with the appended rows when it is read.
+   */
+  void entityRowAppended(VariableEntity entity, int row) {
+    synchronized (appendedEntityRows) {
+      appendedEntityRows.add(new EntityRow(entity, row));
+      entityRowsAppended = true;
+    }
+  }
+
+  private EntityRowIndex getEntityRowIndex() {
+    EntityRowIndex index = entityRowIndex;
+    if (index == null || entityRowsAppended) {
+      synchronized (appendedEntityRows) {
+        if (entityRowIndex == null) {
+          // the sheet already holds the appended rows
+          entityRowIndex = EntityRowIndex.of(getEntityType(), valueTableSheet);
+        } else if (entityRowsAppended) {
+          entityRowIndex = entityRowIndex.append(appendedEntityRows);
+        }
+        appendedEntityRows.clear();
+        entityRowsAppended = false;
+        index = entityRowIndex;
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Index the column of each variable from the header row of the value sheet.
+   */
+  private void indexVariableColumns() {
+    if (valueTableSheet == null) return;
+    Map<String, Integer> columns = new LinkedHashMap<>();
+    Row variableNameRow = valueTableSheet.getRow(0);
+    for (int i = 1; i < variableNameRow.getPhysicalNumberOfCells(); i++) {
+      String name = ExcelUtil.getCellValueAsString(variableNameRow.getCell(i)).trim();
+      if (!name.isEmpty() && !columns.containsKey(name)) {
+        columns.put(name, i);
+      }
+    }
+    variableColumns = ImmutableMap.copyOf(columns);
+  }
+
   /**
    * Get the value sheet. Create it if necessary.
    *
@@ -140,6 +224,7 @@ public class ExcelValueTable extends AbstractValueTable implements Initialisable
       Cell cell = valueTableSheet.getRow(0).createCell(0);
       ExcelUtil.setCellValue(cell, TextType.get(), "Entity ID");
       cell.setCellStyle(getDatasource().getHeaderCellStyle());
+      indexVariableColumns();
     }
     return valueTableSheet;
   }
@@ -198,7 +283,7 @@ public class ExcelValueTable extends AbstractValueTable implements Initialisable
         columnNames.add(name);
         if (!variableNames.contains(name)) {
           Variable.Builder variableBuilder = Variable.Builder.newVariable(name, TextType.get(), getEntityType());
-          addVariableValueSource(new ExcelVariableValueSource(variableBuilder.build()));
+          addVariableValueSource(new ExcelVariableValueSource(this, variableBuilder.build()));
         }
       }
     }
@@ -301,7 +386,7 @@ public class ExcelValueTable extends AbstractValueTable implements Initialisable
   private void addParsedVariable(Collection<ExcelDatasourceParsingException> errors, Row variableRow, int position) {
     try {
       Variable variable = converter.unmarshall(variableRow, position);
-      addVariableValueSource(new ExcelVariableValueSource(variable));
+      addVariableValueSource(new ExcelVariableValueSource(this, variable));
     } catch (ExcelDatasourceParsingException pe) {
       errors.add(pe);
     } catch (Exception e) {
@@ -344,8 +429,6 @@ public class ExcelValueTable extends AbstractValueTable implements Initialisable
     @NotNull
     private final String entityType;
 
-    private List<VariableEntity> entities;
-
     private ExcelVariableEntityProvider(@Nullable String entityType) {
       this.entityType = entityType == null || entityType.trim().isEmpty() ? "Participant" : entityType.trim();
     }
@@ -359,17 +442,7 @@ public class ExcelValueTable extends AbstractValueTable implements Initialisable
     @NotNull
     @Override
     public List<VariableEntity> getVariableEntities() {
-      if (entities == null) {
-        ImmutableList.Builder<VariableEntity> entitiesBuilder = ImmutableList.builder();
-        if (valueTableSheet != null) {
-          for (int i = 1; i < valueTableSheet.getPhysicalNumberOfRows(); i++) {
-            Cell cell = valueTableSheet.getRow(i).getCell(0);
-            entitiesBuilder.add(new VariableEntityBean(entityType, ExcelUtil.getCellValueAsString(cell)));
-          }
-        }
-        entities = entitiesBuilder.build();
-      }
-      return entities;
+      return getEntityRowIndex().getEntities();
     }
 
     @Override
@@ -385,4 +458,68 @@ public class ExcelValueTable extends AbstractValueTable implements Initialisable
     return getDatasource().getTimestamps();
   }
 
+  private static class EntityRow {
+
+    private final VariableEntity entity;
+
+    private final int row;
+
+    private EntityRow(VariableEntity entity, int row) {
+      this.entity = entity;
+      this.row = row;
+    }
+  }
+
+  /**
+   * Immutable entity list and identifier to row index. When an identifier appears in several rows, the first one is
+   * indexed.
+   */
+  private static class EntityRowIndex {
+
+    private final ImmutableList<VariableEntity> entities;
+
+    private final ImmutableMap<String, Integer> rows;
+
+    private EntityRowIndex(ImmutableList<VariableEntity> entities, ImmutableMap<String, Integer> rows) {
+      this.entities = entities;
+      this.rows = rows;
+    }
+
+    private static EntityRowIndex of(String entityType, @Nullable Sheet sheet) {
+      ImmutableList.Builder<VariableEntity> entities = ImmutableList.builder();
+      Map<String, Integer> rows = new LinkedHashMap<>();
+      if (sheet != null) {
+        for (int i = 1; i < sheet.getPhysicalNumberOfRows(); i++) {
+          Row row = sheet.getRow(i);
+          if (row == null) continue;
+          String identifier = ExcelUtil.getCellValueAsString(row.getCell(0));
+          entities.add(new VariableEntityBean(entityType, identifier));
+          if (!rows.containsKey(identifier)) rows.put(identifier, i);
+        }
+      }
+      return new EntityRowIndex(entities.build(), ImmutableMap.copyOf(rows));
+    }
+
+    private EntityRowIndex append(Iterable<EntityRow> appended) {
+      ImmutableList.Builder<VariableEntity> appendedEntities = ImmutableList.<VariableEntity>builder().addAll(entities);
+      Map<String, Integer> appendedRows = new LinkedHashMap<>(rows);
+      for (EntityRow entityRow : appended) {
+        appendedEntities.add(entityRow.entity);
+        if (!appendedRows.containsKey(entityRow.entity.getIdentifier())) {
+          appendedRows.put(entityRow.entity.getIdentifier(), entityRow.row);
+        }
+      }
+      return new EntityRowIndex(appendedEntities.build(), ImmutableMap.copyOf(appendedRows));
+    }
+
+    private List<VariableEntity> getEntities() {
+      return entities;
+    }
+
+    @Nullable
+    private Integer getRow(String identifier) {
+      return rows.get(identifier);
+    }
+  }
+
 }
@@ -92,6 +92,7 @@ public class ExcelValueTableWriter implements ValueTableWriter {
       updateCategorySheetHeaderRow(headerRowCategories);
 
       variablesWithMetadata.add(new VariableWithMetadata(variable, headerRowVariables, headerRowCategories, valueTable.getName()));
+      valueTable.addVariable(variable);
     }
 
     @Override
@@ -165,6 +166,7 @@ public class ExcelValueTableWriter implements ValueTableWriter {
       Sheet tableSheet = valueTable.getValueTableSheet();
       entityRow = tableSheet.createRow(tableSheet.getPhysicalNumberOfRows());
       ExcelUtil.setCellValue(entityRow.createCell(0), TextType.get(), entity.getIdentifier());
+      valueTable.entityRowAppended(entity, entityRow.getRowNum());
     }
 
     @Override
@@ -10,22 +10,32 @@
 
 package org.obiba.magma.datasource.excel;
 
+import java.util.List;
+
 import javax.validation.constraints.NotNull;
 
+import org.apache.poi.ss.usermodel.Row;
 import org.obiba.magma.AbstractVariableValueSource;
 import org.obiba.magma.Value;
 import org.obiba.magma.ValueSet;
+import org.obiba.magma.ValueSetWrapper;
 import org.obiba.magma.ValueType;
 import org.obiba.magma.Variable;
+import org.obiba.magma.VariableEntity;
 import org.obiba.magma.VariableValueSource;
 import org.obiba.magma.VectorSource;
-import org.obiba.magma.VectorSourceNotSupportedException;
+import org.obiba.magma.datasource.excel.support.ExcelUtil;
+
+import com.google.common.collect.Lists;
+
+public class ExcelVariableValueSource extends AbstractVariableValueSource implements VariableValueSource, VectorSource {
 
-public class ExcelVariableValueSource extends AbstractVariableValueSource implements VariableValueSource {
+  private final ExcelValueTable table;
 
   private final Variable variable;
 
-  public ExcelVariableValueSource(Variable variable) {
+  public ExcelVariableValueSource(ExcelValueTable table, Variable variable) {
+    this.table = table;
     this.variable = variable;
   }
 
@@ -43,19 +53,39 @@ public class ExcelVariableValueSource extends AbstractVariableValueSource implem
 
   @Override
   public boolean supportVectorSource() {
-    return false;
+    return true;
   }
 
   @NotNull
   @Override
   public VectorSource asVectorSource() {
-    throw new VectorSourceNotSupportedException(getClass());
+    return this;
   }
 
   @NotNull
   @Override
   public Value getValue(ValueSet valueSet) {
-    throw new UnsupportedOperationException();
+    if (valueSet instanceof ValueSetWrapper) {
+      return ((ExcelValueSet) ((ValueSetWrapper) valueSet).getWrapped()).getValue(variable);
+    }
+    return ((ExcelValueSet) valueSet).getValue(variable);
+  }
+
+  /**
+   * Walks the variable's column down the rows of the entities, as resolved by the entity row index.
+   */
+  @Override
+  public Iterable<Value> getValues(List<VariableEntity> entities) {
+    int column = table.findVariableColumn(variable);
+    int[] rows = table.getEntityRows(entities);
+    List<Value> values = Lists.newArrayListWithCapacity(rows.length);
+    for (int row : rows) {
+      Row entityRow = row == -1 || column == -1 ? null : table.getEntityRow(row);
+      values.add(entityRow == null
+          ? variable.getValueType().nullValue()
+          : ExcelUtil.getCellValue(entityRow.getCell(column), variable));
+    }
+    return values;
   }
 
 }
@@ -19,6 +19,7 @@ import javax.validation.constraints.NotNull;
 import org.apache.poi.ss.usermodel.Cell;
 import org.obiba.magma.Value;
 import org.obiba.magma.ValueType;
+import org.obiba.magma.Variable;
 import org.obiba.magma.type.BinaryType;
 import org.obiba.magma.type.BooleanType;
 import org.obiba.magma.type.DateTimeType;
@@ -94,6 +95,21 @@ public class ExcelUtil {
     cell.setCellValue(validated);
   }
 
+  /**
+   * Get the value of a variable from a cell written by {@link #setCellValue(Cell, Value)}.
+   *
+   * @param cell
+   * @param variable
+   * @return the null value of the variable's type if the cell is missing or empty
+   */
+  public static Value getCellValue(@Nullable Cell cell, Variable variable) {
+    String value = getCellValueAsString(cell);
+    if(value.isEmpty()) return variable.getValueType().nullValue();
+    return variable.isRepeatable()
+        ? variable.getValueType().sequenceOf(value)
+        : variable.getValueType().valueOf(value);
+  }
+
   @SuppressWarnings({ "OverlyLongMethod", "PMD.NcssMethodCount" })
   public static String getCellValueAsString(@Nullable Cell cell) {
     String value = "";
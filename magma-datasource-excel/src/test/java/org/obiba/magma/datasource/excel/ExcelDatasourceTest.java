@@ -29,15 +29,20 @@ import org.obiba.magma.Initialisable;
 import org.obiba.magma.MagmaRuntimeException;
 import org.obiba.magma.ValueTable;
 import org.obiba.magma.ValueTableWriter;
+import org.obiba.magma.ValueTableWriter.ValueSetWriter;
 import org.obiba.magma.ValueTableWriter.VariableWriter;
 import org.obiba.magma.Variable;
+import org.obiba.magma.VariableEntity;
+import org.obiba.magma.VectorSource;
 import org.obiba.magma.support.DatasourceParsingException;
 import org.obiba.magma.support.Disposables;
+import org.obiba.magma.support.VariableEntityBean;
 import org.obiba.magma.test.AbstractMagmaTest;
 import org.obiba.magma.type.IntegerType;
 import org.obiba.magma.type.TextType;
 
 import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
 import com.google.common.io.Files;
 
 import static org.fest.assertions.api.Assertions.assertThat;
@@ -208,6 +213,41 @@ public class ExcelDatasourceTest extends AbstractMagmaTest {
     tmpExcelFile.delete();
   }
 
+  @Test
+  public void test_write_values_are_read_back() throws IOException {
+    File tmpExcelFile = createTempFile(".xlsx");
+
+    Variable testVariable = Variable.Builder.newVariable("test-variable", IntegerType.get(), "Participant").build();
+
+    ExcelDatasource datasource = new ExcelDatasource("test", tmpExcelFile);
+    datasource.initialise();
+    writeVariableToDatasource(datasource, "test-table", testVariable);
+    try(ValueTableWriter tableWriter = datasource.createWriter("test-table", "Participant")) {
+      for(int i = 1; i <= 3; i++) {
+        try(ValueSetWriter valueSetWriter = tableWriter
+            .writeValueSet(new VariableEntityBean("Participant", String.valueOf(i)))) {
+          valueSetWriter.writeValue(testVariable, IntegerType.get().valueOf(i * 10));
+        }
+      }
+    }
+
+    // rows appended by the writer are indexed
+    ValueTable valueTable = datasource.getValueTable("test-table");
+    List<VariableEntity> entities = valueTable.getVariableEntities();
+    assertThat(entities).hasSize(3);
+    VariableEntity entity = new VariableEntityBean("Participant", "2");
+    assertThat(valueTable.getValue(testVariable, valueTable.getValueSet(entity)))
+        .isEqualTo(IntegerType.get().valueOf(20));
+    assertThat(valueTable.hasValueSet(new VariableEntityBean("Participant", "4"))).isFalse();
+
+    VectorSource vectorSource = valueTable.getVariableValueSource("test-variable").asVectorSource();
+    assertThat(vectorSource.getValues(Lists.newArrayList(entities.get(2), entities.get(0))))
+        .containsExactly(IntegerType.get().valueOf(30), IntegerType.get().valueOf(10));
+
+    Disposables.silentlyDispose(datasource);
+    tmpExcelFile.delete();
+  }
+
   @Test
   public void test_write_variable_multiple_times_OPAL_232() throws IOException {
     File tmpExcelFile = createTempFile(".xlsx");
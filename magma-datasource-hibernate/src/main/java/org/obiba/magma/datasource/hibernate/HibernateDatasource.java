@@ -32,7 +32,6 @@ import org.obiba.core.service.impl.hibernate.AssociationCriteria;
 import org.obiba.core.service.impl.hibernate.AssociationCriteria.Operation;
 import org.obiba.magma.MagmaRuntimeException;
 import org.obiba.magma.NoSuchValueTableException;
-import org.obiba.magma.Timestamped;
 import org.obiba.magma.Timestamps;
 import org.obiba.magma.ValueTable;
 import org.obiba.magma.ValueTableWriter;
@@ -49,7 +48,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
-import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.MapMaker;
 
@@ -272,9 +271,8 @@ public class HibernateDatasource extends AbstractDatasource {
   @NotNull
   @Override
   public Timestamps getTimestamps() {
-    ImmutableSet.Builder<Timestamped> builder = ImmutableSet.builder();
-    builder.addAll(getValueTables()).add(getDatasourceState());
-    return new UnionTimestamps(builder.build());
+    // tables timestamps are served from the index, which tables update when they are written
+    return new UnionTimestamps(ImmutableList.of(getTimestampsIndex(), getDatasourceState().getTimestamps()));
   }
 
   @Override
@@ -288,6 +286,7 @@ public class HibernateDatasource extends AbstractDatasource {
 
     log.info("Renaming table {} to {}", tableName, newName);
     ((HibernateValueTable) getValueTable(tableName)).setName(newName);
+    reindexValueTable(tableName);
     updateDatasourceLastUpdate();
   }
 
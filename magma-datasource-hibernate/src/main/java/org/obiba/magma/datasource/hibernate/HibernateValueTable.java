@@ -84,6 +84,11 @@ class HibernateValueTable extends AbstractValueTable {
     return new HibernateValueSetBatch(this, entities);
   }
 
+  @Override
+  protected boolean isValueSetCacheable() {
+    return true;
+  }
+
   @Override
   public boolean canDropValueSets() {
     return true;
@@ -95,7 +100,7 @@ class HibernateValueTable extends AbstractValueTable {
     getDatasource().deleteValueSets(getDatasource().getName() + "." + getName(), session,
         session.getNamedQuery("findValueSetIdsByTableId").setParameter("valueTableId", getValueTableState().getId())
             .list());
-    getValueTableState().setUpdated(new Date());
+    updated();
     variableEntityProvider.clear();
   }
 
@@ -131,7 +136,7 @@ class HibernateValueTable extends AbstractValueTable {
     Session session = getDatasource().getSessionFactory().getCurrentSession();
     getDatasource()
         .deleteValueSets(getDatasource().getName() + "." + getName(), session, Collections.singleton(valueSetId));
-    getValueTableState().setUpdated(new Date());
+    updated();
     variableEntityProvider.remove(entity);
   }
 
@@ -198,6 +203,15 @@ class HibernateValueTable extends AbstractValueTable {
     this.name = name;
   }
 
+  /**
+   * Set the table last update and push it to the datasource timestamps index.
+   */
+  void updated() {
+    Date updated = new Date();
+    getValueTableState().setUpdated(updated);
+    getDatasource().getTimestampsIndex().touch(getName(), DateTimeType.get().valueOf(updated));
+  }
+
   static Timestamps createTimestamps(@Nullable final Timestamped timestamped) {
     return timestamped == null ? NullTimestamps.get() : new Timestamps() {
 
@@ -103,7 +103,7 @@ class HibernateValueTableWriter implements ValueTableWriter {
   }
 
   private void updateTableLastUpdate() {
-    valueTable.getValueTableState().setUpdated(new Date());
+    valueTable.updated();
   }
 
   private class HibernateVariableWriter implements VariableWriter {
@@ -19,6 +19,7 @@ import org.obiba.magma.*;
 import org.obiba.magma.datasource.hibernate.converter.HibernateValueLoaderFactory;
 import org.obiba.magma.datasource.hibernate.converter.VariableConverter;
 import org.obiba.magma.datasource.hibernate.domain.VariableState;
+import org.obiba.magma.metrics.Metrics;
 import org.obiba.magma.type.BinaryType;
 
 import javax.validation.constraints.NotNull;
@@ -96,7 +97,8 @@ class HibernateVariableValueSource extends AbstractVariableValueSource implement
     if (entities.isEmpty()) {
       return ImmutableList.of();
     }
-    return () -> new ValueIterator(entities.iterator());
+    return Metrics.timed(Metrics.VECTOR_READ, table.getDatasource().getType(),
+        () -> new ValueIterator(entities.iterator()));
   }
 
   @NotNull
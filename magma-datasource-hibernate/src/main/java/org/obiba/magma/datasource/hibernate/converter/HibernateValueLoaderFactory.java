@@ -9,7 +9,13 @@
  */
 package org.obiba.magma.datasource.hibernate.converter;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 
 import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
@@ -138,6 +144,74 @@ public class HibernateValueLoaderFactory implements ValueLoaderFactory {
       return result == null ? 0 : result.longValue();
     }
 
+    @Override
+    public boolean isStreamable() {
+      return valueRef != null && !BinaryType.get().equals(valueRef.getValueType());
+    }
+
+    /**
+     * Streams the blob from the value_set_binary_value table, in the current session. The statement is released when
+     * the stream is closed.
+     *
+     * @return
+     */
+    @NotNull
+    @Override
+    @SuppressWarnings("ConstantConditions")
+    public InputStream getStream() {
+      if(value != null || !isStreamable()) return ValueLoader.super.getStream();
+      log.trace("Streaming binary from value_set_binary_value table");
+      return sessionFactory.getCurrentSession().doReturningWork(connection -> {
+        PreparedStatement statement = connection.prepareStatement("SELECT binaryValue.value " + //
+            "FROM value_set_binary_value binaryValue " + //
+            "WHERE binaryValue.variable_id = ? " + //
+            "AND binaryValue.value_set_id = ? " + //
+            "AND binaryValue.occurrence = ?");
+        try {
+          statement.setObject(1, variableId);
+          statement.setObject(2, valueSetId);
+          statement.setInt(3, occurrence);
+          ResultSet rs = statement.executeQuery();
+          if(!rs.next()) {
+            throw new MagmaRuntimeException(
+                "Cannot find binary value for variable[" + variableId + "], valueSet[" + valueSetId +
+                    "] and occurrence[" + occurrence + "]");
+          }
+          return new StatementInputStream(rs.getBinaryStream(1), statement);
+        } catch(SQLException | RuntimeException e) {
+          statement.close();
+          throw e;
+        }
+      });
+    }
+
+  }
+
+  /**
+   * Closes the statement (and its result set) with the stream.
+   */
+  private static final class StatementInputStream extends FilterInputStream {
+
+    private final PreparedStatement statement;
+
+    private StatementInputStream(InputStream in, PreparedStatement statement) {
+      super(in);
+      this.statement = statement;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        try {
+          statement.close();
+        } catch(SQLException e) {
+          throw new IOException(e);
+        }
+      }
+    }
+
   }
 
 }
@@ -21,15 +21,13 @@ import liquibase.database.DatabaseList;
 import liquibase.database.ObjectQuotingStrategy;
 import liquibase.database.jvm.JdbcConnection;
 import liquibase.exception.LiquibaseException;
-import liquibase.snapshot.DatabaseSnapshot;
-import liquibase.snapshot.SnapshotControl;
-import liquibase.snapshot.SnapshotGeneratorFactory;
 import liquibase.sql.visitor.SqlVisitor;
 import liquibase.statement.SqlStatement;
 import liquibase.structure.core.Column;
 import liquibase.structure.core.Table;
 import liquibase.structure.core.View;
 import org.obiba.magma.MagmaRuntimeException;
+import org.obiba.magma.Timestamps;
 import org.obiba.magma.ValueTable;
 import org.obiba.magma.ValueTableWriter;
 import org.obiba.magma.datasource.jdbc.support.*;
@@ -56,8 +54,6 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 import static org.obiba.magma.datasource.jdbc.JdbcValueTableWriter.*;
-import static org.obiba.magma.datasource.jdbc.support.TableUtils.newTable;
-import static org.obiba.magma.datasource.jdbc.support.TableUtils.newView;
 
 public class JdbcDatasource extends AbstractDatasource {
 
@@ -76,7 +72,7 @@ public class JdbcDatasource extends AbstractDatasource {
 
   private final JdbcDatasourceSettings settings;
 
-  private DatabaseSnapshot snapshot;
+  private final JdbcSchema schema = new JdbcSchema(this);
 
   private Map<String, String> valueTableMap;
 
@@ -164,6 +160,17 @@ public class JdbcDatasource extends AbstractDatasource {
     addValueTable(vt);
   }
 
+  /**
+   * Served from the timestamps index, which tables update when they are written.
+   *
+   * @return
+   */
+  @NotNull
+  @Override
+  public Timestamps getTimestamps() {
+    return getTimestampsIndex();
+  }
+
   @Override
   public boolean canDrop() {
     return true;
@@ -281,12 +288,12 @@ public class JdbcDatasource extends AbstractDatasource {
 
     if(tableSettings != null) return new JdbcValueTable(this, tableSettings);
 
-    Table table = getDatabaseSnapshot().get(newTable(sqlTableName));
+    Table table = getSchema().getTable(sqlTableName);
     if (table != null) {
       return new JdbcValueTable(this, tableName, table, entityType);
     }
 
-    View view = getDatabaseSnapshot().get(newView(sqlTableName));
+    View view = getSchema().getView(sqlTableName);
     if (view != null) {
       return new JdbcValueTable(this, tableName, view, entityType, settings.getDefaultEntityIdColumnName());
     }
@@ -312,31 +319,36 @@ public class JdbcDatasource extends AbstractDatasource {
     return names;
   }
 
+  /**
+   * Get the names of the SQL tables and views that can be value tables, without inspecting all of them: a table or a
+   * view is included if it has settings or the default entity identifier column, a table is also included if it has
+   * a primary key.
+   *
+   * @return
+   */
   @NotNull
   private Set<String> getObservedValueTableNames() {
     Set<String> names = new LinkedHashSet<>();
+    Set<String> withEntityIdColumn = getSchema().getTableNamesWithColumn(getSettings().getDefaultEntityIdColumnName());
 
-    getDatabaseSnapshot().get(Table.class).stream() //
-        .filter(table -> isTableIncluded(table.getName())) //
-        .forEach(table -> {
-          String tableName = table.getName();
+    getSchema().getTableNames().stream() //
+        .filter(this::isTableIncluded) //
+        .forEach(tableName -> {
           List<JdbcValueTableSettings> tableSettings = settings.getTableSettingsForSqlTable(tableName);
           if (tableSettings != null && !tableSettings.isEmpty()) {
             tableSettings.forEach(settings -> names.add(settings.getMagmaTableName()));
-          } else if (JdbcValueTable.hasEntityIdentifierColumn(table, getSettings().getDefaultEntityIdColumnName())
-              || !Strings.isNullOrEmpty(JdbcValueTable.getEntityIdentifierColumn(table))) {
+          } else if (withEntityIdColumn.contains(tableName) || getSchema().hasPrimaryKey(tableName)) {
             names.add(tableName);
           }
         });
 
-    getDatabaseSnapshot().get(View.class).stream() //
-        .filter(view -> isTableIncluded(view.getName())) //
-        .forEach(view -> {
-          String viewName = view.getName();
+    getSchema().getViewNames().stream() //
+        .filter(this::isTableIncluded) //
+        .forEach(viewName -> {
           List<JdbcValueTableSettings> tableSettings = settings.getTableSettingsForSqlTable(viewName);
           if (tableSettings != null && !tableSettings.isEmpty()) {
             tableSettings.forEach(settings -> names.add(settings.getMagmaTableName()));
-          } else if (JdbcValueTable.hasEntityIdentifierColumn(view, getSettings().getDefaultEntityIdColumnName())) {
+          } else if (withEntityIdColumn.contains(viewName)) {
             names.add(viewName);
           }
         });
@@ -491,17 +503,16 @@ public class JdbcDatasource extends AbstractDatasource {
     return escapedColumnNames.get(identifier);
   }
 
-  DatabaseSnapshot getDatabaseSnapshot() {
-    if(snapshot == null) {
-      snapshot = doWithDatabase(database -> SnapshotGeneratorFactory.getInstance()
-          .createSnapshot(database.getDefaultSchema(), database, new SnapshotControl(database)));
-    }
-
-    return snapshot;
+  JdbcSchema getSchema() {
+    return schema;
   }
 
   void databaseChanged() {
-    snapshot = null;
+    schema.refresh();
+  }
+
+  void databaseChanged(String sqlTableName) {
+    schema.refresh(sqlTableName);
   }
 
   <T> T doWithDatabase(final DatabaseCallback<T> databaseCallback) {
@@ -553,7 +564,7 @@ public class JdbcDatasource extends AbstractDatasource {
   }
 
   private void createDatasourceMetadataTablesIfNotPresent(List<Change> changes) {
-    if(getDatabaseSnapshot().get(newTable(VALUE_TABLES_TABLE)) == null) {
+    if(!getSchema().hasTable(VALUE_TABLES_TABLE)) {
       CreateTableChangeBuilder builder = new CreateTableChangeBuilder()//
           .tableName(VALUE_TABLES_TABLE);
 
@@ -569,7 +580,7 @@ public class JdbcDatasource extends AbstractDatasource {
   }
 
   private void createVariableMetadataTablesIfNotPresent(List<Change> changes) {
-    Table sqlTable = getDatabaseSnapshot().get(newTable(VARIABLES_TABLE));
+    Table sqlTable = getSchema().getTable(VARIABLES_TABLE);
     if(sqlTable == null) {
       CreateTableChangeBuilder builder = new CreateTableChangeBuilder().tableName(VARIABLES_TABLE);
 
@@ -591,7 +602,7 @@ public class JdbcDatasource extends AbstractDatasource {
       changes.add(builder.build());
     }
 
-    if(getDatabaseSnapshot().get(newTable(VARIABLE_ATTRIBUTES_TABLE)) == null) {
+    if(!getSchema().hasTable(VARIABLE_ATTRIBUTES_TABLE)) {
       CreateTableChangeBuilder builder = new CreateTableChangeBuilder() //
           .tableName(VARIABLE_ATTRIBUTES_TABLE);
 
@@ -608,7 +619,7 @@ public class JdbcDatasource extends AbstractDatasource {
   }
 
   private void createCategoryMetadataTablesIfNotPresent(List<Change> changes) {
-    if(getDatabaseSnapshot().get(newTable(CATEGORIES_TABLE)) == null) {
+    if(!getSchema().hasTable(CATEGORIES_TABLE)) {
       CreateTableChangeBuilder builder = new CreateTableChangeBuilder() //
           .tableName(CATEGORIES_TABLE);
 
@@ -621,7 +632,7 @@ public class JdbcDatasource extends AbstractDatasource {
       changes.add(builder.build());
     }
 
-    if(getDatabaseSnapshot().get(newTable(CATEGORY_ATTRIBUTES_TABLE)) == null) {
+    if(!getSchema().hasTable(CATEGORY_ATTRIBUTES_TABLE)) {
       CreateTableChangeBuilder builder = new CreateTableChangeBuilder() //
           .tableName(CATEGORY_ATTRIBUTES_TABLE);
 
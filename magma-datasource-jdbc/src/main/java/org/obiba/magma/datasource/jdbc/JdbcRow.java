@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.datasource.jdbc;
+
+import org.obiba.magma.Value;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * The {@link Value}s of a SQL row, stored in an array. The variable names of the columns are shared by all the rows
+ * of a query.
+ */
+public class JdbcRow {
+
+  private final String[] names;
+
+  private final Map<String, Integer> indices;
+
+  private final Value[] values;
+
+  JdbcRow(String[] names, Map<String, Integer> indices, Value[] values) {
+    this.names = names;
+    this.indices = indices;
+    this.values = values;
+  }
+
+  public boolean containsKey(String name) {
+    return indices.containsKey(name);
+  }
+
+  @Nullable
+  public Value get(String name) {
+    Integer index = indices.get(name);
+    return index == null ? null : values[index];
+  }
+
+  public void forEach(BiConsumer<String, Value> action) {
+    for (int i = 0; i < values.length; i++) {
+      action.accept(names[i], values[i]);
+    }
+  }
+}
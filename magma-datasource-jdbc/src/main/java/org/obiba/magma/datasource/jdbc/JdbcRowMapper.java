@@ -13,34 +13,109 @@ package org.obiba.magma.datasource.jdbc;
 import com.google.common.collect.Maps;
 import org.obiba.magma.Value;
 import org.obiba.magma.ValueType;
+import org.obiba.magma.type.BooleanType;
 import org.springframework.jdbc.core.RowMapper;
 
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.Map;
 
 /**
- * Make a {@link Value} from each extracted data.
+ * Make a {@link Value} from each extracted data. The column decoders are compiled from the result set meta data when
+ * the first row is mapped: a mapper is to be used for one query only.
  */
-public class JdbcRowMapper implements RowMapper<Map<String, Value>> {
+public class JdbcRowMapper implements RowMapper<JdbcRow> {
 
-  private JdbcValueTable table;
+  private final JdbcValueTable table;
+
+  private String[] names;
+
+  private Map<String, Integer> indices;
+
+  private ColumnDecoder[] decoders;
 
   public JdbcRowMapper(JdbcValueTable table) {
     this.table = table;
   }
 
   @Override
-  public Map<String, Value> mapRow(ResultSet rs, int rowNum) throws SQLException {
-    Map<String, Value> res = Maps.newHashMap();
-
-    for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
-      String variableName = table.getVariableName(rs.getMetaData().getColumnName(i));
-      ValueType type = SqlTypes.valueTypeFor(rs.getMetaData().getColumnType(i));
-      Value variableValue = type.valueOf(rs.getObject(i));
-      res.put(variableName, variableValue);
+  public JdbcRow mapRow(ResultSet rs, int rowNum) throws SQLException {
+    if (decoders == null) {
+      compile(rs.getMetaData());
+    }
+
+    Value[] values = new Value[decoders.length];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = decoders[i].decode(rs, i + 1);
+    }
+    return new JdbcRow(names, indices, values);
+  }
+
+  /**
+   * Get the variable names and the decoders of the columns of the query result.
+   *
+   * @param metaData
+   * @throws SQLException
+   */
+  private void compile(ResultSetMetaData metaData) throws SQLException {
+    int columnCount = metaData.getColumnCount();
+    names = new String[columnCount];
+    indices = Maps.newHashMapWithExpectedSize(columnCount);
+    decoders = new ColumnDecoder[columnCount];
+    for (int i = 0; i < columnCount; i++) {
+      names[i] = table.getVariableName(metaData.getColumnName(i + 1));
+      indices.put(names[i], i);
+      decoders[i] = decoderFor(metaData.getColumnType(i + 1));
+    }
+  }
+
+  private static ColumnDecoder decoderFor(int sqlType) {
+    ValueType type = SqlTypes.valueTypeFor(sqlType);
+    switch (sqlType) {
+      case Types.BIGINT:
+      case Types.INTEGER:
+      case Types.SMALLINT:
+      case Types.TINYINT:
+        return (rs, column) -> {
+          long value = rs.getLong(column);
+          return rs.wasNull() ? type.nullValue() : type.valueOf(value);
+        };
+      case Types.DECIMAL:
+      case Types.DOUBLE:
+      case Types.FLOAT:
+      case Types.NUMERIC:
+      case Types.REAL:
+        return (rs, column) -> {
+          double value = rs.getDouble(column);
+          return rs.wasNull() ? type.nullValue() : type.valueOf(value);
+        };
+      case Types.BIT:
+      case Types.BOOLEAN:
+        return (rs, column) -> {
+          boolean value = rs.getBoolean(column);
+          return rs.wasNull() ? type.nullValue() : BooleanType.get().valueOf(value);
+        };
+      case Types.BLOB:
+      case Types.LONGVARBINARY:
+      case Types.VARBINARY:
+      case Types.BINARY:
+        return (rs, column) -> {
+          byte[] value = rs.getBytes(column);
+          return value == null ? type.nullValue() : type.valueOf(value);
+        };
+      case Types.DATE:
+        return (rs, column) -> type.valueOf(rs.getDate(column));
+      case Types.TIMESTAMP:
+        return (rs, column) -> type.valueOf(rs.getTimestamp(column));
+      default:
+        return (rs, column) -> type.valueOf(rs.getObject(column));
     }
+  }
 
-    return res;
+  @FunctionalInterface
+  private interface ColumnDecoder {
+    Value decode(ResultSet rs, int column) throws SQLException;
   }
 }
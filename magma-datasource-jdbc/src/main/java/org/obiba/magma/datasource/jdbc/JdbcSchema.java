@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.datasource.jdbc;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.snapshot.SnapshotControl;
+import liquibase.snapshot.SnapshotGeneratorFactory;
+import liquibase.structure.core.Column;
+import liquibase.structure.core.PrimaryKey;
+import liquibase.structure.core.Relation;
+import liquibase.structure.core.Table;
+import liquibase.structure.core.View;
+
+import javax.annotation.Nullable;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.obiba.magma.datasource.jdbc.support.TableUtils.newTable;
+import static org.obiba.magma.datasource.jdbc.support.TableUtils.newView;
+
+/**
+ * Discovers the tables, views and columns of the default schema of a {@link JdbcDatasource} with targeted lookups,
+ * instead of a snapshot of the whole schema. The table and view names are listed from the database meta data without
+ * their columns. Each table or view is inspected on first access and cached until refreshed.
+ */
+class JdbcSchema {
+
+  private static final String[] TABLE_TYPES = { "TABLE" };
+
+  private static final String[] VIEW_TYPES = { "VIEW" };
+
+  private final JdbcDatasource datasource;
+
+  private final Map<String, Optional<Table>> tables = Maps.newConcurrentMap();
+
+  private final Map<String, Optional<View>> views = Maps.newConcurrentMap();
+
+  @Nullable
+  private volatile List<String> tableNames;
+
+  @Nullable
+  private volatile List<String> viewNames;
+
+  JdbcSchema(JdbcDatasource datasource) {
+    this.datasource = datasource;
+  }
+
+  /**
+   * Get the names of the tables, without inspecting them.
+   *
+   * @return
+   */
+  List<String> getTableNames() {
+    List<String> names = tableNames;
+    if (names == null) {
+      names = listRelationNames(TABLE_TYPES);
+      tableNames = names;
+    }
+    return names;
+  }
+
+  /**
+   * Get the names of the views, without inspecting them.
+   *
+   * @return
+   */
+  List<String> getViewNames() {
+    List<String> names = viewNames;
+    if (names == null) {
+      names = listRelationNames(VIEW_TYPES);
+      viewNames = names;
+    }
+    return names;
+  }
+
+  /**
+   * Get the table with its columns and primary key, inspected on first access. Table name is case insensitive.
+   *
+   * @param name
+   * @return null if there is no such table
+   */
+  @Nullable
+  Table getTable(String name) {
+    return tables.computeIfAbsent(name,
+        key -> Optional.ofNullable(resolve(getTableNames(), key)).map(actual -> snapshot(newTable(actual)))).orElse(null);
+  }
+
+  /**
+   * Get the view with its columns, inspected on first access. View name is case insensitive.
+   *
+   * @param name
+   * @return null if there is no such view
+   */
+  @Nullable
+  View getView(String name) {
+    return views.computeIfAbsent(name,
+        key -> Optional.ofNullable(resolve(getViewNames(), key)).map(actual -> snapshot(newView(actual)))).orElse(null);
+  }
+
+  boolean hasTable(String name) {
+    return resolve(getTableNames(), name) != null;
+  }
+
+  /**
+   * Get the names of the tables having a column with the given name, in one meta data lookup. The column name is not
+   * a pattern: wildcard characters are matched literally.
+   *
+   * @param columnName
+   * @return
+   */
+  Set<String> getTableNamesWithColumn(String columnName) {
+    return datasource.doWithDatabase(database -> {
+      Set<String> names = Sets.newHashSet();
+      try {
+        DatabaseMetaData metaData = getMetaData(database);
+        for (String column : Sets.newHashSet(columnName, database.correctObjectName(columnName, Column.class))) {
+          try (ResultSet rs = metaData.getColumns(database.getDefaultCatalogName(), database.getDefaultSchemaName(), "%",
+              escapePattern(column, metaData.getSearchStringEscape()))) {
+            while (rs.next()) {
+              if (column.equals(rs.getString("COLUMN_NAME"))) names.add(rs.getString("TABLE_NAME"));
+            }
+          }
+        }
+      } catch (SQLException e) {
+        throw new DatabaseException(e);
+      }
+      return names;
+    });
+  }
+
+  /**
+   * Check whether a table has a primary key, without inspecting its columns.
+   *
+   * @param tableName
+   * @return
+   */
+  boolean hasPrimaryKey(String tableName) {
+    Table table = tables.getOrDefault(tableName, Optional.empty()).orElse(null);
+    if (table != null) return table.getPrimaryKey() != null;
+
+    Boolean hasPrimaryKey = datasource.doWithDatabase(database -> {
+      try (ResultSet rs = getMetaData(database)
+          .getPrimaryKeys(database.getDefaultCatalogName(), database.getDefaultSchemaName(), tableName)) {
+        return rs.next();
+      } catch (SQLException e) {
+        throw new DatabaseException(e);
+      }
+    });
+    return hasPrimaryKey != null && hasPrimaryKey;
+  }
+
+  /**
+   * Forget what was discovered about a table or a view, and the names of the tables and views.
+   *
+   * @param name
+   */
+  void refresh(String name) {
+    tables.keySet().removeIf(name::equalsIgnoreCase);
+    views.keySet().removeIf(name::equalsIgnoreCase);
+    tableNames = null;
+    viewNames = null;
+  }
+
+  /**
+   * Forget everything that was discovered.
+   */
+  void refresh() {
+    tables.clear();
+    views.clear();
+    tableNames = null;
+    viewNames = null;
+  }
+
+  @Nullable
+  private static String resolve(List<String> names, String name) {
+    if (names.contains(name)) return name;
+    return names.stream().filter(name::equalsIgnoreCase).findFirst().orElse(null);
+  }
+
+  /**
+   * Escape the wildcard characters of a meta data search pattern.
+   *
+   * @param name
+   * @param escape
+   * @return
+   */
+  private static String escapePattern(String name, @Nullable String escape) {
+    if (Strings.isNullOrEmpty(escape)) return name;
+    return name.replace(escape, escape + escape).replace("_", escape + "_").replace("%", escape + "%");
+  }
+
+  @Nullable
+  private <T extends Relation> T snapshot(T example) {
+    return datasource.doWithDatabase(database -> SnapshotGeneratorFactory.getInstance()
+        .createSnapshot(example, database,
+            new SnapshotControl(database, Table.class, View.class, Column.class, PrimaryKey.class)));
+  }
+
+  private List<String> listRelationNames(String... types) {
+    return datasource.doWithDatabase(database -> {
+      ImmutableList.Builder<String> names = ImmutableList.builder();
+      try (ResultSet rs = getMetaData(database)
+          .getTables(database.getDefaultCatalogName(), database.getDefaultSchemaName(), "%", types)) {
+        while (rs.next()) {
+          names.add(rs.getString("TABLE_NAME"));
+        }
+      } catch (SQLException e) {
+        throw new DatabaseException(e);
+      }
+      return names.build();
+    });
+  }
+
+  private static DatabaseMetaData getMetaData(Database database) throws SQLException {
+    return ((JdbcConnection) database.getConnection()).getUnderlyingConnection().getMetaData();
+  }
+}
@@ -81,7 +81,7 @@ public class JdbcValueSet extends ValueSetBean {
   //
 
   private Value getBinaryValue(Variable variable) {
-    List<Map<String, Value>> res = fetcher.loadVariableValues(variable, getVariableEntity());
+    List<JdbcRow> res = fetcher.loadVariableValues(variable, getVariableEntity());
     if (res.isEmpty())
       return variable.isRepeatable() ? variable.getValueType().nullSequence() : variable.getValueType().nullValue();
     Value value = variable.isRepeatable() && getValueTable().isMultilines() ?
@@ -130,11 +130,11 @@ public class JdbcValueSet extends ValueSetBean {
     }
   }
 
-  void populateResultSetCache(List<Map<String, Value>> rows) {
+  void populateResultSetCache(List<JdbcRow> rows) {
     doPopulateResultSetCache(rows);
   }
 
-  private synchronized void doPopulateResultSetCache(List<Map<String, Value>> rows) {
+  private synchronized void doPopulateResultSetCache(List<JdbcRow> rows) {
     if (rows == null) return;
     rows.forEach(row ->
       row.forEach((key, value) -> {
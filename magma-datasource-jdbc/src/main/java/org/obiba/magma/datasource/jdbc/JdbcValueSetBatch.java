@@ -13,7 +13,6 @@ package org.obiba.magma.datasource.jdbc;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import org.obiba.magma.Value;
 import org.obiba.magma.ValueSet;
 import org.obiba.magma.ValueSetBatch;
 import org.obiba.magma.VariableEntity;
@@ -43,15 +42,15 @@ public class JdbcValueSetBatch implements ValueSetBatch {
   public List<ValueSet> getValueSets() {
     // Map rows per entity identifier
     String idColumn = table.getSettings().getEntityIdentifierColumn();
-    Map<String, List<Map<String, Value>>> rowsMap = Maps.newHashMap();
+    Map<String, List<JdbcRow>> rowsMap = Maps.newHashMap();
     fetcher.loadNonBinaryVariableValues(entities).stream() //
-        .filter(valuesMap -> valuesMap.containsKey(idColumn)) //
-        .forEach(valuesMap -> {
-          String id = valuesMap.get(idColumn).toString();
+        .filter(row -> row.containsKey(idColumn)) //
+        .forEach(row -> {
+          String id = row.get(idColumn).toString();
           if (!rowsMap.containsKey(id)) {
             rowsMap.put(id, Lists.newArrayList());
           }
-          rowsMap.get(id).add(valuesMap);
+          rowsMap.get(id).add(row);
         });
 
     return entities.stream().map(e -> {
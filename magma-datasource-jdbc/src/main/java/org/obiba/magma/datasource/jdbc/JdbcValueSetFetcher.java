@@ -14,14 +14,11 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
-import org.obiba.magma.Value;
 import org.obiba.magma.Variable;
 import org.obiba.magma.VariableEntity;
-import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -33,23 +30,20 @@ class JdbcValueSetFetcher {
 
   private final String sqlTableName;
 
-  private RowMapper<Map<String, Value>> mapper;
-
   JdbcValueSetFetcher(final JdbcValueTable valueTable) {
     this.valueTable = valueTable;
     sqlTableName = valueTable.getSettings().getSqlTableName();
-    this.mapper = new JdbcRowMapper(valueTable);
   }
 
-  List<Map<String, Value>> loadNonBinaryVariableValues(List<VariableEntity> entities) {
+  List<JdbcRow> loadNonBinaryVariableValues(List<VariableEntity> entities) {
     return loadValues(getNonBinaryColumns(), entities);
   }
 
-  List<Map<String, Value>> loadNonBinaryVariableValues(VariableEntity entity) {
+  List<JdbcRow> loadNonBinaryVariableValues(VariableEntity entity) {
     return loadValues(getNonBinaryColumns(), entity);
   }
 
-  List<Map<String, Value>> loadVariableValues(Variable variable, VariableEntity entity) {
+  List<JdbcRow> loadVariableValues(Variable variable, VariableEntity entity) {
     return loadValues(
         Lists.newArrayList(valueTable.getVariableSqlName(variable.getName())), entity);
   }
@@ -80,7 +74,7 @@ class JdbcValueSetFetcher {
    * @param entity
    * @return
    */
-  private List<Map<String, Value>> loadValues(List<String> columnNames, VariableEntity entity) {
+  private List<JdbcRow> loadValues(List<String> columnNames, VariableEntity entity) {
     final JdbcDatasource datasource = valueTable.getDatasource();
     String entityIdentifierColumn = valueTable.getSettings().getEntityIdentifierColumn();
     String whereClause = String.format("%s = ?", datasource.escapeColumnName(entityIdentifierColumn));
@@ -102,13 +96,13 @@ class JdbcValueSetFetcher {
    * @param entity
    * @return
    */
-  private List<Map<String, Value>> queryValues(String selectClause, String fromClause, String whereClause, VariableEntity entity) {
+  private List<JdbcRow> queryValues(String selectClause, String fromClause, String whereClause, VariableEntity entity) {
     String sql = String.format("SELECT %s FROM %s WHERE %s", selectClause, fromClause, whereClause);
     return valueTable.getDatasource().getJdbcTemplate()
-        .query(sql, new String[] { entity.getIdentifier() }, mapper);
+        .query(sql, new String[] { entity.getIdentifier() }, new JdbcRowMapper(valueTable));
   }
 
-  private List<Map<String, Value>> loadValues(List<String> columnNames, List<VariableEntity> entities) {
+  private List<JdbcRow> loadValues(List<String> columnNames, List<VariableEntity> entities) {
     final JdbcDatasource datasource = valueTable.getDatasource();
 
     String whereClause = String.format("%s IN (:ids)", valueTable.getEntityIdentifierColumnSql());
@@ -125,7 +119,7 @@ class JdbcValueSetFetcher {
     return queryValues(Joiner.on(", ").join(escapedColumnNames.build()), datasource.escapeTableName(sqlTableName), whereClause, entities);
   }
 
-  private List<Map<String, Value>> queryValues(String selectClause, String fromClause, String whereClause, List<VariableEntity> entities) {
+  private List<JdbcRow> queryValues(String selectClause, String fromClause, String whereClause, List<VariableEntity> entities) {
     String sql = String.format("SELECT %s FROM %s WHERE %s", selectClause, fromClause, whereClause);
 
     MapSqlParameterSource parameters = new MapSqlParameterSource();
@@ -135,6 +129,6 @@ class JdbcValueSetFetcher {
     }
     parameters.addValue("ids", ids.build());
 
-    return valueTable.getDatasource().getNamedParameterJdbcTemplate().query(sql, parameters, mapper);
+    return valueTable.getDatasource().getNamedParameterJdbcTemplate().query(sql, parameters, new JdbcRowMapper(valueTable));
   }
 }
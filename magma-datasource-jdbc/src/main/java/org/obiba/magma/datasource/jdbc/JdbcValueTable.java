@@ -11,23 +11,28 @@
 package org.obiba.magma.datasource.jdbc;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import liquibase.change.Change;
 import liquibase.change.core.DropTableChange;
-import liquibase.snapshot.DatabaseSnapshot;
 import liquibase.structure.core.*;
 import org.obiba.magma.*;
 import org.obiba.magma.datasource.jdbc.JdbcDatasource.ChangeDatabaseCallback;
 import org.obiba.magma.datasource.jdbc.support.CreateIndexChangeBuilder;
 import org.obiba.magma.datasource.jdbc.support.CreateTableChangeBuilder;
 import org.obiba.magma.datasource.jdbc.support.TableUtils;
+import org.obiba.magma.metrics.Metrics;
 import org.obiba.magma.support.AbstractValueTable;
 import org.obiba.magma.support.Initialisables;
+import org.obiba.magma.support.NullTimestamps;
 import org.obiba.magma.support.VariableEntityProvider;
 import org.obiba.magma.type.DateTimeType;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallbackWithoutResult;
@@ -41,11 +46,11 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static org.obiba.magma.datasource.jdbc.JdbcValueTableWriter.*;
-import static org.obiba.magma.datasource.jdbc.support.TableUtils.newTable;
-import static org.obiba.magma.datasource.jdbc.support.TableUtils.newView;
 
 class JdbcValueTable extends AbstractValueTable {
 
+  private static final int MAX_TIMESTAMPS_QUERY_PARAMETERS = 1000;
+
   private final JdbcValueTableSettings settings;
 
   private Relation tableOrView;
@@ -64,14 +69,14 @@ class JdbcValueTable extends AbstractValueTable {
     this.settings = settings;
 
     // first, check if it is an existing View
-    View view = getDatasource().getDatabaseSnapshot().get(newView(getSqlName()));
+    View view = getDatasource().getSchema().getView(getSqlName());
     if (view == null) {
       // if not a view, make sure the SQL table exists
-      if (getDatasource().getDatabaseSnapshot().get(newTable(getSqlName())) == null) {
+      if (!getDatasource().getSchema().hasTable(getSqlName())) {
         createSqlTable(getSqlName());
-        getDatasource().databaseChanged();
+        getDatasource().databaseChanged(getSqlName());
       }
-      tableOrView = getDatasource().getDatabaseSnapshot().get(newTable(getSqlName()));
+      tableOrView = getDatasource().getSchema().getTable(getSqlName());
     } else {
       tableOrView = view;
     }
@@ -159,11 +164,49 @@ class JdbcValueTable extends AbstractValueTable {
     return new JdbcValueSetBatch(this, entities);
   }
 
+  @Override
+  protected boolean isValueSetCacheable() {
+    return true;
+  }
+
   @Override
   public Timestamps getValueSetTimestamps(VariableEntity entity) throws NoSuchValueSetException {
     return new ValueSetTimestamps(entity, getCreatedTimestampColumnName(), getUpdatedTimestampColumnName());
   }
 
+  /**
+   * Reads the timestamps of the value sets with one query per {@link #MAX_TIMESTAMPS_QUERY_PARAMETERS} entities,
+   * instead of two queries per entity. Entities without value set get null timestamps.
+   */
+  @Override
+  public Iterable<Timestamps> getValueSetTimestamps(List<VariableEntity> entities) {
+    String createdColumn = getCreatedTimestampColumnName();
+    String updatedColumn = getUpdatedTimestampColumnName();
+    if (entities.isEmpty() || (Strings.isNullOrEmpty(createdColumn) && Strings.isNullOrEmpty(updatedColumn)))
+      return super.getValueSetTimestamps(entities);
+
+    String idColumn = getDatasource().escapeColumnName(getSettings().getEntityIdentifierColumn());
+    String select = String.format("SELECT %s, %s, %s FROM %s WHERE %s IN (", idColumn,
+        Strings.isNullOrEmpty(createdColumn) ? "NULL" : getDatasource().escapeColumnName(createdColumn),
+        Strings.isNullOrEmpty(updatedColumn) ? "NULL" : getDatasource().escapeColumnName(updatedColumn),
+        getDatasource().escapeTableName(getSqlName()), idColumn);
+    Map<String, Timestamps> timestampsMap = Maps.newHashMapWithExpectedSize(entities.size());
+    for (List<VariableEntity> partition : Lists.partition(entities, MAX_TIMESTAMPS_QUERY_PARAMETERS)) {
+      String sql = select + String.join(",", Collections.nCopies(partition.size(), "?")) + ")";
+      Object[] params = partition.stream().map(VariableEntity::getIdentifier).toArray();
+      getDatasource().getJdbcTemplate().query(sql, params, rs -> {
+        timestampsMap.put(rs.getString(1), new TimestampsBean(DateTimeType.get().valueOf(rs.getTimestamp(2)),
+            DateTimeType.get().valueOf(rs.getTimestamp(3))));
+      });
+    }
+    List<Timestamps> timestamps = Lists.newArrayListWithCapacity(entities.size());
+    for (VariableEntity entity : entities) {
+      Timestamps entityTimestamps = timestampsMap.get(entity.getIdentifier());
+      timestamps.add(entityTimestamps == null ? NullTimestamps.get() : entityTimestamps);
+    }
+    return timestamps;
+  }
+
   @NotNull
   @Override
   public Timestamps getTimestamps() {
@@ -185,11 +228,11 @@ class JdbcValueTable extends AbstractValueTable {
   }
 
   public void drop() {
-    if (getDatasource().getDatabaseSnapshot().get(newTable(getSqlName())) != null) {
+    if (getDatasource().getSchema().hasTable(getSqlName())) {
       DropTableChange dtt = new DropTableChange();
       dtt.setTableName(getSqlName());
       getDatasource().doWithDatabase(new ChangeDatabaseCallback(dtt));
-      getDatasource().databaseChanged();
+      getDatasource().databaseChanged(getSqlName());
     }
 
     if (getDatasource().getSettings().isUseMetadataTables()) {
@@ -256,10 +299,19 @@ class JdbcValueTable extends AbstractValueTable {
   }
 
   void tableChanged() {
-    refreshTable();
+    tableUpdated();
     initialise();
   }
 
+  /**
+   * Reload the table after it was written and push its last update to the datasource timestamps index, instead of
+   * having the timestamps queried again.
+   */
+  void tableUpdated() {
+    reloadTable();
+    getDatasource().getTimestampsIndex().touch(getName(), DateTimeType.get().now());
+  }
+
   boolean hasCreatedTimestampColumn() {
     return getSettings().hasCreatedTimestampColumnName() ||
         getDatasource().getSettings().hasCreatedTimestampColumnName();
@@ -307,11 +359,6 @@ class JdbcValueTable extends AbstractValueTable {
     return entityIdentifierColumns.isEmpty() ? "" : entityIdentifierColumns.get(0);
   }
 
-  static boolean hasEntityIdentifierColumn(Relation tableOrView, String defaultEntityIdColumnName) {
-    return tableOrView.getColumn(defaultEntityIdColumnName) != null;
-  }
-
-
   private void initialiseVariableValueSources() {
     clearSources();
 
@@ -327,16 +374,7 @@ class JdbcValueTable extends AbstractValueTable {
       throw new MagmaRuntimeException("metadata tables not found");
     }
 
-    String sql = getDatasource().getSettings().isMultipleDatasources()
-        ? String
-        .format("SELECT * FROM %s WHERE %s = ? AND %s = ?", ESC_VARIABLES_TABLE, ESC_DATASOURCE_COLUMN, ESC_VALUE_TABLE_COLUMN)
-        : String.format("SELECT * FROM %s WHERE %s = ?", ESC_VARIABLES_TABLE, ESC_VALUE_TABLE_COLUMN);
-    Object[] params = getDatasource().getSettings().isMultipleDatasources() ? new Object[]{
-        getDatasource().getName(), getName()} : new Object[]{getName()};
-
-    List<Variable> results = getDatasource().getJdbcTemplate().query(sql, params, new VariableRowMapper());
-
-    for (Variable variable : results) {
+    for (Variable variable : new VariablesLoader().load()) {
       addVariableValueSource(new JdbcVariableValueSource(this, variable));
     }
   }
@@ -371,11 +409,40 @@ class JdbcValueTable extends AbstractValueTable {
         && !exclusion.matcher(name).find() && inclusion.matcher(name).find();
   }
 
-  private class VariableRowMapper implements RowMapper<Variable> {
+  /**
+   * Loads the table dictionary from the metadata tables with one query per metadata table (variables, variable
+   * attributes, categories and category attributes) instead of one query per variable and per category.
+   */
+  private class VariablesLoader {
+
+    private final AttributeRowMapper attributeRowMapper = new AttributeRowMapper();
 
-    @Override
-    public Variable mapRow(ResultSet rs, int rowNum) throws SQLException {
-      return buildVariableFromResultSet(rs);
+    private final ListMultimap<String, Attribute> variableAttributes = ArrayListMultimap.create();
+
+    private final ListMultimap<String, Category.Builder> variableCategories = ArrayListMultimap.create();
+
+    private final Map<String, Category.Builder> categories = Maps.newHashMap();
+
+    List<Variable> load() {
+      queryTable(ESC_VARIABLE_ATTRIBUTES_TABLE, "*",
+          rs -> variableAttributes.put(rs.getString(VARIABLE_COLUMN), attributeRowMapper.mapRow(rs, 0)));
+      queryTable(ESC_CATEGORIES_TABLE, String.format("%s, %s, %s", ESC_VARIABLE_COLUMN, ESC_NAME_COLUMN, ESC_MISSING_COLUMN), rs -> {
+        String variableName = rs.getString(VARIABLE_COLUMN);
+        String categoryName = rs.getString(NAME_COLUMN);
+        Category.Builder builder = Category.Builder.newCategory(categoryName).missing(rs.getBoolean(MISSING_COLUMN));
+        variableCategories.put(variableName, builder);
+        categories.put(categoryKey(variableName, categoryName), builder);
+      });
+      if (!categories.isEmpty()) {
+        queryTable(ESC_CATEGORY_ATTRIBUTES_TABLE, "*", rs -> {
+          Category.Builder builder = categories.get(categoryKey(rs.getString(VARIABLE_COLUMN), rs.getString(CATEGORY_COLUMN)));
+          if (builder != null) builder.addAttribute(attributeRowMapper.mapRow(rs, 0));
+        });
+      }
+
+      List<Variable> variables = Lists.newArrayList();
+      queryTable(ESC_VARIABLES_TABLE, "*", rs -> variables.add(buildVariableFromResultSet(rs)));
+      return variables;
     }
 
     private Variable buildVariableFromResultSet(ResultSet rs) throws SQLException {
@@ -395,57 +462,33 @@ class JdbcValueTable extends AbstractValueTable {
         builder.occurrenceGroup(occurrenceGroup);
       }
 
-      addVariableAttributes(variableName, builder);
-      addVariableCategories(variableName, builder);
+      builder.addAttributes(variableAttributes.get(variableName));
+      builder.addCategories(variableCategories.get(variableName).stream() //
+          .map(Category.Builder::build) //
+          .collect(Collectors.toList()));
 
       return builder.build();
     }
 
-    private void addVariableAttributes(String variableName, Variable.Builder builder) {
+    /**
+     * Query the rows of a metadata table that belong to this value table.
+     *
+     * @param escTableName
+     * @param columns
+     * @param handler
+     */
+    private void queryTable(String escTableName, String columns, RowCallbackHandler handler) {
       String sql = getDatasource().getSettings().isMultipleDatasources()
-          ? String
-          .format("SELECT * FROM %s WHERE %s = ? AND %s = ? AND %s = ? ", ESC_VARIABLE_ATTRIBUTES_TABLE, ESC_DATASOURCE_COLUMN,
-              ESC_VALUE_TABLE_COLUMN, ESC_VARIABLE_COLUMN)
-          : String.format("SELECT * FROM %s WHERE %s = ? AND %s = ? ", ESC_VARIABLE_ATTRIBUTES_TABLE, ESC_VALUE_TABLE_COLUMN,
-          ESC_VARIABLE_COLUMN);
-      Object[] params = getDatasource().getSettings().isMultipleDatasources() ? new Object[]{
-          getDatasource().getName(), getName(), variableName} : new Object[]{getName(), variableName};
-      builder.addAttributes(getDatasource().getJdbcTemplate().query(sql, params, new AttributeRowMapper()));
-    }
-
-    private void addVariableCategories(final String variableName, Variable.Builder builder) {
-      String sql = getDatasource().getSettings().isMultipleDatasources()
-          ? String.format("SELECT %s, %s FROM %s WHERE %s = ? AND %s= ? AND %s = ?", ESC_NAME_COLUMN, ESC_MISSING_COLUMN,
-          ESC_CATEGORIES_TABLE, ESC_DATASOURCE_COLUMN, ESC_VALUE_TABLE_COLUMN, ESC_VARIABLE_COLUMN)
-          : String.format("SELECT %s, %s FROM %s WHERE %s= ? AND %s = ?", ESC_NAME_COLUMN, ESC_MISSING_COLUMN, ESC_CATEGORIES_TABLE,
-          ESC_VALUE_TABLE_COLUMN, ESC_VARIABLE_COLUMN);
+          ? String.format("SELECT %s FROM %s WHERE %s = ? AND %s = ?", columns, escTableName, ESC_DATASOURCE_COLUMN,
+          ESC_VALUE_TABLE_COLUMN)
+          : String.format("SELECT %s FROM %s WHERE %s = ?", columns, escTableName, ESC_VALUE_TABLE_COLUMN);
       Object[] params = getDatasource().getSettings().isMultipleDatasources() ? new Object[]{
-          getDatasource().getName(), getName(), variableName} : new Object[]{getName(), variableName};
-
-      builder.addCategories(getDatasource().getJdbcTemplate().query(sql, params, new RowMapper<Category>() {
-
-        @Override
-        public Category mapRow(ResultSet rs, int rowNum) throws SQLException {
-          String categoryName = rs.getString(NAME_COLUMN);
-          Category.Builder catBuilder = Category.Builder.newCategory(categoryName)
-              .missing(rs.getBoolean(MISSING_COLUMN));
-          addVariableCategoryAtributes(variableName, categoryName, catBuilder);
-          return catBuilder.build();
-        }
-      }));
+          getDatasource().getName(), getName()} : new Object[]{getName()};
+      getDatasource().getJdbcTemplate().query(sql, params, handler);
     }
 
-    private void addVariableCategoryAtributes(String variableName, String categoryName, Category.Builder builder) {
-      String sql = getDatasource().getSettings().isMultipleDatasources()
-          ? String.format("SELECT * FROM %s WHERE %s = ? AND %s = ? AND %s = ? AND %s = ?", ESC_CATEGORY_ATTRIBUTES_TABLE,
-          ESC_DATASOURCE_COLUMN, ESC_VALUE_TABLE_COLUMN, ESC_VARIABLE_COLUMN, ESC_CATEGORY_COLUMN)
-          : String.format("SELECT * FROM %s WHERE %s = ? AND %s = ? AND %s = ?", ESC_CATEGORY_ATTRIBUTES_TABLE,
-          ESC_VALUE_TABLE_COLUMN, ESC_VARIABLE_COLUMN, ESC_CATEGORY_COLUMN);
-      Object[] params = getDatasource().getSettings().isMultipleDatasources()
-          ? new Object[]{getDatasource().getName(), getName(), variableName, categoryName}
-          : new Object[]{getName(), variableName, categoryName};
-
-      builder.addAttributes(getDatasource().getJdbcTemplate().query(sql, params, new AttributeRowMapper()));
+    private String categoryKey(String variableName, String categoryName) {
+      return variableName + '\u0000' + categoryName;
     }
   }
 
@@ -477,11 +520,11 @@ class JdbcValueTable extends AbstractValueTable {
   }
 
   private boolean metadataTablesExist() {
-    DatabaseSnapshot snapshot = getDatasource().getDatabaseSnapshot();
+    JdbcSchema schema = getDatasource().getSchema();
 
-    return snapshot.get(newTable(VARIABLES_TABLE)) != null &&
-        snapshot.get(newTable(VARIABLE_ATTRIBUTES_TABLE)) != null &&
-        snapshot.get(newTable(CATEGORIES_TABLE)) != null;
+    return schema.hasTable(VARIABLES_TABLE) &&
+        schema.hasTable(VARIABLE_ATTRIBUTES_TABLE) &&
+        schema.hasTable(CATEGORIES_TABLE);
   }
 
   private void createSqlTable(String sqlTableName) {
@@ -514,6 +557,50 @@ class JdbcValueTable extends AbstractValueTable {
     }
   }
 
+  /**
+   * Read the values of some variables of this table at once, the columns of each variable being selected by the same
+   * query.
+   */
+  @Override
+  public Value[][] getValues(List<VariableEntity> entities, List<Variable> variables) {
+    Value[][] values = new Value[variables.size()][entities.size()];
+    if (variables.isEmpty() || entities.isEmpty()) return values;
+    long start = Metrics.start();
+    try (JdbcVectorReader.ValuesIterator rows = readValues(variables, entities)) {
+      for (int j = 0; rows.hasNext(); j++) {
+        Value[] row = rows.next();
+        for (int i = 0; i < row.length; i++) {
+          values[i][j] = row[i];
+        }
+      }
+    }
+    Metrics.stop(Metrics.VECTOR_READ, getDatasource().getType(), start);
+    return values;
+  }
+
+  /**
+   * Read the values of a variable of this table for the given entities, in one query per batch of entities.
+   *
+   * @param variable
+   * @param entities
+   * @return
+   */
+  Iterator<Value> readValues(Variable variable, List<VariableEntity> entities) {
+    return Iterators.transform(readValues(Lists.newArrayList(variable), entities), values -> values[0]);
+  }
+
+  /**
+   * Read the values of some variables of this table for the given entities, in one query per batch of entities, on a
+   * connection that is held until the iteration is completed or closed.
+   *
+   * @param variables
+   * @param entities
+   * @return an array of values per entity, in the order of the variables
+   */
+  JdbcVectorReader.ValuesIterator readValues(List<Variable> variables, List<VariableEntity> entities) {
+    return new JdbcVectorReader(this, variables).read(entities);
+  }
+
   String getEntityIdentifierColumnSql() {
     return getDatasource().escapeColumnName(getSettings().getEntityIdentifierColumn());
   }
@@ -552,11 +639,16 @@ class JdbcValueTable extends AbstractValueTable {
   }
 
   public void refreshTable() {
+    reloadTable();
+    getDatasource().getTimestampsIndex().invalidate(getName());
+  }
+
+  private void reloadTable() {
     clearTimestamps();
-    getDatasource().databaseChanged();
+    getDatasource().databaseChanged(settings.getSqlTableName());
     // no need to refresh a view
     if (tableOrView instanceof Table) {
-      tableOrView = getDatasource().getDatabaseSnapshot().get(newTable(settings.getSqlTableName()));
+      tableOrView = getDatasource().getSchema().getTable(settings.getSqlTableName());
     }
   }
 
@@ -12,19 +12,21 @@ package org.obiba.magma.datasource.jdbc;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Closeables;
 import liquibase.change.Change;
 import liquibase.change.ColumnConfig;
 import liquibase.change.core.AddColumnChange;
 import liquibase.change.core.DropColumnChange;
 import liquibase.change.core.ModifyDataTypeChange;
 import liquibase.change.core.UpdateDataChange;
-import liquibase.structure.core.Column;
 import liquibase.structure.core.Table;
 import org.obiba.magma.*;
 import org.obiba.magma.datasource.jdbc.JdbcDatasource.ChangeDatabaseCallback;
 import org.obiba.magma.datasource.jdbc.support.AddColumnChangeBuilder;
 import org.obiba.magma.datasource.jdbc.support.InsertDataChangeBuilder;
 import org.obiba.magma.datasource.jdbc.support.UpdateDataChangeBuilder;
+import org.obiba.magma.metrics.Metrics;
 import org.obiba.magma.type.DateTimeType;
 import org.obiba.magma.type.DateType;
 import org.obiba.magma.type.LocaleType;
@@ -41,6 +43,7 @@ import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.validation.constraints.NotNull;
 import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
@@ -49,6 +52,7 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -96,6 +100,11 @@ class JdbcValueTableWriter implements ValueTableWriter {
 
   static final String UPDATED_COLUMN = "updated";
 
+  /**
+   * Maximum number of parameters of a multi-row INSERT statement.
+   */
+  private static final int MAX_INSERT_PARAMETERS = 1000;
+
   private final JdbcValueTable valueTable;
 
   private boolean hasValueSets;
@@ -109,6 +118,8 @@ class JdbcValueTableWriter implements ValueTableWriter {
 
   private int batchSize;
 
+  private String whereClause;
+
   JdbcValueTableWriter(JdbcValueTable valueTable) {
     if (valueTable.isSQLView()) throw new MagmaRuntimeException("A SQL view cannot be written");
 
@@ -134,6 +145,81 @@ class JdbcValueTableWriter implements ValueTableWriter {
     return new JdbcValueSetWriter(entity);
   }
 
+  /**
+   * Writes a block of value sets: the lines of the new entities are inserted with multi-row INSERT statements, the ones
+   * of the existing entities are updated in the same JDBC batch.
+   */
+  @Override
+  public void writeValueSets(@NotNull List<VariableEntity> entities, @NotNull List<Variable> variables,
+                             @NotNull Value[][] values) {
+    hasValueSets = true;
+    List<JdbcOperation> operations = Lists.newArrayList();
+    // lines to insert, grouped by the single-row statement (i.e. by columns)
+    Map<String, List<JdbcOperation>> inserts = Maps.newLinkedHashMap();
+    Map<String, JdbcLine> insertColumns = Maps.newHashMap();
+    for (int j = 0; j < entities.size(); j++) {
+      VariableEntity entity = entities.get(j);
+      JdbcLine jdbcLine = new JdbcLine(entity, valueTable);
+      for (int i = 0; i < variables.size(); i++) {
+        if (values[i][j] != null) jdbcLine.setValue(variables.get(i), values[i][j]);
+      }
+      boolean update = identifiersAtInit.contains(entity.getIdentifier());
+      String sql = update ? getUpdateSql(jdbcLine) : getInsertSql(jdbcLine, 1);
+      for (List<Value> line : jdbcLine.getLines()) {
+        line.add(TextType.get().valueOf(entity.getIdentifier()));
+        if (update) {
+          operations.add(new JdbcOperation(entity, sql, line));
+        } else {
+          inserts.computeIfAbsent(sql, k -> Lists.newArrayList()).add(new JdbcOperation(entity, sql, line));
+          insertColumns.putIfAbsent(sql, jdbcLine);
+        }
+      }
+    }
+    for (Map.Entry<String, List<JdbcOperation>> lines : inserts.entrySet()) {
+      operations.addAll(toMultiRowInserts(insertColumns.get(lines.getKey()), lines.getValue()));
+    }
+
+    List<JdbcOperation> toSave = null;
+
+    synchronized (valueTable) {
+      batch.addAll(operations);
+      if (batch.size() >= batchSize) {
+        toSave = Lists.newArrayList(batch);
+        batch.clear();
+      }
+    }
+
+    if (toSave != null) batchUpdate(toSave);
+  }
+
+  @Override
+  public boolean supportsCheckpoints() {
+    return true;
+  }
+
+  /**
+   * Merges single-row insertions of the same columns into multi-row INSERT statements.
+   */
+  private List<JdbcOperation> toMultiRowInserts(JdbcLine jdbcLine, List<JdbcOperation> lines) {
+    int columns = jdbcLine.size() + 1;
+    int rowsPerStatement = Math.max(1, Math.min(batchSize, MAX_INSERT_PARAMETERS / columns));
+    List<JdbcOperation> operations = Lists.newArrayList();
+    for (List<JdbcOperation> rows : Lists.partition(lines, rowsPerStatement)) {
+      if (rows.size() == 1) {
+        operations.add(rows.get(0));
+      } else {
+        List<VariableEntity> rowEntities = Lists.newArrayListWithCapacity(rows.size());
+        List<Value> parameters = Lists.newArrayListWithCapacity(rows.size() * columns);
+        for (JdbcOperation row : rows) {
+          rowEntities.addAll(row.getVariableEntities());
+          parameters.addAll(row.getParameters());
+        }
+        operations.add(new JdbcOperation(rowEntities, getInsertSql(jdbcLine, rows.size()), parameters));
+      }
+    }
+    return operations;
+  }
+
   @Override
   public VariableWriter writeVariables() {
     return valueTable.getDatasource().getSettings().isUseMetadataTables()
@@ -142,8 +228,7 @@ class JdbcValueTableWriter implements ValueTableWriter {
   }
 
   @Override
-  public void close() {
-
+  public void flush() {
     List<JdbcOperation> toSave = null;
 
     synchronized (valueTable) {
@@ -154,8 +239,14 @@ class JdbcValueTableWriter implements ValueTableWriter {
     }
 
     if (toSave != null) batchUpdate(toSave);
+  }
+
+  @Override
+  public void close() {
+
+    flush();
 
-    getDatasource().databaseChanged();
+    getDatasource().databaseChanged(valueTable.getSqlName());
     valueTable.tableChanged();
   }
 
@@ -172,12 +263,14 @@ class JdbcValueTableWriter implements ValueTableWriter {
   }
 
   private void batchUpdate(final List<JdbcOperation> operations) {
+    long start = Metrics.start();
     getTransactionTemplate().execute(new TransactionCallbackWithoutResult() {
       @Override
       protected void doInTransactionWithoutResult(TransactionStatus status) {
         batchUpdateInternal(operations);
       }
     });
+    Metrics.stop(Metrics.WRITER_FLUSH, valueTable.getDatasource().getType(), start);
   }
 
   @SuppressWarnings({"OverlyLongMethod", "PMD.NcssMethodCount"})
@@ -186,69 +279,84 @@ class JdbcValueTableWriter implements ValueTableWriter {
 
     List<VariableEntity> entities = operations.stream()
         .filter(op -> op.getSql().startsWith("INSERT "))
-        .map(JdbcOperation::getVariableEntity).collect(Collectors.toList());
+        .flatMap(op -> op.getVariableEntities().stream()).collect(Collectors.toList());
     valueTable.getJdbcVariableEntityProvider().addAll(entities);
 
     List<String> sqls = operations.stream().map(JdbcOperation::getSql).distinct().collect(Collectors.toList());
 
-    for (String sql : sqls) {
-      final List<List<Value>> batchValues = operations.stream()
-          .filter(op -> sql.equals(op.getSql()))
-          .map(JdbcOperation::getParameters).collect(Collectors.toList());
-      int[] res = getJdbcTemplate().batchUpdate(sql, new AbstractInterruptibleBatchPreparedStatementSetter() {
-        @Override
-        protected boolean setValuesIfAvailable(PreparedStatement ps, int i) throws SQLException {
-          int index = 1;
-
-          if (batchValues.size() <= i) {
-            return false;
-          }
-
-          for (Value value : batchValues.get(i)) {
-            Object columnValue = toColumnValue(value);
-            if (columnValue instanceof byte[]) {
-              lobHandler.getLobCreator().setBlobAsBinaryStream(ps, index++, new ByteArrayInputStream((byte[]) columnValue),
-                  ((byte[]) columnValue).length);
-            } else {
-              ps.setObject(index++, columnValue);
+    // binary value streams are read when the batch is executed
+    final List<InputStream> streams = Lists.newArrayList();
+    try {
+      for (String sql : sqls) {
+        final List<List<Value>> batchValues = operations.stream()
+            .filter(op -> sql.equals(op.getSql()))
+            .map(JdbcOperation::getParameters).collect(Collectors.toList());
+        int[] res = getJdbcTemplate().batchUpdate(sql, new AbstractInterruptibleBatchPreparedStatementSetter() {
+          @Override
+          protected boolean setValuesIfAvailable(PreparedStatement ps, int i) throws SQLException {
+            int index = 1;
+
+            if (batchValues.size() <= i) {
+              return false;
             }
-          }
 
-          return true;
-        }
+            for (Value value : batchValues.get(i)) {
+              if (value.isStreamable()) {
+                InputStream stream = value.getStream();
+                streams.add(stream);
+                // streamed without length when it does not fit in an int
+                long length = value.getLength();
+                lobHandler.getLobCreator().setBlobAsBinaryStream(ps, index++, stream,
+                    length >= 0 && length <= Integer.MAX_VALUE ? (int) length : -1);
+                continue;
+              }
+              Object columnValue = toColumnValue(value);
+              if (columnValue instanceof byte[]) {
+                lobHandler.getLobCreator().setBlobAsBinaryStream(ps, index++, new ByteArrayInputStream((byte[]) columnValue),
+                    ((byte[]) columnValue).length);
+              } else {
+                ps.setObject(index++, columnValue);
+              }
+            }
 
-        private Object toColumnValue(Value value) {
-          Object columnValue = null;
-          if (!value.isNull()) {
-            if (value.isSequence()) {
-              columnValue = value.toString();
-            } else {
-              columnValue = value.getValue();
+            return true;
+          }
 
-              // Persist some objects as strings.
-              if (value.getValueType() == LocaleType.get() || value.getValueType().isGeo()) {
+          private Object toColumnValue(Value value) {
+            Object columnValue = null;
+            if (!value.isNull()) {
+              if (value.isSequence()) {
                 columnValue = value.toString();
-              } else if (value.getValueType() == DateType.get()) {
-                if (columnValue instanceof java.util.Date) {
-                  columnValue = new Date(((java.util.Date) columnValue).getTime());
-                } else if (columnValue instanceof MagmaDate) {
-                  columnValue = new Date(((MagmaDate) columnValue).asDate().getTime());
-                }
-              } else if (value.getValueType() == DateTimeType.get()) {
-                if (columnValue instanceof java.util.Date) {
-                  columnValue = new Timestamp(((java.util.Date) columnValue).getTime());
-                } else if (columnValue instanceof MagmaDate) {
-                  columnValue = new Timestamp(((MagmaDate) columnValue).asDate().getTime());
+              } else {
+                columnValue = value.getValue();
+
+                // Persist some objects as strings.
+                if (value.getValueType() == LocaleType.get() || value.getValueType().isGeo()) {
+                  columnValue = value.toString();
+                } else if (value.getValueType() == DateType.get()) {
+                  if (columnValue instanceof java.util.Date) {
+                    columnValue = new Date(((java.util.Date) columnValue).getTime());
+                  } else if (columnValue instanceof MagmaDate) {
+                    columnValue = new Date(((MagmaDate) columnValue).asDate().getTime());
+                  }
+                } else if (value.getValueType() == DateTimeType.get()) {
+                  if (columnValue instanceof java.util.Date) {
+                    columnValue = new Timestamp(((java.util.Date) columnValue).getTime());
+                  } else if (columnValue instanceof MagmaDate) {
+                    columnValue = new Timestamp(((MagmaDate) columnValue).asDate().getTime());
+                  }
                 }
               }
             }
+            return columnValue;
           }
-          return columnValue;
-        }
 
-      });
+        });
 
-      log.debug("batchUpdate modified {} rows", res.length);
+        log.debug("batchUpdate modified {} rows", res.length);
+      }
+    } finally {
+      streams.forEach(Closeables::closeQuietly);
     }
   }
 
@@ -299,7 +407,7 @@ class JdbcValueTableWriter implements ValueTableWriter {
     @Override
     public void close() {
       getDatasource().doWithDatabase(new ChangeDatabaseCallback(changes));
-      valueTable.refreshTable();
+      valueTable.tableUpdated();
       valueTable.refreshVariablesMap();
     }
 
@@ -353,8 +461,8 @@ class JdbcValueTableWriter implements ValueTableWriter {
     boolean variableExists(Variable variable) {
       String columnName = getVariableSqlName(variable.getName());
 
-      return getDatasource().getDatabaseSnapshot()
-          .get(new Column(Table.class, null, null, valueTable.getSqlName(), columnName)) != null;
+      Table table = getDatasource().getSchema().getTable(valueTable.getSqlName());
+      return table != null && table.getColumn(columnName) != null;
     }
   }
 
@@ -528,8 +636,6 @@ class JdbcValueTableWriter implements ValueTableWriter {
 
     private String updateSql;
 
-    private String whereClause;
-
     private boolean remove;
 
     private JdbcValueSetWriter(VariableEntity entity) {
@@ -594,11 +700,7 @@ class JdbcValueTableWriter implements ValueTableWriter {
 
     private String getInsertSql() {
       if (insertSql == null) {
-        String colNames = Joiner.on(", ").join(getEscapedColumnNames());
-        colNames = colNames.isEmpty() ? getEscapedEntityIdentifierColumnName()
-            : colNames + ", " + getEscapedEntityIdentifierColumnName();
-        String values = Joiner.on(", ").join(Collections.nCopies(jdbcLine.size() + 1, "?"));
-        insertSql = String.format("INSERT INTO %s (%s) VALUES (%s)", getEscapedTableName(), colNames, values);
+        insertSql = JdbcValueTableWriter.this.getInsertSql(jdbcLine, 1);
       }
 
       return insertSql;
@@ -606,55 +708,72 @@ class JdbcValueTableWriter implements ValueTableWriter {
 
     private String getUpdateSql() {
       if (updateSql == null) {
-        String colNames = Joiner.on(", ")
-            .join(getEscapedColumnNames().stream().map(c -> String.format("%s = ?", c)).collect(Collectors.toList()));
-        updateSql = String.format("UPDATE %s SET %s %s", getEscapedTableName(), colNames, getWhereClause());
+        updateSql = JdbcValueTableWriter.this.getUpdateSql(jdbcLine);
       }
 
       return updateSql;
     }
 
-    private String getEscapedTableName() {
-      return getDatasource().escapeTableName(valueTable.getSqlName());
+    private String getDeleteSql() {
+      return String.format("DELETE FROM %s %s", getDatasource().escapeTableName(valueTable.getSqlName()), getWhereClause());
     }
+  }
 
-    private List<String> getEscapedColumnNames() {
-      return jdbcLine.getColumnNames().stream().map(getDatasource()::escapeColumnName).collect(Collectors.toList());
-    }
+  private String getInsertSql(JdbcLine jdbcLine, int rows) {
+    String colNames = Joiner.on(", ").join(getEscapedColumnNames(jdbcLine));
+    colNames = colNames.isEmpty() ? getEscapedEntityIdentifierColumnName()
+        : colNames + ", " + getEscapedEntityIdentifierColumnName();
+    String row = "(" + Joiner.on(", ").join(Collections.nCopies(jdbcLine.size() + 1, "?")) + ")";
+    return String.format("INSERT INTO %s (%s) VALUES %s", getEscapedTableName(), colNames,
+        Joiner.on(", ").join(Collections.nCopies(rows, row)));
+  }
 
-    private String getEscapedEntityIdentifierColumnName() {
-      return getDatasource().escapeColumnName(valueTable.getSettings().getEntityIdentifierColumn());
-    }
+  private String getUpdateSql(JdbcLine jdbcLine) {
+    String colNames = Joiner.on(", ")
+        .join(getEscapedColumnNames(jdbcLine).stream().map(c -> String.format("%s = ?", c)).collect(Collectors.toList()));
+    return String.format("UPDATE %s SET %s %s", getEscapedTableName(), colNames, getWhereClause());
+  }
 
-    private String getDeleteSql() {
-      return String.format("DELETE FROM %s %s", getDatasource().escapeTableName(valueTable.getSqlName()), getWhereClause());
-    }
+  private String getEscapedTableName() {
+    return getDatasource().escapeTableName(valueTable.getSqlName());
+  }
 
-    private String getWhereClause() {
-      if (whereClause == null) {
-        whereClause = String.format("WHERE %s = ?", getEscapedEntityIdentifierColumnName());
-      }
+  private List<String> getEscapedColumnNames(JdbcLine jdbcLine) {
+    return jdbcLine.getColumnNames().stream().map(getDatasource()::escapeColumnName).collect(Collectors.toList());
+  }
 
-      return whereClause;
+  private String getEscapedEntityIdentifierColumnName() {
+    return getDatasource().escapeColumnName(valueTable.getSettings().getEntityIdentifierColumn());
+  }
+
+  private String getWhereClause() {
+    if (whereClause == null) {
+      whereClause = String.format("WHERE %s = ?", getEscapedEntityIdentifierColumnName());
     }
+
+    return whereClause;
   }
 
   private class JdbcOperation {
 
-    private final VariableEntity entity;
+    private final List<VariableEntity> entities;
 
     private final String sql;
 
     private final List<Value> parameters;
 
     private JdbcOperation(VariableEntity entity, String sql, List<Value> parameters) {
-      this.entity = entity;
+      this(Collections.singletonList(entity), sql, parameters);
+    }
+
+    private JdbcOperation(List<VariableEntity> entities, String sql, List<Value> parameters) {
+      this.entities = entities;
       this.sql = sql;
       this.parameters = parameters;
     }
 
-    public VariableEntity getVariableEntity() {
-      return entity;
+    public List<VariableEntity> getVariableEntities() {
+      return entities;
     }
 
     public String getSql() {
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.datasource.jdbc;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.obiba.magma.MagmaRuntimeException;
+import org.obiba.magma.Value;
+import org.obiba.magma.Variable;
+import org.obiba.magma.VariableEntity;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the values of one or more variables of a {@link JdbcValueTable} for a list of {@link VariableEntity}s.
+ * <p>
+ * The entities are queried by batches of the table's entity batch size, with the identifiers bound as statement
+ * parameters. The last batch is padded with its last identifier so that all the batches run the same prepared
+ * statement, on a single connection per iteration. Only the rows of the current batch are buffered. The connection is
+ * released when the iteration is completed: an iteration that stops early is to be closed.
+ */
+class JdbcVectorReader {
+
+  private final JdbcValueTable valueTable;
+
+  private final List<Variable> variables;
+
+  private final List<String> columnNames;
+
+  JdbcVectorReader(JdbcValueTable valueTable, List<Variable> variables) {
+    this.valueTable = valueTable;
+    this.variables = variables;
+    columnNames = variables.stream() //
+        .map(variable -> valueTable.getVariableSqlName(variable.getName())) //
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Get the values of the variables for each entity, in the order of the entities.
+   *
+   * @param entities
+   * @return an array of values per entity, in the order of the variables
+   */
+  ValuesIterator read(List<VariableEntity> entities) {
+    return new ValuesIterator(entities);
+  }
+
+  private String getQuery(int parameterCount) {
+    JdbcDatasource datasource = valueTable.getDatasource();
+    String escapedIdentifierColumn = valueTable.getEntityIdentifierColumnSql();
+    List<String> select = Lists.newArrayList(escapedIdentifierColumn);
+    columnNames.forEach(columnName -> select.add(datasource.escapeColumnName(columnName)));
+
+    String whereIds = String.format("%s IN (%s)", escapedIdentifierColumn,
+        Joiner.on(", ").join(Collections.nCopies(parameterCount, "?")));
+    String where = valueTable.getSettings().hasEntityIdentifiersWhere()
+        ? String.format("%s AND %s", valueTable.getSettings().getEntityIdentifiersWhere(), whereIds)
+        : whereIds;
+
+    return String.format("SELECT %s FROM %s WHERE %s", Joiner.on(", ").join(select),
+        datasource.escapeTableName(valueTable.getSqlName()), where);
+  }
+
+  private Value getValue(ResultSet rs, int index) throws SQLException {
+    Variable variable = variables.get(index);
+    Object resObj = rs.getObject(index + 2);
+    if (resObj == null) {
+      return getNullValue(variable);
+    }
+    if (variable.isRepeatable()) {
+      return variable.getValueType().sequenceOf(resObj.toString());
+    }
+    return variable.getValueType().valueOf(resObj);
+  }
+
+  private Value getNullValue(Variable variable) {
+    return variable.isRepeatable() ? variable.getValueType().nullSequence() : variable.getValueType().nullValue();
+  }
+
+  class ValuesIterator implements Iterator<Value[]>, AutoCloseable {
+
+    private final List<List<String>> partitions;
+
+    private final int parameterCount;
+
+    private int partitionIndex = 0;
+
+    private Iterator<String> identifiers = Collections.emptyIterator();
+
+    private final Map<String, Value[]> rows = Maps.newHashMap();
+
+    private Connection connection;
+
+    private PreparedStatement statement;
+
+    private ValuesIterator(List<VariableEntity> entities) {
+      partitions = Lists.partition(entities.stream() //
+          .map(VariableEntity::getIdentifier) //
+          .collect(Collectors.toList()), valueTable.getVariableEntityBatchSize());
+      parameterCount = partitions.isEmpty() ? 0 : partitions.get(0).size();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return identifiers.hasNext() || partitionIndex < partitions.size();
+    }
+
+    @Override
+    public Value[] next() {
+      if (!hasNext()) throw new NoSuchElementException();
+      if (!identifiers.hasNext()) {
+        loadNextPartition();
+      }
+      Value[] values = rows.remove(identifiers.next());
+      if (values == null) {
+        values = new Value[variables.size()];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = getNullValue(variables.get(i));
+        }
+      }
+      if (!hasNext()) close();
+      return values;
+    }
+
+    private void loadNextPartition() {
+      List<String> partition = partitions.get(partitionIndex++);
+      rows.clear();
+      try {
+        if (statement == null) {
+          DataSource dataSource = valueTable.getDatasource().getJdbcTemplate().getDataSource();
+          connection = DataSourceUtils.getConnection(dataSource);
+          statement = connection.prepareStatement(getQuery(parameterCount));
+        }
+        for (int i = 0; i < parameterCount; i++) {
+          statement.setString(i + 1, partition.get(Math.min(i, partition.size() - 1)));
+        }
+        try (ResultSet rs = statement.executeQuery()) {
+          while (rs.next()) {
+            Value[] values = new Value[variables.size()];
+            for (int i = 0; i < values.length; i++) {
+              values[i] = getValue(rs, i);
+            }
+            rows.put(valueTable.extractEntityIdentifier(rs), values);
+          }
+        }
+      } catch (SQLException e) {
+        close();
+        throw new MagmaRuntimeException(e);
+      }
+      identifiers = partition.iterator();
+    }
+
+    /**
+     * Stop the iteration and release its connection.
+     */
+    @Override
+    public void close() {
+      partitionIndex = partitions.size();
+      identifiers = Collections.emptyIterator();
+      JdbcUtils.closeStatement(statement);
+      statement = null;
+      if (connection != null) {
+        DataSourceUtils.releaseConnection(connection, valueTable.getDatasource().getJdbcTemplate().getDataSource());
+        connection = null;
+      }
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -10,8 +10,11 @@
 
 package org.obiba.magma.datasource.jdbc;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.primitives.Ints;
+import org.apache.commons.dbcp.BasicDataSource;
 import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
@@ -22,14 +25,22 @@ import org.obiba.core.test.spring.DbUnitAwareTestExecutionListener;
 import org.obiba.magma.*;
 import org.obiba.magma.ValueTableWriter.ValueSetWriter;
 import org.obiba.magma.ValueTableWriter.VariableWriter;
+import org.obiba.magma.support.AbstractValueTable;
+import org.obiba.magma.support.DatasourceCopier;
+import org.obiba.magma.support.StaticDatasource;
 import org.obiba.magma.support.VariableEntityBean;
 import org.obiba.magma.test.AbstractMagmaTest;
 import org.obiba.magma.test.SchemaTestExecutionListener;
 import org.obiba.magma.test.TestSchema;
+import org.obiba.magma.type.BinaryType;
+import org.obiba.magma.type.BooleanType;
+import org.obiba.magma.type.DateTimeType;
+import org.obiba.magma.type.DateType;
 import org.obiba.magma.type.DecimalType;
 import org.obiba.magma.type.IntegerType;
 import org.obiba.magma.type.TextType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestExecutionListeners;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
@@ -39,6 +50,16 @@ import org.springframework.test.context.transaction.TransactionConfiguration;
 import org.springframework.test.context.transaction.TransactionalTestExecutionListener;
 
 import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.Locale;
 import java.util.stream.Collectors;
 
 import static org.fest.assertions.api.Assertions.assertThat;
@@ -210,6 +231,206 @@ public class JdbcDatasourceTest extends AbstractMagmaTest {
     jdbcDatasource.dispose();
   }
 
+  @TestSchema(schemaLocation = "org/obiba/magma/datasource/jdbc", beforeSchema = "schema-notables.sql",
+      afterSchema = "schema-notables.sql")
+  @Test
+  public void test_vectorSourceByBatches() {
+    // one variable: batches of 100 entities
+    MagmaEngine.get().extend(new MagmaParametersExtension(
+        ImmutableMap.<String, Object>of(AbstractValueTable.READ_DATA_POINTS_COUNT_KEY, 100)));
+    JdbcDatasource jdbcDatasource = new JdbcDatasource("my-datasource-nodb", dataSource, getDataSourceSettingsBuilder(false).build());
+    jdbcDatasource.initialise();
+    try (ValueTableWriter tableWriter = jdbcDatasource.createWriter("MY_TABLE", "Participant")) {
+      try (VariableWriter variableWriter = tableWriter.writeVariables()) {
+        variableWriter.writeVariable(Variable.Builder.newVariable("MY_VAR1", IntegerType.get(), "Participant").build());
+      }
+      Variable myVar1 = jdbcDatasource.getValueTable("MY_TABLE").getVariable("MY_VAR1");
+      for (int i = 0; i < 250; i++) {
+        try (ValueSetWriter valueSetWriter = tableWriter.writeValueSet(new VariableEntityBean("Participant", "" + i))) {
+          valueSetWriter.writeValue(myVar1, IntegerType.get().valueOf(i));
+        }
+      }
+    }
+
+    ValueTable valueTable = jdbcDatasource.getValueTable("MY_TABLE");
+    VectorSource vectorSource = valueTable.getVariableValueSource("MY_VAR1").asVectorSource();
+    List<VariableEntity> entities = Lists.newArrayList();
+    for (int i = 249; i >= 0; i--) {
+      entities.add(new VariableEntityBean("Participant", "" + i));
+    }
+    entities.add(100, new VariableEntityBean("Participant", "unknown"));
+
+    List<Value> values = Lists.newArrayList(vectorSource.getValues(entities));
+    assertThat(values).hasSize(251);
+    assertThat(values.get(0).getValue()).isEqualTo(249L);
+    assertThat(values.get(99).getValue()).isEqualTo(150L);
+    assertThat(values.get(100).isNull()).isTrue();
+    assertThat(values.get(101).getValue()).isEqualTo(149L);
+    assertThat(values.get(250).getValue()).isEqualTo(0L);
+
+    // the connection is released when the iteration is completed
+    assertThat(((BasicDataSource) dataSource).getNumActive()).isEqualTo(0);
+
+    // or when it is closed
+    try (JdbcVectorReader.ValuesIterator rows = ((JdbcValueTable) valueTable)
+        .readValues(Lists.newArrayList(valueTable.getVariable("MY_VAR1")), entities)) {
+      assertThat(rows.next()[0].getValue()).isEqualTo(249L);
+      assertThat(((BasicDataSource) dataSource).getNumActive()).isEqualTo(1);
+    }
+    assertThat(((BasicDataSource) dataSource).getNumActive()).isEqualTo(0);
+
+    jdbcDatasource.dispose();
+  }
+
+  @TestSchema(schemaLocation = "org/obiba/magma/datasource/jdbc", beforeSchema = "schema-notables.sql",
+      afterSchema = "schema-notables.sql")
+  @Test
+  public void test_valuesReadByColumns() throws Exception {
+    // two variables: batches of 50 entities
+    MagmaEngine.get().extend(new MagmaParametersExtension(
+        ImmutableMap.<String, Object>of(AbstractValueTable.READ_DATA_POINTS_COUNT_KEY, 100)));
+    JdbcDatasource jdbcDatasource = new JdbcDatasource("my-datasource-nodb", dataSource, getDataSourceSettingsBuilder(false).build());
+    jdbcDatasource.initialise();
+    try (ValueTableWriter tableWriter = jdbcDatasource.createWriter("MY_TABLE", "Participant")) {
+      try (VariableWriter variableWriter = tableWriter.writeVariables()) {
+        variableWriter.writeVariable(Variable.Builder.newVariable("MY_VAR1", IntegerType.get(), "Participant").build());
+        variableWriter.writeVariable(Variable.Builder.newVariable("MY_VAR2", TextType.get(), "Participant").build());
+      }
+      ValueTable valueTable = jdbcDatasource.getValueTable("MY_TABLE");
+      for (int i = 0; i < 120; i++) {
+        try (ValueSetWriter valueSetWriter = tableWriter.writeValueSet(new VariableEntityBean("Participant", "" + i))) {
+          valueSetWriter.writeValue(valueTable.getVariable("MY_VAR1"), IntegerType.get().valueOf(i));
+          if (i % 2 == 0) valueSetWriter.writeValue(valueTable.getVariable("MY_VAR2"), TextType.get().valueOf("v" + i));
+        }
+      }
+    }
+
+    ValueTable valueTable = jdbcDatasource.getValueTable("MY_TABLE");
+    List<Variable> variables = Lists.newArrayList(valueTable.getVariable("MY_VAR2"), valueTable.getVariable("MY_VAR1"));
+    List<VariableEntity> entities = Lists.newArrayList();
+    for (int i = 119; i >= 0; i--) {
+      entities.add(new VariableEntityBean("Participant", "" + i));
+    }
+    entities.add(60, new VariableEntityBean("Participant", "unknown"));
+
+    Value[][] values = valueTable.getValues(entities, variables);
+    assertThat(values).hasSize(2);
+    assertThat(values[0]).hasSize(121);
+    assertThat(values[0][0].isNull()).isTrue();
+    assertThat(values[0][1].getValue()).isEqualTo("v118");
+    assertThat(values[1][0].getValue()).isEqualTo(119L);
+    assertThat(values[0][60].isNull()).isTrue();
+    assertThat(values[1][60].isNull()).isTrue();
+    assertThat(values[1][61].getValue()).isEqualTo(59L);
+    assertThat(values[0][120].getValue()).isEqualTo("v0");
+    assertThat(values[1][120].getValue()).isEqualTo(0L);
+    assertThat(((BasicDataSource) dataSource).getNumActive()).isEqualTo(0);
+
+    // the vectorized copy reads the columns with the same queries
+    StaticDatasource destination = new StaticDatasource("destination");
+    DatasourceCopier.Builder.newCopier().withVectorizedValues().build().copy(valueTable, destination);
+    ValueTable copy = destination.getValueTable("MY_TABLE");
+    assertThat(copy.getValueSetCount()).isEqualTo(120);
+    ValueSet valueSet = copy.getValueSet(new VariableEntityBean("Participant", "42"));
+    assertThat(copy.getValue(copy.getVariable("MY_VAR1"), valueSet).getValue()).isEqualTo(42L);
+    assertThat(copy.getValue(copy.getVariable("MY_VAR2"), valueSet).getValue()).isEqualTo("v42");
+
+    jdbcDatasource.dispose();
+  }
+
+  @TestSchema(schemaLocation = "org/obiba/magma/datasource/jdbc", beforeSchema = "schema-notables.sql",
+      afterSchema = "schema-notables.sql")
+  @Test
+  public void test_valuesDecodedByColumnType() {
+    JdbcDatasource jdbcDatasource = new JdbcDatasource("my-datasource-nodb", dataSource, getDataSourceSettingsBuilder(false).build());
+    jdbcDatasource.initialise();
+    Map<String, Value> expected = ImmutableMap.<String, Value>builder()
+        .put("INT_VAR", IntegerType.get().valueOf(77))
+        .put("DEC_VAR", DecimalType.get().valueOf(7.5))
+        .put("BOOL_VAR", BooleanType.get().trueValue())
+        .put("DATE_VAR", DateType.get().valueOf(new MagmaDate(2019, 12, 9)))
+        .put("DATETIME_VAR", DateTimeType.get().valueOf(new Date(1575900000123L)))
+        .put("TEXT_VAR", TextType.get().valueOf("Coucou"))
+        .build();
+    try (ValueTableWriter tableWriter = jdbcDatasource.createWriter("MY_TABLE", "Participant")) {
+      try (VariableWriter variableWriter = tableWriter.writeVariables()) {
+        expected.forEach((name, value) ->
+            variableWriter.writeVariable(Variable.Builder.newVariable(name, value.getValueType(), "Participant").build()));
+      }
+      ValueTable vt = jdbcDatasource.getValueTable("MY_TABLE");
+      try (ValueSetWriter valueSetWriter = tableWriter.writeValueSet(new VariableEntityBean("Participant", "1"))) {
+        expected.forEach((name, value) -> valueSetWriter.writeValue(vt.getVariable(name), value));
+      }
+      try (ValueSetWriter valueSetWriter = tableWriter.writeValueSet(new VariableEntityBean("Participant", "2"))) {
+        valueSetWriter.writeValue(vt.getVariable("TEXT_VAR"), TextType.get().nullValue());
+      }
+    }
+
+    ValueTable vt = jdbcDatasource.getValueTable("MY_TABLE");
+    VariableEntity entity1 = new VariableEntityBean("Participant", "1");
+    VariableEntity entity2 = new VariableEntityBean("Participant", "2");
+    // one query per value set, then one query for both
+    List<ValueSet> valueSets = Lists.newArrayList(vt.getValueSet(entity1), vt.getValueSet(entity2));
+    valueSets.addAll(Lists.newArrayList(vt.getValueSets(Lists.newArrayList(entity1, entity2))));
+    for (int i = 0; i < valueSets.size(); i++) {
+      ValueSet vs = valueSets.get(i);
+      for (Map.Entry<String, Value> entry : expected.entrySet()) {
+        Value value = vt.getValue(vt.getVariable(entry.getKey()), vs);
+        assertThat(value.getValueType()).isEqualTo(entry.getValue().getValueType());
+        if (i % 2 == 0) {
+          assertThat(value).isEqualTo(entry.getValue());
+        } else {
+          assertThat(value.isNull()).isTrue();
+        }
+      }
+    }
+
+    jdbcDatasource.dispose();
+  }
+
+  @TestSchema(schemaLocation = "org/obiba/magma/datasource/jdbc", beforeSchema = "schema-notables.sql",
+      afterSchema = "schema-notables.sql")
+  @Test
+  public void test_valuesReadByConcurrentQueries() throws Exception {
+    JdbcDatasource jdbcDatasource = new JdbcDatasource("my-datasource-nodb", dataSource, getDataSourceSettingsBuilder(false).build());
+    jdbcDatasource.initialise();
+    try (ValueTableWriter tableWriter = jdbcDatasource.createWriter("MY_TABLE", "Participant")) {
+      try (VariableWriter variableWriter = tableWriter.writeVariables()) {
+        variableWriter.writeVariable(Variable.Builder.newVariable("INT_VAR", IntegerType.get(), "Participant").build());
+        variableWriter.writeVariable(Variable.Builder.newVariable("BIN_VAR", BinaryType.get(), "Participant").build());
+      }
+      ValueTable vt = jdbcDatasource.getValueTable("MY_TABLE");
+      for (int i = 0; i < 50; i++) {
+        try (ValueSetWriter valueSetWriter = tableWriter.writeValueSet(new VariableEntityBean("Participant", "" + i))) {
+          valueSetWriter.writeValue(vt.getVariable("INT_VAR"), IntegerType.get().valueOf(i));
+          valueSetWriter.writeValue(vt.getVariable("BIN_VAR"), BinaryType.get().valueOf(new byte[] { (byte) i, 1, 2 }));
+        }
+      }
+    }
+
+    ValueTable vt = jdbcDatasource.getValueTable("MY_TABLE");
+    List<ValueSet> valueSets = Lists.newArrayList();
+    for (int i = 0; i < 50; i++) {
+      valueSets.add(vt.getValueSet(new VariableEntityBean("Participant", "" + i)));
+    }
+    // each value set is read with a query on the binary column and a query on the other columns at the same time
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<List<Value>> binaries = executor.submit(() -> valueSets.stream()
+          .map(vs -> vt.getValue(vt.getVariable("BIN_VAR"), vs)).collect(Collectors.toList()));
+      Future<List<Value>> integers = executor.submit(() -> valueSets.stream()
+          .map(vs -> vt.getValue(vt.getVariable("INT_VAR"), vs)).collect(Collectors.toList()));
+      for (int i = 0; i < 50; i++) {
+        assertThat((byte[]) binaries.get(10, TimeUnit.SECONDS).get(i).getValue()).isEqualTo(new byte[] { (byte) i, 1, 2 });
+        assertThat(integers.get(10, TimeUnit.SECONDS).get(i).getValue()).isEqualTo((long) i);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    jdbcDatasource.dispose();
+  }
+
   @TestSchema(schemaLocation = "org/obiba/magma/datasource/jdbc", beforeSchema = "schema-nometa-where.sql",
       afterSchema = "schema-notables.sql")
   @Dataset(filenames = "JdbcDatasourceTest-nometa-where.xml")
@@ -282,6 +503,34 @@ public class JdbcDatasourceTest extends AbstractMagmaTest {
     jdbcDatasource.dispose();
   }
 
+  @TestSchema(schemaLocation = "org/obiba/magma/datasource/jdbc", beforeSchema = "schema-notables.sql",
+      afterSchema = "schema-notables.sql")
+  @Test
+  public void test_schemaLookups() {
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("CREATE TABLE MY_TABLE (PART_ID VARCHAR(255) PRIMARY KEY, A_B INTEGER)");
+    jdbcTemplate.execute("CREATE TABLE BONE_DENSITY (PART_ID VARCHAR(255), AXB INTEGER)");
+    JdbcDatasource jdbcDatasource = new JdbcDatasource("my-datasource", dataSource,
+        JdbcDatasourceSettings.newSettings("Participant").build());
+    jdbcDatasource.initialise();
+    JdbcSchema schema = jdbcDatasource.getSchema();
+
+    // the column name is not a pattern
+    assertThat(schema.getTableNamesWithColumn("A_B")).containsOnly("MY_TABLE");
+    assertThat(schema.getTableNamesWithColumn("PART_ID")).containsOnly("MY_TABLE", "BONE_DENSITY");
+
+    // the table is inspected once and refreshed whatever the case of its name
+    assertThat(schema.getTable("my_table").getColumns()).hasSize(2);
+    jdbcTemplate.execute("ALTER TABLE MY_TABLE ADD COLUMN C INTEGER");
+    assertThat(schema.getTable("my_table").getColumns()).hasSize(2);
+    schema.refresh("MY_TABLE");
+    assertThat(schema.getTable("my_table").getColumns()).hasSize(3);
+    assertThat(schema.hasPrimaryKey("MY_TABLE")).isTrue();
+    assertThat(schema.hasPrimaryKey("BONE_DENSITY")).isFalse();
+
+    jdbcDatasource.dispose();
+  }
+
   @TestSchema(schemaLocation = "org/obiba/magma/datasource/jdbc", beforeSchema = "schema-notables.sql")
   @Test
   public void testDropDatasource() {
@@ -595,6 +844,50 @@ public class JdbcDatasourceTest extends AbstractMagmaTest {
     jdbcDatasource.dispose();
   }
 
+  @TestSchema(schemaLocation = "org/obiba/magma/datasource/jdbc", beforeSchema = "schema-notables.sql",
+      afterSchema = "schema-notables.sql")
+  @Test
+  public void test_variablesLoadedWithAttributesAndCategories() {
+    JdbcDatasourceSettings settings = getDataSourceSettingsBuilder(false).useMetadataTables().multipleDatasources().build();
+    JdbcDatasource jdbcDatasource = new JdbcDatasource("my-datasource-nodb", dataSource, settings);
+    jdbcDatasource.initialise();
+    try (ValueTableWriter tableWriter = jdbcDatasource.createWriter("MY_TABLE", "Participant");
+         VariableWriter variableWriter = tableWriter.writeVariables()) {
+      variableWriter.writeVariable(Variable.Builder.newVariable("MY_VAR1", IntegerType.get(), "Participant")
+          .addAttribute("label", "Var 1", Locale.ENGLISH).addAttribute("label", "Var 1 fr", Locale.FRENCH)
+          .addAttribute(Attribute.Builder.newAttribute("stage").withNamespace("maelstrom").withValue("1").build())
+          .addCategory(Category.Builder.newCategory("1").addAttribute("label", "One", Locale.ENGLISH).build())
+          .addCategory(Category.Builder.newCategory("2").build())
+          .addCategory(Category.Builder.newCategory("9").missing(true).addAttribute("label", "Unknown", Locale.ENGLISH)
+              .addAttribute("label", "Inconnu", Locale.FRENCH).build()).build());
+      variableWriter.writeVariable(Variable.Builder.newVariable("MY_VAR2", TextType.get(), "Participant")
+          .addCategory(Category.Builder.newCategory("1").addAttribute("label", "Yes", Locale.ENGLISH).build())
+          .addCategory(Category.Builder.newCategory("2").addAttribute("label", "No", Locale.ENGLISH).build()).build());
+      variableWriter.writeVariable(Variable.Builder.newVariable("MY_VAR3", DecimalType.get(), "Participant")
+          .addAttribute("description", "No categories").build());
+      variableWriter.writeVariable(Variable.Builder.newVariable("MY_VAR4", TextType.get(), "Participant").build());
+    }
+    jdbcDatasource.dispose();
+
+    jdbcDatasource = new JdbcDatasource("my-datasource-nodb", dataSource, settings);
+    jdbcDatasource.initialise();
+    ValueTable vt = jdbcDatasource.getValueTable("MY_TABLE");
+    assertThat(vt.getVariables()).hasSize(4);
+    for (Variable variable : vt.getVariables()) {
+      assertSameVariable(variable, loadVariable(jdbcDatasource, "MY_TABLE", variable));
+    }
+    Variable myVar1 = vt.getVariable("MY_VAR1");
+    assertThat(myVar1.getAttributes()).hasSize(3);
+    assertThat(myVar1.getCategories()).hasSize(3);
+    assertThat(myVar1.getCategory("9").isMissing()).isTrue();
+    assertThat(myVar1.getCategory("9").getAttributes()).hasSize(2);
+    assertThat(vt.getVariable("MY_VAR2").getCategory("2").getAttributeStringValue("label")).isEqualTo("No");
+    assertThat(vt.getVariable("MY_VAR4").getAttributes()).isEmpty();
+    assertThat(vt.getVariable("MY_VAR4").hasCategories()).isFalse();
+
+    jdbcDatasource.dispose();
+  }
+
   //
   // Methods
   //
@@ -713,6 +1006,69 @@ public class JdbcDatasourceTest extends AbstractMagmaTest {
     }
   }
 
+  private void assertSameVariable(Variable loaded, Variable expected) {
+    assertThat(loaded.getName()).isEqualTo(expected.getName());
+    assertThat(loaded.getValueType()).isEqualTo(expected.getValueType());
+    assertThat(Sets.newHashSet(loaded.getAttributes())).isEqualTo(Sets.newHashSet(expected.getAttributes()));
+    assertThat(loaded.getCategories()).hasSize(expected.getCategories().size());
+    for (Category category : expected.getCategories()) {
+      Category loadedCategory = loaded.getCategory(category.getName());
+      assertThat(loadedCategory.isMissing()).isEqualTo(category.isMissing());
+      assertThat(Sets.newHashSet(loadedCategory.getAttributes())).isEqualTo(Sets.newHashSet(category.getAttributes()));
+    }
+  }
+
+  /**
+   * Load a variable with one query per variable and per category, as the dictionary was loaded before the set-based
+   * queries.
+   *
+   * @param jdbcDatasource
+   * @param tableName
+   * @param variable
+   * @return
+   */
+  private Variable loadVariable(JdbcDatasource jdbcDatasource, String tableName, Variable variable) {
+    JdbcTemplate jdbcTemplate = jdbcDatasource.getJdbcTemplate();
+    String where = String.format(" WHERE %s = ? AND %s = ? AND %s = ?",
+        jdbcDatasource.escapeColumnName(JdbcValueTableWriter.DATASOURCE_COLUMN),
+        jdbcDatasource.escapeColumnName(JdbcValueTableWriter.VALUE_TABLE_COLUMN),
+        jdbcDatasource.escapeColumnName(JdbcValueTableWriter.VARIABLE_COLUMN));
+    Object[] params = { jdbcDatasource.getName(), tableName, variable.getName() };
+    Variable.Builder builder = Variable.Builder.newVariable(variable.getName(),
+        ValueType.Factory.forName(jdbcTemplate.queryForObject("SELECT " +
+            jdbcDatasource.escapeColumnName(JdbcValueTableWriter.VALUE_TYPE_COLUMN) + " FROM " +
+            jdbcDatasource.escapeTableName(JdbcValueTableWriter.VARIABLES_TABLE) + where.replace(
+                jdbcDatasource.escapeColumnName(JdbcValueTableWriter.VARIABLE_COLUMN),
+                jdbcDatasource.escapeColumnName(JdbcValueTableWriter.NAME_COLUMN)), params, String.class)),
+        "Participant");
+    builder.addAttributes(jdbcTemplate.query("SELECT * FROM " +
+        jdbcDatasource.escapeTableName(JdbcValueTableWriter.VARIABLE_ATTRIBUTES_TABLE) + where, params,
+        (rs, rowNum) -> mapAttribute(rs)));
+    builder.addCategories(jdbcTemplate.query("SELECT * FROM " +
+        jdbcDatasource.escapeTableName(JdbcValueTableWriter.CATEGORIES_TABLE) + where, params, (rs, rowNum) -> {
+      String categoryName = rs.getString(JdbcValueTableWriter.NAME_COLUMN);
+      return Category.Builder.newCategory(categoryName).missing(rs.getBoolean(JdbcValueTableWriter.MISSING_COLUMN))
+          .addAttributes(jdbcTemplate.query("SELECT * FROM " +
+                  jdbcDatasource.escapeTableName(JdbcValueTableWriter.CATEGORY_ATTRIBUTES_TABLE) + where + " AND " +
+                  jdbcDatasource.escapeColumnName(JdbcValueTableWriter.CATEGORY_COLUMN) + " = ?",
+              new Object[]{ jdbcDatasource.getName(), tableName, variable.getName(), categoryName },
+              (ars, arowNum) -> mapAttribute(ars))).build();
+    }));
+    return builder.build();
+  }
+
+  private Attribute mapAttribute(ResultSet rs) throws SQLException {
+    String locale = rs.getString(JdbcValueTableWriter.LOCALE_COLUMN);
+    Attribute.Builder attribute = Attribute.Builder.newAttribute(rs.getString(JdbcValueTableWriter.NAME_COLUMN))
+        .withNamespace(rs.getString(JdbcValueTableWriter.NAMESPACE_COLUMN));
+    if (locale != null && locale.length() > 0) {
+      attribute.withValue(new Locale(locale), rs.getString(JdbcValueTableWriter.VALUE_COLUMN));
+    } else {
+      attribute.withValue(rs.getString(JdbcValueTableWriter.VALUE_COLUMN));
+    }
+    return attribute.build();
+  }
+
   private boolean hasCategory(Variable variable, String categoryName) {
     if (variable.hasCategories()) {
       for (Category category : variable.getCategories()) {
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.datasource.mongodb;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableMap;
+import com.mongodb.BasicDBObject;
+import com.mongodb.BasicDBObjectBuilder;
+import com.mongodb.DBCursor;
+import org.obiba.magma.datasource.mongodb.converter.VariableConverter;
+
+import javax.annotation.Nullable;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the variables of a {@link MongoDBValueTable}, for lookups and counts without database round
+ * trips. The snapshot is versioned by the last update date of the table: the table drops it when its variables are
+ * written, and checks the stored last update date at most every {@link #CHECK_INTERVAL} milliseconds to detect the
+ * changes made by other processes.
+ */
+class MongoDBDictionary {
+
+  static final long CHECK_INTERVAL = 10000;
+
+  @Nullable
+  private final Date version;
+
+  private final Map<String, MongoDBVariable> variables;
+
+  private volatile long checked;
+
+  private MongoDBDictionary(@Nullable Date version, Map<String, MongoDBVariable> variables) {
+    this.version = version;
+    this.variables = variables;
+    checked = System.currentTimeMillis();
+  }
+
+  /**
+   * Read the variables of the table, in the order they were added.
+   *
+   * @param table
+   * @param version the last update date of the table, read before the dictionary
+   * @return
+   */
+  static MongoDBDictionary load(MongoDBValueTable table, @Nullable Date version) {
+    ImmutableMap.Builder<String, MongoDBVariable> variables = ImmutableMap.builder();
+    try(DBCursor cursor = table.getVariablesCollection().find(new BasicDBObject())
+        .sort(BasicDBObjectBuilder.start().add("_id", 1).get())) {
+      while(cursor.hasNext()) {
+        MongoDBVariable variable = VariableConverter.unmarshall(cursor.next());
+        variables.put(variable.getName(), variable);
+      }
+    }
+    return new MongoDBDictionary(version, variables.build());
+  }
+
+  Set<String> getVariableNames() {
+    return variables.keySet();
+  }
+
+  @Nullable
+  MongoDBVariable getVariable(String name) {
+    return variables.get(name);
+  }
+
+  int getVariableCount() {
+    return variables.size();
+  }
+
+  /**
+   * Whether the stored version should be checked again.
+   *
+   * @return
+   */
+  boolean isCheckDue() {
+    return System.currentTimeMillis() - checked > CHECK_INTERVAL;
+  }
+
+  /**
+   * Check the stored version of the table.
+   *
+   * @param storedVersion
+   * @return true if this snapshot is still current
+   */
+  boolean check(@Nullable Date storedVersion) {
+    checked = System.currentTimeMillis();
+    return Objects.equal(version, storedVersion);
+  }
+}
@@ -10,8 +10,10 @@
 
 package org.obiba.magma.datasource.mongodb;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
@@ -66,23 +68,53 @@ public class MongoDBValueLoaderFactory implements ValueLoaderFactory {
     @Override
     public Object getValue() {
       if(value == null) {
-        String json = (String) valueRef.getValue();
-        try {
-          JSONObject jsonObject = new JSONObject(json);
-          if(jsonObject.has(GRID_FILE_ID)) {
-            value = getByteArray(jsonObject.getString(GRID_FILE_ID));
-          }
-        } catch(JSONException e) {
-          throw new MagmaRuntimeException("Cannot retrieve grid file Id for " + json, e);
+        String fileId = getFileId();
+        if(fileId != null) {
+          value = getByteArray(fileId);
         }
       }
       return value;
     }
 
+    @Override
+    public boolean isStreamable() {
+      return true;
+    }
+
+    /**
+     * Reads the grid file chunk by chunk instead of loading it in memory.
+     *
+     * @return
+     */
+    @NotNull
+    @Override
+    public InputStream getStream() {
+      if(value != null) return new ByteArrayInputStream(value);
+      String fileId = getFileId();
+      if(fileId == null) return new ByteArrayInputStream(new byte[0]);
+      return findFile(fileId).getInputStream();
+    }
+
+    @Nullable
+    private String getFileId() {
+      String json = (String) valueRef.getValue();
+      try {
+        JSONObject jsonObject = new JSONObject(json);
+        return jsonObject.has(GRID_FILE_ID) ? jsonObject.getString(GRID_FILE_ID) : null;
+      } catch(JSONException e) {
+        throw new MagmaRuntimeException("Cannot retrieve grid file Id for " + json, e);
+      }
+    }
+
+    private GridFSDBFile findFile(String fileId) {
+      GridFSDBFile file = mongoDBFactory.getGridFS().findOne(new ObjectId(fileId));
+      if(file == null) throw new MagmaRuntimeException("Cannot find gridFsFile [" + fileId + "]");
+      return file;
+    }
+
     private byte[] getByteArray(String fileId) {
       try(ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-        GridFSDBFile file = mongoDBFactory.getGridFS().findOne(new ObjectId(fileId));
-        file.writeTo(outputStream);
+        findFile(fileId).writeTo(outputStream);
         return outputStream.toByteArray();
       } catch(IOException e) {
         throw new MagmaRuntimeException("Cannot retrieve content of gridFsFile [" + fileId + "]", e);
@@ -11,6 +11,7 @@
 package org.obiba.magma.datasource.mongodb;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.mongodb.*;
 import com.mongodb.gridfs.GridFS;
@@ -24,10 +25,12 @@ import org.obiba.magma.type.DateTimeType;
 
 import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 public class MongoDBValueTable extends AbstractValueTable {
 
@@ -35,8 +38,16 @@ public class MongoDBValueTable extends AbstractValueTable {
 
   private static final String VALUE_SET_SUFFIX = "_value_set";
 
+  private static final int TIMESTAMPS_BATCH_SIZE = 1000;
+
   private DBObject dbObject;
 
+  @Nullable
+  private volatile MongoDBDictionary dictionary;
+
+  @Nullable
+  private volatile Integer valueSetCount;
+
   public MongoDBValueTable(@NotNull Datasource datasource, @NotNull String name) {
     this(datasource, name, null);
   }
@@ -88,6 +99,8 @@ public class MongoDBValueTable extends AbstractValueTable {
   }
 
   void setLastUpdate(Date date) {
+    getMongoDBVariableEntityProvider().clearPages();
+    invalidateValueSetCount();
     ((BSONObject) asDBObject().get(MongoDBDatasource.TIMESTAMPS_FIELD)).put("updated", date);
     getValueTableCollection().save(asDBObject());
     getMongoDBDatasource().setLastUpdate(date);
@@ -130,7 +143,7 @@ public class MongoDBValueTable extends AbstractValueTable {
     if (entities.isEmpty()) {
       return ImmutableList.of();
     }
-    return () -> new TimestampsIterator(entities.iterator());
+    return () -> new TimestampsIterator(entities);
   }
 
   @Override
@@ -180,25 +193,76 @@ public class MongoDBValueTable extends AbstractValueTable {
     getValueTableCollection().remove(BasicDBObjectBuilder.start().add("_id", getIdAsObjectId()).get());
     getMongoDBDatasource().setLastUpdate(new Date());
     dbObject = null;
+    invalidateDictionary();
   }
 
   DBObject findVariable(String variableName) {
     return getVariablesCollection().findOne(BasicDBObjectBuilder.start("name", variableName).get());
   }
 
+  /**
+   * Get the current snapshot of the variables, loaded when missing or when the stored last update date of the table
+   * has changed. The value set count is dropped as well in the latter case.
+   *
+   * @return
+   */
+  MongoDBDictionary getDictionary() {
+    MongoDBDictionary current = dictionary;
+    if (current != null && !current.isCheckDue()) return current;
+
+    Date lastUpdate = readLastUpdate();
+    if (current != null && current.check(lastUpdate)) return current;
+
+    current = MongoDBDictionary.load(this, lastUpdate);
+    dictionary = current;
+    valueSetCount = null;
+    return current;
+  }
+
+  /**
+   * Drop the dictionary snapshot and the value set count, to be loaded again at next request.
+   */
+  void invalidateDictionary() {
+    dictionary = null;
+    valueSetCount = null;
+  }
+
+  /**
+   * Drop the value set count, to be counted again at next request.
+   */
+  void invalidateValueSetCount() {
+    valueSetCount = null;
+  }
+
+  @Nullable
+  private Date readLastUpdate() {
+    DBObject tableObject = getValueTableCollection().findOne(BasicDBObjectBuilder.start("_id", getIdAsObjectId()).get(),
+        BasicDBObjectBuilder.start(MongoDBDatasource.TIMESTAMPS_FIELD, 1).get());
+    if (tableObject == null) return null;
+    BSONObject timestamps = (BSONObject) tableObject.get(MongoDBDatasource.TIMESTAMPS_FIELD);
+    return timestamps == null ? null : (Date) timestamps.get(MongoDBDatasource.TIMESTAMPS_UPDATED_FIELD);
+  }
+
   @Override
   public int getVariableCount() {
-    return (int) getVariablesCollection().count();
+    return getDictionary().getVariableCount();
   }
 
   @Override
   public int getValueSetCount() {
-    return getMongoDBVariableEntityProvider().getVariableEntityCount();
+    // detect the changes made by other processes
+    getDictionary();
+    Integer count = valueSetCount;
+    if (count == null) {
+      count = (int) getValueSetCollection().count();
+      valueSetCount = count;
+    }
+    return count;
   }
 
   @Override
   public int getVariableEntityCount() {
-    return getMongoDBVariableEntityProvider().getVariableEntityCount();
+    return getValueSetCount();
   }
 
   @Override
@@ -237,57 +301,51 @@ public class MongoDBValueTable extends AbstractValueTable {
     gridFS.remove(metaDataQuery.get());
   }
 
+  /**
+   * Fetches the timestamps of the entities by batches, with one query on the identifiers of each batch, and returns
+   * them in the order of the entities.
+   */
   private class TimestampsIterator implements Iterator<Timestamps> {
 
-    private final Iterator<VariableEntity> entities;
+    private final DBObject fields = BasicDBObjectBuilder.start(MongoDBDatasource.TIMESTAMPS_FIELD, 1).get();
 
-    private final DBCursor cursor;
+    private final Iterator<List<VariableEntity>> partitions;
+
+    private Iterator<VariableEntity> entities = Collections.emptyIterator();
 
     private final Map<String, Timestamps> timestampsMap = Maps.newHashMap();
 
-    private TimestampsIterator(Iterator<VariableEntity> entities) {
-      this.entities = entities;
-      DBObject fields = BasicDBObjectBuilder.start(MongoDBDatasource.TIMESTAMPS_FIELD, 1).get();
-      cursor = getValueSetCollection().find(new BasicDBObject(), fields);
+    private TimestampsIterator(List<VariableEntity> entities) {
+      partitions = Lists.partition(entities, TIMESTAMPS_BATCH_SIZE).iterator();
     }
 
     @Override
     public boolean hasNext() {
-      return entities.hasNext();
+      return entities.hasNext() || partitions.hasNext();
     }
 
     @Override
     public Timestamps next() {
-      VariableEntity entity = entities.next();
-
-      if (timestampsMap.containsKey(entity.getIdentifier())) return getTimestampsFromMap(entity);
-
-      boolean found = false;
-      while (cursor.hasNext() && !found) {
-        DBObject obj = cursor.next();
-        String id = obj.get("_id").toString();
-        BSONObject timestamps = (BSONObject) obj.get(MongoDBDatasource.TIMESTAMPS_FIELD);
-        timestampsMap.put(id,
-            new TimestampsBean(ValueConverter.unmarshall(DateTimeType.get(), timestamps.get("created")),
-                ValueConverter.unmarshall(DateTimeType.get(), timestamps.get("updated")))
-        );
-        found = id.equals(entity.getIdentifier());
+      if (!entities.hasNext()) {
+        loadPartition(partitions.next());
       }
-
-      if (timestampsMap.containsKey(entity.getIdentifier())) return getTimestampsFromMap(entity);
-      return NullTimestamps.get();
+      Timestamps timestamps = timestampsMap.get(entities.next().getIdentifier());
+      return timestamps == null ? NullTimestamps.get() : timestamps;
     }
 
-    /**
-     * No duplicate of entities, so remove timestamps from map once get.
-     *
-     * @param entity
-     * @return
-     */
-    private Timestamps getTimestampsFromMap(VariableEntity entity) {
-      Timestamps value = timestampsMap.get(entity.getIdentifier());
-      timestampsMap.remove(entity.getIdentifier());
-      return value;
+    private void loadPartition(List<VariableEntity> partition) {
+      timestampsMap.clear();
+      List<String> identifiers = partition.stream().map(VariableEntity::getIdentifier).collect(Collectors.toList());
+      try (DBCursor cursor = getValueSetCollection().find(QueryBuilder.start("_id").in(identifiers).get(), fields)) {
+        while (cursor.hasNext()) {
+          DBObject obj = cursor.next();
+          BSONObject timestamps = (BSONObject) obj.get(MongoDBDatasource.TIMESTAMPS_FIELD);
+          timestampsMap.put(obj.get("_id").toString(),
+              new TimestampsBean(ValueConverter.unmarshall(DateTimeType.get(), timestamps.get("created")),
+                  ValueConverter.unmarshall(DateTimeType.get(), timestamps.get("updated"))));
+        }
+      }
+      entities = partition.iterator();
     }
 
     @Override
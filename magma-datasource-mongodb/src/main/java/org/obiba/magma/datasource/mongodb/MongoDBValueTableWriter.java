@@ -12,6 +12,8 @@ package org.obiba.magma.datasource.mongodb;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.mongodb.*;
 import com.mongodb.gridfs.GridFS;
 import com.mongodb.gridfs.GridFSInputFile;
@@ -20,6 +22,7 @@ import org.bson.types.ObjectId;
 import org.obiba.magma.*;
 import org.obiba.magma.datasource.mongodb.converter.ValueConverter;
 import org.obiba.magma.datasource.mongodb.converter.VariableConverter;
+import org.obiba.magma.metrics.Metrics;
 import org.obiba.magma.support.DatasourceParsingException;
 import org.obiba.magma.type.BinaryType;
 
@@ -27,6 +30,7 @@ import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -46,6 +50,12 @@ class MongoDBValueTableWriter implements ValueTableWriter {
 
   private final List<DBObject> batch = Lists.newArrayList();
 
+  // identifiers of the value sets written by writeValueSets(), to be fetched when written value set by value set
+  private final Set<String> writtenIdentifiers = Sets.newConcurrentHashSet();
+
+  // variables resolved by name, until the variables are written
+  private final Map<String, MongoDBVariable> mongoDBVariables = Maps.newConcurrentMap();
+
   MongoDBValueTableWriter(@NotNull MongoDBValueTable table) {
     this.table = table;
     this.hasValueSets = table.getValueSetCount()>0;
@@ -65,8 +75,59 @@ class MongoDBValueTableWriter implements ValueTableWriter {
     return new MongoDBValueSetWriter(entity);
   }
 
+  /**
+   * Writes a block of value sets with a single bulk operation: the fields of the block are set in the documents of the
+   * entities, that are created if missing. Blocks of binary values, that are stored in GridFS, are written value set by
+   * value set.
+   */
   @Override
-  public void close() {
+  public void writeValueSets(@NotNull List<VariableEntity> entities, @NotNull List<Variable> variables,
+      @NotNull Value[][] values) {
+    for(Variable variable : variables) {
+      if(BinaryType.get().equals(variable.getValueType())) {
+        ValueTableWriter.super.writeValueSets(entities, variables, values);
+        return;
+      }
+    }
+    if(entities.isEmpty()) return;
+    hasValueSets = true;
+
+    String[] fields = new String[variables.size()];
+    for(int i = 0; i < fields.length; i++) {
+      fields[i] = getMongoDBVariable(variables.get(i)).getId();
+    }
+
+    // value sets written one by one must be saved first
+    flush();
+
+    Date now = new Date();
+    BulkWriteOperation bulkWriteOperation = table.getValueSetCollection().initializeOrderedBulkOperation();
+    for(int j = 0; j < entities.size(); j++) {
+      String identifier = entities.get(j).getIdentifier();
+      BasicDBObjectBuilder set = BasicDBObjectBuilder
+          .start(MongoDBDatasource.TIMESTAMPS_FIELD + "." + MongoDBDatasource.TIMESTAMPS_UPDATED_FIELD, now);
+      for(int i = 0; i < fields.length; i++) {
+        Value value = values[i][j];
+        if(value != null) set.add(fields[i], ValueConverter.marshall(variables.get(i), value));
+      }
+      bulkWriteOperation.find(BasicDBObjectBuilder.start("_id", identifier).get()).upsert().updateOne(
+          BasicDBObjectBuilder.start("$set", set.get()) //
+              .add("$setOnInsert", BasicDBObjectBuilder
+                  .start(MongoDBDatasource.TIMESTAMPS_FIELD + "." + MongoDBDatasource.TIMESTAMPS_CREATED_FIELD, now)
+                  .get()) //
+              .get());
+      writtenIdentifiers.add(identifier);
+    }
+    bulkWriteOperation.execute();
+    table.invalidateValueSetCount();
+  }
+
+  private MongoDBVariable getMongoDBVariable(Variable variable) {
+    return mongoDBVariables.computeIfAbsent(variable.getName(), name -> (MongoDBVariable) table.getVariable(name));
+  }
+
+  @Override
+  public void flush() {
     List<DBObject> toSave = null;
 
     synchronized(table) {
@@ -77,6 +138,16 @@ class MongoDBValueTableWriter implements ValueTableWriter {
     }
 
     if(toSave != null) insertOrReplaceBatch(toSave);
+  }
+
+  @Override
+  public boolean supportsCheckpoints() {
+    return true;
+  }
+
+  @Override
+  public void close() {
+    flush();
 
     updateLastUpdate();
   }
@@ -86,6 +157,7 @@ class MongoDBValueTableWriter implements ValueTableWriter {
   }
 
   private void insertOrReplaceBatch(List<DBObject> toSave) {
+    long start = Metrics.start();
     BulkWriteOperation bulkWriteOperation = table.getValueSetCollection().initializeOrderedBulkOperation();
 
     for (DBObject obj: toSave)
@@ -96,6 +168,8 @@ class MongoDBValueTableWriter implements ValueTableWriter {
     }
 
     bulkWriteOperation.execute();
+    table.invalidateValueSetCount();
+    Metrics.stop(Metrics.WRITER_FLUSH, table.getDatasource().getType(), start);
   }
 
   private class MongoDBValueSetWriter implements ValueTableWriter.ValueSetWriter {
@@ -112,7 +186,7 @@ class MongoDBValueTableWriter implements ValueTableWriter {
 
     private DBObject getValueSetObject() {
       if(valueSetObject == null) {
-        if (identifiersAtInit.contains(entity.getIdentifier())) {
+        if (identifiersAtInit.contains(entity.getIdentifier()) || writtenIdentifiers.contains(entity.getIdentifier())) {
           DBObject template = BasicDBObjectBuilder.start("_id", entity.getIdentifier()).get();
           valueSetObject = table.getValueSetCollection().findOne(template);
         }
@@ -128,8 +202,7 @@ class MongoDBValueTableWriter implements ValueTableWriter {
     public void writeValue(@NotNull Variable variable, Value value) {
       hasValueSets = true;
       removed = false;
-      MongoDBVariable varObj = (MongoDBVariable) table.getVariable(variable.getName());
-      String field = varObj.getId();
+      String field = getMongoDBVariable(variable).getId();
       if(BinaryType.get().equals(value.getValueType())) {
         DBObject fileMetadata = getValueSetObject().containsField(field)
             ? updateBinary(variable, value, field)
@@ -152,6 +225,7 @@ class MongoDBValueTableWriter implements ValueTableWriter {
       }
       // then remove value set document
       table.getValueSetCollection().remove(BasicDBObjectBuilder.start("_id", entity.getIdentifier()).get());
+      table.invalidateValueSetCount();
     }
 
     @Nullable
@@ -202,7 +276,11 @@ class MongoDBValueTableWriter implements ValueTableWriter {
           .add("entity", entity.getIdentifier());
       if(occurrence != null) metaDataBuilder.add("occurrence", occurrence);
 
-      GridFSInputFile gridFSFile = table.getMongoDBFactory().getGridFS().createFile((byte[]) value.getValue());
+      GridFS gridFS = table.getMongoDBFactory().getGridFS();
+      // streamable values are uploaded chunk by chunk, the stream being closed once saved
+      GridFSInputFile gridFSFile = value.isStreamable()
+          ? gridFS.createFile(value.getStream(), true)
+          : gridFS.createFile((byte[]) value.getValue());
       gridFSFile.setMetaData(metaDataBuilder.get());
       gridFSFile.save();
       return getBinaryValueMetadata(gridFSFile, occurrence);
@@ -215,6 +293,7 @@ class MongoDBValueTableWriter implements ValueTableWriter {
 
         if(batchSize == 1) {
           table.getValueSetCollection().save(getValueSetObject());
+          table.invalidateValueSetCount();
         } else {
           List<DBObject> toSave = null;
           DBObject valueSet = getValueSetObject();
@@ -258,10 +337,6 @@ class MongoDBValueTableWriter implements ValueTableWriter {
       if(existingDbObject == null) {
         table.addVariableValueSource(new MongoDBVariableValueSource(table, variable.getName()));
       }
-      else {
-        // reset the cached variable object
-        ((MongoDBVariableValueSource)table.getVariableValueSource(variable.getName())).invalidate();
-      }
       // insert or update
       DBObject varObject = VariableConverter.marshall(variable);
       if(existingDbObject != null) {
@@ -278,6 +353,8 @@ class MongoDBValueTableWriter implements ValueTableWriter {
         varObject.put("_id", existingDbObject.get("_id"));
       }
       table.getVariablesCollection().save(varObject);
+      table.invalidateDictionary();
+      mongoDBVariables.remove(variable.getName());
     }
 
     @Override
@@ -292,9 +369,12 @@ class MongoDBValueTableWriter implements ValueTableWriter {
       // remove associated values from the value set collection
       removeVariableValues((MongoDBVariable) variable);
 
-      if(table.getVariableCount() == 0) {
+      // not counted from the dictionary, that is loaded again once the value sets are removed
+      if(table.getVariablesCollection().count() == 0) {
         table.getValueSetCollection().remove(BasicDBObjectBuilder.start().get());
       }
+      table.invalidateDictionary();
+      mongoDBVariables.remove(variable.getName());
     }
 
     private void removeVariableValues(@NotNull MongoDBVariable variable) {
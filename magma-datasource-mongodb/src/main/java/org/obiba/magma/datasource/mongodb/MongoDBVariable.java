@@ -188,6 +188,17 @@ public class MongoDBVariable implements Variable {
     return variable.getCategory(categoryName);
   }
 
+  @Nullable
+  @Override
+  public Category getCategory(Value value) {
+    return variable.getCategory(value);
+  }
+
+  @Override
+  public int getCategoryOrdinal(Value value) {
+    return variable.getCategoryOrdinal(value);
+  }
+
   @Override
   public Set<Category> getCategories() {
     return variable.getCategories();
@@ -10,6 +10,7 @@
 
 package org.obiba.magma.datasource.mongodb;
 
+import com.google.common.collect.Maps;
 import com.mongodb.*;
 import org.obiba.magma.VariableEntity;
 import org.obiba.magma.lang.VariableEntityList;
@@ -18,20 +19,38 @@ import org.obiba.magma.support.VariableEntityBean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Map;
 
 class MongoDBVariableEntityProvider implements PagingVariableEntityProvider {
 
   private static final Logger log = LoggerFactory.getLogger(MongoDBVariableEntityProvider.class);
 
+  private static final int MAX_PAGE_KEYS = 100;
+
   private String entityType;
 
   private final MongoDBValueTable table;
 
   private final DBObject idProjection = BasicDBObjectBuilder.start("_id", 1).get();
 
+  private final DBObject idOrder = BasicDBObjectBuilder.start("_id", 1).get();
+
+  /**
+   * Last entity identifier of the most recently read pages, by offset of the entity that follows.
+   */
+  private final Map<Integer, Object> pageKeys = Collections
+      .synchronizedMap(new LinkedHashMap<Integer, Object>(MAX_PAGE_KEYS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Object> eldest) {
+          return size() > MAX_PAGE_KEYS;
+        }
+      });
+
   MongoDBVariableEntityProvider(MongoDBValueTable table, String entityType) {
     this.table = table;
     this.entityType = entityType;
@@ -58,22 +77,36 @@ class MongoDBVariableEntityProvider implements PagingVariableEntityProvider {
     return getVariableEntities(0, -1);
   }
 
+  /**
+   * Get a page of entities, in identifier order. When a previous page ended at the requested offset, the page is read
+   * from the last identifier of that page instead of skipping all the previous entities.
+   *
+   * @param offset
+   * @param limit
+   * @return
+   */
   @Override
   public List<VariableEntity> getVariableEntities(int offset, int limit) {
-    DBCollection collection = table.getValueSetCollection();
-    int total = (int) collection.count();
     int from = Math.max(offset, 0);
-    from = Math.min(from, total);
-    int pageSize = limit < 0 ? total : limit;
+    DBObject query = new BasicDBObject();
+    int skip = from;
+    Map.Entry<Integer, Object> pageKey = from == 0 ? null : getPageKey(from);
+    if (pageKey != null) {
+      query = QueryBuilder.start("_id").greaterThan(pageKey.getValue()).get();
+      skip = from - pageKey.getKey();
+    }
 
     List<VariableEntity> list = new VariableEntityList();
-    try (DBCursor cursor = collection.find(new BasicDBObject(), idProjection).skip(from).limit(pageSize)) {
-      while (true) {
-        DBObject next = cursor.next();
-        list.add(new VariableEntityBean(getEntityType(), next.get("_id").toString()));
+    Object lastId = null;
+    try (DBCursor cursor = table.getValueSetCollection().find(query, idProjection).sort(idOrder).skip(skip)) {
+      if (limit >= 0) cursor.limit(limit);
+      while (cursor.hasNext()) {
+        lastId = cursor.next().get("_id");
+        list.add(new VariableEntityBean(getEntityType(), lastId.toString()));
       }
-    } catch (NoSuchElementException e) {
-      // ignored, reading cursor is finished
+    }
+    if (lastId != null && limit >= 0) {
+      pageKeys.put(from + list.size(), lastId);
     }
     return list;
   }
@@ -88,4 +121,28 @@ class MongoDBVariableEntityProvider implements PagingVariableEntityProvider {
   public int getVariableEntityCount() {
     return (int) table.getValueSetCollection().count();
   }
+
+  /**
+   * Forget the page keys, as the offsets of the entities may have changed.
+   */
+  void clearPages() {
+    pageKeys.clear();
+  }
+
+  /**
+   * Get the closest page key at or before the offset.
+   *
+   * @param offset
+   * @return null if there is none
+   */
+  @Nullable
+  private Map.Entry<Integer, Object> getPageKey(int offset) {
+    synchronized (pageKeys) {
+      Map.Entry<Integer, Object> pageKey = null;
+      for (Map.Entry<Integer, Object> entry : pageKeys.entrySet()) {
+        if (entry.getKey() <= offset && (pageKey == null || entry.getKey() > pageKey.getKey())) pageKey = entry;
+      }
+      return pageKey == null ? null : Maps.immutableEntry(pageKey.getKey(), pageKey.getValue());
+    }
+  }
 }
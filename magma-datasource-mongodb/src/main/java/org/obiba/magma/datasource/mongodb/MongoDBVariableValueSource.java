@@ -17,7 +17,7 @@ import com.mongodb.*;
 import org.bson.BSONObject;
 import org.obiba.magma.*;
 import org.obiba.magma.datasource.mongodb.converter.ValueConverter;
-import org.obiba.magma.datasource.mongodb.converter.VariableConverter;
+import org.obiba.magma.metrics.Metrics;
 import org.obiba.magma.type.BinaryType;
 
 import javax.validation.constraints.NotNull;
@@ -32,8 +32,6 @@ public class MongoDBVariableValueSource implements VariableValueSource, VectorSo
 
   private final String name;
 
-  private MongoDBVariable variable;
-
   public MongoDBVariableValueSource(MongoDBValueTable table, String name) {
     this.table = table;
     this.name = name;
@@ -47,10 +45,9 @@ public class MongoDBVariableValueSource implements VariableValueSource, VectorSo
 
   @NotNull
   @Override
-  public synchronized MongoDBVariable getVariable() {
-    if (variable == null) {
-      variable = VariableConverter.unmarshall(table.findVariable(name));
-    }
+  public MongoDBVariable getVariable() {
+    MongoDBVariable variable = table.getDictionary().getVariable(name);
+    if (variable == null) throw new NoSuchVariableException(table.getName(), name);
     return variable;
   }
 
@@ -65,7 +62,8 @@ public class MongoDBVariableValueSource implements VariableValueSource, VectorSo
     if (entities.isEmpty()) {
       return ImmutableList.of();
     }
-    return () -> new ValueIterator(getVariable(), entities);
+    return Metrics.timed(Metrics.VECTOR_READ, table.getDatasource().getType(),
+        () -> new ValueIterator(getVariable(), entities));
   }
 
   @NotNull
@@ -85,13 +83,10 @@ public class MongoDBVariableValueSource implements VariableValueSource, VectorSo
     return this;
   }
 
-  void invalidate() {
-    // reset the cached variable object
-    variable = null;
-  }
-
   private class ValueIterator implements Iterator<Value> {
 
+    private final MongoDBVariable variable;
+
     private final String field;
 
     private final ValueType type;
@@ -111,6 +106,7 @@ public class MongoDBVariableValueSource implements VariableValueSource, VectorSo
     private DBCursor cursor;
 
     private ValueIterator(MongoDBVariable variable, List<VariableEntity> entities) {
+      this.variable = variable;
       field = variable.getId();
       type = variable.getValueType();
       repeatable = variable.isRepeatable();
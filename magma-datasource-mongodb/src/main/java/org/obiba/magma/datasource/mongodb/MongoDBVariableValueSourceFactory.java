@@ -16,9 +16,6 @@ import org.obiba.magma.VariableValueSource;
 import org.obiba.magma.VariableValueSourceFactory;
 
 import com.google.common.collect.ImmutableSet;
-import com.mongodb.BasicDBObject;
-import com.mongodb.BasicDBObjectBuilder;
-import com.mongodb.DBCursor;
 
 public class MongoDBVariableValueSourceFactory implements VariableValueSourceFactory {
 
@@ -31,11 +28,8 @@ public class MongoDBVariableValueSourceFactory implements VariableValueSourceFac
   @Override
   public Set<VariableValueSource> createSources() {
     ImmutableSet.Builder<VariableValueSource> builder = ImmutableSet.builder();
-    try(DBCursor variableCursor = table.getVariablesCollection().find(new BasicDBObject())
-        .sort(BasicDBObjectBuilder.start().add("_id", 1).get())) {
-      while(variableCursor.hasNext()) {
-        builder.add(new MongoDBVariableValueSource(table, variableCursor.next().get("name").toString()));
-      }
+    for(String name : table.getDictionary().getVariableNames()) {
+      builder.add(new MongoDBVariableValueSource(table, name));
     }
     return builder.build();
   }
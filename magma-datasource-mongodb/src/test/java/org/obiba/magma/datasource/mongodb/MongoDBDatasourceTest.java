@@ -12,6 +12,7 @@ package org.obiba.magma.datasource.mongodb;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
@@ -32,6 +33,8 @@ import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.TreeSet;
 
@@ -517,6 +520,212 @@ public class MongoDBDatasourceTest {
     }
   }
 
+  @Test
+  public void test_entities_pages() throws Exception {
+    Datasource ds = createDatasource();
+    writeEntities(ds, 10, 40);
+    ValueTable table = ds.getValueTable(TABLE_TEST);
+    List<VariableEntity> entities = table.getVariableEntities();
+    assertThat(entities).hasSize(30);
+
+    // pages read after the last identifier of the previous page
+    assertThat(table.getVariableEntities(0, 10)).isEqualTo(entities.subList(0, 10));
+    assertThat(table.getVariableEntities(10, 10)).isEqualTo(entities.subList(10, 20));
+    assertThat(table.getVariableEntities(20, 10)).isEqualTo(entities.subList(20, 30));
+    // page read after a remembered identifier, skipping the entities before the offset
+    assertThat(table.getVariableEntities(15, 10)).isEqualTo(entities.subList(15, 25));
+    assertThat(table.getVariableEntities(25, 10)).isEqualTo(entities.subList(25, 30));
+    assertThat(table.getVariableEntities(30, 10)).isEmpty();
+  }
+
+  @Test
+  public void test_entities_pages_after_write() throws Exception {
+    Datasource ds = createDatasource();
+    writeEntities(ds, 10, 40);
+    ValueTable table = ds.getValueTable(TABLE_TEST);
+    List<VariableEntity> entities = table.getVariableEntities(0, 10);
+    assertThat(entities).hasSize(10);
+
+    // the new entity comes first, the remembered page keys are no longer valid
+    writeEntities(ds, 0, 1);
+    List<VariableEntity> allEntities = table.getVariableEntities();
+    assertThat(allEntities).hasSize(31);
+    assertThat(allEntities.get(0).getIdentifier()).isEqualTo("0");
+    assertThat(table.getVariableEntities(10, 10)).isEqualTo(allEntities.subList(10, 20));
+  }
+
+  @Test
+  public void test_valueSets_timestamps_by_batches() throws Exception {
+    Datasource ds = createDatasource();
+    ((MongoDBDatasource) ds).setBatchSize(1000);
+    writeEntities(ds, 0, 2500);
+    ValueTable table = ds.getValueTable(TABLE_TEST);
+
+    List<VariableEntity> entities = Lists.newArrayList(table.getVariableEntities());
+    Collections.reverse(entities);
+    entities.add(1200, new VariableEntityBean(PARTICIPANT, "unknown"));
+    List<Timestamps> timestamps = Lists.newArrayList(table.getValueSetTimestamps(entities));
+    assertThat(timestamps).hasSize(2501);
+    for (int i = 0; i < entities.size(); i += 100) {
+      VariableEntity entity = entities.get(i);
+      if (i == 1200) {
+        assertThat(timestamps.get(i).getCreated().isNull()).isTrue();
+      } else {
+        Timestamps expected = table.getValueSetTimestamps(entity);
+        assertThat(timestamps.get(i).getCreated()).isEqualTo(expected.getCreated());
+        assertThat(timestamps.get(i).getLastUpdate()).isEqualTo(expected.getLastUpdate());
+      }
+    }
+    assertThat(timestamps.get(1201).getCreated()).isEqualTo(table.getValueSetTimestamps(entities.get(1201)).getCreated());
+    assertThat(timestamps.get(2500).getCreated()).isEqualTo(table.getValueSetTimestamps(entities.get(2500)).getCreated());
+  }
+
+  @Test
+  public void test_dictionary_reloaded_after_write() throws Exception {
+    Datasource ds = createDatasource();
+    writeEntities(ds, 0, 10);
+    MongoDBValueTable table = (MongoDBValueTable) ds.getValueTable(TABLE_TEST);
+    assertThat(table.getValueSetCount()).isEqualTo(10);
+    assertThat(table.getVariableCount()).isEqualTo(1);
+    MongoDBDictionary dictionary = table.getDictionary();
+
+    Variable variable = table.getVariable("ENTITYTEST");
+    try (ValueTableWriter tableWriter = ds.createWriter(TABLE_TEST, PARTICIPANT)) {
+      // value sets saved when the batch is flushed
+      for (int i = 10; i < 15; i++) {
+        try (ValueTableWriter.ValueSetWriter valueSetWriter = tableWriter
+            .writeValueSet(new VariableEntityBean(PARTICIPANT, Integer.toString(i)))) {
+          valueSetWriter.writeValue(variable, TextType.get().valueOf("value " + i));
+        }
+      }
+      assertThat(table.getValueSetCount()).isEqualTo(10);
+      tableWriter.flush();
+      assertThat(table.getValueSetCount()).isEqualTo(15);
+
+      try (ValueTableWriter.ValueSetWriter valueSetWriter = tableWriter
+          .writeValueSet(new VariableEntityBean(PARTICIPANT, "0"))) {
+        valueSetWriter.remove();
+      }
+      assertThat(table.getValueSetCount()).isEqualTo(14);
+      // values writes do not affect the variables
+      assertThat(table.getDictionary()).isSameAs(dictionary);
+
+      try (ValueTableWriter.VariableWriter variableWriter = tableWriter.writeVariables()) {
+        variableWriter.writeVariable(Variable.Builder.newVariable("OTHER", TextType.get(), PARTICIPANT).build());
+        assertThat(table.getVariableCount()).isEqualTo(2);
+        variableWriter.removeVariable(table.getVariable("OTHER"));
+        assertThat(table.getVariableCount()).isEqualTo(1);
+        assertThat(table.getValueSetCount()).isEqualTo(14);
+
+        // no more variables, no more value sets
+        variableWriter.removeVariable(variable);
+        assertThat(table.getVariableCount()).isEqualTo(0);
+        assertThat(table.getValueSetCount()).isEqualTo(0);
+      }
+    }
+  }
+
+  @Test
+  public void test_dictionary_checked_against_last_update() throws Exception {
+    Datasource ds1 = createDatasource();
+    writeEntities(ds1, 0, 10);
+    MongoDBValueTable table = (MongoDBValueTable) ds1.getValueTable(TABLE_TEST);
+    MongoDBDictionary dictionary = table.getDictionary();
+    assertThat(table.getValueSetCount()).isEqualTo(10);
+    Date lastUpdate = (Date) table.getTimestamps().getLastUpdate().getValue();
+    assertThat(dictionary.check(lastUpdate)).isTrue();
+
+    // written by another datasource: the snapshot is kept until the stored last update is checked
+    Thread.sleep(10);
+    Datasource ds2 = createDatasource();
+    writeEntities(ds2, 10, 15);
+    assertThat(table.getDictionary()).isSameAs(dictionary);
+    assertThat(table.getValueSetCount()).isEqualTo(10);
+
+    Date updated = (Date) ds2.getValueTable(TABLE_TEST).getTimestamps().getLastUpdate().getValue();
+    assertThat(updated).isAfter(lastUpdate);
+    assertThat(dictionary.check(updated)).isFalse();
+    assertThat(MongoDBDictionary.load(table, updated).getVariableCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void test_valueSets_written_by_blocks() throws Exception {
+    Datasource ds = createDatasource();
+    Variable a = Variable.Builder.newVariable("A", TextType.get(), PARTICIPANT).build();
+    Variable b = Variable.Builder.newVariable("B", IntegerType.get(), PARTICIPANT).build();
+    List<VariableEntity> entities = ImmutableList.of(new VariableEntityBean(PARTICIPANT, "1"),
+        new VariableEntityBean(PARTICIPANT, "2"));
+    try (ValueTableWriter tableWriter = ds.createWriter(TABLE_TEST, PARTICIPANT)) {
+      try (ValueTableWriter.VariableWriter variableWriter = tableWriter.writeVariables()) {
+        variableWriter.writeVariable(a);
+        variableWriter.writeVariable(b);
+      }
+      tableWriter.writeValueSets(entities, ImmutableList.of(a),
+          new Value[][] { { TextType.get().valueOf("a1"), TextType.get().valueOf("a2") } });
+      // the fields of the first block are kept
+      tableWriter.writeValueSets(entities, ImmutableList.of(b),
+          new Value[][] { { IntegerType.get().valueOf(1), null } });
+    }
+
+    ValueTable table = createDatasource().getValueTable(TABLE_TEST);
+    assertThat(table.getValueSetCount()).isEqualTo(2);
+    assertValue(table, "1", "A", TextType.get().valueOf("a1"));
+    assertValue(table, "2", "A", TextType.get().valueOf("a2"));
+    assertValue(table, "1", "B", IntegerType.get().valueOf(1));
+    assertValue(table, "2", "B", IntegerType.get().nullValue());
+  }
+
+  @Test
+  public void test_valueSets_written_by_blocks_and_one_by_one() throws Exception {
+    Datasource ds = createDatasource();
+    Variable a = Variable.Builder.newVariable("A", TextType.get(), PARTICIPANT).build();
+    Variable b = Variable.Builder.newVariable("B", TextType.get(), PARTICIPANT).build();
+    VariableEntity entity1 = new VariableEntityBean(PARTICIPANT, "1");
+    VariableEntity entity2 = new VariableEntityBean(PARTICIPANT, "2");
+    try (ValueTableWriter tableWriter = ds.createWriter(TABLE_TEST, PARTICIPANT)) {
+      try (ValueTableWriter.VariableWriter variableWriter = tableWriter.writeVariables()) {
+        variableWriter.writeVariable(a);
+        variableWriter.writeVariable(b);
+      }
+      // saved when the batch is flushed
+      try (ValueTableWriter.ValueSetWriter valueSetWriter = tableWriter.writeValueSet(entity1)) {
+        valueSetWriter.writeValue(a, TextType.get().valueOf("a1"));
+      }
+      tableWriter.writeValueSets(ImmutableList.of(entity1, entity2), ImmutableList.of(b),
+          new Value[][] { { TextType.get().valueOf("b1"), TextType.get().valueOf("b2") } });
+      try (ValueTableWriter.ValueSetWriter valueSetWriter = tableWriter.writeValueSet(entity2)) {
+        valueSetWriter.writeValue(a, TextType.get().valueOf("a2"));
+      }
+    }
+
+    ValueTable table = createDatasource().getValueTable(TABLE_TEST);
+    assertThat(table.getValueSetCount()).isEqualTo(2);
+    assertValue(table, "1", "A", TextType.get().valueOf("a1"));
+    assertValue(table, "1", "B", TextType.get().valueOf("b1"));
+    assertValue(table, "2", "A", TextType.get().valueOf("a2"));
+    assertValue(table, "2", "B", TextType.get().valueOf("b2"));
+  }
+
+  private void assertValue(ValueTable table, String identifier, String variableName, Value expected) {
+    ValueSet valueSet = table.getValueSet(new VariableEntityBean(PARTICIPANT, identifier));
+    assertThat(table.getValue(table.getVariable(variableName), valueSet)).isEqualTo(expected);
+  }
+
+  private void writeEntities(Datasource ds, int from, int to) {
+    Variable variable = Variable.Builder.newVariable("ENTITYTEST", TextType.get(), PARTICIPANT).build();
+    try (ValueTableWriter tableWriter = ds.createWriter(TABLE_TEST, PARTICIPANT)) {
+      try (ValueTableWriter.VariableWriter variableWriter = tableWriter.writeVariables()) {
+        variableWriter.writeVariable(variable);
+      }
+      for (int i = from; i < to; i++) {
+        try (ValueTableWriter.ValueSetWriter valueSetWriter = tableWriter
+            .writeValueSet(new VariableEntityBean(PARTICIPANT, Integer.toString(i)))) {
+          valueSetWriter.writeValue(variable, TextType.get().valueOf("value " + i));
+        }
+      }
+    }
+  }
+
   private Datasource createDatasource() {
     DatasourceFactory factory = new MongoDBDatasourceFactory("ds-" + DB_TEST, dbUrl);
     Datasource ds = factory.create();
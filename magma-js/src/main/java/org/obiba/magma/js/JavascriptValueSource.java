@@ -17,6 +17,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import org.mozilla.javascript.*;
 import org.obiba.magma.*;
+import org.obiba.magma.metrics.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -77,7 +78,9 @@ public class JavascriptValueSource implements ValueSource, VectorSource, Initial
   public Value getValue(ValueSet valueSet) {
     initialiseIfNot();
     Stopwatch stopwatch = Stopwatch.createStarted();
+    long start = Metrics.start();
     Value value = (Value) ContextFactory.getGlobal().call(new ValueSetEvaluationContextAction(valueSet));
+    Metrics.stop(Metrics.JS_EVAL, start);
     log.trace("ValueSet evaluation of {} in {}", getScriptName(), stopwatch);
     return value;
   }
@@ -310,11 +313,13 @@ public class JavascriptValueSource implements ValueSource, VectorSource, Initial
       @Override
       public Value apply(VariableEntity variableEntity) {
         Stopwatch stopwatch = Stopwatch.createStarted();
+        long start = Metrics.start();
         try {
           initContext(variableEntity);
           return asValue(compiledScript.exec(context, scope));
         } finally {
           cleanContext();
+          Metrics.stop(Metrics.JS_EVAL, start);
           log.trace("Finish {} eval in {}", variableEntity, stopwatch);
         }
       }
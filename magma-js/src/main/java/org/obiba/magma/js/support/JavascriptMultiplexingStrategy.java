@@ -60,6 +60,14 @@ public class JavascriptMultiplexingStrategy implements DatasourceCopier.Multiple
     return multiplexVariable(variable);
   }
 
+  /**
+   * The script only sees the variable.
+   */
+  @Override
+  public boolean isStatic() {
+    return true;
+  }
+
   @Override
   public String multiplexVariable(final Variable variable) {
     if(compiledScript == null) {
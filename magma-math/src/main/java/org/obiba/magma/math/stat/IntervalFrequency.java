@@ -35,6 +35,13 @@ public class IntervalFrequency implements Serializable {
 
   private final SortedSet<Interval> freqTable = Sets.newTreeSet();
 
+  // The intervals of freqTable, in order, so that the interval of a value can be located by index
+  private final Interval[] intervals;
+
+  private final double minValue;
+
+  private final double intervalSizeValue;
+
   private final BigDecimal min;
 
   private final BigDecimal max;
@@ -86,6 +93,9 @@ public class IntervalFrequency implements Serializable {
       freqTable.add(new Interval(lower, upper));
       lower = upper;
     }
+    this.intervals = freqTable.toArray(new Interval[freqTable.size()]);
+    minValue = this.min.doubleValue();
+    intervalSizeValue = intervalSize.doubleValue();
   }
 
   /**
@@ -106,9 +116,22 @@ public class IntervalFrequency implements Serializable {
    * @param d
    */
   public void add(double d) {
-    for(Interval interval : freqTable) {
-      if(interval.increment(d)) {
-        n++;
+    add(d, 1);
+  }
+
+  /**
+   * Adds {@code weight} to the frequency of the interval that contains {@code d}. The interval is located by computing
+   * its index, only values lying on an interval bound require a comparison with the neighbouring intervals.
+   *
+   * @param d
+   * @param weight the number of observations of {@code d}
+   */
+  public void add(double d, long weight) {
+    int index = (int) Math.floor((d - minValue) / intervalSizeValue);
+    index = Math.max(0, Math.min(intervals.length - 1, index));
+    for(int i = Math.max(0, index - 1); i <= Math.min(intervals.length - 1, index + 1); i++) {
+      if(intervals[i].increment(d, weight)) {
+        n += weight;
         return;
       }
     }
@@ -152,11 +175,17 @@ public class IntervalFrequency implements Serializable {
 
     private final BigDecimal upper;
 
+    private final double lowerValue;
+
+    private final double upperValue;
+
     private long freq = 0;
 
     private Interval(BigDecimal lower, BigDecimal upper) {
       this.lower = lower;
       this.upper = upper;
+      lowerValue = lower.doubleValue();
+      upperValue = upper.doubleValue();
     }
 
     public double getLower() {
@@ -248,15 +277,16 @@ public class IntervalFrequency implements Serializable {
     }
 
     /**
-     * increments the frequency and returns true if {@code d} is within {@code [lower, upper[}. Otherwise returns false
-     * and frequency remains unchanged.
+     * increments the frequency by {@code weight} and returns true if {@code d} is within {@code [lower, upper[}.
+     * Otherwise returns false and frequency remains unchanged.
      *
      * @param d
      * @return
      */
-    boolean increment(double d) {
-      boolean contains = contains(d);
-      if(contains) freq++;
+    boolean increment(double d, long weight) {
+      // only values that are close to the bounds need an exact decimal comparison
+      boolean contains = d > lowerValue && d < upperValue || (d == lowerValue || d == upperValue) && contains(d);
+      if(contains) freq += weight;
       return contains;
     }
 
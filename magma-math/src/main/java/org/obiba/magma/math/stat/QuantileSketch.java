@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.math.stat;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.math3.stat.descriptive.rank.Percentile;
+
+/**
+ * Mergeable quantile sketch based on the KLL algorithm (Karnin, Lang and Liberty). Observations are kept in a hierarchy
+ * of compactors: level {@code h} holds items that each stand for {@code 2^h} observations. When the sketch exceeds its
+ * capacity, the lowest full level is sorted and every other item is promoted to the next level, so that memory usage
+ * grows with {@code log(n)} only.
+ * <p/>
+ * The {@code accuracy} parameter (usually between 50 and 1000) is the capacity of the top-level compactor: the rank
+ * error is roughly {@code 1.65 / accuracy}. As long as no compaction has happened, the sketch is exact and percentiles
+ * are computed exactly as {@code DescriptiveStatistics} would.
+ * <p/>
+ * Sketches built with the same accuracy over disjoint sets of observations can be combined with
+ * {@link #merge(QuantileSketch)}.
+ */
+public class QuantileSketch implements Serializable {
+
+  private static final long serialVersionUID = 2745117869513406219L;
+
+  public static final int DEFAULT_ACCURACY = 200;
+
+  private static final double CAPACITY_DECAY = 2d / 3d;
+
+  private static final int MIN_CAPACITY = 2;
+
+  private final int accuracy;
+
+  private final List<Level> levels = new ArrayList<>();
+
+  private long n;
+
+  private int size;
+
+  // Total capacity of the levels, lazily computed when the number of levels changes
+  private int capacity;
+
+  // Alternates the item kept from each compacted pair, so that compaction is deterministic yet unbiased
+  private boolean keepOdd;
+
+  public QuantileSketch() {
+    this(DEFAULT_ACCURACY);
+  }
+
+  public QuantileSketch(int accuracy) {
+    if(accuracy < MIN_CAPACITY) throw new IllegalArgumentException("accuracy must be at least " + MIN_CAPACITY);
+    this.accuracy = accuracy;
+    addLevel();
+  }
+
+  public int getAccuracy() {
+    return accuracy;
+  }
+
+  /**
+   * Returns the number of observations summarized by this sketch.
+   */
+  public long getN() {
+    return n;
+  }
+
+  /**
+   * Returns true when no observation was discarded, i.e. quantiles are exact.
+   */
+  public boolean isExact() {
+    return levels.size() == 1;
+  }
+
+  public void addValue(double value) {
+    levels.get(0).add(value);
+    n++;
+    size++;
+    if(size > capacity()) compress();
+  }
+
+  /**
+   * Combines the observations of {@code other} into this sketch. {@code other} is left unchanged.
+   *
+   * @param other a sketch built with the same accuracy
+   * @return this sketch
+   */
+  public QuantileSketch merge(QuantileSketch other) {
+    if(other.accuracy != accuracy) {
+      throw new IllegalArgumentException("cannot merge sketches of different accuracy: " + accuracy + "!=" +
+          other.accuracy);
+    }
+    while(levels.size() < other.levels.size()) {
+      addLevel();
+    }
+    for(int h = 0; h < other.levels.size(); h++) {
+      Level level = other.levels.get(h);
+      levels.get(h).addAll(level);
+      size += level.size;
+    }
+    n += other.n;
+    while(size > capacity()) {
+      compress();
+    }
+    return this;
+  }
+
+  /**
+   * Returns an estimate of the {@code p}th percentile of the observations, {@code p} being in {@code ]0, 100]}.
+   * Returns {@code NaN} when the sketch is empty.
+   */
+  public double getPercentile(double p) {
+    if(p <= 0 || p > 100) throw new IllegalArgumentException("percentile must be in ]0,100]: " + p);
+    if(n == 0) return Double.NaN;
+    if(isExact()) {
+      Level level = levels.get(0);
+      return new Percentile().evaluate(level.items, 0, level.size, p);
+    }
+    double[] values = new double[size];
+    long[] weights = new long[size];
+    sorted(values, weights);
+    long rank = (long) Math.ceil(p / 100d * n);
+    long cumulative = 0;
+    for(int i = 0; i < values.length; i++) {
+      cumulative += weights[i];
+      if(cumulative >= rank) return values[i];
+    }
+    return values[values.length - 1];
+  }
+
+  /**
+   * Adds the observations retained by this sketch, with their weights, to an {@code IntervalFrequency}. The resulting
+   * frequencies are exact when the sketch is exact and approximated otherwise.
+   */
+  public void addTo(IntervalFrequency intervalFrequency) {
+    for(int h = 0; h < levels.size(); h++) {
+      Level level = levels.get(h);
+      long weight = 1L << h;
+      for(int i = 0; i < level.size; i++) {
+        intervalFrequency.add(level.items[i], weight);
+      }
+    }
+  }
+
+  /**
+   * Fills the arrays (of length {@code size}) with the retained items sorted by value, and their weights. Each level is
+   * sorted then the levels are merged, their number being logarithmic in the number of observations.
+   */
+  private void sorted(double[] values, long[] weights) {
+    int[] heads = new int[levels.size()];
+    for(Level level : levels) {
+      Arrays.sort(level.items, 0, level.size);
+    }
+    for(int i = 0; i < values.length; i++) {
+      int min = -1;
+      for(int h = 0; h < heads.length; h++) {
+        Level level = levels.get(h);
+        if(heads[h] < level.size && (min < 0 || level.items[heads[h]] < levels.get(min).items[heads[min]])) min = h;
+      }
+      values[i] = levels.get(min).items[heads[min]++];
+      weights[i] = 1L << min;
+    }
+  }
+
+  private int capacity() {
+    if(capacity == 0) {
+      for(int h = 0; h < levels.size(); h++) {
+        capacity += levelCapacity(h);
+      }
+    }
+    return capacity;
+  }
+
+  private void addLevel() {
+    levels.add(new Level());
+    capacity = 0;
+  }
+
+  private int levelCapacity(int h) {
+    int depth = levels.size() - h - 1;
+    return Math.max(MIN_CAPACITY, (int) Math.ceil(accuracy * Math.pow(CAPACITY_DECAY, depth)));
+  }
+
+  /**
+   * Compacts the lowest level that exceeds its capacity: half of its items are promoted to the next level.
+   */
+  private void compress() {
+    for(int h = 0; h < levels.size(); h++) {
+      Level level = levels.get(h);
+      if(level.size >= levelCapacity(h)) {
+        if(h + 1 == levels.size()) addLevel();
+        Level next = levels.get(h + 1);
+        Arrays.sort(level.items, 0, level.size);
+        // an odd item out stays at this level
+        int pairs = level.size / 2;
+        int start = level.size % 2;
+        int offset = keepOdd ? 1 : 0;
+        keepOdd = !keepOdd;
+        for(int i = 0; i < pairs; i++) {
+          next.add(level.items[start + 2 * i + offset]);
+        }
+        level.size = start;
+        size -= pairs;
+        return;
+      }
+    }
+  }
+
+  private static final class Level implements Serializable {
+
+    private static final long serialVersionUID = -5102458410853651073L;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private double[] items = new double[INITIAL_CAPACITY];
+
+    private int size;
+
+    void add(double value) {
+      if(size == items.length) items = Arrays.copyOf(items, size * 2);
+      items[size++] = value;
+    }
+
+    void addAll(Level other) {
+      if(size + other.size > items.length) items = Arrays.copyOf(items, Math.max(size + other.size, size * 2));
+      System.arraycopy(other.items, 0, items, size, other.size);
+      size += other.size;
+    }
+  }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.math.stat;
+
+import java.io.Serializable;
+
+import org.apache.commons.math3.stat.descriptive.StatisticalSummary;
+
+/**
+ * Maintains the first four central moments, the extrema and the sums of a stream of observations using primitive
+ * accumulators only. Unlike {@code DescriptiveStatistics}, observations are not retained so memory usage is constant
+ * regardless of the number of values added.
+ * <p/>
+ * Two instances computed over disjoint sets of observations can be combined with {@link #merge(RunningStatistics)},
+ * which yields the same moments as if all observations had been added to a single instance. Skewness and kurtosis
+ * use the same bias-corrected estimators as commons-math.
+ */
+public class RunningStatistics implements StatisticalSummary, Serializable {
+
+  private static final long serialVersionUID = -3524913839207446562L;
+
+  private long n;
+
+  private double min = Double.NaN;
+
+  private double max = Double.NaN;
+
+  private double sum;
+
+  private double sumsq;
+
+  private double mean;
+
+  // Sums of the 2nd, 3rd and 4th powers of the deviations from the mean
+  private double m2;
+
+  private double m3;
+
+  private double m4;
+
+  public void addValue(double value) {
+    long n1 = n;
+    n++;
+    double n0 = n;
+    double delta = value - mean;
+    double deltaN = delta / n0;
+    double deltaN2 = deltaN * deltaN;
+    double term1 = delta * deltaN * n1;
+    mean += deltaN;
+    m4 += term1 * deltaN2 * (n0 * n0 - 3 * n0 + 3) + 6 * deltaN2 * m2 - 4 * deltaN * m3;
+    m3 += term1 * deltaN * (n0 - 2) - 3 * deltaN * m2;
+    m2 += term1;
+    sum += value;
+    sumsq += value * value;
+    if(n1 == 0) {
+      min = value;
+      max = value;
+    } else {
+      if(value < min) min = value;
+      if(value > max) max = value;
+    }
+  }
+
+  /**
+   * Combines the observations of {@code other} into this instance. {@code other} is left unchanged.
+   *
+   * @param other the statistics computed over another set of observations
+   * @return this instance
+   */
+  public RunningStatistics merge(RunningStatistics other) {
+    if(other.n == 0) return this;
+    if(n == 0) {
+      copy(other);
+      return this;
+    }
+    double na = n;
+    double nb = other.n;
+    double nx = na + nb;
+    double delta = other.mean - mean;
+    double delta2 = delta * delta;
+    double delta3 = delta2 * delta;
+    double delta4 = delta2 * delta2;
+
+    double combinedM4 = m4 + other.m4 + delta4 * na * nb * (na * na - na * nb + nb * nb) / (nx * nx * nx) +
+        6 * delta2 * (na * na * other.m2 + nb * nb * m2) / (nx * nx) + 4 * delta * (na * other.m3 - nb * m3) / nx;
+    double combinedM3 = m3 + other.m3 + delta3 * na * nb * (na - nb) / (nx * nx) +
+        3 * delta * (na * other.m2 - nb * m2) / nx;
+    double combinedM2 = m2 + other.m2 + delta2 * na * nb / nx;
+
+    mean += delta * nb / nx;
+    m2 = combinedM2;
+    m3 = combinedM3;
+    m4 = combinedM4;
+    n += other.n;
+    sum += other.sum;
+    sumsq += other.sumsq;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+    return this;
+  }
+
+  private void copy(RunningStatistics other) {
+    n = other.n;
+    min = other.min;
+    max = other.max;
+    sum = other.sum;
+    sumsq = other.sumsq;
+    mean = other.mean;
+    m2 = other.m2;
+    m3 = other.m3;
+    m4 = other.m4;
+  }
+
+  @Override
+  public long getN() {
+    return n;
+  }
+
+  @Override
+  public double getMin() {
+    return min;
+  }
+
+  @Override
+  public double getMax() {
+    return max;
+  }
+
+  @Override
+  public double getSum() {
+    return n == 0 ? Double.NaN : sum;
+  }
+
+  public double getSumsq() {
+    return n == 0 ? Double.NaN : sumsq;
+  }
+
+  @Override
+  public double getMean() {
+    return n == 0 ? Double.NaN : mean;
+  }
+
+  @Override
+  public double getVariance() {
+    if(n == 0) return Double.NaN;
+    return n == 1 ? 0d : m2 / (n - 1);
+  }
+
+  @Override
+  public double getStandardDeviation() {
+    if(n == 0) return Double.NaN;
+    return n == 1 ? 0d : Math.sqrt(getVariance());
+  }
+
+  @SuppressWarnings("MagicNumber")
+  public double getSkewness() {
+    if(n < 3) return Double.NaN;
+    double variance = getVariance();
+    if(variance < 10E-20) return 0d;
+    double stdDev = Math.sqrt(variance);
+    return n * m3 / ((n - 1d) * (n - 2d) * stdDev * stdDev * stdDev);
+  }
+
+  @SuppressWarnings("MagicNumber")
+  public double getKurtosis() {
+    if(n <= 3) return Double.NaN;
+    double variance = getVariance();
+    if(variance < 10E-20) return 0d;
+    double n0 = n;
+    double coefficientOne = n0 * (n0 + 1) / ((n0 - 1) * (n0 - 2) * (n0 - 3));
+    double termTwo = 3 * (n0 - 1) * (n0 - 1) / ((n0 - 2) * (n0 - 3));
+    return coefficientOne * m4 / (variance * variance) - termTwo;
+  }
+
+  @Override
+  public String toString() {
+    return "n=" + n + ", min=" + getMin() + ", max=" + getMax() + ", mean=" + getMean() + ", std=" +
+        getStandardDeviation();
+  }
+
+}
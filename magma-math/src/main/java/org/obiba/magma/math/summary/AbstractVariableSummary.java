@@ -85,4 +85,28 @@ public abstract class AbstractVariableSummary implements VariableSummary {
     TVariableSummaryBuilder addValue(@NotNull Value value);
   }
 
+  /**
+   * A summary builder to which the values of partitions of the entities can be added separately (possibly concurrently)
+   * and then merged.
+   */
+  public interface PartitionableVariableSummaryBuilder<TVariableSummary extends VariableSummary, TVariableSummaryBuilder extends PartitionableVariableSummaryBuilder<TVariableSummary, TVariableSummaryBuilder>>
+      extends VariableSummaryBuilder<TVariableSummary, TVariableSummaryBuilder> {
+
+    /**
+     * Returns a new empty builder with the same settings as this one, for adding the values of a partition.
+     */
+    TVariableSummaryBuilder newPartition();
+
+    /**
+     * Returns the entities of the table the summary is computed on, as {@code addTable()} does (offset and limit).
+     */
+    @NotNull
+    List<VariableEntity> getFilteredVariableEntities(@NotNull ValueTable table);
+
+    /**
+     * Adds the values that were added to {@code partition}, which is left unchanged.
+     */
+    TVariableSummaryBuilder merge(@NotNull TVariableSummaryBuilder partition);
+  }
+
 }
@@ -13,6 +13,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
 import javax.validation.constraints.NotNull;
 
@@ -20,6 +21,7 @@ import org.obiba.magma.Value;
 import org.obiba.magma.ValueSource;
 import org.obiba.magma.ValueTable;
 import org.obiba.magma.Variable;
+import org.obiba.magma.VariableEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -101,7 +103,7 @@ public class BinaryVariableSummary extends AbstractVariableSummary implements Se
   }
 
   @SuppressWarnings("ParameterHidesMemberVariable")
-  public static class Builder implements VariableSummaryBuilder<BinaryVariableSummary, Builder> {
+  public static class Builder implements PartitionableVariableSummaryBuilder<BinaryVariableSummary, Builder> {
 
     private final BinaryVariableSummary summary;
 
@@ -196,6 +198,25 @@ public class BinaryVariableSummary extends AbstractVariableSummary implements Se
       summary.n = summary.frequencyDist.getSumFreq();
     }
 
+    @NotNull
+    @Override
+    public List<VariableEntity> getFilteredVariableEntities(@NotNull ValueTable table) {
+      return summary.getFilteredVariableEntities(table);
+    }
+
+    @Override
+    public Builder newPartition() {
+      return new Builder(variable);
+    }
+
+    @Override
+    public Builder merge(@NotNull Builder partition) {
+      summary.frequencyDist.merge(partition.summary.frequencyDist);
+      if(!partition.summary.empty) summary.empty = false;
+      addedValue = true;
+      return this;
+    }
+
     public Builder filter(Integer offset, Integer limit) {
       summary.setOffset(offset);
       summary.setLimit(limit);
@@ -12,7 +12,6 @@ package org.obiba.magma.math.summary;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -23,6 +22,7 @@ import org.obiba.magma.Value;
 import org.obiba.magma.ValueSource;
 import org.obiba.magma.ValueTable;
 import org.obiba.magma.Variable;
+import org.obiba.magma.VariableEntity;
 import org.obiba.magma.type.BooleanType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,6 +34,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 /**
  *
@@ -46,8 +47,6 @@ public class CategoricalVariableSummary extends AbstractVariableSummary implemen
 
   public static final String NULL_NAME = "N/A";
 
-  private static final String OTHER_NAME = "OTHER_VALUES";
-
   private final org.apache.commons.math3.stat.Frequency frequencyDist = new org.apache.commons.math3.stat.Frequency();
 
   /**
@@ -140,7 +139,7 @@ public class CategoricalVariableSummary extends AbstractVariableSummary implemen
   }
 
   @SuppressWarnings("ParameterHidesMemberVariable")
-  public static class Builder implements VariableSummaryBuilder<CategoricalVariableSummary, Builder> {
+  public static class Builder implements PartitionableVariableSummaryBuilder<CategoricalVariableSummary, Builder> {
 
     private final CategoricalVariableSummary summary;
 
@@ -151,9 +150,31 @@ public class CategoricalVariableSummary extends AbstractVariableSummary implemen
 
     private boolean addedValue;
 
+    /**
+     * Names of the categories, in the order of their ordinal
+     */
+    private final List<String> categoryNames;
+
+    private final Map<String, Integer> categoryOrdinals;
+
+    /**
+     * Count of the values matching a category, by category ordinal
+     */
+    private final long[] categoryCounts;
+
+    private long nullCount;
+
+    private long otherCount;
+
     public Builder(@NotNull Variable variable) {
       this.variable = variable;
       summary = new CategoricalVariableSummary(variable);
+      categoryNames = categoryNames();
+      categoryOrdinals = Maps.newHashMapWithExpectedSize(categoryNames.size());
+      for(int i = 0; i < categoryNames.size(); i++) {
+        categoryOrdinals.putIfAbsent(categoryNames.get(i), i);
+      }
+      categoryCounts = new long[categoryNames.size()];
     }
 
     @Override
@@ -162,7 +183,7 @@ public class CategoricalVariableSummary extends AbstractVariableSummary implemen
         throw new IllegalStateException("Cannot add value for variable " + summary.variable.getName() +
             " because values where previously added from the whole table with addTable().");
       }
-      add(value, categoryNames());
+      add(value);
       addedValue = true;
       return this;
     }
@@ -186,36 +207,34 @@ public class CategoricalVariableSummary extends AbstractVariableSummary implemen
       Preconditions.checkArgument(variableValueSource != null, "variableValueSource cannot be null");
       if(!variableValueSource.supportVectorSource()) return;
       for(Value value : variableValueSource.asVectorSource().getValues(summary.getFilteredVariableEntities(table))) {
-        add(value, categoryNames());
+        add(value);
       }
     }
 
-    private void add(@NotNull Value value, List<String> categoryNames) {
+    private void add(@NotNull Value value) {
       //noinspection ConstantConditions
       Preconditions.checkArgument(value != null, "value cannot be null");
 
       if(summary.empty) summary.empty = false;
       if(value.isSequence()) {
         if(value.isNull()) {
-          summary.frequencyDist.addValue(NULL_NAME);
+          nullCount++;
         } else {
           for(Value v : value.asSequence().getValue()) {
-            add(v, categoryNames);
+            add(v);
           }
         }
       } else {
         if(value.isNull()) {
-          summary.frequencyDist.addValue(NULL_NAME);
+          nullCount++;
         } else {
-          String valueStr = value.toString();
-          String intValueStr = null;
-          if (value.getValueType().isNumeric() && valueStr.endsWith(".0")) intValueStr = valueStr.substring(0, valueStr.length() - 2);
-          if(summary.distinct || categoryNames.contains(valueStr)) {
-            summary.frequencyDist.addValue(valueStr);
-          } else if (intValueStr != null && categoryNames.contains(intValueStr)) {
-            summary.frequencyDist.addValue(intValueStr);
+          int ordinal = getCategoryOrdinal(value);
+          if(ordinal >= 0) {
+            categoryCounts[ordinal]++;
+          } else if(summary.distinct) {
+            summary.frequencyDist.addValue(value.toString());
           } else {
-            summary.frequencyDist.addValue(OTHER_NAME);
+            otherCount++;
           }
         }
 
@@ -223,20 +242,41 @@ public class CategoricalVariableSummary extends AbstractVariableSummary implemen
     }
 
     /**
-     * Returns an iterator of frequencyDist names
+     * Look up the value in the variable's category index, then by name (e.g. for values which type differs from the
+     * variable's one).
+     *
+     * @param value a non null value
+     * @return -1 if the value is not a category
      */
-    private Iterator<String> freqNames(org.apache.commons.math3.stat.Frequency freq) {
-      return Iterators.transform(freq.valuesIterator(), new Function<Comparable<?>, String>() {
+    private int getCategoryOrdinal(Value value) {
+      if(variable.getValueType().equals(BooleanType.get())) {
+        return BooleanType.get().trueValue().equals(value) ? 0 : BooleanType.get().falseValue().equals(value) ? 1 : -1;
+      }
+      if(categoryCounts.length == 0) return -1;
 
-        @Override
-        public String apply(Comparable<?> input) {
-          return input.toString();
-        }
-      });
+      int ordinal = variable.getCategoryOrdinal(value);
+      if(ordinal >= 0) return ordinal;
+
+      String valueStr = value.toString();
+      Integer byName = categoryOrdinals.get(valueStr);
+      if(byName == null && value.getValueType().isNumeric() && valueStr.endsWith(".0")) {
+        byName = categoryOrdinals.get(valueStr.substring(0, valueStr.length() - 2));
+      }
+      return byName == null ? -1 : byName;
+    }
+
+    /**
+     * Count of the values which name is the given one: category, null or distinct values.
+     */
+    private long getCount(String name) {
+      Integer ordinal = categoryOrdinals.get(name);
+      long count = ordinal == null ? 0 : categoryCounts[ordinal];
+      if(NULL_NAME.equals(name)) count += nullCount;
+      return count + summary.frequencyDist.getCount(name);
     }
 
     /**
-     * Returns an iterator of category names
+     * Returns category names
      */
     private List<String> categoryNames() {
       if(variable.getValueType().equals(BooleanType.get())) {
@@ -255,45 +295,74 @@ public class CategoricalVariableSummary extends AbstractVariableSummary implemen
       }));
     }
 
-    private Map<String, Category> getCategoriesByName() {
-      return Maps.uniqueIndex(variable.getCategories(), new Function<Category, String>() {
-        @Override
-        public String apply(Category input) {
-          return input.getName();
-        }
-      });
-    }
-
     private void compute() {
       log.trace("Start compute categorical {}", summary.variable.getName());
-      long max = 0;
-      Iterator<String> concat = summary.distinct //
-          ? freqNames(summary.frequencyDist)  // category names, null values and distinct values
-          : Iterators.concat(categoryNames().iterator(),
-              ImmutableList.of(NULL_NAME).iterator()); // category names and null values
+      long total = nullCount + otherCount + summary.frequencyDist.getSumFreq();
+      for(long count : categoryCounts) {
+        total += count;
+      }
+
+      Collection<String> names;
+      if(summary.distinct) {
+        // category names, null values and distinct values that were encountered, in natural order
+        names = Sets.newTreeSet();
+        for(int i = 0; i < categoryCounts.length; i++) {
+          if(categoryCounts[i] > 0) names.add(categoryNames.get(i));
+        }
+        if(nullCount > 0) names.add(NULL_NAME);
+        Iterators.addAll(names, Iterators.transform(summary.frequencyDist.valuesIterator(), Object::toString));
+      } else {
+        // category names and null values
+        names = ImmutableList.<String>builder().addAll(categoryNames).add(NULL_NAME).build();
+      }
 
       // Iterate over all category names including or not distinct values.
       // The loop will also determine the mode of the distribution (most frequent value)
-      Map<String, Category> categoriesByName = getCategoriesByName();
-      while(concat.hasNext()) {
-        String value = concat.next();
-        long count = summary.frequencyDist.getCount(value);
+      long max = 0;
+      boolean booleanType = variable.getValueType().equals(BooleanType.get());
+      for(String value : names) {
+        long count = getCount(value);
         if(count > max) {
           max = count;
           summary.mode = value;
         }
 
-        boolean notMissing = variable.getValueType().equals(BooleanType.get())
-            ? value.equals(BooleanType.get().trueValue().toString()) ||
-            value.equals(BooleanType.get().falseValue().toString())
-            : categoriesByName.containsKey(value) && !categoriesByName.get(value).isMissing();
+        Integer ordinal = categoryOrdinals.get(value);
+        boolean notMissing = ordinal != null && (booleanType || !isMissingCategory(ordinal));
 
-        summary.frequencies.add(new Frequency(value, summary.frequencyDist.getCount(value),
-            Double.isNaN(summary.frequencyDist.getPct(value)) ? 0.0 : summary.frequencyDist.getPct(value),
-            !notMissing));
+        summary.frequencies.add(new Frequency(value, count, total == 0 ? 0.0 : (double) count / total, !notMissing));
       }
-      summary.otherFrequency = summary.frequencyDist.getCount(OTHER_NAME);
-      summary.n = summary.frequencyDist.getSumFreq();
+      summary.otherFrequency = otherCount;
+      summary.n = total;
+    }
+
+    private boolean isMissingCategory(int ordinal) {
+      Category category = variable.getCategory(categoryNames.get(ordinal));
+      return category != null && category.isMissing();
+    }
+
+    @NotNull
+    @Override
+    public List<VariableEntity> getFilteredVariableEntities(@NotNull ValueTable table) {
+      return summary.getFilteredVariableEntities(table);
+    }
+
+    @Override
+    public Builder newPartition() {
+      return new Builder(variable).distinct(summary.distinct);
+    }
+
+    @Override
+    public Builder merge(@NotNull Builder partition) {
+      summary.frequencyDist.merge(partition.summary.frequencyDist);
+      for(int i = 0; i < categoryCounts.length; i++) {
+        categoryCounts[i] += partition.categoryCounts[i];
+      }
+      nullCount += partition.nullCount;
+      otherCount += partition.otherCount;
+      if(!partition.summary.empty) summary.empty = false;
+      addedValue = true;
+      return this;
     }
 
     public Builder distinct(boolean distinct) {
@@ -14,6 +14,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
 import javax.annotation.Nullable;
@@ -23,13 +24,17 @@ import org.apache.commons.math3.distribution.ExponentialDistribution;
 import org.apache.commons.math3.distribution.NormalDistribution;
 import org.apache.commons.math3.distribution.RealDistribution;
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.apache.commons.math3.stat.descriptive.StatisticalSummary;
 import org.obiba.magma.Category;
 import org.obiba.magma.MagmaRuntimeException;
 import org.obiba.magma.Value;
 import org.obiba.magma.ValueSource;
 import org.obiba.magma.ValueTable;
 import org.obiba.magma.Variable;
+import org.obiba.magma.VariableEntity;
 import org.obiba.magma.math.stat.IntervalFrequency;
+import org.obiba.magma.math.stat.QuantileSketch;
+import org.obiba.magma.math.stat.RunningStatistics;
 import org.obiba.magma.type.IntegerType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -80,6 +85,13 @@ public class ContinuousVariableSummary extends AbstractVariableSummary implement
   @NotNull
   private final DescriptiveStatistics descriptiveStats = new DescriptiveStatistics();
 
+  // Streaming mode: values are not retained, moments are accumulated and percentiles estimated from a sketch
+  @Nullable
+  private RunningStatistics runningStats;
+
+  @Nullable
+  private QuantileSketch sketch;
+
   @NotNull
   private final List<Double> percentiles = Lists.newArrayList();
 
@@ -92,7 +104,8 @@ public class ContinuousVariableSummary extends AbstractVariableSummary implement
   @Override
   public String getCacheKey(ValueTable table) {
     return ContinuousVariableSummaryFactory
-        .getCacheKey(variable, table, distribution, defaultPercentiles, intervals, getOffset(), getLimit());
+        .getCacheKey(variable, table, distribution, defaultPercentiles, intervals, getOffset(), getLimit(),
+            getSketchAccuracy());
   }
 
   private ContinuousVariableSummary(@NotNull Variable variable, @NotNull Distribution distribution) {
@@ -127,11 +140,44 @@ public class ContinuousVariableSummary extends AbstractVariableSummary implement
     return intervals;
   }
 
+  /**
+   * Returns the statistics over all the values, which are empty when the summary was computed in streaming mode.
+   *
+   * @see #getStatistics()
+   */
   @NotNull
   public DescriptiveStatistics getDescriptiveStats() {
     return descriptiveStats;
   }
 
+  /**
+   * Returns the statistics of this summary, whether it was computed in streaming mode or not.
+   */
+  @NotNull
+  public StatisticalSummary getStatistics() {
+    return runningStats == null ? descriptiveStats : runningStats;
+  }
+
+  /**
+   * Returns the running statistics (including skewness and kurtosis) when computed in streaming mode, null otherwise.
+   */
+  @Nullable
+  public RunningStatistics getRunningStats() {
+    return runningStats;
+  }
+
+  public boolean isStreaming() {
+    return sketch != null;
+  }
+
+  /**
+   * Returns the accuracy of the quantile sketch when computed in streaming mode, null otherwise.
+   */
+  @Nullable
+  public Integer getSketchAccuracy() {
+    return sketch == null ? null : sketch.getAccuracy();
+  }
+
   @NotNull
   public List<Double> getPercentiles() {
     return percentiles;
@@ -156,20 +202,20 @@ public class ContinuousVariableSummary extends AbstractVariableSummary implement
     normal {
       @Nullable
       @Override
-      public RealDistribution getDistribution(DescriptiveStatistics ds) {
+      public RealDistribution getDistribution(StatisticalSummary ds) {
         return ds.getStandardDeviation() > 0 ? new NormalDistribution(ds.getMean(), ds.getStandardDeviation()) : null;
       }
     },
     exponential {
       @NotNull
       @Override
-      public RealDistribution getDistribution(DescriptiveStatistics ds) {
+      public RealDistribution getDistribution(StatisticalSummary ds) {
         return new ExponentialDistribution(ds.getMean());
       }
     };
 
     @Nullable
-    abstract RealDistribution getDistribution(DescriptiveStatistics ds);
+    abstract RealDistribution getDistribution(StatisticalSummary ds);
 
   }
 
@@ -215,7 +261,7 @@ public class ContinuousVariableSummary extends AbstractVariableSummary implement
   }
 
   @SuppressWarnings("ParameterHidesMemberVariable")
-  public static class Builder implements VariableSummaryBuilder<ContinuousVariableSummary, Builder> {
+  public static class Builder implements PartitionableVariableSummaryBuilder<ContinuousVariableSummary, Builder> {
 
     private final ContinuousVariableSummary summary;
 
@@ -249,6 +295,64 @@ public class ContinuousVariableSummary extends AbstractVariableSummary implement
       return this;
     }
 
+    /**
+     * Computes the summary in streaming mode: values are not retained, percentiles and interval frequencies are
+     * estimated from a quantile sketch of the given accuracy. Builders in streaming mode can be merged.
+     *
+     * @param accuracy the sketch accuracy (see {@link QuantileSketch}), null for the exact (non streaming) mode
+     */
+    public Builder streaming(@Nullable Integer accuracy) {
+      if(addedTable || addedValue) {
+        throw new IllegalStateException("Cannot change the mode of summary for variable " +
+            summary.getVariable().getName() + " because values were previously added.");
+      }
+      if(accuracy == null) {
+        summary.runningStats = null;
+        summary.sketch = null;
+      } else {
+        summary.runningStats = new RunningStatistics();
+        summary.sketch = new QuantileSketch(accuracy);
+      }
+      return this;
+    }
+
+    @NotNull
+    @Override
+    public List<VariableEntity> getFilteredVariableEntities(@NotNull ValueTable table) {
+      return summary.getFilteredVariableEntities(table);
+    }
+
+    @Override
+    public Builder newPartition() {
+      return new Builder(variable, summary.distribution) //
+          .intervals(summary.intervals) //
+          .defaultPercentiles(summary.defaultPercentiles) //
+          .streaming(summary.getSketchAccuracy());
+    }
+
+    /**
+     * Combines the values added to {@code partition} into this builder. Both builders must be in the same mode, with
+     * the same accuracy in streaming mode. In exact mode, the values of {@code partition} are copied.
+     */
+    @Override
+    public Builder merge(@NotNull Builder partition) {
+      Preconditions.checkArgument(Objects.equals(summary.getSketchAccuracy(), partition.summary.getSketchAccuracy()),
+          "cannot merge summaries computed in different modes");
+      summary.frequencyDist.merge(partition.summary.frequencyDist);
+      if(summary.isStreaming()) {
+        //noinspection ConstantConditions
+        summary.runningStats.merge(partition.summary.runningStats);
+        //noinspection ConstantConditions
+        summary.sketch.merge(partition.summary.sketch);
+      } else {
+        for(double d : partition.summary.descriptiveStats.getValues()) {
+          summary.descriptiveStats.addValue(d);
+        }
+      }
+      addedValue = true;
+      return this;
+    }
+
     @Override
     public Builder addValue(@NotNull Value value) {
       if(addedTable) {
@@ -296,7 +400,15 @@ public class ContinuousVariableSummary extends AbstractVariableSummary implement
           }
         } else {
           if(!summary.missing.contains(value)) {
-            summary.descriptiveStats.addValue(((Number) value.getValue()).doubleValue());
+            double d = ((Number) value.getValue()).doubleValue();
+            if(summary.isStreaming()) {
+              //noinspection ConstantConditions
+              summary.runningStats.addValue(d);
+              //noinspection ConstantConditions
+              summary.sketch.addValue(d);
+            } else {
+              summary.descriptiveStats.addValue(d);
+            }
           }
 
           // A continuous variable can have missing categories
@@ -327,7 +439,7 @@ public class ContinuousVariableSummary extends AbstractVariableSummary implement
     @SuppressWarnings("MagicNumber")
     private void compute() {
       log.trace("Start compute continuous {}", summary.variable.getName());
-      double variance = summary.descriptiveStats.getVariance();
+      double variance = summary.getStatistics().getVariance();
       computeFrequencies();
       if(Double.isNaN(variance) || Double.isInfinite(variance) || variance <= 0) return;
 
@@ -337,11 +449,16 @@ public class ContinuousVariableSummary extends AbstractVariableSummary implement
     }
 
     private void computeIntervalFrequencies() {
-      IntervalFrequency intervalFrequency = new IntervalFrequency(summary.descriptiveStats.getMin(),
-          summary.descriptiveStats.getMax(), summary.intervals,
+      StatisticalSummary stats = summary.getStatistics();
+      IntervalFrequency intervalFrequency = new IntervalFrequency(stats.getMin(), stats.getMax(), summary.intervals,
           summary.getVariable().getValueType() == IntegerType.get());
-      for(double d : summary.descriptiveStats.getSortedValues()) {
-        intervalFrequency.add(d);
+      if(summary.isStreaming()) {
+        //noinspection ConstantConditions
+        summary.sketch.addTo(intervalFrequency);
+      } else {
+        for(double d : summary.descriptiveStats.getValues()) {
+          intervalFrequency.add(d);
+        }
       }
 
       for(IntervalFrequency.Interval interval : intervalFrequency.intervals()) {
@@ -350,9 +467,11 @@ public class ContinuousVariableSummary extends AbstractVariableSummary implement
     }
 
     private void computeDistributionPercentiles() {
-      RealDistribution realDistribution = summary.distribution.getDistribution(summary.descriptiveStats);
+      RealDistribution realDistribution = summary.distribution.getDistribution(summary.getStatistics());
       for(Double p : summary.defaultPercentiles) {
-        summary.percentiles.add(summary.descriptiveStats.getPercentile(p));
+        //noinspection ConstantConditions
+        summary.percentiles
+            .add(summary.isStreaming() ? summary.sketch.getPercentile(p) : summary.descriptiveStats.getPercentile(p));
         if(realDistribution != null) {
           summary.distributionPercentiles.add(realDistribution.inverseCumulativeProbability(p / 100d));
         }
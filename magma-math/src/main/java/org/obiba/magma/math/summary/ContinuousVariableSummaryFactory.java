@@ -34,19 +34,28 @@ public class ContinuousVariableSummaryFactory extends AbstractVariableSummaryFac
 
   private Integer limit;
 
+  private Integer sketchAccuracy;
+
   @NotNull
   @Override
   public String getCacheKey() {
-    return getCacheKey(getVariable(), getTable(), distribution, percentiles, intervals, offset, limit);
+    return getCacheKey(getVariable(), getTable(), distribution, percentiles, intervals, offset, limit, sketchAccuracy);
   }
 
   @SuppressWarnings("PMD.ExcessiveParameterList")
   public static String getCacheKey(Variable variable, ValueTable table, Distribution distribution,
       Collection<Double> percentiles, int intervals, Integer offset, Integer limit) {
+    return getCacheKey(variable, table, distribution, percentiles, intervals, offset, limit, null);
+  }
+
+  @SuppressWarnings("PMD.ExcessiveParameterList")
+  public static String getCacheKey(Variable variable, ValueTable table, Distribution distribution,
+      Collection<Double> percentiles, int intervals, Integer offset, Integer limit, Integer sketchAccuracy) {
     String key = variable.getVariableReference(table) + ";d=" + distribution + ";i=" + intervals;
     if(percentiles != null && percentiles.size() > 0) key += ";p=" + Joiner.on(",").skipNulls().join(percentiles);
     if(offset != null) key += ";o=" + offset;
     if(limit != null) key += ";l=" + limit;
+    if(sketchAccuracy != null) key += ";s=" + sketchAccuracy;
     return key;
   }
 
@@ -57,6 +66,7 @@ public class ContinuousVariableSummaryFactory extends AbstractVariableSummaryFac
         .defaultPercentiles(percentiles) //
         .intervals(intervals) //
         .filter(offset, limit) //
+        .streaming(sketchAccuracy) //
         .addTable(getTable(), getValueSource()) //
         .build();
   }
@@ -101,6 +111,14 @@ public class ContinuousVariableSummaryFactory extends AbstractVariableSummaryFac
     this.limit = limit;
   }
 
+  public Integer getSketchAccuracy() {
+    return sketchAccuracy;
+  }
+
+  public void setSketchAccuracy(Integer sketchAccuracy) {
+    this.sketchAccuracy = sketchAccuracy;
+  }
+
   @SuppressWarnings("ParameterHidesMemberVariable")
   public static class Builder {
 
@@ -148,6 +166,14 @@ public class ContinuousVariableSummaryFactory extends AbstractVariableSummaryFac
       return this;
     }
 
+    /**
+     * Computes the summary in streaming mode with the given quantile sketch accuracy, or in exact mode when null.
+     */
+    public Builder streaming(Integer sketchAccuracy) {
+      factory.sketchAccuracy = sketchAccuracy;
+      return this;
+    }
+
     public ContinuousVariableSummaryFactory build() {
       return factory;
     }
@@ -106,7 +106,7 @@ public class DefaultVariableSummary extends AbstractVariableSummary implements S
   }
 
   @SuppressWarnings("ParameterHidesMemberVariable")
-  public static class Builder implements VariableSummaryBuilder<DefaultVariableSummary, Builder> {
+  public static class Builder implements PartitionableVariableSummaryBuilder<DefaultVariableSummary, Builder> {
 
     private final DefaultVariableSummary summary;
 
@@ -231,6 +231,25 @@ public class DefaultVariableSummary extends AbstractVariableSummary implements S
       summary.n = summary.frequencyDist.getSumFreq();
     }
 
+    @NotNull
+    @Override
+    public List<VariableEntity> getFilteredVariableEntities(@NotNull ValueTable table) {
+      return summary.getFilteredVariableEntities(table);
+    }
+
+    @Override
+    public Builder newPartition() {
+      return new Builder(variable);
+    }
+
+    @Override
+    public Builder merge(@NotNull Builder partition) {
+      summary.frequencyDist.merge(partition.summary.frequencyDist);
+      if(!partition.summary.empty) summary.empty = false;
+      addedValue = true;
+      return this;
+    }
+
     public Builder filter(Integer offset, Integer limit) {
       summary.setOffset(offset);
       summary.setLimit(limit);
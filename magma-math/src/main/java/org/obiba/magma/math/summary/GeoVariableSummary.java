@@ -118,7 +118,7 @@ public class GeoVariableSummary extends AbstractVariableSummary implements Seria
   }
 
   @SuppressWarnings("ParameterHidesMemberVariable")
-  public static class Builder implements VariableSummaryBuilder<GeoVariableSummary, Builder> {
+  public static class Builder implements PartitionableVariableSummaryBuilder<GeoVariableSummary, Builder> {
 
     public ArrayList<Coordinate> coords = new ArrayList<>();
 
@@ -255,6 +255,26 @@ public class GeoVariableSummary extends AbstractVariableSummary implements Seria
       summary.coordinates.addAll(getConcaveHull(coords));
     }
 
+    @NotNull
+    @Override
+    public List<VariableEntity> getFilteredVariableEntities(@NotNull ValueTable table) {
+      return summary.getFilteredVariableEntities(table);
+    }
+
+    @Override
+    public Builder newPartition() {
+      return new Builder(variable);
+    }
+
+    @Override
+    public Builder merge(@NotNull Builder partition) {
+      summary.frequencyDist.merge(partition.summary.frequencyDist);
+      coords.addAll(partition.coords);
+      if(!partition.summary.empty) summary.empty = false;
+      addedValue = true;
+      return this;
+    }
+
     public Builder filter(Integer offset, Integer limit) {
       summary.setOffset(offset);
       summary.setLimit(limit);
@@ -102,7 +102,7 @@ public class TextVariableSummary extends AbstractVariableSummary implements Seri
   }
 
   @SuppressWarnings("ParameterHidesMemberVariable")
-  public static class Builder implements VariableSummaryBuilder<TextVariableSummary, Builder> {
+  public static class Builder implements PartitionableVariableSummaryBuilder<TextVariableSummary, Builder> {
 
     private final TextVariableSummary summary;
 
@@ -212,6 +212,25 @@ public class TextVariableSummary extends AbstractVariableSummary implements Seri
       summary.n = summary.frequencyDist.getSumFreq();
     }
 
+    @NotNull
+    @Override
+    public List<VariableEntity> getFilteredVariableEntities(@NotNull ValueTable table) {
+      return summary.getFilteredVariableEntities(table);
+    }
+
+    @Override
+    public Builder newPartition() {
+      return new Builder(variable);
+    }
+
+    @Override
+    public Builder merge(@NotNull Builder partition) {
+      summary.frequencyDist.merge(partition.summary.frequencyDist);
+      if(!partition.summary.empty) summary.empty = false;
+      addedValue = true;
+      return this;
+    }
+
     public Builder filter(Integer offset, Integer limit) {
       summary.setOffset(offset);
       summary.setLimit(limit);
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.math.summary;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.validation.constraints.NotNull;
+
+import org.obiba.magma.Value;
+import org.obiba.magma.ValueSet;
+import org.obiba.magma.ValueSource;
+import org.obiba.magma.ValueTable;
+import org.obiba.magma.VariableEntity;
+import org.obiba.magma.VariableValueSource;
+import org.obiba.magma.math.summary.AbstractVariableSummary.PartitionableVariableSummaryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Computes variable summaries by splitting the entities into partitions that are read concurrently. Each partition
+ * feeds its own partial summary builder, partial builders are then merged in partition order.
+ * <p/>
+ * When several variables of the same table are summarized together, the value sets of each partition are read once
+ * and shared by all the summaries, i.e. the table is scanned once whatever the number of variables.
+ */
+public class VariableSummaryExecutor {
+
+  private static final Logger log = LoggerFactory.getLogger(VariableSummaryExecutor.class);
+
+  /**
+   * Number of entities per partition when reading the values of a single variable.
+   */
+  public static final int DEFAULT_VECTOR_PARTITION_SIZE = 5000;
+
+  @NotNull
+  private final ExecutorService executorService;
+
+  private final int partitionSize;
+
+  /**
+   * @param executorService the executor of the partition reads, not shut down by this class
+   */
+  public VariableSummaryExecutor(@NotNull ExecutorService executorService) {
+    this(executorService, 0);
+  }
+
+  /**
+   * @param executorService the executor of the partition reads, not shut down by this class
+   * @param partitionSize number of entities per partition, the default one is used when not positive
+   */
+  @SuppressWarnings("ConstantConditions")
+  public VariableSummaryExecutor(@NotNull ExecutorService executorService, int partitionSize) {
+    Preconditions.checkArgument(executorService != null, "executorService cannot be null");
+    this.executorService = executorService;
+    this.partitionSize = partitionSize;
+  }
+
+  /**
+   * Computes the summary of a variable over the entities of the table selected by the builder (offset and limit).
+   */
+  @NotNull
+  public <TVariableSummary extends VariableSummary, TVariableSummaryBuilder extends PartitionableVariableSummaryBuilder<TVariableSummary, TVariableSummaryBuilder>> TVariableSummary summarize(
+      @NotNull ValueTable table, @NotNull ValueSource valueSource, @NotNull TVariableSummaryBuilder builder) {
+    return summarize(table, valueSource, builder.getFilteredVariableEntities(table), builder);
+  }
+
+  /**
+   * Computes the summary of a variable over the given entities, the values of each partition being read from the
+   * {@code VectorSource}. As with {@code addTable()}, no value is added when the value source does not support vectors.
+   */
+  @NotNull
+  public <TVariableSummary extends VariableSummary, TVariableSummaryBuilder extends PartitionableVariableSummaryBuilder<TVariableSummary, TVariableSummaryBuilder>> TVariableSummary summarize(
+      @NotNull ValueTable table, @NotNull final ValueSource valueSource, @NotNull List<VariableEntity> entities,
+      @NotNull final TVariableSummaryBuilder builder) {
+    if(!valueSource.supportVectorSource()) return builder.build();
+
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    List<Future<TVariableSummaryBuilder>> partials = Lists.newArrayList();
+    for(final List<VariableEntity> partition : Lists
+        .partition(entities, partitionSize > 0 ? partitionSize : DEFAULT_VECTOR_PARTITION_SIZE)) {
+      partials.add(executorService.submit(new Callable<TVariableSummaryBuilder>() {
+        @Override
+        public TVariableSummaryBuilder call() throws Exception {
+          TVariableSummaryBuilder partial = builder.newPartition();
+          for(Value value : valueSource.asVectorSource().getValues(partition)) {
+            partial.addValue(value);
+          }
+          return partial;
+        }
+      }));
+    }
+    for(Future<TVariableSummaryBuilder> partial : partials) {
+      builder.merge(waitFor(partial));
+    }
+    log.debug("Summary of {} computed from {} partitions in {}", builder.getVariable().getName(), partials.size(),
+        stopwatch);
+    return builder.build();
+  }
+
+  /**
+   * Computes the summaries of several variables of a table over the entities selected by each builder (offset and
+   * limit). The builders that select the same entities share the reads of the value sets. The summaries are returned
+   * in the order of the builders.
+   */
+  @NotNull
+  public List<VariableSummary> summarize(@NotNull ValueTable table,
+      @NotNull List<? extends PartitionableVariableSummaryBuilder<?, ?>> builders) {
+    Map<List<VariableEntity>, List<Integer>> groups = Maps.newLinkedHashMap();
+    for(int i = 0; i < builders.size(); i++) {
+      List<VariableEntity> entities = builders.get(i).getFilteredVariableEntities(table);
+      List<Integer> group = groups.get(entities);
+      if(group == null) {
+        group = Lists.newArrayList();
+        groups.put(entities, group);
+      }
+      group.add(i);
+    }
+    if(groups.size() == 1) return summarize(table, groups.keySet().iterator().next(), builders);
+
+    VariableSummary[] summaries = new VariableSummary[builders.size()];
+    for(Map.Entry<List<VariableEntity>, List<Integer>> group : groups.entrySet()) {
+      List<PartitionableVariableSummaryBuilder<?, ?>> groupBuilders = Lists.newArrayList();
+      for(int i : group.getValue()) {
+        groupBuilders.add(builders.get(i));
+      }
+      List<VariableSummary> groupSummaries = summarize(table, group.getKey(), groupBuilders);
+      for(int i = 0; i < groupSummaries.size(); i++) {
+        summaries[group.getValue().get(i)] = groupSummaries.get(i);
+      }
+    }
+    return ImmutableList.copyOf(summaries);
+  }
+
+  /**
+   * Computes the summaries of several variables of a table over the given entities. The value sets of each partition
+   * are read once (see {@link ValueTable#getValueSets(Iterable)}) and the values of every variable are extracted from
+   * them. The summaries are returned in the order of the builders.
+   */
+  @NotNull
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  public List<VariableSummary> summarize(@NotNull final ValueTable table, @NotNull List<VariableEntity> entities,
+      @NotNull final List<? extends PartitionableVariableSummaryBuilder<?, ?>> builders) {
+    if(builders.size() == 1) {
+      PartitionableVariableSummaryBuilder builder = builders.get(0);
+      return ImmutableList
+          .of(summarize(table, table.getVariableValueSource(builder.getVariable().getName()), entities, builder));
+    }
+
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    final VariableValueSource[] sources = new VariableValueSource[builders.size()];
+    for(int i = 0; i < sources.length; i++) {
+      sources[i] = table.getVariableValueSource(builders.get(i).getVariable().getName());
+    }
+
+    List<Future<PartitionableVariableSummaryBuilder[]>> partials = Lists.newArrayList();
+    for(final List<VariableEntity> partition : Lists
+        .partition(entities, partitionSize > 0 ? partitionSize : table.getVariableEntityBatchSize())) {
+      partials.add(executorService.submit(new Callable<PartitionableVariableSummaryBuilder[]>() {
+        @Override
+        public PartitionableVariableSummaryBuilder[] call() throws Exception {
+          PartitionableVariableSummaryBuilder[] partial = new PartitionableVariableSummaryBuilder[sources.length];
+          for(int i = 0; i < partial.length; i++) {
+            partial[i] = (PartitionableVariableSummaryBuilder) builders.get(i).newPartition();
+          }
+          for(ValueSet valueSet : table.getValueSets(partition)) {
+            for(int i = 0; i < partial.length; i++) {
+              partial[i].addValue(sources[i].getValue(valueSet));
+            }
+          }
+          return partial;
+        }
+      }));
+    }
+
+    for(Future<PartitionableVariableSummaryBuilder[]> partial : partials) {
+      PartitionableVariableSummaryBuilder[] partitionBuilders = waitFor(partial);
+      for(int i = 0; i < partitionBuilders.length; i++) {
+        ((PartitionableVariableSummaryBuilder) builders.get(i)).merge(partitionBuilders[i]);
+      }
+    }
+
+    List<VariableSummary> summaries = Lists.newArrayListWithCapacity(builders.size());
+    for(PartitionableVariableSummaryBuilder<?, ?> builder : builders) {
+      summaries.add(builder.build());
+    }
+    log.debug("Summaries of {} variables of {} computed from {} partitions in {}", builders.size(),
+        table.getTableReference(), partials.size(), stopwatch);
+    return summaries;
+  }
+
+  private <T> T waitFor(Future<T> future) {
+    try {
+      return future.get();
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch(ExecutionException e) {
+      Throwable cause = e.getCause();
+      if(cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new RuntimeException(cause);
+    }
+  }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.math.stat;
+
+import java.util.Random;
+
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.offset;
+
+public class QuantileSketchTest {
+
+  @Test
+  public void test_exactWhenSmall() {
+    QuantileSketch sketch = new QuantileSketch();
+    DescriptiveStatistics expected = new DescriptiveStatistics();
+    for(int i = 1; i <= 100; i++) {
+      sketch.addValue(i);
+      expected.addValue(i);
+    }
+    assertThat(sketch.isExact()).isTrue();
+    for(double p : new double[] { 0.5, 5, 25, 50, 75, 99.5 }) {
+      assertThat(sketch.getPercentile(p)).isEqualTo(expected.getPercentile(p));
+    }
+  }
+
+  @Test
+  public void test_emptySketch() {
+    assertThat(new QuantileSketch().getPercentile(50)).isNaN();
+  }
+
+  @Test
+  public void test_approximateRankError() {
+    QuantileSketch sketch = new QuantileSketch(200);
+    int n = 200000;
+    // values are a shuffled permutation of [0, n[ so that the percentile p is close to p * n / 100
+    int[] values = shuffled(n, new Random(3));
+    for(int v : values) {
+      sketch.addValue(v);
+    }
+    assertThat(sketch.isExact()).isFalse();
+    assertThat(sketch.getN()).isEqualTo(n);
+    for(double p : new double[] { 1, 10, 25, 50, 75, 90, 99 }) {
+      assertThat(sketch.getPercentile(p)).isEqualTo(p * n / 100, offset(0.02 * n));
+    }
+  }
+
+  @Test
+  public void test_mergedSketchesAreAccurate() {
+    int n = 100000;
+    int[] values = shuffled(n, new Random(5));
+    QuantileSketch merged = new QuantileSketch(200);
+    for(int part = 0; part < 4; part++) {
+      QuantileSketch partial = new QuantileSketch(200);
+      for(int i = part * n / 4; i < (part + 1) * n / 4; i++) {
+        partial.addValue(values[i]);
+      }
+      merged.merge(partial);
+    }
+    assertThat(merged.getN()).isEqualTo(n);
+    for(double p : new double[] { 5, 50, 95 }) {
+      assertThat(merged.getPercentile(p)).isEqualTo(p * n / 100, offset(0.02 * n));
+    }
+  }
+
+  @Test
+  public void test_addToIntervalFrequencyAccountsAllValues() {
+    int n = 50000;
+    QuantileSketch sketch = new QuantileSketch(100);
+    for(int v : shuffled(n, new Random(9))) {
+      sketch.addValue(v);
+    }
+    IntervalFrequency freqs = new IntervalFrequency(0, n - 1, 10);
+    sketch.addTo(freqs);
+    long total = 0;
+    for(IntervalFrequency.Interval interval : freqs.intervals()) {
+      total += interval.getFreq();
+    }
+    // compactions preserve the total weight of the retained items
+    assertThat(total).isEqualTo(n);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_mergeDifferentAccuracy() {
+    new QuantileSketch(100).merge(new QuantileSketch(200));
+  }
+
+  private int[] shuffled(int n, Random random) {
+    int[] values = new int[n];
+    for(int i = 0; i < n; i++) {
+      values[i] = i;
+    }
+    for(int i = n - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int tmp = values[i];
+      values[i] = values[j];
+      values[j] = tmp;
+    }
+    return values;
+  }
+
+}
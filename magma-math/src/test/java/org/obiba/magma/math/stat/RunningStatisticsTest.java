@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.math.stat;
+
+import java.util.Random;
+
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.offset;
+
+public class RunningStatisticsTest {
+
+  private static final double DELTA = 1e-9;
+
+  @Test
+  public void test_emptyStatistics() {
+    RunningStatistics stats = new RunningStatistics();
+    assertThat(stats.getN()).isEqualTo(0l);
+    assertThat(stats.getMean()).isNaN();
+    assertThat(stats.getVariance()).isNaN();
+    assertThat(stats.getMin()).isNaN();
+  }
+
+  @Test
+  public void test_sameAsDescriptiveStatistics() {
+    Random random = new Random(11);
+    RunningStatistics stats = new RunningStatistics();
+    DescriptiveStatistics expected = new DescriptiveStatistics();
+    for(int i = 0; i < 10000; i++) {
+      double d = random.nextGaussian() * 10 + 50;
+      stats.addValue(d);
+      expected.addValue(d);
+    }
+    assertSame(stats, expected);
+  }
+
+  @Test
+  public void test_mergeSameAsSinglePass() {
+    Random random = new Random(7);
+    RunningStatistics stats = new RunningStatistics();
+    DescriptiveStatistics expected = new DescriptiveStatistics();
+    for(int part = 0; part < 5; part++) {
+      RunningStatistics partial = new RunningStatistics();
+      for(int i = 0; i < 1000 * (part + 1); i++) {
+        double d = random.nextDouble() * 100 * (part + 1);
+        partial.addValue(d);
+        expected.addValue(d);
+      }
+      stats.merge(partial);
+    }
+    stats.merge(new RunningStatistics());
+    assertSame(stats, expected);
+  }
+
+  private void assertSame(RunningStatistics stats, DescriptiveStatistics expected) {
+    assertThat(stats.getN()).isEqualTo(expected.getN());
+    assertThat(stats.getMin()).isEqualTo(expected.getMin());
+    assertThat(stats.getMax()).isEqualTo(expected.getMax());
+    assertThat(stats.getSum()).isEqualTo(expected.getSum(), offset(DELTA * expected.getSum()));
+    assertThat(stats.getMean()).isEqualTo(expected.getMean(), offset(DELTA));
+    assertThat(stats.getVariance()).isEqualTo(expected.getVariance(), offset(DELTA * expected.getVariance()));
+    assertThat(stats.getSkewness()).isEqualTo(expected.getSkewness(), offset(1e-6));
+    assertThat(stats.getKurtosis()).isEqualTo(expected.getKurtosis(), offset(1e-6));
+  }
+
+}
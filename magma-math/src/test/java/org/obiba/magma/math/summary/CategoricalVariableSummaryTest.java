@@ -126,6 +126,50 @@ public class CategoricalVariableSummaryTest extends AbstractMagmaTest {
     assertThat(summary.getMode()).isEqualTo("CAT1");
   }
 
+  @Test
+  public void test_withMissingAndOtherValues() {
+    Variable variable = Variable.Builder.newVariable("mock", IntegerType.get(), "mock").addCategory("1", null, false)
+        .addCategory("9", null, true).build();
+    CategoricalVariableSummary summary = computeFromTable(variable,
+        Values.asValues(IntegerType.get(), "1", "9", "9", "5", "7", null));
+    assertThat(summary.getMode()).isEqualTo("9");
+    assertThat(summary.getN()).isEqualTo(6);
+    assertThat(summary.getOtherFrequency()).isEqualTo(2);
+    assertThat(summary.getFrequencies()).hasSize(3);
+    for (CategoricalVariableSummary.Frequency frequency : summary.getFrequencies()) {
+      switch (frequency.getValue()) {
+        case "1":
+          assertThat(frequency.getFreq()).isEqualTo(1);
+          assertThat(frequency.isMissing()).isFalse();
+          break;
+        case "9":
+          assertThat(frequency.getFreq()).isEqualTo(2);
+          assertThat(frequency.isMissing()).isTrue();
+          break;
+        default:
+          assertThat(frequency.getValue()).isEqualTo(CategoricalVariableSummary.NULL_NAME);
+          assertThat(frequency.getFreq()).isEqualTo(1);
+          assertThat(frequency.isMissing()).isTrue();
+      }
+    }
+  }
+
+  @Test
+  public void test_distinct() {
+    Variable variable = Variable.Builder.newVariable("mock", TextType.get(), "mock").addCategories("YES", "NO")
+        .build();
+    CategoricalVariableSummary summary = new CategoricalVariableSummary.Builder(variable).distinct(true)
+        .addValue(TextType.get().valueOf("YES")).addValue(TextType.get().valueOf("MAYBE"))
+        .addValue(TextType.get().valueOf("MAYBE")).addValue(TextType.get().nullValue()).build();
+    assertThat(summary.getMode()).isEqualTo("MAYBE");
+    assertThat(summary.getOtherFrequency()).isEqualTo(0);
+    ImmutableList.Builder<String> names = ImmutableList.builder();
+    for (CategoricalVariableSummary.Frequency frequency : summary.getFrequencies()) {
+      names.add(frequency.getValue());
+    }
+    assertThat(names.build()).containsExactly("MAYBE", CategoricalVariableSummary.NULL_NAME, "YES");
+  }
+
   private CategoricalVariableSummary computeFromTable(Variable variable, Iterable<Value> values) {
 
     VectorSource vectorSource = mock(VectorSource.class);
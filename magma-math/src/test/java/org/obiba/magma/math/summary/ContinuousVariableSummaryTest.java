@@ -64,6 +64,50 @@ public class ContinuousVariableSummaryTest extends AbstractMagmaTest {
     assertThat(descriptiveStats.getN()).isEqualTo(3l);
   }
 
+  @Test
+  public void test_compute_streamingSameAsExact() {
+    Variable mockVariable = Variable.Builder.newVariable("mock", IntegerType.get(), "mock").addCategory("888", "", true)
+        .build();
+    Iterable<Value> values = Values.asValues(IntegerType.get(), 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, null, 888);
+    ContinuousVariableSummary exact = computeFromTable(mockVariable, values);
+    ContinuousVariableSummary streaming = computeFromTable(mockVariable, values, 100);
+    assertThat(streaming.isStreaming()).isTrue();
+    assertThat(streaming.getDescriptiveStats().getN()).isEqualTo(0l);
+    assertThat(streaming.getStatistics().getN()).isEqualTo(10l);
+    assertThat(streaming.getStatistics().getMean()).isEqualTo(exact.getStatistics().getMean());
+    assertThat(streaming.getPercentiles()).isEqualTo(exact.getPercentiles());
+    assertThat(streaming.getIntervalFrequencies()).hasSize(exact.getIntervalFrequencies().size());
+    assertThat(streaming.getFrequencies()).hasSize(3);
+  }
+
+  @Test
+  public void test_compute_streamingMerge() {
+    Variable mockVariable = Variable.Builder.newVariable("mock", IntegerType.get(), "mock").build();
+    ContinuousVariableSummary.Builder builder = new ContinuousVariableSummary.Builder(mockVariable,
+        ContinuousVariableSummary.Distribution.normal).streaming(100);
+    for(int part = 0; part < 3; part++) {
+      ContinuousVariableSummary.Builder partial = new ContinuousVariableSummary.Builder(mockVariable,
+          ContinuousVariableSummary.Distribution.normal).streaming(100);
+      for(int i = 1; i <= 10; i++) {
+        partial.addValue(IntegerType.get().valueOf(i * (part + 1)));
+      }
+      builder.merge(partial);
+    }
+    ContinuousVariableSummary summary = builder.build();
+    assertThat(summary.getStatistics().getN()).isEqualTo(30l);
+    assertThat(summary.getStatistics().getMin()).isEqualTo(1.0);
+    assertThat(summary.getStatistics().getMax()).isEqualTo(30.0);
+    assertThat(summary.getStatistics().getMean()).isEqualTo(11.0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_compute_mergeRequiresSameMode() {
+    Variable mockVariable = Variable.Builder.newVariable("mock", IntegerType.get(), "mock").build();
+    new ContinuousVariableSummary.Builder(mockVariable, ContinuousVariableSummary.Distribution.normal).merge(
+        new ContinuousVariableSummary.Builder(mockVariable, ContinuousVariableSummary.Distribution.normal)
+            .streaming(100));
+  }
+
   /*
     @Test
     public void test_compute_withNullValue() {
@@ -95,6 +139,10 @@ public class ContinuousVariableSummaryTest extends AbstractMagmaTest {
   */
 
   private ContinuousVariableSummary computeFromTable(Variable variable, Iterable<Value> values) {
+    return computeFromTable(variable, values, null);
+  }
+
+  private ContinuousVariableSummary computeFromTable(Variable variable, Iterable<Value> values, Integer accuracy) {
     ValueTable table = mock(ValueTable.class);
     VectorSource vectorSource = mock(VectorSource.class);
     VariableValueSource valueSource = mock(VariableValueSource.class);
@@ -106,7 +154,7 @@ public class ContinuousVariableSummaryTest extends AbstractMagmaTest {
     when(table.getVariableValueSource(variable.getName())).thenReturn(valueSource);
 
     return new ContinuousVariableSummary.Builder(variable, ContinuousVariableSummary.Distribution.normal)
-        .addTable(table, table.getVariableValueSource(variable.getName())).build();
+        .streaming(accuracy).addTable(table, table.getVariableValueSource(variable.getName())).build();
   }
 
 }
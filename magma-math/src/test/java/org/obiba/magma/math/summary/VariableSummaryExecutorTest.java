@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.obiba.magma.math.summary;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.obiba.magma.Value;
+import org.obiba.magma.ValueSet;
+import org.obiba.magma.ValueSource;
+import org.obiba.magma.ValueType;
+import org.obiba.magma.Variable;
+import org.obiba.magma.VariableEntity;
+import org.obiba.magma.VectorSource;
+import org.obiba.magma.support.StaticDatasource;
+import org.obiba.magma.support.StaticValueTable;
+import org.obiba.magma.test.AbstractMagmaTest;
+import org.obiba.magma.type.IntegerType;
+import org.obiba.magma.type.TextType;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.offset;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class VariableSummaryExecutorTest extends AbstractMagmaTest {
+
+  private static final int ENTITIES = 1000;
+
+  private ExecutorService executorService;
+
+  private StaticValueTable table;
+
+  private final Variable age = Variable.Builder.newVariable("AGE", IntegerType.get(), "Participant").build();
+
+  private final Variable sex = Variable.Builder.newVariable("SEX", TextType.get(), "Participant")
+      .addCategories("M", "F").build();
+
+  @Before
+  public void setUp() {
+    executorService = Executors.newFixedThreadPool(4);
+    List<String> identifiers = Lists.newArrayList();
+    for(int i = 0; i < ENTITIES; i++) {
+      identifiers.add(String.valueOf(i));
+    }
+    table = new StaticValueTable(new StaticDatasource("ds"), "table", identifiers);
+    for(int i = 0; i < ENTITIES; i++) {
+      table.addValues(String.valueOf(i), age, i % 100 == 0 ? null : (long) i % 90, sex, i % 3 == 0 ? "F" : "M");
+    }
+  }
+
+  @After
+  public void tearDown() {
+    executorService.shutdownNow();
+  }
+
+  @Test
+  public void test_summarize_severalVariables() {
+    List<VariableSummary> summaries = new VariableSummaryExecutor(executorService, 64).summarize(table,
+        ImmutableList.of(new ContinuousVariableSummary.Builder(age, ContinuousVariableSummary.Distribution.normal),
+            new CategoricalVariableSummary.Builder(sex)));
+
+    assertThat(summaries).hasSize(2);
+    ContinuousVariableSummary ageSummary = (ContinuousVariableSummary) summaries.get(0);
+    ContinuousVariableSummary expectedAge = sequential(
+        new ContinuousVariableSummary.Builder(age, ContinuousVariableSummary.Distribution.normal)).build();
+    assertThat(ageSummary.getStatistics().getN()).isEqualTo(expectedAge.getStatistics().getN());
+    assertThat(ageSummary.getStatistics().getMean()).isEqualTo(expectedAge.getStatistics().getMean());
+    assertThat(ageSummary.getPercentiles()).isEqualTo(expectedAge.getPercentiles());
+
+    CategoricalVariableSummary sexSummary = (CategoricalVariableSummary) summaries.get(1);
+    assertThat(sexSummary.getN()).isEqualTo(ENTITIES);
+    assertThat(sexSummary.getMode()).isEqualTo("M");
+  }
+
+  @Test
+  public void test_summarize_vectorInStreamingMode() {
+    ContinuousVariableSummary summary = new VariableSummaryExecutor(executorService, 100)
+        .summarize(table, vectorSource(age),
+            new ContinuousVariableSummary.Builder(age, ContinuousVariableSummary.Distribution.normal).streaming(50));
+    ContinuousVariableSummary expected = sequential(
+        new ContinuousVariableSummary.Builder(age, ContinuousVariableSummary.Distribution.normal).streaming(50))
+        .build();
+    assertThat(summary.isStreaming()).isTrue();
+    assertThat(summary.getStatistics().getN()).isEqualTo(expected.getStatistics().getN());
+    assertThat(summary.getStatistics().getMin()).isEqualTo(expected.getStatistics().getMin());
+    assertThat(summary.getStatistics().getMax()).isEqualTo(expected.getStatistics().getMax());
+    assertThat(summary.getStatistics().getMean()).isEqualTo(expected.getStatistics().getMean(), offset(1e-9));
+  }
+
+  @Test
+  public void test_summarize_vectorFiltered() {
+    CategoricalVariableSummary summary = new VariableSummaryExecutor(executorService, 64)
+        .summarize(table, vectorSource(sex), new CategoricalVariableSummary.Builder(sex).filter(100, 300));
+    assertThat(summary.getN()).isEqualTo(300);
+    assertThat(summary.getOffset()).isEqualTo(100);
+    assertThat(summary.getLimit()).isEqualTo(300);
+  }
+
+  @Test
+  public void test_summarize_severalVariablesFiltered() {
+    List<VariableSummary> summaries = new VariableSummaryExecutor(executorService, 64).summarize(table,
+        ImmutableList.of(new CategoricalVariableSummary.Builder(sex).filter(0, 10),
+            new CategoricalVariableSummary.Builder(sex),
+            new ContinuousVariableSummary.Builder(age, ContinuousVariableSummary.Distribution.normal).filter(0, 10)));
+
+    assertThat(summaries).hasSize(3);
+    assertThat(((CategoricalVariableSummary) summaries.get(0)).getN()).isEqualTo(10);
+    assertThat(((CategoricalVariableSummary) summaries.get(1)).getN()).isEqualTo(ENTITIES);
+    // entity 0 has no age
+    assertThat(((ContinuousVariableSummary) summaries.get(2)).getStatistics().getN()).isEqualTo(9);
+  }
+
+  private ContinuousVariableSummary.Builder sequential(ContinuousVariableSummary.Builder builder) {
+    for(ValueSet valueSet : table.getValueSets()) {
+      builder.addValue(table.getValue(builder.getVariable(), valueSet));
+    }
+    return builder;
+  }
+
+  /**
+   * A value source that reads the static table values of the requested entities only.
+   */
+  private ValueSource vectorSource(final Variable variable) {
+    ValueSource valueSource = mock(ValueSource.class);
+    when(valueSource.supportVectorSource()).thenReturn(true);
+    when(valueSource.asVectorSource()).thenReturn(new VectorSource() {
+      @Override
+      public ValueType getValueType() {
+        return variable.getValueType();
+      }
+
+      @Override
+      public Iterable<Value> getValues(List<VariableEntity> entities) {
+        List<Value> values = Lists.newArrayList();
+        for(ValueSet valueSet : table.getValueSets(entities)) {
+          values.add(table.getValue(variable, valueSet));
+        }
+        return values;
+      }
+    });
+    return valueSource;
+  }
+
+}
@@ -13,10 +13,36 @@ package org.obiba.magma.security;
 import java.io.Serializable;
 import java.util.concurrent.Callable;
 
+import javax.annotation.Nullable;
+
 public interface Authorizer extends Serializable {
 
   boolean isPermitted(String permission);
 
+  /**
+   * Evaluates several permissions at once.
+   *
+   * @param permissions
+   * @return the decisions, in the order of the permissions
+   */
+  default boolean[] isPermitted(String... permissions) {
+    boolean[] permitted = new boolean[permissions.length];
+    for(int i = 0; i < permissions.length; i++) {
+      permitted[i] = isPermitted(permissions[i]);
+    }
+    return permitted;
+  }
+
+  /**
+   * Key of the subject on behalf of which the permissions are currently evaluated, null if there is none.
+   *
+   * @return
+   */
+  @Nullable
+  default Object getSubjectKey() {
+    return null;
+  }
+
   <V> V silentSudo(Callable<V> sudo);
 
   <V> V sudo(Callable<V> sudo) throws Exception;
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.security;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+
+import org.obiba.magma.metrics.Metrics;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+
+/**
+ * Decorates an {@link Authorizer} with a cache of the permission decisions of each subject. Decisions expire after a
+ * time to live, and can be invalidated explicitly for one subject or for all of them (for instance when permissions
+ * are granted or revoked). Permissions evaluated without a subject (see {@link Authorizer#getSubjectKey()}) are not
+ * cached.
+ * <p/>
+ * Cache hits and misses as well as the time spent evaluating permissions with the decorated authorizer are recorded,
+ * and reported to the metrics registry (see {@link Metrics#CACHE_HIT}, {@link Metrics#CACHE_MISS} and
+ * {@link Metrics#PERMISSION_EVAL}).
+ */
+public class CachingAuthorizer implements Authorizer {
+
+  private static final long serialVersionUID = 4652397154125069914L;
+
+  public static final long DEFAULT_MAXIMUM_SIZE = 100000;
+
+  private final Authorizer delegate;
+
+  private final long ttl;
+
+  private final TimeUnit ttlUnit;
+
+  private final long maximumSize;
+
+  @Nullable
+  private final transient Ticker ticker;
+
+  private transient volatile Cache<Decision, Boolean> decisions;
+
+  private final AtomicLong evaluationCount = new AtomicLong();
+
+  private final AtomicLong evaluationTime = new AtomicLong();
+
+  public CachingAuthorizer(Authorizer delegate, long ttl, TimeUnit ttlUnit) {
+    this(delegate, ttl, ttlUnit, DEFAULT_MAXIMUM_SIZE);
+  }
+
+  public CachingAuthorizer(Authorizer delegate, long ttl, TimeUnit ttlUnit, long maximumSize) {
+    this(delegate, ttl, ttlUnit, maximumSize, null);
+  }
+
+  @VisibleForTesting
+  CachingAuthorizer(Authorizer delegate, long ttl, TimeUnit ttlUnit, long maximumSize, @Nullable Ticker ticker) {
+    if(delegate == null) throw new IllegalArgumentException("delegate cannot be null");
+    if(ttlUnit == null) throw new IllegalArgumentException("ttlUnit cannot be null");
+    this.delegate = delegate;
+    this.ttl = ttl;
+    this.ttlUnit = ttlUnit;
+    this.maximumSize = maximumSize;
+    this.ticker = ticker;
+  }
+
+  public Authorizer getDelegate() {
+    return delegate;
+  }
+
+  @Override
+  public boolean isPermitted(String permission) {
+    Object subjectKey = delegate.getSubjectKey();
+    if(subjectKey == null) return evaluate(permission)[0];
+
+    Decision decision = new Decision(subjectKey, permission);
+    Boolean permitted = getDecisions().getIfPresent(decision);
+    if(permitted == null) {
+      Metrics.count(Metrics.CACHE_MISS);
+      permitted = evaluate(permission)[0];
+      getDecisions().put(decision, permitted);
+    } else {
+      Metrics.count(Metrics.CACHE_HIT);
+    }
+    return permitted;
+  }
+
+  @Override
+  public boolean[] isPermitted(String... permissions) {
+    Object subjectKey = delegate.getSubjectKey();
+    if(subjectKey == null) return evaluate(permissions);
+
+    boolean[] permitted = new boolean[permissions.length];
+    // evaluate the permissions that are not cached at once
+    List<Integer> missed = Lists.newArrayList();
+    for(int i = 0; i < permissions.length; i++) {
+      Boolean p = getDecisions().getIfPresent(new Decision(subjectKey, permissions[i]));
+      if(p == null) {
+        missed.add(i);
+      } else {
+        permitted[i] = p;
+      }
+    }
+    Metrics.count(Metrics.CACHE_HIT, permissions.length - missed.size());
+    Metrics.count(Metrics.CACHE_MISS, missed.size());
+    if(!missed.isEmpty()) {
+      String[] toEvaluate = new String[missed.size()];
+      for(int i = 0; i < toEvaluate.length; i++) {
+        toEvaluate[i] = permissions[missed.get(i)];
+      }
+      boolean[] evaluated = evaluate(toEvaluate);
+      for(int i = 0; i < evaluated.length; i++) {
+        permitted[missed.get(i)] = evaluated[i];
+        getDecisions().put(new Decision(subjectKey, toEvaluate[i]), evaluated[i]);
+      }
+    }
+    return permitted;
+  }
+
+  @Nullable
+  @Override
+  public Object getSubjectKey() {
+    return delegate.getSubjectKey();
+  }
+
+  @Override
+  public <V> V silentSudo(Callable<V> sudo) {
+    return delegate.silentSudo(sudo);
+  }
+
+  @Override
+  public <V> V sudo(Callable<V> sudo) throws Exception {
+    return delegate.sudo(sudo);
+  }
+
+  /**
+   * Discards the decisions of all subjects.
+   */
+  public void invalidate() {
+    getDecisions().invalidateAll();
+  }
+
+  /**
+   * Discards the decisions of a subject.
+   *
+   * @param subjectKey
+   */
+  public void invalidate(Object subjectKey) {
+    getDecisions().asMap().keySet().removeIf(decision -> decision.subjectKey.equals(subjectKey));
+  }
+
+  public long getHitCount() {
+    return getDecisions().stats().hitCount();
+  }
+
+  public long getMissCount() {
+    return getDecisions().stats().missCount();
+  }
+
+  /**
+   * Number of permissions evaluated by the decorated authorizer.
+   */
+  public long getEvaluationCount() {
+    return evaluationCount.get();
+  }
+
+  /**
+   * Total time spent evaluating permissions with the decorated authorizer.
+   */
+  public long getEvaluationTime(TimeUnit unit) {
+    return unit.convert(evaluationTime.get(), TimeUnit.NANOSECONDS);
+  }
+
+  private boolean[] evaluate(String... permissions) {
+    long start = System.nanoTime();
+    long metricsStart = Metrics.start();
+    try {
+      return permissions.length == 1
+          ? new boolean[] { delegate.isPermitted(permissions[0]) }
+          : delegate.isPermitted(permissions);
+    } finally {
+      evaluationTime.addAndGet(System.nanoTime() - start);
+      evaluationCount.addAndGet(permissions.length);
+      Metrics.stop(Metrics.PERMISSION_EVAL, metricsStart);
+    }
+  }
+
+  private Cache<Decision, Boolean> getDecisions() {
+    Cache<Decision, Boolean> cache = decisions;
+    if(cache == null) {
+      synchronized(this) {
+        if(decisions == null) {
+          CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder() //
+              .expireAfterWrite(ttl, ttlUnit) //
+              .maximumSize(maximumSize) //
+              .recordStats();
+          if(ticker != null) builder.ticker(ticker);
+          decisions = builder.build();
+        }
+        cache = decisions;
+      }
+    }
+    return cache;
+  }
+
+  private static final class Decision {
+
+    private final Object subjectKey;
+
+    private final String permission;
+
+    private Decision(Object subjectKey, String permission) {
+      this.subjectKey = subjectKey;
+      this.permission = permission;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if(this == obj) return true;
+      if(obj == null || getClass() != obj.getClass()) return false;
+      Decision other = (Decision) obj;
+      return subjectKey.equals(other.subjectKey) && permission.equals(other.permission);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(subjectKey, permission);
+    }
+  }
+
+}
@@ -10,6 +10,8 @@
 
 package org.obiba.magma.security;
 
+import java.util.concurrent.TimeUnit;
+
 import org.obiba.magma.DatasourceRegistry;
 import org.obiba.magma.Decorator;
 import org.obiba.magma.MagmaEngine;
@@ -23,7 +25,21 @@ public class MagmaSecurityExtension implements MagmaEngineExtension {
 
   private static final long serialVersionUID = 8901321475619160822L;
 
-  private final Authorizer authorizer = new ShiroAuthorizer();
+  private final Authorizer authorizer;
+
+  public MagmaSecurityExtension() {
+    authorizer = new ShiroAuthorizer();
+  }
+
+  /**
+   * Permission decisions are cached per subject for the given time to live.
+   *
+   * @param ttl
+   * @param unit
+   */
+  public MagmaSecurityExtension(long ttl, TimeUnit unit) {
+    authorizer = new CachingAuthorizer(new ShiroAuthorizer(), ttl, unit);
+  }
 
   @Override
   public String getName() {
@@ -34,6 +50,13 @@ public class MagmaSecurityExtension implements MagmaEngineExtension {
     return authorizer;
   }
 
+  /**
+   * Discards the cached permission decisions, if any, for instance after permissions were changed.
+   */
+  public void invalidatePermissions() {
+    if(authorizer instanceof CachingAuthorizer) ((CachingAuthorizer) authorizer).invalidate();
+  }
+
   @Override
   public void initialise() {
     Initialisables.initialise(authorizer);
@@ -14,6 +14,7 @@ import org.obiba.magma.Datasource;
 import org.obiba.magma.MagmaRuntimeException;
 import org.obiba.magma.NoSuchValueTableException;
 import org.obiba.magma.ValueTable;
+import org.obiba.magma.security.permissions.Permissions;
 import org.obiba.magma.security.permissions.Permissions.DatasourcePermissionBuilder;
 import org.obiba.magma.support.AbstractDatasourceWrapper;
 
@@ -39,8 +40,10 @@ public class SecuredDatasource extends AbstractDatasourceWrapper {
 
   @Override
   public Set<ValueTable> getValueTables() {
-    return getWrappedDatasource().getValueTables().stream()
-        .filter(builder().tables().read().asPredicate(authz))
+    Set<ValueTable> tables = getWrappedDatasource().getValueTables();
+    return (authzReadTable(Permissions.WILDCARD)
+        ? tables
+        : Permissions.filterPermitted(authz, tables, table -> builder().table(table).read().build())).stream()
         .map(table -> new SecuredValueTable(authz, SecuredDatasource.this, table))
         .collect(Collectors.toSet());
   }
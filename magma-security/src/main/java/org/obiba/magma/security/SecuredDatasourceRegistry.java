@@ -62,15 +62,17 @@ public class SecuredDatasourceRegistry implements DatasourceRegistry {
   @Override
   public Datasource getDatasource(String name) throws NoSuchDatasourceException {
     Datasource ds = delegate.getDatasource(name);
-    if (ds != null && !isPermitted(Permissions.DatasourcePermissionBuilder.forDatasource(name).read().build()))
+    if (ds != null && !isPermitted(readPermission(name)))
       throw new NoSuchDatasourceException(name);
     return securedDatasourceDecorator.decorate(ds);
   }
 
   @Override
   public Set<Datasource> getDatasources() {
-    return delegate.getDatasources().stream()
-        .filter(Permissions.DatasourcePermissionBuilder.forDatasource().read().asPredicate(authorizer))
+    Set<Datasource> datasources = delegate.getDatasources();
+    return (isPermitted(readPermission(Permissions.WILDCARD))
+        ? datasources
+        : Permissions.filterPermitted(authorizer, datasources, ds -> readPermission(ds.getName()))).stream()
         .map(securedDatasourceDecorator::decorate)
         .collect(Collectors.toSet());
   }
@@ -82,8 +84,7 @@ public class SecuredDatasourceRegistry implements DatasourceRegistry {
 
   @Override
   public boolean hasDatasource(String name) {
-    return delegate.hasDatasource(name) &&
-        isPermitted(Permissions.DatasourcePermissionBuilder.forDatasource(name).read().build());
+    return delegate.hasDatasource(name) && isPermitted(readPermission(name));
   }
 
   @Override
@@ -105,4 +106,8 @@ public class SecuredDatasourceRegistry implements DatasourceRegistry {
     return authorizer.isPermitted(permission);
   }
 
+  private String readPermission(String name) {
+    return Permissions.DatasourcePermissionBuilder.forDatasource(name).read().build();
+  }
+
 }
@@ -18,9 +18,10 @@ import org.obiba.magma.security.permissions.Permissions;
 import org.obiba.magma.security.permissions.Permissions.ValueTablePermissionBuilder;
 import org.obiba.magma.support.AbstractValueTableWrapper;
 
+import com.google.common.collect.Lists;
+
 import javax.validation.constraints.NotNull;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.List;
 
 public class SecuredValueTable extends AbstractValueTableWrapper {
 
@@ -60,11 +61,15 @@ public class SecuredValueTable extends AbstractValueTableWrapper {
 
   }
 
+  /**
+   * When a table-level grant covers all the variables, they are returned without any variable-level check. Otherwise
+   * the read permissions of all the variables are evaluated at once.
+   */
   @Override
   public Iterable<Variable> getVariables() {
-    return StreamSupport.stream(super.getVariables().spliterator(), false)
-        .filter(this::isReadable)
-        .collect(Collectors.toList());
+    List<Variable> variables = Lists.newArrayList(super.getVariables());
+    if (isAllReadable()) return variables;
+    return Permissions.filterPermitted(authz, variables, variable -> readPermission(variable.getName()));
   }
 
   @Override
@@ -73,7 +78,15 @@ public class SecuredValueTable extends AbstractValueTableWrapper {
   }
 
   private boolean isReadable(String name) {
-    return authz.isPermitted(builder().variable(name).read().build());
+    return authz.isPermitted(readPermission(name));
+  }
+
+  private boolean isAllReadable() {
+    return authz.isPermitted(readPermission(Permissions.WILDCARD));
+  }
+
+  private String readPermission(String name) {
+    return builder().variable(name).read().build();
   }
 
   private boolean isReadable(Variable variable) {
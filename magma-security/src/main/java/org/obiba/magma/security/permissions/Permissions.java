@@ -15,8 +15,13 @@ import org.obiba.magma.ValueTable;
 import org.obiba.magma.Variable;
 import org.obiba.magma.security.Authorizer;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
+import com.google.common.collect.ImmutableList;
+
 public class Permissions {
 
   public static final String WILDCARD = "*";
@@ -24,6 +29,26 @@ public class Permissions {
   private Permissions() {
   }
 
+  /**
+   * Filters the items on which the permission is granted, all the permissions being evaluated at once.
+   *
+   * @param authorizer
+   * @param items
+   * @param permission the permission to be granted for an item
+   * @return the permitted items, in the iteration order of {@code items}
+   */
+  public static <T> List<T> filterPermitted(Authorizer authorizer, Collection<T> items,
+      Function<T, String> permission) {
+    String[] permissions = items.stream().map(permission).toArray(String[]::new);
+    boolean[] permitted = authorizer.isPermitted(permissions);
+    ImmutableList.Builder<T> builder = ImmutableList.builder();
+    int i = 0;
+    for (T item : items) {
+      if (permitted[i++]) builder.add(item);
+    }
+    return builder.build();
+  }
+
   public static final class Actions {
 
     public static final String READ = "GET";
@@ -12,6 +12,8 @@ package org.obiba.magma.security.shiro;
 
 import java.util.concurrent.Callable;
 
+import javax.annotation.Nullable;
+
 import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.session.Session;
@@ -38,6 +40,23 @@ public class ShiroAuthorizer implements Authorizer {
     return p;
   }
 
+  @Override
+  public boolean[] isPermitted(String... permissions) {
+    Subject subject = ThreadContext.getSubject();
+    boolean[] p = subject == null ? new boolean[permissions.length] : subject.isPermitted(permissions);
+    log.debug("isPermitted({}, {} permissions)", SecurityUtils.getSubject().getPrincipal(), permissions.length);
+    Session session = SecurityUtils.getSubject().getSession(false);
+    if(session != null) session.touch();
+    return p;
+  }
+
+  @Nullable
+  @Override
+  public Object getSubjectKey() {
+    Subject subject = ThreadContext.getSubject();
+    return subject == null ? null : subject.getPrincipal();
+  }
+
   @Override
   public <V> V silentSudo(Callable<V> call) {
     try {
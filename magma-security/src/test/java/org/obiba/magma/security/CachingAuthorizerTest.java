@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2019 OBiBa. All rights reserved.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.obiba.magma.security;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.obiba.magma.MagmaEngine;
+import org.obiba.magma.MagmaMetricsExtension;
+import org.obiba.magma.metrics.InMemoryMetricsRegistry;
+import org.obiba.magma.metrics.Metrics;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class CachingAuthorizerTest {
+
+  private static final Set<String> GRANTED = ImmutableSet.of("rest:/a:GET", "rest:/c:GET");
+
+  private TestAuthorizer delegate;
+
+  private TestTicker ticker;
+
+  private CachingAuthorizer authorizer;
+
+  @Before
+  public void before() {
+    new MagmaEngine();
+    delegate = new TestAuthorizer();
+    ticker = new TestTicker();
+    authorizer = new CachingAuthorizer(delegate, 10, TimeUnit.MINUTES, CachingAuthorizer.DEFAULT_MAXIMUM_SIZE, ticker);
+  }
+
+  @After
+  public void after() {
+    MagmaEngine.get().shutdown();
+  }
+
+  @Test
+  public void test_isPermitted_cachedUntilExpiry() {
+    assertThat(authorizer.isPermitted("rest:/a:GET")).isTrue();
+    assertThat(authorizer.isPermitted("rest:/a:GET")).isTrue();
+    assertThat(authorizer.isPermitted("rest:/b:GET")).isFalse();
+    assertThat(authorizer.isPermitted("rest:/b:GET")).isFalse();
+    assertThat(delegate.evaluated).containsExactly("rest:/a:GET", "rest:/b:GET");
+    assertThat(authorizer.getHitCount()).isEqualTo(2);
+    assertThat(authorizer.getMissCount()).isEqualTo(2);
+
+    ticker.advance(9, TimeUnit.MINUTES);
+    authorizer.isPermitted("rest:/a:GET");
+    assertThat(delegate.evaluated).hasSize(2);
+
+    ticker.advance(2, TimeUnit.MINUTES);
+    authorizer.isPermitted("rest:/a:GET");
+    assertThat(delegate.evaluated).hasSize(3);
+  }
+
+  @Test
+  public void test_isPermitted_perSubject() {
+    authorizer.isPermitted("rest:/a:GET");
+    delegate.subject = "other";
+    authorizer.isPermitted("rest:/a:GET");
+    delegate.subject = null;
+    // not cached without subject
+    authorizer.isPermitted("rest:/a:GET");
+    authorizer.isPermitted("rest:/a:GET");
+    assertThat(delegate.evaluated).hasSize(4);
+  }
+
+  @Test
+  public void test_invalidate() {
+    authorizer.isPermitted("rest:/a:GET");
+    delegate.subject = "other";
+    authorizer.isPermitted("rest:/a:GET");
+
+    authorizer.invalidate("other");
+    authorizer.isPermitted("rest:/a:GET");
+    delegate.subject = "subject";
+    authorizer.isPermitted("rest:/a:GET");
+    assertThat(delegate.evaluated).hasSize(3);
+
+    authorizer.invalidate();
+    authorizer.isPermitted("rest:/a:GET");
+    assertThat(delegate.evaluated).hasSize(4);
+  }
+
+  @Test
+  public void test_isPermitted_bulkEvaluatesMissesOnly() {
+    authorizer.isPermitted("rest:/b:GET");
+    delegate.evaluated.clear();
+
+    boolean[] permitted = authorizer.isPermitted("rest:/a:GET", "rest:/b:GET", "rest:/c:GET");
+    assertThat(permitted).isEqualTo(new boolean[] { true, false, true });
+    assertThat(delegate.evaluated).containsExactly("rest:/a:GET", "rest:/c:GET");
+    assertThat(delegate.bulkEvaluations).isEqualTo(1);
+
+    permitted = authorizer.isPermitted("rest:/c:GET", "rest:/a:GET");
+    assertThat(permitted).isEqualTo(new boolean[] { true, true });
+    assertThat(delegate.evaluated).hasSize(2);
+    assertThat(authorizer.getEvaluationCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void test_metrics() {
+    InMemoryMetricsRegistry registry = new InMemoryMetricsRegistry();
+    MagmaEngine.get().extend(new MagmaMetricsExtension(registry));
+
+    authorizer.isPermitted("rest:/b:GET");
+    authorizer.isPermitted("rest:/a:GET", "rest:/b:GET", "rest:/c:GET");
+    authorizer.isPermitted("rest:/a:GET");
+
+    assertThat(registry.getCounters().get(Metrics.CACHE_MISS).getCount()).isEqualTo(3);
+    assertThat(registry.getCounters().get(Metrics.CACHE_HIT).getCount()).isEqualTo(2);
+    assertThat(registry.getTimers().get(Metrics.PERMISSION_EVAL).getCount()).isEqualTo(2);
+  }
+
+  private static class TestAuthorizer implements Authorizer {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> evaluated = Lists.newArrayList();
+
+    private int bulkEvaluations;
+
+    private Object subject = "subject";
+
+    @Override
+    public boolean isPermitted(String permission) {
+      evaluated.add(permission);
+      return GRANTED.contains(permission);
+    }
+
+    @Override
+    public boolean[] isPermitted(String... permissions) {
+      bulkEvaluations++;
+      return Authorizer.super.isPermitted(permissions);
+    }
+
+    @Nullable
+    @Override
+    public Object getSubjectKey() {
+      return subject;
+    }
+
+    @Override
+    public <V> V silentSudo(Callable<V> sudo) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <V> V sudo(Callable<V> sudo) throws Exception {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private static class TestTicker extends Ticker {
+
+    private long nanos;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+
+    private void advance(long duration, TimeUnit unit) {
+      nanos += unit.toNanos(duration);
+    }
+  }
+}
@@ -11,6 +11,7 @@
 package org.obiba.magma.xstream.converter;
 
 import org.obiba.magma.Value;
+import org.obiba.magma.ValueSequence;
 import org.obiba.magma.ValueType;
 
 import com.google.common.base.Strings;
@@ -28,7 +29,8 @@ public class ValueConverter implements Converter {
   @Override
   @SuppressWarnings("rawtypes")
   public boolean canConvert(Class type) {
-    return Value.class.equals(type);
+    // values may be held by subclasses, but not the sequences
+    return Value.class.isAssignableFrom(type) && !ValueSequence.class.isAssignableFrom(type);
   }
 
   @Override
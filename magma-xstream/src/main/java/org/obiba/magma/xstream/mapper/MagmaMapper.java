@@ -12,6 +12,7 @@ package org.obiba.magma.xstream.mapper;
 
 import org.obiba.magma.Attribute;
 import org.obiba.magma.Category;
+import org.obiba.magma.Value;
 import org.obiba.magma.ValueSequence;
 import org.obiba.magma.Variable;
 
@@ -42,6 +43,10 @@ public class MagmaMapper extends MapperWrapper {
     if(ValueSequence.class.equals(type)) {
       return "sequence";
     }
+    if(Value.class.isAssignableFrom(type) && !ValueSequence.class.isAssignableFrom(type)) {
+      // whatever the class that holds the value
+      return super.serializedClass(Value.class);
+    }
     return super.serializedClass(type);
   }
 